@@ -624,6 +624,71 @@ public class JSweetCommandLineLauncher {
                 "PrinterAdapter#getClassMemberComparator(), to be overloaded by the user to "+
                 "implement the desired order.");
         jsap.registerParameter(switchArg);
+
+        // Runtime helpers
+        switchArg = new Switch(JSweetOptions.useRuntimeHelpers);
+        switchArg.setLongFlag(JSweetOptions.useRuntimeHelpers);
+        switchArg.setHelp(
+                "If enabled, the generated code calls named helper functions that are declared once " +
+                "per generated file (or bundle), instead of inlining a function expression at each use site.");
+        jsap.registerParameter(switchArg);
+
+        // Typed arrays
+        switchArg = new Switch(JSweetOptions.useTypedArrays);
+        switchArg.setLongFlag(JSweetOptions.useTypedArrays);
+        switchArg.setHelp(
+                "If enabled, byte, short, int, float and double arrays are created as JavaScript typed arrays " +
+                "(Int8Array, Int16Array, Int32Array, Float32Array and Float64Array).");
+        jsap.registerParameter(switchArg);
+
+        // Static constructor dispatch
+        switchArg = new Switch(JSweetOptions.staticConstructorDispatch);
+        switchArg.setLongFlag(JSweetOptions.staticConstructorDispatch);
+        switchArg.setHelp(
+                "If enabled, new expressions invoking an overloaded constructor tell the generated constructor " +
+                "which overload to run, so that it does not test the types of its arguments.");
+        jsap.registerParameter(switchArg);
+
+        // Eager static initialization
+        switchArg = new Switch(JSweetOptions.eagerStaticInitialization);
+        switchArg.setLongFlag(JSweetOptions.eagerStaticInitialization);
+        switchArg.setHelp(
+                "If enabled, bundles initialize static fields once when loaded, following the dependencies " +
+                "between static initializers, and read static fields directly. Classes involved in " +
+                "initialization cycles keep the lazy initialization.");
+        jsap.registerParameter(switchArg);
+
+        // Chars as numbers
+        switchArg = new Switch(JSweetOptions.charsAsNumbers);
+        switchArg.setLongFlag(JSweetOptions.charsAsNumbers);
+        switchArg.setHelp(
+                "If enabled, Java chars are represented as numbers (UTF-16 code units) instead of one-character " +
+                "strings, and are converted to strings only when used as strings.");
+        jsap.registerParameter(switchArg);
+
+        // Int arithmetic
+        switchArg = new Switch(JSweetOptions.intArithmetic);
+        switchArg.setLongFlag(JSweetOptions.intArithmetic);
+        switchArg.setHelp(
+                "If enabled, int arithmetic wraps around like in Java (Math.imul for multiplications, |0 for " +
+                "additions, subtractions, remainders, unsigned shifts and negations).");
+        jsap.registerParameter(switchArg);
+
+        // Longs as BigInts
+        switchArg = new Switch(JSweetOptions.longsAsBigInts);
+        switchArg.setLongFlag(JSweetOptions.longsAsBigInts);
+        switchArg.setHelp(
+                "If enabled, Java longs are represented as JavaScript BigInts wrapped to 64 bits, so that long " +
+                "arithmetic is exact (requires a runtime supporting BigInt).");
+        jsap.registerParameter(switchArg);
+
+        // Hoist lambdas
+        switchArg = new Switch(JSweetOptions.hoistLambdas);
+        switchArg.setLongFlag(JSweetOptions.hoistLambdas);
+        switchArg.setHelp(
+                "If enabled, the lambdas and method references that capture nothing are created once and cached " +
+                "in a static field of the enclosing class.");
+        jsap.registerParameter(switchArg);
         
 		return jsap;
 	}
@@ -859,6 +924,32 @@ public class JSweetCommandLineLauncher {
                 }								
                 if (jsapArgs.userSpecified(JSweetOptions.sortClassMembers)) {
                     transpiler.setSortClassMembers(jsapArgs.getBoolean(JSweetOptions.sortClassMembers));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.useRuntimeHelpers)) {
+                    transpiler.setUseRuntimeHelpers(jsapArgs.getBoolean(JSweetOptions.useRuntimeHelpers));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.useTypedArrays)) {
+                    transpiler.setUseTypedArrays(jsapArgs.getBoolean(JSweetOptions.useTypedArrays));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.staticConstructorDispatch)) {
+                    transpiler.setStaticConstructorDispatch(
+                            jsapArgs.getBoolean(JSweetOptions.staticConstructorDispatch));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.eagerStaticInitialization)) {
+                    transpiler.setEagerStaticInitialization(
+                            jsapArgs.getBoolean(JSweetOptions.eagerStaticInitialization));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.charsAsNumbers)) {
+                    transpiler.setCharsAsNumbers(jsapArgs.getBoolean(JSweetOptions.charsAsNumbers));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.intArithmetic)) {
+                    transpiler.setIntArithmetic(jsapArgs.getBoolean(JSweetOptions.intArithmetic));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.longsAsBigInts)) {
+                    transpiler.setLongsAsBigInts(jsapArgs.getBoolean(JSweetOptions.longsAsBigInts));
+                }
+                if (jsapArgs.userSpecified(JSweetOptions.hoistLambdas)) {
+                    transpiler.setHoistLambdas(jsapArgs.getBoolean(JSweetOptions.hoistLambdas));
                 }                               
 				
 				if (tsOutputDir != null) {
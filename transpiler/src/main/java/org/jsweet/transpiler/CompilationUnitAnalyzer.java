@@ -0,0 +1,152 @@
+/* 
+ * JSweet transpiler - http://www.jsweet.org
+ * Copyright (C) 2015 CINCHEO SAS <renaud.pawlak@cincheo.fr>
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jsweet.transpiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jsweet.transpiler.util.Util;
+
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.tree.JCTree.JCBlock;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
+
+/**
+ * This AST scanner gathers, in a single traversal of a compilation unit, all
+ * the local information needed by the pre-translation analyses: the class
+ * declarations (including local and anonymous ones) used by the
+ * {@link OverloadScanner} and the {@link StaticInitilializerAnalyzer}, the
+ * modified local variables (as computed by the {@link ConstAnalyzer}), and the
+ * static initializers that contain asynchronous calls.
+ * 
+ * <p>
+ * Each compilation unit is analyzed independently, so that the analysis can be
+ * run in parallel. Cross-file information (overloads, static initializers
+ * dependency graph) is calculated afterwards from the analyzers' results.
+ * 
+ * @see #analyze(List)
+ */
+public class CompilationUnitAnalyzer extends ConstAnalyzer {
+
+	private final JCCompilationUnit compilationUnit;
+	private final List<JCClassDecl> classDeclarations = new ArrayList<>();
+	private final Map<JCClassDecl, JCClassDecl> enclosingClassDeclarations = new HashMap<>();
+	private final Set<JCBlock> asyncStaticInitializers = new HashSet<>();
+	private final Deque<JCBlock> staticInitializerStack = new ArrayDeque<>();
+	private JCClassDecl currentClassDeclaration;
+
+	/**
+	 * Creates an analyzer for the given compilation unit.
+	 */
+	public CompilationUnitAnalyzer(JCCompilationUnit compilationUnit) {
+		this.compilationUnit = compilationUnit;
+	}
+
+	/**
+	 * Analyzes the given compilation units (in parallel) and returns the
+	 * analyzers, in the order of the given compilation units.
+	 */
+	public static List<CompilationUnitAnalyzer> analyze(List<JCCompilationUnit> compilationUnits) {
+		// the analysis only reads the attributed trees, so that it is safe to
+		// run it concurrently on distinct compilation units
+		return compilationUnits.parallelStream().map(cu -> {
+			CompilationUnitAnalyzer analyzer = new CompilationUnitAnalyzer(cu);
+			analyzer.scan(cu);
+			return analyzer;
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Gets the analyzed compilation unit.
+	 */
+	public JCCompilationUnit getCompilationUnit() {
+		return compilationUnit;
+	}
+
+	/**
+	 * Gets all the class declarations of the compilation unit, including nested,
+	 * local and anonymous classes, in the order of a depth-first traversal of the
+	 * tree (enclosing classes always come first).
+	 */
+	public List<JCClassDecl> getClassDeclarations() {
+		return classDeclarations;
+	}
+
+	/**
+	 * Gets the class declaration that encloses the given class declaration in the
+	 * tree (null for top-level classes).
+	 */
+	public JCClassDecl getEnclosingClassDeclaration(JCClassDecl classDeclaration) {
+		return enclosingClassDeclarations.get(classDeclaration);
+	}
+
+	/**
+	 * Gets the static initializers of the compilation unit that contain calls to
+	 * the <code>await</code> macro, and must therefore be generated as
+	 * <code>async</code> functions.
+	 */
+	public Set<JCBlock> getAsyncStaticInitializers() {
+		return asyncStaticInitializers;
+	}
+
+	@Override
+	public void visitClassDef(JCClassDecl classdecl) {
+		classDeclarations.add(classdecl);
+		if (currentClassDeclaration != null) {
+			enclosingClassDeclarations.put(classdecl, currentClassDeclaration);
+		}
+		JCClassDecl parent = currentClassDeclaration;
+		currentClassDeclaration = classdecl;
+		super.visitClassDef(classdecl);
+		currentClassDeclaration = parent;
+	}
+
+	@Override
+	public void visitBlock(JCBlock block) {
+		if (block.isStatic()) {
+			staticInitializerStack.push(block);
+			super.visitBlock(block);
+			staticInitializerStack.pop();
+		} else {
+			super.visitBlock(block);
+		}
+	}
+
+	@Override
+	public void visitApply(JCMethodInvocation methodInvocation) {
+		if (!staticInitializerStack.isEmpty()) {
+			Symbol methodSymbol = Util.getAccessedSymbol(methodInvocation.meth);
+			if (methodSymbol instanceof MethodSymbol && Util.isAwait((MethodSymbol) methodSymbol)) {
+				asyncStaticInitializers.addAll(staticInitializerStack);
+			}
+		}
+		super.visitApply(methodInvocation);
+	}
+
+}
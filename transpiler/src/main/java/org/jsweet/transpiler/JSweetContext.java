@@ -126,6 +126,14 @@ public class JSweetContext extends Context {
      * default methods that are injected in the target classes.
      */
     public ConstAnalyzer constAnalyzer = null;
+
+	/**
+	 * The static initializers that contain asynchronous calls, as calculated
+	 * before translation (null if not calculated).
+	 * 
+	 * @see CompilationUnitAnalyzer#getAsyncStaticInitializers()
+	 */
+	public Set<JCBlock> asyncStaticInitializers = null;
 	
 	private Map<String, TypeMirror> jdkSubclasses = new HashMap<>();
 
@@ -737,6 +745,18 @@ public class JSweetContext extends Context {
 	 */
 	public Set<VarSymbol> lazyInitializedStatics = new HashSet<>();
 
+	/**
+	 * Holds all the static fields that are eagerly initialized (see
+	 * {@link JSweetOptions#isEagerStaticInitialization()}).
+	 */
+	public Set<VarSymbol> eagerlyInitializedStatics = new HashSet<>();
+
+	/**
+	 * Maps the classes which static state is eagerly initialized to the classes
+	 * that must be initialized before them.
+	 */
+	public Map<ClassSymbol, List<ClassSymbol>> eagerlyInitializedClasses = new HashMap<>();
+
 	private Map<ClassSymbol, Integer> staticInitializerCounts = new HashMap<>();
 
 	/**
@@ -945,11 +965,14 @@ public class JSweetContext extends Context {
 
 	private List<Entry<String, String>> footerStatements = new LinkedList<Entry<String, String>>();
 
+	private List<String> staticInitializationStatements = new ArrayList<>();
+
 	/**
 	 * Clears the footer statements.
 	 */
 	public void clearFooterStatements() {
 		footerStatements.clear();
+		staticInitializationStatements.clear();
 	}
 
 	/**
@@ -957,6 +980,11 @@ public class JSweetContext extends Context {
 	 */
 	public String getFooterStatements() {
 		StringBuilder sb = new StringBuilder();
+		for (String statement : staticInitializationStatements) {
+			sb.append("\n");
+			sb.append(statement);
+			sb.append("\n");
+		}
 		for (Entry<String, String> footerStatement : footerStatements) {
 			sb.append("\n");
 			sb.append(footerStatement.getValue());
@@ -993,6 +1021,14 @@ public class JSweetContext extends Context {
 		footerStatements.add(0, new AbstractMap.SimpleEntry<String, String>("", footerStatement));
 	}
 
+	/**
+	 * Adds a statement that eagerly initializes static state. These statements
+	 * come before all the other footer statements.
+	 */
+	public void addStaticInitializationStatement(String statement) {
+		staticInitializationStatements.add(statement);
+	}
+
 	/**
 	 * A flag to force import generation at the top of the file.
 	 */
@@ -1946,6 +1982,18 @@ public class JSweetContext extends Context {
 		}
 	}
 
+	/**
+	 * Tells if the given enum is generated with a precomputed array of its
+	 * values (see {@link Java2TypeScriptTranslator#ENUM_VALUES}), so that
+	 * <code>values()</code> does not need to scan the enum object. This is the
+	 * case of the regular enums that are part of the transpiled sources.
+	 */
+	public boolean hasPrecomputedEnumValues(TypeSymbol enumType) {
+		return enumType.isEnum() && Util.isSourceElement(enumType) && !isAmbientDeclaration(enumType)
+				&& !hasAnnotationType(enumType, JSweetConfig.ANNOTATION_STRING_ENUM,
+						JSweetConfig.ANNOTATION_STRING_TYPE, JSweetConfig.ANNOTATION_ERASED);
+	}
+
 	/**
 	 * Tells if the given symbol is ambient (part of a def.* package or within
 	 * an <code>@Ambient</code>-annotated scope).
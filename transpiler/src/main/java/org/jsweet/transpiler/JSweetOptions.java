@@ -143,6 +143,46 @@ public interface JSweetOptions {
      * Constant string for the 'sortClassMembers' option.
      */
     String sortClassMembers = "sortClassMembers";
+
+    /**
+     * Constant string for the 'useRuntimeHelpers' option.
+     */
+    String useRuntimeHelpers = "useRuntimeHelpers";
+
+    /**
+     * Constant string for the 'useTypedArrays' option.
+     */
+    String useTypedArrays = "useTypedArrays";
+
+    /**
+     * Constant string for the 'staticConstructorDispatch' option.
+     */
+    String staticConstructorDispatch = "staticConstructorDispatch";
+
+    /**
+     * Constant string for the 'eagerStaticInitialization' option.
+     */
+    String eagerStaticInitialization = "eagerStaticInitialization";
+
+    /**
+     * Constant string for the 'charsAsNumbers' option.
+     */
+    String charsAsNumbers = "charsAsNumbers";
+
+    /**
+     * Constant string for the 'intArithmetic' option.
+     */
+    String intArithmetic = "intArithmetic";
+
+    /**
+     * Constant string for the 'longsAsBigInts' option.
+     */
+    String longsAsBigInts = "longsAsBigInts";
+
+    /**
+     * Constant string for the 'hoistLambdas' option.
+     */
+    String hoistLambdas = "hoistLambdas";
     
 	/**
 	 * All the supported options (used to report non-blocking errors when options do not exist).
@@ -150,7 +190,10 @@ public interface JSweetOptions {
     String[] options = { bundle, noRootDirectories, sourceMap, module, encoding, outEncoding, enableAssertions,
             declaration, tsOnly, ignoreDefinitions, ignoreJavaErrors, header, disableSinglePrecisionFloats,
             disableStaticsLazyInitialization, targetVersion, tsout, dtsout, jsout, candiesJsOut, moduleResolution,
-            extraSystemPath, useSingleQuotesForStringLiterals, nonEnumerableTransients, classpath, sortClassMembers };
+            extraSystemPath, useSingleQuotesForStringLiterals, nonEnumerableTransients, classpath, sortClassMembers,
+            useRuntimeHelpers, useTypedArrays, staticConstructorDispatch,
+            eagerStaticInitialization, charsAsNumbers, intArithmetic, longsAsBigInts,
+            hoistLambdas };
 
 	/**
 	 * Returns the configuration from the configuration file.
@@ -375,4 +418,88 @@ public interface JSweetOptions {
      * {@link PrinterAdapter#getClassMemberComparator()}.
      */
     boolean isSortClassMembers();
+
+    /**
+     * If true, the transpiler generates calls to named runtime helper functions,
+     * declared once per generated file (or bundle), instead of inlining
+     * immediately invoked function expressions at each use site.
+     * 
+     * @see PrinterAdapter#printHelperCall(String, String)
+     */
+    boolean isUseRuntimeHelpers();
+
+    /**
+     * If true, arrays of <code>byte</code>, <code>short</code>,
+     * <code>int</code>, <code>float</code> and <code>double</code> are created
+     * as the matching JavaScript typed arrays (<code>Int8Array</code>,
+     * <code>Int16Array</code>, <code>Int32Array</code>,
+     * <code>Float32Array</code> and <code>Float64Array</code>) instead of
+     * plain arrays.
+     */
+    boolean isUseTypedArrays();
+
+    /**
+     * If true, the constructor overload invoked by a <code>new</code>
+     * expression is selected at compile time: the call passes the key of the
+     * overload so that the generated constructor goes straight to it instead
+     * of testing the types of its arguments. The runtime type tests are kept
+     * for all other invocations (reflection, super calls, external code).
+     */
+    boolean isStaticConstructorDispatch();
+
+    /**
+     * If true, bundles initialize the static fields eagerly, once, when the
+     * bundle is loaded, in the order of the dependencies between the static
+     * initializers, so that static fields are read directly. The classes that
+     * are part of a static initialization cycle keep the lazy initialization (a
+     * warning is reported). This option has no effect when not bundling.
+     * 
+     * @see #isLazyInitializedStatics()
+     */
+    boolean isEagerStaticInitialization();
+
+    /**
+     * If true, Java <code>char</code> values are represented as numbers (UTF-16
+     * code units) rather than as one-character strings, so that char arithmetic
+     * and comparisons do not require any conversion. Chars are converted to
+     * strings only when concatenated to strings or passed to string APIs
+     * (<code>String.valueOf</code>, <code>toString</code>,
+     * <code>StringBuilder.append</code>, ...). When {@link #isUseTypedArrays()}
+     * is also true, <code>char</code> arrays are backed by
+     * <code>Uint16Array</code>.
+     */
+    boolean isCharsAsNumbers();
+
+    /**
+     * If true, arithmetic on Java <code>int</code> values wraps around like in
+     * Java: <code>*</code> is emitted as <code>Math.imul</code>, and
+     * <code>+</code>, <code>-</code>, <code>%</code>, <code>&gt;&gt;&gt;</code>
+     * and negation are truncated with <code>|0</code> (as well as the
+     * corresponding compound assignments). Besides the Java overflow behavior,
+     * this keeps int values in the 32-bit integer representation of JavaScript
+     * engines.
+     */
+    boolean isIntArithmetic();
+
+    /**
+     * If true, Java <code>long</code> values are represented as JavaScript
+     * <code>BigInt</code> values (wrapped to 64 bits with
+     * <code>BigInt.asIntN</code>), so that long arithmetic is exact. Values are
+     * converted when they cross <code>int</code> or <code>double</code>
+     * boundaries, and JDK methods returning longs are converted to big integers.
+     * This option requires a JavaScript runtime supporting <code>BigInt</code>
+     * (ES2020) and is meant to be used with the
+     * {@link org.jsweet.transpiler.extension.RemoveJavaDependenciesAdapter}.
+     * When false, longs are represented as numbers, which are exact up to
+     * 2<sup>53</sup>.
+     */
+    boolean isLongsAsBigInts();
+
+    /**
+     * If true, the lambdas and method references that capture nothing (no
+     * local variable and no <code>this</code>) are created only once: they are
+     * cached in a static field of the enclosing class on first evaluation,
+     * instead of allocating a new function each time they are evaluated.
+     */
+    boolean isHoistLambdas();
 }
\ No newline at end of file
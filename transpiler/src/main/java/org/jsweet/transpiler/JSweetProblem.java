@@ -327,7 +327,17 @@ public enum JSweetProblem {
 	 * Raised when a decorator annotation does not declare any associated
 	 * function.
 	 */
-	CANNOT_FIND_GLOBAL_DECORATOR_FUNCTION(Severity.ERROR);
+	CANNOT_FIND_GLOBAL_DECORATOR_FUNCTION(Severity.ERROR),
+	/**
+	 * Raised when eager static initialization is requested but some static
+	 * initializers depend on each other.
+	 */
+	LAZY_STATIC_INITIALIZATION_CYCLE(Severity.WARNING),
+	/**
+	 * Raised when a constant regular expression uses a Java construct that has
+	 * no JavaScript equivalent.
+	 */
+	UNSUPPORTED_REGEXP_CONSTRUCT(Severity.WARNING);
 
 	private Severity severity;
 
@@ -509,6 +519,12 @@ public enum JSweetProblem {
 			return String.format(
 					"the '%s' decorator annotation should be implemented in a global function of the same name, but this function cannot be found",
 					params);
+		case LAZY_STATIC_INITIALIZATION_CYCLE:
+			return String.format("static initializers depend on each other in %s: these classes are lazily initialized",
+					params);
+		case UNSUPPORTED_REGEXP_CONSTRUCT:
+			return String.format(
+					"unsupported construct '%s' in regular expression \"%s\": it is approximated in JavaScript", params);
 		}
 		return null;
 	}
@@ -88,7 +88,9 @@ import com.google.debugging.sourcemap.SourceMapping;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.gson.Gson;
 import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.code.Symbol.PackageSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
 import com.sun.tools.javac.comp.AttrContext;
 import com.sun.tools.javac.comp.Env;
 import com.sun.tools.javac.file.JavacFileManager;
@@ -243,6 +245,14 @@ public class JSweetTranspiler implements JSweetOptions {
 	private boolean useSingleQuotesForStringLiterals = false;
 	private boolean nonEnumerableTransients = false;
 	private boolean sortClassMembers = false;
+	private boolean useRuntimeHelpers = false;
+	private boolean useTypedArrays = false;
+	private boolean staticConstructorDispatch = false;
+	private boolean eagerStaticInitialization = false;
+	private boolean charsAsNumbers = false;
+	private boolean intArithmetic = false;
+	private boolean longsAsBigInts = false;
+	private boolean hoistLambdas = false;
 
 	private ArrayList<String> adapters = new ArrayList<>();
 	private File configurationFile;
@@ -402,6 +412,32 @@ public class JSweetTranspiler implements JSweetOptions {
             }
             if (options.containsKey(JSweetOptions.nonEnumerableTransients)) {
                 setNonEnumerableTransients((Boolean) getMapValue(options, JSweetOptions.nonEnumerableTransients));
+            }
+            if (options.containsKey(JSweetOptions.useRuntimeHelpers)) {
+                setUseRuntimeHelpers((Boolean) getMapValue(options, JSweetOptions.useRuntimeHelpers));
+            }
+            if (options.containsKey(JSweetOptions.useTypedArrays)) {
+                setUseTypedArrays((Boolean) getMapValue(options, JSweetOptions.useTypedArrays));
+            }
+            if (options.containsKey(JSweetOptions.staticConstructorDispatch)) {
+                setStaticConstructorDispatch(
+                        (Boolean) getMapValue(options, JSweetOptions.staticConstructorDispatch));
+            }
+            if (options.containsKey(JSweetOptions.eagerStaticInitialization)) {
+                setEagerStaticInitialization(
+                        (Boolean) getMapValue(options, JSweetOptions.eagerStaticInitialization));
+            }
+            if (options.containsKey(JSweetOptions.charsAsNumbers)) {
+                setCharsAsNumbers((Boolean) getMapValue(options, JSweetOptions.charsAsNumbers));
+            }
+            if (options.containsKey(JSweetOptions.intArithmetic)) {
+                setIntArithmetic((Boolean) getMapValue(options, JSweetOptions.intArithmetic));
+            }
+            if (options.containsKey(JSweetOptions.longsAsBigInts)) {
+                setLongsAsBigInts((Boolean) getMapValue(options, JSweetOptions.longsAsBigInts));
+            }
+            if (options.containsKey(JSweetOptions.hoistLambdas)) {
+                setHoistLambdas((Boolean) getMapValue(options, JSweetOptions.hoistLambdas));
             }
 		}
 
@@ -963,15 +999,23 @@ public class JSweetTranspiler implements JSweetOptions {
 
 		factory.createBeforeTranslationScanner(transpilationHandler, context).process(compilationUnits);
 
+		// single traversal of each compilation unit, the cross-file analyses
+		// being calculated from the collected information
+		java.util.List<CompilationUnitAnalyzer> analyzers = CompilationUnitAnalyzer.analyze(compilationUnits);
+		context.asyncStaticInitializers = new HashSet<>();
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			context.asyncStaticInitializers.addAll(analyzer.getAsyncStaticInitializers());
+		}
+
 		if (context.useModules) {
 			StaticInitilializerAnalyzer analizer = new StaticInitilializerAnalyzer(context);
-			analizer.process(compilationUnits);
-			generateTsFiles(transpilationHandler, files, compilationUnits);
+			analizer.processAnalyzedCompilationUnits(analyzers);
+			generateTsFiles(transpilationHandler, files, compilationUnits, analyzers);
 		} else {
 			if (bundle) {
-				generateTsBundle(transpilationHandler, files, compilationUnits);
+				generateTsBundle(transpilationHandler, files, compilationUnits, analyzers);
 			} else {
-				generateTsFiles(transpilationHandler, files, compilationUnits);
+				generateTsFiles(transpilationHandler, files, compilationUnits, analyzers);
 			}
 		}
 		log.flush();
@@ -988,11 +1032,11 @@ public class JSweetTranspiler implements JSweetOptions {
 	}
 
 	private void generateTsFiles(ErrorCountTranspilationHandler transpilationHandler, SourceFile[] files,
-			List<JCCompilationUnit> compilationUnits) throws IOException {
+			List<JCCompilationUnit> compilationUnits, java.util.List<CompilationUnitAnalyzer> analyzers)
+			throws IOException {
 		// regular file-to-file generation
-		new OverloadScanner(transpilationHandler, context).process(compilationUnits);
-        context.constAnalyzer = new ConstAnalyzer();
-        context.constAnalyzer.scan(compilationUnits);
+		new OverloadScanner(transpilationHandler, context).processAnalyzedCompilationUnits(analyzers);
+		context.constAnalyzer = createConstAnalyzer(analyzers);
 
 		if (isVerbose()) {
 			context.dumpOverloads(System.out);
@@ -1017,7 +1061,7 @@ public class JSweetTranspiler implements JSweetOptions {
 				AbstractTreePrinter printer = factory.createTranslator(adapter, transpilationHandler, context, cu,
 						generateSourceMaps);
 				printer.print(cu);
-				if (StringUtils.isWhitespace(printer.getResult())) {
+				if (printer.isResultWhitespace()) {
 					continue;
 				}
 				String[] s = cu.getSourceFile().getName().split(File.separator.equals("\\") ? "\\\\" : File.separator);
@@ -1046,7 +1090,8 @@ public class JSweetTranspiler implements JSweetOptions {
 						out.println(line);
 					}
 					out.print(headers);
-					out.println(printer.getResult());
+					printer.writeResult(out);
+					out.println();
 					out.print(context.getGlobalsMappingString());
 					out.print(context.getFooterStatements());
 				} finally {
@@ -1102,13 +1147,22 @@ public class JSweetTranspiler implements JSweetOptions {
 				|| cu.getSourceFile().getName().endsWith("/module_defs.java");
 	}
 
+	private ConstAnalyzer createConstAnalyzer(java.util.List<CompilationUnitAnalyzer> analyzers) {
+		ConstAnalyzer constAnalyzer = new ConstAnalyzer();
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			constAnalyzer.getModifiedVariables().addAll(analyzer.getModifiedVariables());
+		}
+		return constAnalyzer;
+	}
+
 	private void generateTsBundle(ErrorCountTranspilationHandler transpilationHandler, SourceFile[] files,
-			List<JCCompilationUnit> compilationUnits) throws IOException {
+			List<JCCompilationUnit> compilationUnits, java.util.List<CompilationUnitAnalyzer> analyzers)
+			throws IOException {
 		if (context.useModules) {
 			return;
 		}
 		StaticInitilializerAnalyzer analizer = new StaticInitilializerAnalyzer(context);
-		analizer.process(compilationUnits);
+		analizer.processAnalyzedCompilationUnits(analyzers);
 		ArrayList<Node<JCCompilationUnit>> sourcesInCycle = new ArrayList<>();
 		java.util.List<JCCompilationUnit> orderedCompilationUnits = analizer.globalStaticInitializersDependencies
 				.topologicalSort(n -> {
@@ -1124,9 +1178,15 @@ public class JSweetTranspiler implements JSweetOptions {
 			return;
 		}
 
-		new OverloadScanner(transpilationHandler, context).process(orderedCompilationUnits);
-		context.constAnalyzer = new ConstAnalyzer();
-		context.constAnalyzer.process(orderedCompilationUnits);
+		Map<JCCompilationUnit, CompilationUnitAnalyzer> analyzersByCompilationUnit = analyzers.stream()
+				.collect(Collectors.toMap(CompilationUnitAnalyzer::getCompilationUnit, analyzer -> analyzer));
+		java.util.List<CompilationUnitAnalyzer> orderedAnalyzers = orderedCompilationUnits.stream()
+				.map(analyzersByCompilationUnit::get).collect(Collectors.toList());
+		new OverloadScanner(transpilationHandler, context).processAnalyzedCompilationUnits(orderedAnalyzers);
+		context.constAnalyzer = createConstAnalyzer(orderedAnalyzers);
+		if (isEagerStaticInitialization()) {
+			initEagerStaticInitializations(transpilationHandler, analizer, orderedAnalyzers);
+		}
 		
 		adapter.onTranspilationStarted();
 
@@ -1149,6 +1209,23 @@ public class JSweetTranspiler implements JSweetOptions {
 		adapter.onTranspilationFinished();
 	}
 
+	private void initEagerStaticInitializations(ErrorCountTranspilationHandler transpilationHandler,
+			StaticInitilializerAnalyzer analizer, java.util.List<CompilationUnitAnalyzer> analyzers) {
+		Set<ClassSymbol> cyclicClasses = new LinkedHashSet<>();
+		context.eagerlyInitializedClasses = analizer.analyzeEagerStaticInitializations(analyzers, cyclicClasses);
+		for (VarSymbol var : context.lazyInitializedStatics) {
+			if (context.eagerlyInitializedClasses.containsKey(var.enclClass())) {
+				context.eagerlyInitializedStatics.add(var);
+			}
+		}
+		context.lazyInitializedStatics.removeAll(context.eagerlyInitializedStatics);
+		if (!cyclicClasses.isEmpty()) {
+			transpilationHandler.report(JSweetProblem.LAZY_STATIC_INITIALIZATION_CYCLE, null,
+					JSweetProblem.LAZY_STATIC_INITIALIZATION_CYCLE.getMessage(cyclicClasses.stream()
+							.map(c -> c.getQualifiedName().toString()).collect(Collectors.toList())));
+		}
+	}
+
 	private void initSourceFileJavaPaths(SourceFile file, JCCompilationUnit cu) {
 		String[] s = cu.getSourceFile().getName().split(File.separator.equals("\\") ? "\\\\" : File.separator);
 		String cuName = s[s.length - 1];
@@ -1958,5 +2035,77 @@ public class JSweetTranspiler implements JSweetOptions {
     public void setSortClassMembers(boolean sortClassMembers) {
         this.sortClassMembers = sortClassMembers;
     }
+
+    @Override
+    public boolean isUseRuntimeHelpers() {
+        return this.useRuntimeHelpers;
+    }
+
+    public void setUseRuntimeHelpers(boolean useRuntimeHelpers) {
+        this.useRuntimeHelpers = useRuntimeHelpers;
+    }
+
+    @Override
+    public boolean isUseTypedArrays() {
+        return this.useTypedArrays;
+    }
+
+    public void setUseTypedArrays(boolean useTypedArrays) {
+        this.useTypedArrays = useTypedArrays;
+    }
+
+    @Override
+    public boolean isStaticConstructorDispatch() {
+        return this.staticConstructorDispatch;
+    }
+
+    public void setStaticConstructorDispatch(boolean staticConstructorDispatch) {
+        this.staticConstructorDispatch = staticConstructorDispatch;
+    }
+
+    @Override
+    public boolean isEagerStaticInitialization() {
+        return this.eagerStaticInitialization;
+    }
+
+    public void setEagerStaticInitialization(boolean eagerStaticInitialization) {
+        this.eagerStaticInitialization = eagerStaticInitialization;
+    }
+
+    @Override
+    public boolean isCharsAsNumbers() {
+        return this.charsAsNumbers;
+    }
+
+    public void setCharsAsNumbers(boolean charsAsNumbers) {
+        this.charsAsNumbers = charsAsNumbers;
+    }
+
+    @Override
+    public boolean isIntArithmetic() {
+        return this.intArithmetic;
+    }
+
+    public void setIntArithmetic(boolean intArithmetic) {
+        this.intArithmetic = intArithmetic;
+    }
+
+    @Override
+    public boolean isLongsAsBigInts() {
+        return this.longsAsBigInts;
+    }
+
+    public void setLongsAsBigInts(boolean longsAsBigInts) {
+        this.longsAsBigInts = longsAsBigInts;
+    }
+
+    @Override
+    public boolean isHoistLambdas() {
+        return this.hoistLambdas;
+    }
+
+    public void setHoistLambdas(boolean hoistLambdas) {
+        this.hoistLambdas = hoistLambdas;
+    }
     
 }
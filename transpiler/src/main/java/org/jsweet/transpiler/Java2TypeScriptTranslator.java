@@ -21,7 +21,6 @@ package org.jsweet.transpiler;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.jsweet.JSweetConfig.ANNOTATION_ERASED;
 import static org.jsweet.JSweetConfig.ANNOTATION_STRING_ENUM;
-import static org.jsweet.JSweetConfig.UTIL_CLASSNAME;
 import static org.jsweet.JSweetConfig.ANNOTATION_FUNCTIONAL_INTERFACE;
 import static org.jsweet.JSweetConfig.ANNOTATION_OBJECT_TYPE;
 import static org.jsweet.JSweetConfig.ANNOTATION_STRING_TYPE;
@@ -40,6 +39,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +55,7 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
@@ -64,22 +65,13 @@ import org.apache.log4j.Logger;
 import org.jsweet.JSweetConfig;
 import org.jsweet.transpiler.OverloadScanner.Overload;
 import org.jsweet.transpiler.extension.PrinterAdapter;
+import org.jsweet.transpiler.extension.PrinterAdapter.Hook;
 import org.jsweet.transpiler.model.ExtendedElement;
 import org.jsweet.transpiler.model.ExtendedElementFactory;
 import org.jsweet.transpiler.model.MethodInvocationElement;
-import org.jsweet.transpiler.model.TypeCastElement;
-import org.jsweet.transpiler.model.support.ArrayAccessElementSupport;
-import org.jsweet.transpiler.model.support.AssignmentElementSupport;
-import org.jsweet.transpiler.model.support.AssignmentWithOperatorElementSupport;
-import org.jsweet.transpiler.model.support.BinaryOperatorElementSupport;
-import org.jsweet.transpiler.model.support.CaseElementSupport;
 import org.jsweet.transpiler.model.support.CompilationUnitElementSupport;
 import org.jsweet.transpiler.model.support.ExtendedElementSupport;
-import org.jsweet.transpiler.model.support.ForeachLoopElementSupport;
 import org.jsweet.transpiler.model.support.ImportElementSupport;
-import org.jsweet.transpiler.model.support.MethodInvocationElementSupport;
-import org.jsweet.transpiler.model.support.NewClassElementSupport;
-import org.jsweet.transpiler.model.support.UnaryOperatorElementSupport;
 import org.jsweet.transpiler.util.AbstractTreePrinter;
 import org.jsweet.transpiler.util.AbstractTreeScanner;
 import org.jsweet.transpiler.util.ConsoleTranspilationHandler;
@@ -104,6 +96,7 @@ import com.sun.tools.javac.code.Type.ClassType;
 import com.sun.tools.javac.code.Type.ErrorType;
 import com.sun.tools.javac.code.Type.MethodType;
 import com.sun.tools.javac.code.Type.TypeVar;
+import com.sun.tools.javac.code.Type.WildcardType;
 import com.sun.tools.javac.code.TypeTag;
 import com.sun.tools.javac.parser.Tokens.Comment;
 import com.sun.tools.javac.tree.JCTree;
@@ -157,6 +150,7 @@ import com.sun.tools.javac.tree.JCTree.JCUnary;
 import com.sun.tools.javac.tree.JCTree.JCVariableDecl;
 import com.sun.tools.javac.tree.JCTree.JCWhileLoop;
 import com.sun.tools.javac.tree.JCTree.JCWildcard;
+import com.sun.tools.javac.tree.TreeInfo;
 import com.sun.tools.javac.tree.TreeScanner;
 import com.sun.tools.javac.util.Name;
 
@@ -173,11 +167,33 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 * TypeScript code.
 	 */
 	public static final String PARENT_CLASS_FIELD_NAME = "__parent";
+	/**
+	 * The name of the extra constructor parameter that holds the key of the
+	 * overload selected at compile time (see
+	 * {@link JSweetOptions#isStaticConstructorDispatch()}).
+	 */
+	public static final String CONSTRUCTOR_OVERLOAD_PARAMETER_NAME = "__overload";
 	/**
 	 * The name of the field where the implemented interface names are stored in the
 	 * generated TypeScript code (for <code>instanceof</code> operator).
 	 */
 	public static final String INTERFACES_FIELD_NAME = "__interfaces";
+	/**
+	 * The name of the runtime helper that tells if an object implements a given
+	 * interface (see {@link #INTERFACE_CHECK_HELPER}).
+	 */
+	public static final String INTERFACE_CHECK_HELPER_NAME = "isInstanceOfInterface";
+	/**
+	 * The runtime helper that tells if an object implements a given interface.
+	 * The {@link #INTERFACES_FIELD_NAME} array of a class is indexed in a lookup
+	 * object the first time it is checked, so that all subsequent checks are a
+	 * single property lookup rather than a linear search.
+	 */
+	public static final String INTERFACE_CHECK_HELPER = "(o: any, i: string) => { "
+			+ "let a = o.constructor != null ? o.constructor[\"" + INTERFACES_FIELD_NAME + "\"] : null; "
+			+ "if (a == null) return false; let s = a.__jsweet_lookup; if (s == null) { s = Object.create(null); "
+			+ "for (let j = 0; j < a.length; j++) s[a[j]] = true; Object.defineProperty(a, \"__jsweet_lookup\", { value: s }); } "
+			+ "return s[i] === true; }";
 	/**
 	 * The suffix added to static field initialization methods (for Java semantics).
 	 */
@@ -207,10 +223,31 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 * The field name for storing the enum's ordinal.
 	 */
 	public static final String ENUM_WRAPPER_CLASS_ORDINAL = "_$ordinal";
+	/**
+	 * The name of the variable that contains the precomputed (frozen) array of
+	 * the enum values, in declaration order.
+	 */
+	public static final String ENUM_VALUES = "_$values";
 	/**
 	 * The default keyword for declaring variables.
 	 */
 	public static final String VAR_DECL_KEYWORD = "let";
+	/**
+	 * The runtime helper function that truncates a number towards zero (long
+	 * division and casts).
+	 */
+	private static final String TRUNCATE_FUNCTION = "n => n<0?Math.ceil(n):Math.floor(n)";
+	/**
+	 * The runtime helper function that converts a char (or a number) to a
+	 * number.
+	 */
+	private static final String CHAR_TO_INT_FUNCTION = "c => c.charCodeAt==null?<any>c:c.charCodeAt(0)";
+	/**
+	 * The runtime helper function that multiplies two ints with a 32-bit
+	 * overflow (<code>Math.imul</code>, which is not part of ES5).
+	 */
+	private static final String IMUL_FUNCTION = "(<any>Math).imul || ((a, b) => { " + VAR_DECL_KEYWORD
+			+ " al = a & 0xffff, bl = b & 0xffff; return (al * bl + (((((a >>> 16) & 0xffff) * bl + al * ((b >>> 16) & 0xffff)) << 16) >>> 0)) | 0; })";
 	/**
 	 * A regular expression for matching body markers in <code>@Replace</code>
 	 * expression.
@@ -351,6 +388,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 
 		private List<String> generatedMethodNames = new ArrayList<>();
 
+		private List<String> hoistedFunctionFields = new ArrayList<>();
+
 		// to be accessed in the parent scope
 		private boolean isAnonymousClass = false;
 		// to be accessed in the parent scope
@@ -458,6 +497,10 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			return generatedMethodNames;
 		}
 
+		public List<String> getHoistedFunctionFields() {
+			return hoistedFunctionFields;
+		}
+
 		public boolean isAnonymousClass() {
 			return isAnonymousClass;
 		}
@@ -532,6 +575,31 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		super(logHandler, context, compilationUnit, adapter, fillSourceMap);
 	}
 
+	private final Map<JCTree, ExtendedElement> extendedElements = new IdentityHashMap<>();
+
+	/**
+	 * Gets the extended element that wraps the given tree for the adapter
+	 * hooks. The elements are created by {@link ExtendedElementFactory} and
+	 * cached per tree node, since a node can be passed to several hooks or be
+	 * printed several times.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <E extends ExtendedElement> E getExtendedElement(JCTree tree) {
+		if (tree == null) {
+			return null;
+		}
+		return (E) extendedElements.computeIfAbsent(tree, ExtendedElementFactory.INSTANCE::create);
+	}
+
+	/**
+	 * Tells if the hook that {@link PrinterAdapter#substitute(ExtendedElement)}
+	 * forwards to is overridden for an identifier or a field access to the
+	 * given symbol.
+	 */
+	private boolean isVariableAccessOrIdentifierHookOverridden(Symbol symbol) {
+		return getAdapter().isHookOverridden(symbol instanceof VariableElement ? Hook.VARIABLE_ACCESS : Hook.IDENTIFIER);
+	}
+
 	private static java.util.List<Class<?>> statementsWithNoSemis = Arrays
 			.asList(new Class<?>[] { JCIf.class, JCForLoop.class, JCEnhancedForLoop.class, JCSwitch.class });
 
@@ -1678,7 +1746,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 		}
 
-		if (!globals && !getScope().enumScope && !context.isInterface(classdecl.sym)
+		if (context.eagerlyInitializedClasses.containsKey(classdecl.sym)) {
+			printEagerStaticInitialization(classdecl);
+		} else if (!globals && !getScope().enumScope && !context.isInterface(classdecl.sym)
 				&& context.getStaticInitializerCount(classdecl.sym) > 0) {
 			printIndent().print("static __static_initialized : boolean = false;").println();
 			int liCount = context.getStaticInitializerCount(classdecl.sym);
@@ -1918,6 +1988,13 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 		}
 
+		if (!getScope().hoistedFunctionFields.isEmpty()) {
+			for (String field : getScope().hoistedFunctionFields) {
+				printIndent().print("static " + field + " : any;").println();
+			}
+			println();
+		}
+
 		removeLastChar();
 
 		if (getScope().enumWrapperClassScope && !getScope(1).anonymousClasses.contains(classdecl)) {
@@ -2066,6 +2143,24 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		}
 		// end of namespace =================================================
 
+		if (getScope().enumScope && context.hasPrecomputedEnumValues(classdecl.sym)) {
+			String enumName = classdecl.sym.getSimpleName().toString();
+			println().printIndent().print(enumName)
+					.print("[" + getStringLiteralQuote() + ENUM_VALUES + getStringLiteralQuote() + "] = Object.freeze([");
+			boolean hasValues = false;
+			for (JCTree tree : classdecl.defs) {
+				if (tree instanceof JCVariableDecl
+						&& ((JCVariableDecl) tree).sym.getKind() == ElementKind.ENUM_CONSTANT) {
+					print(enumName + "." + ((JCVariableDecl) tree).sym.name.toString() + ", ");
+					hasValues = true;
+				}
+			}
+			if (hasValues) {
+				removeLastChars(2);
+			}
+			print("]);").println();
+		}
+
 		if (getScope().enumScope && getScope().isComplexEnum && !getScope().anonymousClasses.contains(classdecl)) {
 			println().printIndent().print(classdecl.sym.getSimpleName().toString()).print(
 					"[" + getStringLiteralQuote() + ENUM_WRAPPER_CLASS_WRAPPERS + getStringLiteralQuote() + "] = [");
@@ -2610,7 +2705,16 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 			wasPrinted = true;
 			print("if (");
-			printMethodParamsTest(overload, method);
+			if (method.sym.isConstructor() && isStaticallyDispatchedConstructor(overload)
+					&& !getScope().isEnumWrapperClassScope()) {
+				print(CONSTRUCTOR_OVERLOAD_PARAMETER_NAME + " === " + getStringLiteralQuote()
+						+ getConstructorOverloadKey(method.sym) + getStringLiteralQuote());
+				print(" || (" + CONSTRUCTOR_OVERLOAD_PARAMETER_NAME + " === undefined && ");
+				printMethodParamsTest(overload, method);
+				print(")");
+			} else {
+				printMethodParamsTest(overload, method);
+			}
 			print(") ");
 			if (method.sym.isConstructor()
 					|| (method.sym.getModifiers().contains(Modifier.DEFAULT) && method.equals(overload.coreMethod))) {
@@ -2772,6 +2876,10 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		}
 		if (inCoreWrongOverload) {
 			scope.setEraseVariableTypes(false);
+			if (isStaticallyDispatchedConstructor(overload) && !scope.isEnumWrapperClassScope()) {
+				print(CONSTRUCTOR_OVERLOAD_PARAMETER_NAME + "? : string, ");
+				paramPrinted = true;
+			}
 		}
 		if (paramPrinted) {
 			removeLastChars(2);
@@ -3143,7 +3251,35 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		if (method.isConstructor()) {
 			return "constructor";
 		}
-		StringBuilder sb = new StringBuilder(method.getSimpleName().toString());
+		return getMangledMethodName(method.getSimpleName().toString(), method);
+	}
+
+	/**
+	 * Gets the key passed by <code>new</code> expressions to select a
+	 * constructor overload at compile time (see
+	 * {@link JSweetOptions#isStaticConstructorDispatch()}).
+	 */
+	private String getConstructorOverloadKey(MethodSymbol constructor) {
+		return getMangledMethodName("constructor", constructor);
+	}
+
+	/**
+	 * Tells if the given overload is a set of constructors that are dispatched
+	 * with the key of the overload selected at compile time, when available.
+	 */
+	private boolean isStaticallyDispatchedConstructor(Overload overload) {
+		if (!context.options.isStaticConstructorDispatch() || overload == null || overload.isValid
+				|| overload.methods.size() < 2 || !overload.coreMethod.sym.isConstructor()
+				|| Util.hasVarargs(overload.coreMethod.sym)) {
+			return false;
+		}
+		ClassSymbol clazz = (ClassSymbol) overload.coreMethod.sym.getEnclosingElement();
+		return !clazz.isEnum() && !context.hasAnnotationType(clazz, JSweetConfig.ANNOTATION_AMBIENT)
+				&& !clazz.packge().getQualifiedName().toString().startsWith(JSweetConfig.LIBS_PACKAGE + ".");
+	}
+
+	private String getMangledMethodName(String name, MethodSymbol method) {
+		StringBuilder sb = new StringBuilder(name);
 		sb.append("$");
 		for (VarSymbol p : method.getParameters()) {
 			sb.append(context.types.erasure(p.type).toString().replace('.', '_').replace("[]", "_A"));
@@ -3227,6 +3363,42 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		}
 	}
 
+	/**
+	 * Prints the method that eagerly initializes the static state of a class,
+	 * once all the classes it depends on are initialized (see
+	 * {@link JSweetOptions#isEagerStaticInitialization()}).
+	 */
+	private void printEagerStaticInitialization(JCClassDecl classdecl) {
+		String prefix = getClassName(classdecl.sym) + ".";
+		printIndent().print("static __static_initialized : boolean = false;").println();
+		printIndent().print("static __static_initialize() {").println().startIndent();
+		printIndent().print("if (!" + prefix + "__static_initialized) {").println().startIndent();
+		printIndent().print(prefix + "__static_initialized = true;").println();
+		for (ClassSymbol dependency : context.eagerlyInitializedClasses.get(classdecl.sym)) {
+			printIndent().print(getQualifiedTypeName(dependency, false, true) + ".__static_initialize();").println();
+		}
+		int static_i = 0;
+		for (JCTree def : classdecl.defs) {
+			if (def instanceof JCVariableDecl && ((JCVariableDecl) def).init != null
+					&& context.eagerlyInitializedStatics.contains(((JCVariableDecl) def).sym)) {
+				JCVariableDecl var = (JCVariableDecl) def;
+				String name = context.getFieldNameMapping(var.sym) != null ? context.getFieldNameMapping(var.sym)
+						: getIdentifier(var.sym);
+				printIndent().print(prefix + name + " = ");
+				if (!substituteAssignedExpression(var.type, var.init)) {
+					print(var.init);
+				}
+				print(";").println();
+			} else if (def instanceof JCBlock && ((JCBlock) def).isStatic()) {
+				printIndent().print(prefix + "__static_initializer_" + static_i++ + "();").println();
+			}
+		}
+		endIndent().printIndent().print("}").println();
+		endIndent().printIndent().print("}").println().println();
+		context.addStaticInitializationStatement(
+				getQualifiedTypeName(classdecl.sym, false, true) + ".__static_initialize();");
+	}
+
 	private void printStaticInitializer(JCBlock block) {
 		if (getScope().isEnumScope()) {
 			// static blocks are initialized in the enum wrapper class
@@ -3261,6 +3433,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	}
 
 	protected boolean isAsyncStaticInitializer(JCBlock initializerBlock) {
+		if (context.asyncStaticInitializers != null) {
+			return context.asyncStaticInitializers.contains(initializerBlock);
+		}
 		AsyncCallsFinder finder = new AsyncCallsFinder(new ConsoleTranspilationHandler(), context, compilationUnit);
 		initializerBlock.accept(finder);
 		return finder.found;
@@ -3281,18 +3456,13 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			if (methodSymbol instanceof MethodSymbol) {
 				MethodSymbol method = (MethodSymbol) methodSymbol;
 
-				if (isAwait(method)) {
+				if (Util.isAwait(method)) {
 					found = true;
 					throw new RollbackException(methodInvocation, null);
 				}
 			}
 			super.visitApply(methodInvocation);
 		}
-
-		private boolean isAwait(MethodSymbol method) {
-			return method.owner.getQualifiedName().toString().equals(UTIL_CLASSNAME)
-					&& method.name.toString().equals("await");
-		}
 	}
 
 	private String avoidJSKeyword(String name) {
@@ -3564,7 +3734,10 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 							report(varDecl, varDecl.name, JSweetProblem.INVALID_FIELD_INITIALIZER_IN_INTERFACE,
 									varDecl.name, ((JCClassDecl) parent).name);
 						} else {
-							if (!getScope().fieldsWithInitializers.contains(varDecl)) {
+							if (context.eagerlyInitializedStatics.contains(varDecl.sym)) {
+								// assigned in the eager static initialization method
+								print(" = ").print(getAdapter().getVariableInitialValue(varDecl.sym));
+							} else if (!getScope().fieldsWithInitializers.contains(varDecl)) {
 								print(" = ");
 								if (!substituteAssignedExpression(varDecl.type, varDecl.init)) {
 									print(varDecl.init);
@@ -3705,7 +3878,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitSelect(JCFieldAccess fieldAccess) {
-		if (!getAdapter().substitute(ExtendedElementFactory.INSTANCE.create(fieldAccess))) {
+		if (!isVariableAccessOrIdentifierHookOverridden(fieldAccess.sym)
+				|| !getAdapter().substitute(getExtendedElement(fieldAccess))) {
 			if (fieldAccess.selected.type.tsym instanceof PackageSymbol) {
 				if (context.isRootPackage(fieldAccess.selected.type.tsym)) {
 					if (fieldAccess.type != null && fieldAccess.type.tsym != null) {
@@ -3854,7 +4028,21 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		if (debugMode) {
 			print("__debug_result(yield ");
 		}
-		getAdapter().substituteMethodInvocation(new MethodInvocationElementSupport(inv));
+		// longs returned by the JDK or JavaScript APIs are numbers
+		boolean bigIntResult = false;
+		if (context.options.isLongsAsBigInts() && Util.getAccessedSymbol(inv.meth) instanceof MethodSymbol) {
+			MethodSymbol methodSymbol = (MethodSymbol) Util.getAccessedSymbol(inv.meth);
+			bigIntResult = !Util.isSourceElement(methodSymbol) && isLong(methodSymbol.getReturnType());
+		}
+		if (bigIntResult) {
+			print(getAdapter().getBigIntHelper() + "(");
+		}
+		if (getAdapter().isHookOverridden(Hook.METHOD_INVOCATION)) {
+			getAdapter().substituteMethodInvocation(getExtendedElement(inv));
+		}
+		if (bigIntResult) {
+			print(")");
+		}
 		if (debugMode) {
 			print(")");
 		}
@@ -4290,7 +4478,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 		}
 
-		if (!getAdapter().substitute(ExtendedElementFactory.INSTANCE.create(ident))) {
+		if (!isVariableAccessOrIdentifierHookOverridden(ident.sym)
+				|| !getAdapter().substitute(getExtendedElement(ident))) {
 			boolean lazyInitializedStatic = false;
 			// add this of class name if ident is a field
 			if (ident.sym instanceof VarSymbol && !ident.sym.name.equals(context.names._this)
@@ -4666,7 +4855,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			if (context.hasAnnotationType(newClass.clazz.type.tsym, JSweetConfig.ANNOTATION_OBJECT_TYPE)) {
 				print("{}");
 			} else {
-				getAdapter().substituteNewClass(new NewClassElementSupport(newClass));
+				if (getAdapter().isHookOverridden(Hook.NEW_CLASS)) {
+					getAdapter().substituteNewClass(getExtendedElement(newClass));
+				}
 			}
 		}
 
@@ -4786,6 +4977,22 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		MethodType t = (MethodType) newClass.constructorType;
 
 		printArgList(t == null ? null : t.argtypes, newClass.args);
+		if (newClass.def == null && newClass.constructor instanceof MethodSymbol
+				&& !Util.hasVarargs((MethodSymbol) newClass.constructor)
+				&& newClass.constructor.getEnclosingElement() instanceof ClassSymbol) {
+			MethodSymbol constructor = (MethodSymbol) newClass.constructor;
+			Overload overload = context.getOverload((ClassSymbol) constructor.getEnclosingElement(), constructor);
+			if (isStaticallyDispatchedConstructor(overload)) {
+				// pad the missing arguments so that the key comes last
+				if (printed || !newClass.args.isEmpty()) {
+					print(", ");
+				}
+				for (int i = newClass.args.size(); i < overload.coreMethod.getParameters().size(); i++) {
+					print("undefined, ");
+				}
+				print(getStringLiteralQuote() + getConstructorOverloadKey(constructor) + getStringLiteralQuote());
+			}
+		}
 		int index = getScope().anonymousClasses.indexOf(newClass.def);
 		if (index >= 0 && !getScope().finalVariables.get(index).isEmpty()) {
 			if (printed || !newClass.args.isEmpty()) {
@@ -4813,10 +5020,17 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 			break;
 		case LONG:
-			if (s.endsWith("L")) {
+			if (context.options.isLongsAsBigInts()) {
+				s = getAdapter().getLongConstant(((Number) literal.value).longValue());
+			} else if (s.endsWith("L")) {
 				s = s.substring(0, s.length() - 1);
 			}
 			break;
+		case CHAR:
+			if (context.options.isCharsAsNumbers()) {
+				s = "" + ((Number) literal.value).intValue();
+			}
+			break;
 		default:
 		}
 		if (s.startsWith("\"") && context.options.isUseSingleQuotesForStringLiterals()) {
@@ -4830,7 +5044,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitIndexed(JCArrayAccess arrayAccess) {
-		if (!getAdapter().substituteArrayAccess(new ArrayAccessElementSupport(arrayAccess))) {
+		if (!getAdapter().isHookOverridden(Hook.ARRAY_ACCESS)
+				|| !getAdapter().substituteArrayAccess(getExtendedElement(arrayAccess))) {
 			print(arrayAccess.indexed).print("[")
 					.substituteAndPrintAssignedExpression(context.symtab.intType, arrayAccess.index).print("]");
 		}
@@ -4853,8 +5068,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 			return true;
 		});
-		if (!getAdapter().substituteForEachLoop(new ForeachLoopElementSupport(foreachLoop), hasLength[0],
-				indexVarName)) {
+		if (!getAdapter().isHookOverridden(Hook.FOREACH_LOOP) || !getAdapter()
+				.substituteForEachLoop(getExtendedElement(foreachLoop), hasLength[0], indexVarName)) {
 			boolean noVariable = foreachLoop.expr instanceof JCIdent || foreachLoop.expr instanceof JCFieldAccess;
 			if (noVariable) {
 				print("for(" + VAR_DECL_KEYWORD + " " + indexVarName + "=0; " + indexVarName + " < ")
@@ -4913,7 +5128,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitBinary(JCBinary binary) {
-		if (!getAdapter().substituteBinaryOperator(new BinaryOperatorElementSupport(binary))) {
+		if (!getAdapter().isHookOverridden(Hook.BINARY_OPERATOR)
+				|| !getAdapter().substituteBinaryOperator(getExtendedElement(binary))) {
 			String op = binary.operator.name.toString();
 			boolean forceParens = false;
 			boolean booleanOp = false;
@@ -4924,28 +5140,59 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 					forceParens = true;
 				}
 				if ("|".equals(op) || "&".equals(op)) {
-					print("((lhs, rhs) => lhs " + op + op + " rhs)(").print(binary.lhs).print(", ").print(binary.rhs)
-							.print(")");
+					getAdapter().printHelperCall("|".equals(op) ? "or" : "and", "(lhs, rhs) => lhs " + op + op + " rhs");
+					print(binary.lhs).print(", ").print(binary.rhs).print(")");
 					return;
 				}
 			}
+			if (context.options.isLongsAsBigInts() && (isLong(binary.lhs.type) || isLong(binary.rhs.type))
+					&& binary.type.tsym != context.symtab.stringType.tsym
+					&& !(Util.isNullLiteral(binary.lhs) || Util.isNullLiteral(binary.rhs))) {
+				if (Util.isComparisonOperator(binary.getKind())) {
+					printLongComparison(binary);
+				} else {
+					printLongOperation(op, binary.lhs, binary.rhs, binary.type);
+				}
+				return;
+			}
+			boolean intArithmetic = context.options.isIntArithmetic() && binary.type.getKind() == TypeKind.INT;
+			if (intArithmetic && binary.getKind() == Kind.MULTIPLY && (context.options.isCharsAsNumbers()
+					|| !(context.types.isSameType(context.symtab.charType,
+							context.types.unboxedTypeOrType(binary.lhs.type))
+							|| context.types.isSameType(context.symtab.charType,
+									context.types.unboxedTypeOrType(binary.rhs.type))))) {
+				printImul();
+				printBinaryLeftOperand(binary);
+				print(", ");
+				printBinaryRightOperand(binary);
+				print(")");
+				return;
+			}
 			boolean closeParen = false;
 			boolean truncate = false;
 			if (Util.isIntegral(binary.type) && binary.getKind() == Kind.DIVIDE) {
 				if (binary.type.getKind() == TypeKind.LONG) {
-					print("(n => n<0?Math.ceil(n):Math.floor(n))(");
+					printTruncate();
 					closeParen = true;
 				} else {
 					print("(");
 					truncate = true;
 				}
+			} else if (intArithmetic && isIntArithmeticOperator(op)) {
+				print("(");
+				truncate = true;
 			}
 			if (singlePrecisionFloats() && binary.type.getKind() == TypeKind.FLOAT) {
 				print("(<any>Math).fround(");
 				closeParen = true;
 			}
-			boolean charWrapping = Util.isArithmeticOrLogicalOperator(binary.getKind())
-					|| Util.isComparisonOperator(binary.getKind());
+			boolean charWrapping = !context.options.isCharsAsNumbers()
+					&& (Util.isArithmeticOrLogicalOperator(binary.getKind())
+							|| Util.isComparisonOperator(binary.getKind()));
+			// chars represented as numbers are converted to strings only when
+			// concatenated to strings
+			boolean charConcatenation = context.options.isCharsAsNumbers() && binary.getKind() == Kind.PLUS
+					&& binary.type.tsym == context.symtab.stringType.tsym;
 			boolean actualCharWrapping = false;
 			if (charWrapping
 					&& context.types.isSameType(context.symtab.charType,
@@ -4956,8 +5203,12 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 					printBinaryLeftOperand(binary);
 					print(".charCodeAt(0)");
 				} else {
-					print("(c => c.charCodeAt==null?<any>c:c.charCodeAt(0))(").print(binary.lhs).print(")");
+					getAdapter().printHelperCall("charToInt", CHAR_TO_INT_FUNCTION);
+					print(binary.lhs).print(")");
 				}
+			} else if (charConcatenation && context.types.isSameType(context.symtab.charType,
+					context.types.unboxedTypeOrType(binary.lhs.type))) {
+				print("String.fromCharCode(").print(binary.lhs).print(")");
 			} else {
 				if (forceParens) {
 					print("(");
@@ -5009,10 +5260,13 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 					printBinaryRightOperand(binary);
 					print(".charCodeAt(0)");
 				} else {
-					print("(c => c.charCodeAt==null?<any>c:c.charCodeAt(0))(");
+					getAdapter().printHelperCall("charToInt", CHAR_TO_INT_FUNCTION);
 					printBinaryRightOperand(binary);
 					print(")");
 				}
+			} else if (charConcatenation && context.types.isSameType(context.symtab.charType,
+					context.types.unboxedTypeOrType(binary.rhs.type))) {
+				print("String.fromCharCode(").print(binary.rhs).print(")");
 			} else {
 				if (forceParens) {
 					print("(");
@@ -5031,6 +5285,222 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		}
 	}
 
+	/**
+	 * Tells if the given operator may produce a result out of the int range
+	 * (or a negative zero) when applied to ints in JavaScript.
+	 * 
+	 * @see JSweetOptions#isIntArithmetic()
+	 */
+	protected boolean isIntArithmeticOperator(String op) {
+		switch (op) {
+		case "+":
+		case "-":
+		case "*":
+		case "%":
+		case ">>>":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Prints the head of a call to <code>Math.imul</code> (polyfilled when
+	 * targeting ES5 or lower).
+	 */
+	protected void printImul() {
+		if (context.options.getEcmaTargetVersion().higherThan(EcmaScriptComplianceLevel.ES5)) {
+			print("Math.imul(");
+		} else {
+			getAdapter().printHelperCall("imul", IMUL_FUNCTION);
+		}
+	}
+
+	/**
+	 * Prints the head of a call that truncates a number towards zero
+	 * (<code>Math.trunc</code>, which is not part of ES5).
+	 */
+	protected void printTruncate() {
+		if (context.options.getEcmaTargetVersion().higherThan(EcmaScriptComplianceLevel.ES5)) {
+			print("Math.trunc(");
+		} else {
+			getAdapter().printHelperCall("truncate", TRUNCATE_FUNCTION);
+		}
+	}
+
+	/**
+	 * Tells if the given type is a long or a boxed long.
+	 */
+	protected boolean isLong(Type type) {
+		return type != null && context.types.unboxedTypeOrType(type).getKind() == TypeKind.LONG;
+	}
+
+	/**
+	 * Prints the given numeric expression as a long, i.e. as a big integer,
+	 * converting ints, chars and floating point values like a Java cast does.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printAsLong(JCExpression expression) {
+		Type type = context.types.unboxedTypeOrType(expression.type);
+		if (type.getKind() == TypeKind.LONG || !(Util.isNumber(type) || type.getKind() == TypeKind.CHAR)) {
+			print(expression);
+		} else if (expression.type.constValue() instanceof Number) {
+			print(getAdapter().getLongConstant(((Number) expression.type.constValue()).longValue()));
+		} else if (type.getKind() == TypeKind.CHAR && !context.options.isCharsAsNumbers()) {
+			print(getAdapter().getBigIntHelper() + "((").print(expression).print(").charCodeAt(0))");
+		} else if (type.getKind() == TypeKind.DOUBLE || type.getKind() == TypeKind.FLOAT) {
+			printDoubleToLong();
+			print(expression).print(")");
+		} else {
+			print(getAdapter().getBigIntHelper() + "(").print(expression).print(")");
+		}
+	}
+
+	/**
+	 * Prints the head of a call that converts a number to a long like a Java
+	 * cast does (NaN is 0 and out-of-range values saturate).
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printDoubleToLong() {
+		getAdapter().printHelperCall("doubleToLong",
+				"d => d !== d ? " + getAdapter().getLongConstant(0) + " : d >= 9223372036854775807 ? "
+						+ getAdapter().getLongConstant(Long.MAX_VALUE) + " : d <= -9223372036854775808 ? "
+						+ getAdapter().getLongConstant(Long.MIN_VALUE) + " : " + getAdapter().getBigIntHelper()
+						+ "(d < 0 ? Math.ceil(d) : Math.floor(d))");
+	}
+
+	/**
+	 * Prints the given expression as a number, converting longs (big integers)
+	 * to numbers.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printAsNumber(JCExpression expression) {
+		if (isLong(expression.type)) {
+			print("Number(").print(expression).print(")");
+		} else {
+			print(expression);
+		}
+	}
+
+	/**
+	 * Prints an arithmetic, bitwise or shift operation with at least one long
+	 * operand, when longs are represented as big integers. Additions,
+	 * subtractions, multiplications, divisions and left shifts are wrapped to
+	 * 64 bits.
+	 * 
+	 * @param op
+	 *            the Java operator
+	 * @param type
+	 *            the type of the result (long, or a floating point type when
+	 *            the other operand is a floating point value)
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printLongOperation(String op, JCExpression lhs, JCExpression rhs, Type type) {
+		String bigInt = getAdapter().getBigIntHelper();
+		if (type.getKind() == TypeKind.LONG && type.constValue() instanceof Number) {
+			print(getAdapter().getLongConstant(((Number) type.constValue()).longValue()));
+			return;
+		}
+		switch (op) {
+		case "<<":
+		case ">>":
+		case ">>>":
+			if (!isLong(lhs.type)) {
+				// the distance of an int shift is masked to 5 bits
+				print("(").print(lhs).print(" " + op + " Number(" + bigInt + ".asUintN(5, ").print(rhs).print(")))");
+				return;
+			}
+			if (">>>".equals(op)) {
+				print(bigInt + ".asIntN(64, " + bigInt + ".asUintN(64, ").print(lhs).print(") >> ");
+			} else if ("<<".equals(op)) {
+				print(bigInt + ".asIntN(64, ").print(lhs).print(" << ");
+			} else {
+				print("(").print(lhs).print(" >> ");
+			}
+			// the distance of a long shift is masked to 6 bits
+			if (isLong(rhs.type)) {
+				print(bigInt + ".asUintN(6, ").print(rhs).print(")");
+			} else if (rhs.type.constValue() instanceof Number) {
+				print(getAdapter().getLongConstant(((Number) rhs.type.constValue()).intValue() & 63));
+			} else {
+				print(bigInt + "(").print(rhs).print(" & 63)");
+			}
+			print(")");
+			return;
+		}
+		if (type.getKind() == TypeKind.DOUBLE || type.getKind() == TypeKind.FLOAT) {
+			print(singlePrecisionFloats() && type.getKind() == TypeKind.FLOAT ? "(<any>Math).fround(" : "(");
+			printAsNumber(lhs);
+			print(" " + op + " ");
+			printAsNumber(rhs);
+			print(")");
+			return;
+		}
+		switch (op) {
+		case "+":
+		case "-":
+		case "*":
+		case "/":
+			print(bigInt + ".asIntN(64, ");
+			break;
+		default:
+			print("(");
+		}
+		printAsLong(lhs);
+		print(" " + op + " ");
+		printAsLong(rhs);
+		print(")");
+	}
+
+	/**
+	 * Prints a comparison with at least one long operand, when longs are
+	 * represented as big integers (big integers are never strictly equal to
+	 * numbers).
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printLongComparison(JCBinary binary) {
+		boolean floating = false;
+		for (JCExpression operand : new JCExpression[] { binary.lhs, binary.rhs }) {
+			TypeKind kind = context.types.unboxedTypeOrType(operand.type).getKind();
+			floating |= kind == TypeKind.DOUBLE || kind == TypeKind.FLOAT;
+		}
+		String op = binary.operator.name.toString();
+		if (("==".equals(op) || "!=".equals(op)) && getComparisonMode() != ComparisonMode.LOOSE) {
+			op += "=";
+		}
+		if (floating) {
+			printAsNumber(binary.lhs);
+		} else {
+			printAsLong(binary.lhs);
+		}
+		space().print(op).space();
+		if (floating) {
+			printAsNumber(binary.rhs);
+		} else {
+			printAsLong(binary.rhs);
+		}
+	}
+
+	/**
+	 * Tells if the given expression can be evaluated twice without side
+	 * effects (e.g. when expanding a compound assignment).
+	 */
+	protected boolean isRepeatableExpression(JCExpression expression) {
+		if (expression instanceof JCIdent || expression instanceof JCLiteral) {
+			return true;
+		} else if (expression instanceof JCFieldAccess) {
+			return isRepeatableExpression(((JCFieldAccess) expression).selected);
+		} else if (expression instanceof JCArrayAccess) {
+			return isRepeatableExpression(((JCArrayAccess) expression).indexed)
+					&& isRepeatableExpression(((JCArrayAccess) expression).index);
+		}
+		return false;
+	}
+
 	protected void printBinaryRightOperand(JCBinary binary) {
 		addInlinedExpression(binary.rhs);
 		print(binary.rhs);
@@ -5116,7 +5586,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitAssignop(JCAssignOp assignOp) {
-		if (!getAdapter().substituteAssignmentWithOperator(new AssignmentWithOperatorElementSupport(assignOp))) {
+		if (!getAdapter().isHookOverridden(Hook.ASSIGNMENT_WITH_OPERATOR)
+				|| !getAdapter().substituteAssignmentWithOperator(getExtendedElement(assignOp))) {
 			boolean expand = staticInitializedAssignment = (getStaticInitializedField(assignOp.lhs) != null);
 			boolean expandChar = context.types.isSameType(context.symtab.charType,
 					context.types.unboxedTypeOrType(assignOp.lhs.type));
@@ -5139,7 +5610,10 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 					&& Util.isIntegral(assignOp.lhs.type) //
 					&& Util.isIntegral(assignOp.rhs.type);
 
-			if (expandChar) {
+			if (expandChar && context.options.isCharsAsNumbers()) {
+				print(" = (").print(assignOp.lhs).print(" " + op + " ").print(assignOp.rhs).print(") & 0xFFFF");
+				return;
+			} else if (expandChar) {
 				print(" = String.fromCharCode(")
 						.substituteAndPrintAssignedExpression(context.symtab.intType, assignOp.lhs)
 						.print(" " + op + " ")
@@ -5147,16 +5621,49 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				return;
 			}
 
+			if (context.options.isLongsAsBigInts() && (isLong(assignOp.lhs.type) || isLong(assignOp.rhs.type))
+					&& assignOp.lhs.type.tsym != context.symtab.stringType.tsym) {
+				printLongAssignmentWithOperator(assignOp, op);
+				return;
+			}
+
+			if (context.options.isIntArithmetic() && assignOp.lhs.type.getKind() == TypeKind.INT && !castToIntegral
+					&& isIntArithmeticOperator(op) && isRepeatableExpression(assignOp.lhs)) {
+				boolean imul = "*".equals(op) && Util.isIntegral(assignOp.rhs.type)
+						&& assignOp.rhs.type.getKind() != TypeKind.LONG;
+				print(" = ");
+				if (imul) {
+					printImul();
+				} else {
+					print("(");
+				}
+				// the right operand is parenthesized since it may bind looser than
+				// the operator (ternaries, subtractions, ...)
+				print(assignOp.lhs).print(imul ? ", " : " " + op + " (");
+				if (context.types.isSameType(context.symtab.charType,
+						context.types.unboxedTypeOrType(assignOp.rhs.type))) {
+					substituteAndPrintAssignedExpression(context.symtab.intType, assignOp.rhs);
+				} else {
+					printAssignWithOperatorRightOperand(assignOp);
+				}
+				print(imul ? ")" : ")|0)");
+				return;
+			}
+
 			if (expand || castToIntegral) {
 				print(" = ");
 
 				if (castToIntegral) {
-					print("(n => n<0?Math.ceil(n):Math.floor(n))(");
+					printTruncate();
 				}
 
 				print(assignOp.lhs);
 				print(" " + op + " ");
-				if (context.types.isSameType(context.symtab.charType,
+				if (context.options.isCharsAsNumbers() && assignOp.lhs.type.tsym == context.symtab.stringType.tsym
+						&& context.types.isSameType(context.symtab.charType,
+								context.types.unboxedTypeOrType(assignOp.rhs.type))) {
+					print("String.fromCharCode(").print(assignOp.rhs).print(")");
+				} else if (context.types.isSameType(context.symtab.charType,
 						context.types.unboxedTypeOrType(assignOp.rhs.type))) {
 					substituteAndPrintAssignedExpression(context.symtab.intType, assignOp.rhs);
 				} else {
@@ -5174,14 +5681,60 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			if (context.types.isSameType(context.symtab.charType, context.types.unboxedTypeOrType(assignOp.rhs.type))) {
 				// Type lhsType = assignOp.lhs.type;
 				boolean isLeftOperandString = (assignOp.lhs.type.tsym == context.symtab.stringType.tsym);
-				Type rightPromotedType = isLeftOperandString ? context.symtab.charType : context.symtab.intType;
-				substituteAndPrintAssignedExpression(rightPromotedType, assignOp.rhs);
+				if (isLeftOperandString && context.options.isCharsAsNumbers()) {
+					print("String.fromCharCode(").print(assignOp.rhs).print(")");
+				} else {
+					Type rightPromotedType = isLeftOperandString ? context.symtab.charType : context.symtab.intType;
+					substituteAndPrintAssignedExpression(rightPromotedType, assignOp.rhs);
+				}
 			} else {
 				printAssignWithOperatorRightOperand(assignOp);
 			}
 		}
 	}
 
+	/**
+	 * Prints the operator and right operand of a compound assignment involving
+	 * a long, when longs are represented as big integers. The assignment is
+	 * expanded (<code>x = x op y</code>) to apply the Java narrowing when the
+	 * left operand can be evaluated twice.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected void printLongAssignmentWithOperator(JCAssignOp assignOp, String op) {
+		Type lhsType = context.types.unboxedTypeOrType(assignOp.lhs.type);
+		Type rhsType = context.types.unboxedTypeOrType(assignOp.rhs.type);
+		if (lhsType.getKind() == TypeKind.DOUBLE || lhsType.getKind() == TypeKind.FLOAT) {
+			print(" " + op + "= ");
+			printAsNumber(assignOp.rhs);
+		} else if (!isRepeatableExpression(assignOp.lhs)) {
+			print(" " + op + "= ");
+			if (lhsType.getKind() == TypeKind.LONG) {
+				printAsLong(assignOp.rhs);
+			} else {
+				printAsNumber(assignOp.rhs);
+			}
+		} else {
+			print(" = ");
+			if (lhsType.getKind() == TypeKind.LONG) {
+				if (rhsType.getKind() == TypeKind.DOUBLE || rhsType.getKind() == TypeKind.FLOAT) {
+					printDoubleToLong();
+					printLongOperation(op, assignOp.lhs, assignOp.rhs, rhsType);
+					print(")");
+				} else {
+					printLongOperation(op, assignOp.lhs, assignOp.rhs, lhsType);
+				}
+			} else if (op.startsWith("<<") || op.startsWith(">>")) {
+				printLongOperation(op, assignOp.lhs, assignOp.rhs, lhsType);
+			} else {
+				int bits = lhsType.getKind() == TypeKind.BYTE ? 8 : lhsType.getKind() == TypeKind.SHORT ? 16 : 32;
+				print("Number(" + getAdapter().getBigIntHelper() + ".asIntN(" + bits + ", ");
+				printLongOperation(op, assignOp.lhs, assignOp.rhs, context.symtab.longType);
+				print("))");
+			}
+		}
+	}
+
 	protected void printAssignWithOperatorRightOperand(JCAssignOp assignOp) {
 		print(assignOp.rhs);
 	}
@@ -5191,17 +5744,18 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitConditional(JCConditional conditional) {
+		Type assignedType = rootConditionalAssignedTypes.isEmpty() ? null : rootConditionalAssignedTypes.peek();
+		if (assignedType == null && context.options.isLongsAsBigInts() && isLong(conditional.type)) {
+			// both branches must be big integers
+			assignedType = conditional.type;
+		}
 		print(conditional.cond);
 		print("?");
-		if (!substituteAssignedExpression(
-				rootConditionalAssignedTypes.isEmpty() ? null : rootConditionalAssignedTypes.peek(),
-				conditional.truepart)) {
+		if (!substituteAssignedExpression(assignedType, conditional.truepart)) {
 			print(conditional.truepart);
 		}
 		print(":");
-		if (!substituteAssignedExpression(
-				rootConditionalAssignedTypes.isEmpty() ? null : rootConditionalAssignedTypes.peek(),
-				conditional.falsepart)) {
+		if (!substituteAssignedExpression(assignedType, conditional.falsepart)) {
 			print(conditional.falsepart);
 		}
 		if (!rootConditionalAssignedTypes.isEmpty()) {
@@ -5300,27 +5854,65 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		if (newArray.elemtype != null) {
 			typeChecker.checkType(newArray, null, newArray.elemtype);
 		}
+		String typedArrayName = null;
+		if (context.options.isUseTypedArrays()) {
+			if (newArray.elemtype != null) {
+				typedArrayName = Util.getTypedArrayName(newArray.elemtype.type, context.options.isCharsAsNumbers());
+			} else if (newArray.type instanceof ArrayType) {
+				typedArrayName = Util.getTypedArrayName(((ArrayType) newArray.type).getComponentType(),
+						context.options.isCharsAsNumbers());
+			}
+		}
 		if (newArray.dims != null && !newArray.dims.isEmpty()) {
-			if (newArray.dims.size() == 1) {
+			if (typedArrayName != null) {
+				if (newArray.dims.size() == 1) {
+					print("<any>new " + typedArrayName + "(").print(newArray.dims.head).print(")");
+				} else {
+					print("<any> ");
+					getAdapter().printHelperCall("createMultiDimensionalTypedArray", "(dims, T) => { " + VAR_DECL_KEYWORD
+							+ " allocate = function(d) { if (d === dims.length - 1) { return new T(dims[d]); } else { "
+							+ VAR_DECL_KEYWORD + " array = []; for(" + VAR_DECL_KEYWORD
+							+ " i = 0; i < dims[d]; i++) { array.push(allocate(d + 1)); } return array; }}; return allocate(0); }");
+					print("[");
+					printArgList(null, newArray.dims);
+					print("], " + typedArrayName + ")");
+				}
+			} else if (newArray.dims.size() == 1) {
 				if (newArray.dims.head instanceof JCLiteral && ((int) ((JCLiteral) newArray.dims.head).value) <= 10) {
 					boolean hasElements = false;
 					print("[");
 					for (int i = 0; i < (int) ((JCLiteral) newArray.dims.head).value; i++) {
-						print(Util.getTypeInitialValue(newArray.elemtype.type) + ", ");
+						print(getAdapter().util().getTypeInitialValue(newArray.elemtype.type) + ", ");
 						hasElements = true;
 					}
 					if (hasElements) {
 						removeLastChars(2);
 					}
 					print("]");
+				} else if (context.options.isUseRuntimeHelpers()) {
+					getAdapter().printHelperCall("createArray",
+							"(s, v) => { let a=[]; while(s-->0) a.push(v); return a; }");
+					print(newArray.dims.head)
+							.print(", " + getAdapter().util().getTypeInitialValue(newArray.elemtype.type) + ")");
 				} else {
-					print("(s => { let a=[]; while(s-->0) a.push(" + Util.getTypeInitialValue(newArray.elemtype.type)
-							+ "); return a; })(").print(newArray.dims.head).print(")");
-				}
+					print("(s => { let a=[]; while(s-->0) a.push("
+							+ getAdapter().util().getTypeInitialValue(newArray.elemtype.type) + "); return a; })(")
+									.print(newArray.dims.head).print(")");
+				}
+			} else if (context.options.isUseRuntimeHelpers()) {
+				print("<any> ");
+				getAdapter().printHelperCall("createMultiDimensionalArray", "(dims, v) => { " + VAR_DECL_KEYWORD
+						+ " allocate = function(dims) { if (dims.length === 0) { return v; } else { " + VAR_DECL_KEYWORD
+						+ " array = []; for(" + VAR_DECL_KEYWORD
+						+ " i = 0; i < dims[0]; i++) { array.push(allocate(dims.slice(1))); } return array; }}; return allocate(dims); }");
+				print("[");
+				printArgList(null, newArray.dims);
+				print("], " + getAdapter().util().getTypeInitialValue(newArray.elemtype.type) + ")");
 			} else {
 				print("<any> (function(dims) { " + VAR_DECL_KEYWORD
 						+ " allocate = function(dims) { if (dims.length === 0) { return "
-						+ Util.getTypeInitialValue(newArray.elemtype.type) + "; } else { " + VAR_DECL_KEYWORD
+						+ getAdapter().util().getTypeInitialValue(newArray.elemtype.type) + "; } else { "
+						+ VAR_DECL_KEYWORD
 						+ " array = []; for(" + VAR_DECL_KEYWORD
 						+ " i = 0; i < dims[0]; i++) { array.push(allocate(dims.slice(1))); } return array; }}; return allocate(dims);})");
 				print("([");
@@ -5328,6 +5920,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				print("])");
 			}
 		} else {
+			if (typedArrayName != null) {
+				print("<any>new " + typedArrayName + "(");
+			}
 			print("[");
 			if (newArray.elems != null && !newArray.elems.isEmpty()) {
 				for (JCExpression e : newArray.elems) {
@@ -5346,6 +5941,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				}
 			}
 			print("]");
+			if (typedArrayName != null) {
+				print(")");
+			}
 		}
 	}
 
@@ -5356,7 +5954,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitUnary(JCUnary unary) {
-		if (!getAdapter().substituteUnaryOperator(new UnaryOperatorElementSupport(unary))) {
+		if (!getAdapter().isHookOverridden(Hook.UNARY_OPERATOR)
+				|| !getAdapter().substituteUnaryOperator(getExtendedElement(unary))) {
 			addInlinedExpression(unary.arg);
 			if (!inRollback) {
 				JCStatement statement = null;
@@ -5386,12 +5985,26 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			} else {
 				inRollback = false;
 			}
+			boolean bigIntLong = context.options.isLongsAsBigInts() && isLong(unary.type);
 			switch (unary.getTag()) {
 			case POS:
-				print("+").print(unary.arg);
+				if (bigIntLong) {
+					// unary plus is not allowed on big integers
+					print(unary.arg);
+				} else {
+					print("+").print(unary.arg);
+				}
 				break;
 			case NEG:
-				print("-").print(unary.arg);
+				if (bigIntLong && unary.type.constValue() instanceof Number) {
+					print(getAdapter().getLongConstant(((Number) unary.type.constValue()).longValue()));
+				} else if (bigIntLong) {
+					print(getAdapter().getBigIntHelper() + ".asIntN(64, -").print(unary.arg).print(")");
+				} else if (context.options.isIntArithmetic() && unary.type.getKind() == TypeKind.INT) {
+					print("(-").print(unary.arg).print("|0)");
+				} else {
+					print("-").print(unary.arg);
+				}
 				break;
 			case POSTDEC:
 			case POSTINC:
@@ -5412,10 +6025,10 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	@Override
 	public void visitSwitch(JCSwitch switchStatement) {
 		print("switch(");
-        if (!getAdapter()
-                .substituteSwitchStatementSelector(ExtendedElementFactory.INSTANCE.create(switchStatement.selector))) {
+        if (!getAdapter().isHookOverridden(Hook.SWITCH_STATEMENT_SELECTOR)
+                || !getAdapter().substituteSwitchStatementSelector(getExtendedElement(switchStatement.selector))) {
     		print(switchStatement.selector);
-    		if (context.types.isSameType(context.symtab.charType,
+    		if (!context.options.isCharsAsNumbers() && context.types.isSameType(context.symtab.charType,
     				context.types.unboxedTypeOrType(switchStatement.selector.type))) {
     			print(".charCodeAt(0)");
     		}
@@ -5438,8 +6051,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	public void visitCase(JCCase caseStatement) {
 		if (caseStatement.pat != null) {
 			print("case ");
-			if (!getAdapter().substituteCaseStatementPattern(new CaseElementSupport(caseStatement),
-					ExtendedElementFactory.INSTANCE.create(caseStatement.pat))) {
+			if (!getAdapter().isHookOverridden(Hook.CASE_STATEMENT_PATTERN)
+					|| !getAdapter().substituteCaseStatementPattern(getExtendedElement(caseStatement),
+							getExtendedElement(caseStatement.pat))) {
 				if (caseStatement.pat.type.isPrimitive()
 						|| context.types.isSameType(context.symtab.stringType, caseStatement.pat.type)) {
 					if (caseStatement.pat instanceof JCIdent) {
@@ -5496,12 +6110,16 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		if (substituteAssignedExpression(cast.type, cast.expr)) {
 			return;
 		}
-		if (getAdapter().substituteTypeCast((TypeCastElement)ExtendedElementFactory.INSTANCE.create(cast))) {
+		if (getAdapter().isHookOverridden(Hook.TYPE_CAST)
+				&& getAdapter().substituteTypeCast(getExtendedElement(cast))) {
 		    return;
 		}
-		if (Util.isIntegral(cast.type)) {
+		// a long already is a big integer
+		boolean truncate = Util.isIntegral(cast.type)
+				&& !(cast.type.getKind() == TypeKind.LONG && context.options.isLongsAsBigInts());
+		if (truncate) {
 			if (cast.type.getKind() == TypeKind.LONG) {
-				print("(n => n<0?Math.ceil(n):Math.floor(n))(");
+				printTruncate();
 			} else {
 				print("(");
 			}
@@ -5525,7 +6143,7 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			}
 		}
 		print(cast.expr);
-		if (Util.isIntegral(cast.type)) {
+		if (truncate) {
 			if (cast.type.getKind() == TypeKind.LONG) {
 				print(")");
 			} else {
@@ -5574,7 +6192,8 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 	 */
 	@Override
 	public void visitAssign(JCAssign assign) {
-		if (!getAdapter().substituteAssignment(new AssignmentElementSupport(assign))) {
+		if (!getAdapter().isHookOverridden(Hook.ASSIGNMENT)
+				|| !getAdapter().substituteAssignment(getExtendedElement(assign))) {
 			staticInitializedAssignment = getStaticInitializedField(assign.lhs) != null;
 			print(assign.lhs).print(isAnnotationScope ? ": " : " = ");
 			if (!substituteAssignedExpression(assign.lhs.type, assign.rhs)) {
@@ -5668,6 +6287,7 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				regularFunction = true;
 			}
 		}
+		boolean hoisted = !regularFunction && printHoistedFunctionStart(lamba);
 		Map<String, VarSymbol> varAccesses = new HashMap<>();
 		Util.fillAllVariableAccesses(varAccesses, lamba);
 		Collection<VarSymbol> finalVars = new ArrayList<>(varAccesses.values());
@@ -5713,6 +6333,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			removeLastChar();
 			print(")");
 		}
+		if (hoisted) {
+			print("))");
+		}
 	}
 
 	/**
@@ -5731,6 +6354,13 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				|| (memberReference.expr instanceof JCFieldAccess
 						&& ((JCFieldAccess) memberReference.expr).sym instanceof VarSymbol);
 
+		// only references to static methods, unbound instance methods and
+		// constructors can be hoisted
+		Symbol exprSymbol = TreeInfo.symbol(memberReference.expr);
+		boolean hoisted = memberReference.sym instanceof MethodSymbol
+				&& (memberReference.expr instanceof JCArrayTypeTree || exprSymbol instanceof ClassSymbol)
+				&& printHoistedFunctionStart(memberReference);
+
 		if (memberReference.sym instanceof MethodSymbol) {
 			MethodSymbol method = (MethodSymbol) memberReference.sym;
 			if (getParent() instanceof JCTypeCast) {
@@ -5797,9 +6427,157 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 				print(")");
 			}
 		}
+		if (hoisted) {
+			print("))");
+		}
 
 	}
 
+	/**
+	 * When {@link JSweetOptions#isHoistLambdas()} is enabled and the given
+	 * function (a lambda or a method reference within a method) captures
+	 * nothing, prints the start of an expression that caches the function in a
+	 * static field of the enclosing class, so that it is created on first
+	 * evaluation only. The field is declared at the end of the class.
+	 * 
+	 * @return true if the function is hoisted, in which case the caller must
+	 *         print the function and close the expression with <code>))</code>
+	 */
+	protected boolean printHoistedFunctionStart(JCTree function) {
+		if (!context.options.isHoistLambdas() || getParent(JCMethodDecl.class) == null) {
+			return false;
+		}
+		JCClassDecl classdecl = getParent(JCClassDecl.class);
+		if (classdecl == null || classdecl.getKind() != Kind.CLASS || classdecl.sym.isAnonymous()
+				|| classdecl.sym.isLocal() || JSweetConfig.GLOBALS_CLASS_NAME.equals(classdecl.name.toString())
+				|| getScope().interfaceScope || getScope().enumScope || getScope().enumWrapperClassScope
+				|| getScope().declareClassScope || !isHoistableFunction(function)) {
+			return false;
+		}
+		// the field name is qualified since static fields are inherited
+		String field = "__jsweet_" + classdecl.sym.flatName().toString().replaceAll("\\W", "_") + "_lambda"
+				+ getScope().hoistedFunctionFields.size();
+		getScope().hoistedFunctionFields.add(field);
+		String access = getClassName(classdecl.sym) + "." + field;
+		print("(" + access + " || (" + access + " = ");
+		return true;
+	}
+
+	/**
+	 * Tells if the given function captures nothing from its enclosing scope (no
+	 * local variable, no <code>this</code>, no local or inner class instance),
+	 * and does not refer to type variables (which would not be in the scope of
+	 * a static field).
+	 */
+	private boolean isHoistableFunction(JCTree function) {
+		Set<Symbol> declaredVariables = new HashSet<>();
+		new TreeScanner() {
+			@Override
+			public void visitVarDef(JCVariableDecl variable) {
+				declaredVariables.add(variable.sym);
+				super.visitVarDef(variable);
+			}
+		}.scan(function);
+		boolean[] hoistable = { true };
+		new TreeScanner() {
+			@Override
+			public void scan(JCTree tree) {
+				if (tree != null && hoistable[0]) {
+					if (containsTypeVariable(tree.type)) {
+						hoistable[0] = false;
+					} else {
+						super.scan(tree);
+					}
+				}
+			}
+
+			@Override
+			public void visitIdent(JCIdent ident) {
+				Symbol s = ident.sym;
+				if ("this".equals(ident.name.toString()) || "super".equals(ident.name.toString())) {
+					hoistable[0] = false;
+				} else if (s instanceof VarSymbol) {
+					if (s.getKind() == ElementKind.FIELD || s.getKind() == ElementKind.ENUM_CONSTANT) {
+						// instance fields are accessed through this
+						hoistable[0] &= s.isStatic();
+					} else {
+						hoistable[0] &= declaredVariables.contains(s);
+					}
+				} else if (s instanceof MethodSymbol) {
+					hoistable[0] &= s.isStatic();
+				} else if (s instanceof ClassSymbol) {
+					hoistable[0] &= !s.isLocal();
+				}
+			}
+
+			@Override
+			public void visitSelect(JCFieldAccess fieldAccess) {
+				if ("this".equals(fieldAccess.name.toString()) || "super".equals(fieldAccess.name.toString())) {
+					hoistable[0] = false;
+				} else {
+					super.visitSelect(fieldAccess);
+				}
+			}
+
+			@Override
+			public void visitNewClass(JCNewClass newClass) {
+				if (newClass.def != null || newClass.type.tsym.isLocal() || newClass.type.tsym.hasOuterInstance()) {
+					hoistable[0] = false;
+				} else {
+					super.visitNewClass(newClass);
+				}
+			}
+
+			@Override
+			public void visitReference(JCMemberReference memberReference) {
+				if ("<init>".equals(memberReference.name.toString())
+						&& memberReference.expr.type.tsym.hasOuterInstance()) {
+					hoistable[0] = false;
+				} else {
+					super.visitReference(memberReference);
+				}
+			}
+
+			@Override
+			public void visitClassDef(JCClassDecl classdecl) {
+				hoistable[0] = false;
+			}
+		}.scan(function);
+		return hoistable[0];
+	}
+
+	private static boolean containsTypeVariable(Type type) {
+		if (type == null) {
+			return false;
+		}
+		if (type instanceof TypeVar) {
+			return true;
+		}
+		if (type instanceof ArrayType) {
+			return containsTypeVariable(((ArrayType) type).elemtype);
+		}
+		if (type instanceof WildcardType) {
+			return containsTypeVariable(((WildcardType) type).type);
+		}
+		if (type instanceof MethodType) {
+			if (containsTypeVariable(type.getReturnType())) {
+				return true;
+			}
+			for (Type parameterType : type.getParameterTypes()) {
+				if (containsTypeVariable(parameterType)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		for (Type typeArgument : type.getTypeArguments()) {
+			if (containsTypeVariable(typeArgument)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Prints a type parameter tree.
 	 */
@@ -5847,13 +6625,29 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			print("(");
 		}
 		if (checkFirstArrayElement
-				|| !getAdapter().substituteInstanceof(exprStr, ExtendedElementFactory.INSTANCE.create(expr), type)) {
+				|| !getAdapter().isHookOverridden(Hook.INSTANCEOF)
+				|| !getAdapter().substituteInstanceof(exprStr, getExtendedElement(expr), type)) {
 			if (TYPE_MAPPING.containsKey(type.toString())) {
 				print("typeof ");
 				print(exprStr, expr);
 				if (checkFirstArrayElement)
 					print("[0]");
-				print(" === ").print("'" + TYPE_MAPPING.get(type.toString()).toLowerCase() + "'");
+				if (context.options.isCharsAsNumbers() && context.types.isSameType(context.symtab.charType,
+						context.types.unboxedTypeOrType(type))) {
+					print(" === 'number'");
+				} else if (context.options.isLongsAsBigInts() && context.types.isSameType(context.symtab.longType,
+						context.types.unboxedTypeOrType(type))) {
+					print(" === 'bigint'");
+				} else if (context.options.isLongsAsBigInts() && Number.class.getName().equals(type.toString())) {
+					// longs are numbers too
+					print(" === 'number' || typeof ");
+					print(exprStr, expr);
+					if (checkFirstArrayElement)
+						print("[0]");
+					print(" === 'bigint'");
+				} else {
+					print(" === ").print("'" + TYPE_MAPPING.get(type.toString()).toLowerCase() + "'");
+				}
 			} else if (type.tsym.isEnum()) {
 				print("typeof ");
 				print(exprStr, expr);
@@ -5896,20 +6690,11 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
                             + getStringLiteralQuote() + "].indexOf(\"")
                                     .print(type.tsym.getQualifiedName().toString()).print("\") >= 0");
 					print(" || ");*/
+					print(getAdapter().addRuntimeHelper(INTERFACE_CHECK_HELPER_NAME, INTERFACE_CHECK_HELPER) + "(");
 					print(exprStr, expr);
 					if (checkFirstArrayElement)
 						print("[0]");
-					print(".constructor != null && ");
-					print(exprStr, expr);
-					if (checkFirstArrayElement)
-						print("[0]");
-					print(".constructor[" + getStringLiteralQuote() + INTERFACES_FIELD_NAME + getStringLiteralQuote()
-							+ "]").print(" != null && ");
-					print(exprStr, expr);
-					if (checkFirstArrayElement)
-						print("[0]");
-					print(".constructor[" + getStringLiteralQuote() + INTERFACES_FIELD_NAME + getStringLiteralQuote()
-							+ "].indexOf(\"").print(type.tsym.getQualifiedName().toString()).print("\") >= 0");
+					print(", \"").print(type.tsym.getQualifiedName().toString()).print("\")");
 					if (CharSequence.class.getName().equals(type.tsym.getQualifiedName().toString())) {
 						print(" || typeof ");
 						print(exprStr, expr);
@@ -5926,7 +6711,9 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
                         print("[0]");
                     print("[" + getStringLiteralQuote() + CLASS_NAME_IN_CONSTRUCTOR
                             + getStringLiteralQuote() + "]").print(" != null");
-                    print(" || ((t) => { try { new t; return true; } catch { return false; } })(");
+                    print(" || ");
+                    getAdapter().printHelperCall("isConstructor",
+                            "(t) => { try { new t; return true; } catch { return false; } }");
                     print(exprStr, expr);
                     if (checkFirstArrayElement)
                         print("[0]");
@@ -5944,6 +6731,16 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 						print(" != null");
 						if (!"any".equals(qualifiedName)) {
 							print(" && ");
+							String typedArrayName = getTypedArrayName(type);
+							if (typedArrayName != null) {
+								// arrays created by the program are typed, but
+								// arrays coming from elsewhere can still be plain
+								print("(");
+								print(exprStr, expr);
+								if (checkFirstArrayElement)
+									print("[0]");
+								print(" instanceof ").print(typedArrayName).print(" || ");
+							}
 							print(exprStr, expr);
 							if (checkFirstArrayElement)
 								print("[0]");
@@ -5964,11 +6761,20 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 								if (t.elemtype instanceof ArrayType) {
 									print(exprStr, expr);
 									print("[0] instanceof Array");
+									String elementTypedArrayName = getTypedArrayName(t.elemtype);
+									if (elementTypedArrayName != null) {
+										print(" || ");
+										print(exprStr, expr);
+										print("[0] instanceof ").print(elementTypedArrayName);
+									}
 								} else {
 									printInstanceOf(exprStr, expr, t.elemtype, true);
 								}
 								print(")");
 							}
+							if (typedArrayName != null) {
+								print(")");
+							}
 						}
 					}
 				}
@@ -5979,6 +6785,17 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		}
 	}
 
+	/**
+	 * Returns the typed array that backs the given array type when typed arrays
+	 * are enabled, or null.
+	 */
+	private String getTypedArrayName(Type type) {
+		if (!context.options.isUseTypedArrays() || !(type instanceof ArrayType)) {
+			return null;
+		}
+		return Util.getTypedArrayName(((ArrayType) type).elemtype, context.options.isCharsAsNumbers());
+	}
+
 	/**
 	 * Prints an <code>instanceof</code> tree.
 	 */
@@ -6049,6 +6866,53 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 		println().printIndent();
 	}
 
+	/**
+	 * Converts an expression assigned to (or cast to) a long, or a long
+	 * assigned to another primitive type, when longs are represented as big
+	 * integers.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	protected boolean substituteLongAssignedExpression(Type assignedType, JCExpression expression) {
+		Type targetType = context.types.unboxedTypeOrType(assignedType);
+		Type sourceType = context.types.unboxedTypeOrType(expression.type);
+		if (targetType.getKind() == TypeKind.LONG) {
+			if (sourceType.getKind() == TypeKind.LONG
+					|| !(Util.isNumber(sourceType) || sourceType.getKind() == TypeKind.CHAR)) {
+				return false;
+			}
+			printAsLong(expression);
+			return true;
+		}
+		if (sourceType.getKind() != TypeKind.LONG) {
+			return false;
+		}
+		String bigInt = getAdapter().getBigIntHelper();
+		switch (targetType.getKind()) {
+		case DOUBLE:
+			print("Number(").print(expression).print(")");
+			return true;
+		case FLOAT:
+			print(singlePrecisionFloats() ? "(<any>Math).fround(Number(" : "(Number(").print(expression).print("))");
+			return true;
+		case INT:
+			print("Number(" + bigInt + ".asIntN(32, ").print(expression).print("))");
+			return true;
+		case SHORT:
+			print("Number(" + bigInt + ".asIntN(16, ").print(expression).print("))");
+			return true;
+		case BYTE:
+			print("Number(" + bigInt + ".asIntN(8, ").print(expression).print("))");
+			return true;
+		case CHAR:
+			print(context.options.isCharsAsNumbers() ? "(Number(" : "String.fromCharCode(Number(");
+			print(bigInt + ".asUintN(16, ").print(expression).print(")))");
+			return true;
+		default:
+			return false;
+		}
+	}
+
 	Stack<Type> rootConditionalAssignedTypes = new Stack<>();
 	Stack<Type> rootArrayAssignedTypes = new Stack<>();
 
@@ -6058,18 +6922,21 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			return false;
 		}
 
-		if (getAdapter().substituteAssignedExpression(assignedType,
-				ExtendedElementFactory.INSTANCE.create(expression))) {
+		if (getAdapter().isHookOverridden(Hook.ASSIGNED_EXPRESSION)
+				&& getAdapter().substituteAssignedExpression(assignedType, getExtendedElement(expression))) {
 			return true;
 		}
 		if (assignedType.isInterface() && expression.type.tsym.isEnum()) {
 			String relTarget = getRootRelativeName((Symbol) expression.type.tsym);
-			print("((wrappers, value) => wrappers===undefined?value:wrappers[value])(")
-					.print(relTarget).print("[" + getStringLiteralQuote()
+			getAdapter().printHelperCall("wrapEnum", "(wrappers, value) => wrappers===undefined?value:wrappers[value]");
+			print(relTarget).print("[" + getStringLiteralQuote()
 							+ Java2TypeScriptTranslator.ENUM_WRAPPER_CLASS_WRAPPERS + getStringLiteralQuote() + "], ")
 					.print(expression).print(")");
 			return true;
 		}
+		if (context.options.isLongsAsBigInts() && substituteLongAssignedExpression(assignedType, expression)) {
+			return true;
+		}
 		if (expression instanceof JCConditional) {
 			rootConditionalAssignedTypes.push(assignedType);
 			return false;
@@ -6078,10 +6945,21 @@ public class Java2TypeScriptTranslator extends AbstractTreePrinter {
 			rootArrayAssignedTypes.push(((ArrayType) assignedType).elemtype);
 			return false;
 		}
-		if (assignedType.getTag() == TypeTag.CHAR && expression.type.getTag() != TypeTag.CHAR) {
+		if (context.options.isCharsAsNumbers() && assignedType.getTag() == TypeTag.CHAR
+				&& Util.isNumber(expression.type)) {
+			// narrowing to a 16-bit code unit
+			if (expression.type.constValue() instanceof Number) {
+				print("" + (((Number) expression.type.constValue()).intValue() & 0xFFFF));
+			} else {
+				print("(").print(expression).print(" & 0xFFFF)");
+			}
+			return true;
+		} else if (!context.options.isCharsAsNumbers() && assignedType.getTag() == TypeTag.CHAR
+				&& expression.type.getTag() != TypeTag.CHAR) {
 			print("String.fromCharCode(").print(expression).print(")");
 			return true;
-		} else if (Util.isNumber(assignedType) && expression.type.getTag() == TypeTag.CHAR) {
+		} else if (!context.options.isCharsAsNumbers() && Util.isNumber(assignedType)
+				&& expression.type.getTag() == TypeTag.CHAR) {
 			print("(").print(expression).print(").charCodeAt(0)");
 			return true;
 		} else if (singlePrecisionFloats() && assignedType.getTag() == TypeTag.FLOAT
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.lang.model.element.ExecutableElement;
@@ -379,10 +380,23 @@ public class OverloadScanner extends AbstractTreeScanner {
 
 	@Override
 	public void visitClassDef(JCClassDecl classdecl) {
+		if (processClass(classdecl)) {
+			// scan all AST because of anonymous classes that may appear
+			// everywhere (including in field initializers)
+			super.visitClassDef(classdecl);
+		}
+	}
+
+	/**
+	 * Processes the methods of the given class for the current pass.
+	 * 
+	 * @return false if the class (and its inner classes) shall be ignored
+	 */
+	private boolean processClass(JCClassDecl classdecl) {
 		ClassSymbol clazz = classdecl.sym;
 		if (clazz.getQualifiedName().toString().startsWith(JSweetConfig.LIBS_PACKAGE + ".")
 				|| context.hasAnnotationType(clazz, JSweetConfig.ANNOTATION_ERASED, JSweetConfig.ANNOTATION_AMBIENT)) {
-			return;
+			return false;
 		}
 
 		for (JCTree member : classdecl.defs) {
@@ -396,9 +410,7 @@ public class OverloadScanner extends AbstractTreeScanner {
 		for (Entry<JCClassDecl, JCMethodDecl> defaultMethodWithEnclosingClass : defaultMethods) {
 			processMethod(classdecl, defaultMethodWithEnclosingClass.getValue());
 		}
-		// scan all AST because of anonymous classes that may appear everywhere
-		// (including in field initializers)
-		super.visitClassDef(classdecl);
+		return true;
 	}
 
 	private void processMethod(JCClassDecl enclosingClassdecl, JCMethodDecl method) {
@@ -435,6 +447,37 @@ public class OverloadScanner extends AbstractTreeScanner {
 		for (JCCompilationUnit cu : cuList) {
 			scan(cu);
 		}
+		calculateOverloads();
+	}
+
+	/**
+	 * Processes all the overloads of the given analyzed compilation units. This
+	 * is equivalent to {@link #process(List)}, but the class declarations are
+	 * taken from the analyzers instead of scanning the trees again.
+	 */
+	public void processAnalyzedCompilationUnits(List<CompilationUnitAnalyzer> analyzers) {
+		processClasses(analyzers);
+		pass++;
+		processClasses(analyzers);
+		calculateOverloads();
+	}
+
+	private void processClasses(List<CompilationUnitAnalyzer> analyzers) {
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			setCompilationUnit(analyzer.getCompilationUnit());
+			Set<JCClassDecl> ignoredClasses = new HashSet<>();
+			for (JCClassDecl classdecl : analyzer.getClassDeclarations()) {
+				JCClassDecl enclosingClassdecl = analyzer.getEnclosingClassDeclaration(classdecl);
+				if ((enclosingClassdecl != null && ignoredClasses.contains(enclosingClassdecl))
+						|| !processClass(classdecl)) {
+					ignoredClasses.add(classdecl);
+				}
+			}
+			setCompilationUnit(null);
+		}
+	}
+
+	private void calculateOverloads() {
 		for (Overload overload : context.getAllOverloads()) {
 			overload.calculate(types, context.symtab);
 			if (overload.methods.size() > 1 && !overload.isValid) {
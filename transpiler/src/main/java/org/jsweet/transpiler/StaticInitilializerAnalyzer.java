@@ -18,9 +18,12 @@
  */
 package org.jsweet.transpiler;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,16 +34,26 @@ import org.jsweet.JSweetConfig;
 import org.jsweet.transpiler.util.DirectedGraph;
 import org.jsweet.transpiler.util.ReferenceGrabber;
 
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.PackageSymbol;
 import com.sun.tools.javac.code.Symbol.TypeSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
 import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCBlock;
 import com.sun.tools.javac.tree.JCTree.JCClassDecl;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCFieldAccess;
+import com.sun.tools.javac.tree.JCTree.JCIdent;
 import com.sun.tools.javac.tree.JCTree.JCImport;
+import com.sun.tools.javac.tree.JCTree.JCMemberReference;
+import com.sun.tools.javac.tree.JCTree.JCMethodDecl;
+import com.sun.tools.javac.tree.JCTree.JCNewClass;
 import com.sun.tools.javac.tree.JCTree.JCVariableDecl;
 import com.sun.tools.javac.tree.TreeScanner;
+import com.sun.tools.javac.util.Name;
 
 /**
  * This AST scanner creates a class dependency graph for each package, based on
@@ -107,63 +120,75 @@ public class StaticInitilializerAnalyzer extends TreeScanner {
 		if (pass == 1) {
 			getGraph().add(compilationUnit);
 		} else {
-			if (compilationUnit.packge.getQualifiedName().toString().startsWith(JSweetConfig.LIBS_PACKAGE + ".")) {
+			if (isDefinition(compilationUnit)) {
 				// skip definitions
 				return;
 			}
-			currentTopLevelImportedTypes.clear();
-			for (JCImport i : compilationUnit.getImports()) {
-				if (i.qualid.type != null) {
-					currentTopLevelImportedTypes.add(i.qualid.type);
-				}
-				// TypeSymbol type = Util.getImportedType(i);
-				// if (type != null) {
-				// JCCompilationUnit target = typesToCompilationUnits.get(type);
-				// if (target != null && getGraph().contains(target)) {
-				// logger.debug("adding import dependency: " +
-				// currentTopLevel.getSourceFile() + " -> " +
-				// target.getSourceFile());
-				// getGraph().addEdge(target, currentTopLevel);
-				// }
-				// }
-
-			}
+			collectImportedTypes(compilationUnit);
 		}
 		super.visitTopLevel(compilationUnit);
 		currentTopLevel = null;
 	}
 
+	private boolean isDefinition(JCCompilationUnit compilationUnit) {
+		return compilationUnit.packge.getQualifiedName().toString().startsWith(JSweetConfig.LIBS_PACKAGE + ".");
+	}
+
+	private void collectImportedTypes(JCCompilationUnit compilationUnit) {
+		currentTopLevelImportedTypes.clear();
+		for (JCImport i : compilationUnit.getImports()) {
+			if (i.qualid.type != null) {
+				currentTopLevelImportedTypes.add(i.qualid.type);
+			}
+			// TypeSymbol type = Util.getImportedType(i);
+			// if (type != null) {
+			// JCCompilationUnit target = typesToCompilationUnits.get(type);
+			// if (target != null && getGraph().contains(target)) {
+			// logger.debug("adding import dependency: " +
+			// currentTopLevel.getSourceFile() + " -> " +
+			// target.getSourceFile());
+			// getGraph().addEdge(target, currentTopLevel);
+			// }
+			// }
+
+		}
+	}
+
 	@Override
 	public void visitClassDef(JCClassDecl classdecl) {
 		if (pass == 1) {
 			typesToCompilationUnits.put(classdecl.sym, currentTopLevel);
 		} else {
-			if (classdecl.extending != null) {
-				JCCompilationUnit target = typesToCompilationUnits.get(classdecl.extending.type.tsym);
-				if (target != null && getGraph().contains(target)) {
-					logger.debug("adding inheritance dependency: " + currentTopLevel.getSourceFile() + " -> "
-							+ target.getSourceFile());
-					getGraph().addEdge(target, currentTopLevel);
-				}
+			addDependencies(classdecl);
+		}
+		super.visitClassDef(classdecl);
+	}
+
+	private void addDependencies(JCClassDecl classdecl) {
+		if (classdecl.extending != null) {
+			JCCompilationUnit target = typesToCompilationUnits.get(classdecl.extending.type.tsym);
+			if (target != null && getGraph().contains(target)) {
+				logger.debug("adding inheritance dependency: " + currentTopLevel.getSourceFile() + " -> "
+						+ target.getSourceFile());
+				getGraph().addEdge(target, currentTopLevel);
 			}
+		}
 
-			for (JCTree member : classdecl.defs) {
-				if (member instanceof JCVariableDecl) {
-					JCVariableDecl field = (JCVariableDecl) member;
-					if (field.getModifiers().getFlags().contains(Modifier.STATIC) && field.getInitializer() != null
-							&& !context.hasAnnotationType(field.sym, JSweetConfig.ANNOTATION_STRING_TYPE,
-									JSweetConfig.ANNOTATION_ERASED)) {
-						acceptReferences(field.getInitializer());
-					}
-				} else if (member instanceof JCBlock) {
-					JCBlock initializer = (JCBlock) member;
-					if (initializer.isStatic()) {
-						acceptReferences(initializer);
-					}
+		for (JCTree member : classdecl.defs) {
+			if (member instanceof JCVariableDecl) {
+				JCVariableDecl field = (JCVariableDecl) member;
+				if (field.getModifiers().getFlags().contains(Modifier.STATIC) && field.getInitializer() != null
+						&& !context.hasAnnotationType(field.sym, JSweetConfig.ANNOTATION_STRING_TYPE,
+								JSweetConfig.ANNOTATION_ERASED)) {
+					acceptReferences(field.getInitializer());
+				}
+			} else if (member instanceof JCBlock) {
+				JCBlock initializer = (JCBlock) member;
+				if (initializer.isStatic()) {
+					acceptReferences(initializer);
 				}
 			}
 		}
-		super.visitClassDef(classdecl);
 	}
 
 	private void acceptReferences(JCTree tree) {
@@ -221,4 +246,293 @@ public class StaticInitilializerAnalyzer extends TreeScanner {
 		}
 	}
 
+	/**
+	 * Processes all the given analyzed compilation units. This is equivalent to
+	 * {@link #process(Collection)}, but the class declarations are taken from
+	 * the analyzers instead of scanning the trees again.
+	 */
+	public void processAnalyzedCompilationUnits(Collection<CompilationUnitAnalyzer> analyzers) {
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			currentTopLevel = analyzer.getCompilationUnit();
+			getGraph().add(currentTopLevel);
+			for (JCClassDecl classdecl : analyzer.getClassDeclarations()) {
+				typesToCompilationUnits.put(classdecl.sym, currentTopLevel);
+			}
+		}
+		pass++;
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			currentTopLevel = analyzer.getCompilationUnit();
+			if (isDefinition(currentTopLevel)) {
+				continue;
+			}
+			collectImportedTypes(currentTopLevel);
+			for (JCClassDecl classdecl : analyzer.getClassDeclarations()) {
+				addDependencies(classdecl);
+			}
+		}
+		currentTopLevel = null;
+	}
+
+	/**
+	 * A dependency graph between the classes that hold static state, based on
+	 * what their static initializers may access when they run (filled by
+	 * {@link #analyzeEagerStaticInitializations(Collection, Set)}).
+	 */
+	public DirectedGraph<ClassSymbol> classStaticInitializersDependencies = new DirectedGraph<>();
+
+	private Map<ClassSymbol, JCClassDecl> classDeclarations = new HashMap<>();
+	private Map<MethodSymbol, JCMethodDecl> methodDeclarations = new HashMap<>();
+	private Map<Name, List<JCMethodDecl>> methodDeclarationsByName = new HashMap<>();
+
+	/**
+	 * Calculates which classes can have their static state initialized eagerly,
+	 * once, when the program is loaded (see
+	 * {@link JSweetOptions#isEagerStaticInitialization()}).
+	 * 
+	 * <p>
+	 * A class depends on all the classes whose static state may be accessed
+	 * while its static initializers run, including through the bodies of the
+	 * invoked methods and constructors (and of their overrides). The classes that
+	 * are part of a dependency cycle cannot be safely initialized eagerly and
+	 * must keep lazy initialization. So must the classes whose static state may
+	 * be accessed by code that runs when the program is loaded, before the
+	 * eager initializations (globals and enum initializers), along with all
+	 * the classes they depend on.
+	 * 
+	 * @param analyzers
+	 *            the analyzed compilation units
+	 * @param cyclicClasses
+	 *            filled with the classes that are part of a dependency cycle
+	 * @return the eagerly initialized classes, mapped to the eagerly initialized
+	 *         classes that must be initialized before them
+	 */
+	public Map<ClassSymbol, List<ClassSymbol>> analyzeEagerStaticInitializations(
+			Collection<CompilationUnitAnalyzer> analyzers, Set<ClassSymbol> cyclicClasses) {
+		DirectedGraph<ClassSymbol> graph = classStaticInitializersDependencies;
+		for (CompilationUnitAnalyzer analyzer : analyzers) {
+			if (isDefinition(analyzer.getCompilationUnit())) {
+				continue;
+			}
+			for (JCClassDecl classdecl : analyzer.getClassDeclarations()) {
+				classDeclarations.put(classdecl.sym, classdecl);
+				for (JCTree member : classdecl.defs) {
+					if (member instanceof JCMethodDecl && ((JCMethodDecl) member).sym != null) {
+						JCMethodDecl method = (JCMethodDecl) member;
+						methodDeclarations.put(method.sym, method);
+						methodDeclarationsByName.computeIfAbsent(method.name, n -> new ArrayList<>()).add(method);
+					}
+				}
+				if (hasEagerlyInitializableStaticState(classdecl)) {
+					graph.add(classdecl.sym);
+				}
+			}
+		}
+		for (ClassSymbol clazz : new ArrayList<>(graph)) {
+			for (ClassSymbol dependency : grabStaticInitializerAccesses(clazz)) {
+				if (graph.contains(dependency)) {
+					graph.addEdge(dependency, clazz);
+				}
+			}
+		}
+		Set<ClassSymbol> lazyClasses = new HashSet<>();
+		for (ClassSymbol clazz : graph) {
+			if (reaches(graph, clazz, clazz, new HashSet<>())) {
+				cyclicClasses.add(clazz);
+				lazyClasses.add(clazz);
+			}
+		}
+		for (ClassSymbol clazz : classDeclarations.keySet()) {
+			if (!graph.contains(clazz) && (clazz.isEnum()
+					|| JSweetConfig.GLOBALS_CLASS_NAME.equals(clazz.getSimpleName().toString()))) {
+				// initialized in place when loaded, so everything they access
+				// must still be initialized on demand
+				for (ClassSymbol dependency : grabStaticInitializerAccesses(clazz)) {
+					collectLoadTimeDependencies(graph, dependency, lazyClasses);
+				}
+			}
+		}
+		Map<ClassSymbol, List<ClassSymbol>> eagerlyInitializedClasses = new LinkedHashMap<>();
+		for (ClassSymbol clazz : graph) {
+			if (!lazyClasses.contains(clazz)) {
+				List<ClassSymbol> dependencies = new ArrayList<>();
+				// lazily initialized classes do not initialize their
+				// dependencies, so they are skipped to keep the order
+				collectEagerDependencies(graph, clazz, lazyClasses, dependencies, new HashSet<>());
+				eagerlyInitializedClasses.put(clazz, dependencies);
+			}
+		}
+		return eagerlyInitializedClasses;
+	}
+
+	private Set<ClassSymbol> grabStaticInitializerAccesses(ClassSymbol clazz) {
+		StaticStateGrabber grabber = new StaticStateGrabber();
+		grabber.grabClass(getSuperclass(clazz));
+		for (JCTree member : classDeclarations.get(clazz).defs) {
+			if (member instanceof JCVariableDecl && ((JCVariableDecl) member).sym.isStatic()) {
+				grabber.scan(((JCVariableDecl) member).init);
+			} else if (member instanceof JCBlock && ((JCBlock) member).isStatic()) {
+				grabber.scan(member);
+			}
+		}
+		return grabber.grabbedClasses;
+	}
+
+	private static void collectLoadTimeDependencies(DirectedGraph<ClassSymbol> graph, ClassSymbol clazz,
+			Set<ClassSymbol> lazyClasses) {
+		if (graph.contains(clazz) && lazyClasses.add(clazz)) {
+			for (ClassSymbol dependency : graph.getSourceElements(clazz)) {
+				collectLoadTimeDependencies(graph, dependency, lazyClasses);
+			}
+		}
+	}
+
+	private boolean hasEagerlyInitializableStaticState(JCClassDecl classdecl) {
+		ClassSymbol clazz = classdecl.sym;
+		if (clazz == null || clazz.isInterface() || clazz.isEnum() || clazz.isLocal() || clazz.isAnonymous()
+				|| JSweetConfig.GLOBALS_CLASS_NAME.equals(clazz.getSimpleName().toString())
+				|| context.hasAnnotationType(clazz, JSweetConfig.ANNOTATION_AMBIENT, JSweetConfig.ANNOTATION_ERASED,
+						JSweetConfig.ANNOTATION_OBJECT_TYPE)) {
+			return false;
+		}
+		if (context.getStaticInitializerCount(clazz) > 0) {
+			return true;
+		}
+		for (JCTree member : classdecl.defs) {
+			if (member instanceof JCVariableDecl
+					&& context.lazyInitializedStatics.contains(((JCVariableDecl) member).sym)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static ClassSymbol getSuperclass(ClassSymbol clazz) {
+		Type superclass = clazz.getSuperclass();
+		return superclass != null && superclass.tsym instanceof ClassSymbol ? (ClassSymbol) superclass.tsym : null;
+	}
+
+	private static boolean reaches(DirectedGraph<ClassSymbol> graph, ClassSymbol from, ClassSymbol to,
+			Set<ClassSymbol> visited) {
+		for (ClassSymbol next : graph.getDestinationElements(from)) {
+			if (next == to || (visited.add(next) && reaches(graph, next, to, visited))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void collectEagerDependencies(DirectedGraph<ClassSymbol> graph, ClassSymbol clazz,
+			Set<ClassSymbol> lazyClasses, List<ClassSymbol> dependencies, Set<ClassSymbol> visited) {
+		for (ClassSymbol dependency : graph.getSourceElements(clazz)) {
+			if (visited.add(dependency)) {
+				if (lazyClasses.contains(dependency)) {
+					collectEagerDependencies(graph, dependency, lazyClasses, dependencies, visited);
+				} else {
+					dependencies.add(dependency);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Grabs the classes whose static state may be accessed when running a code
+	 * tree, following the invoked methods and constructors.
+	 */
+	private class StaticStateGrabber extends TreeScanner {
+
+		Set<ClassSymbol> grabbedClasses = new HashSet<>();
+
+		Set<Symbol> visited = new HashSet<>();
+
+		@Override
+		public void visitIdent(JCIdent ident) {
+			grab(ident.sym);
+		}
+
+		@Override
+		public void visitSelect(JCFieldAccess fieldAccess) {
+			grab(fieldAccess.sym);
+			super.visitSelect(fieldAccess);
+		}
+
+		@Override
+		public void visitReference(JCMemberReference reference) {
+			grab(reference.sym);
+			super.visitReference(reference);
+		}
+
+		@Override
+		public void visitNewClass(JCNewClass newClass) {
+			grab(newClass.constructor);
+			super.visitNewClass(newClass);
+		}
+
+		private void grab(Symbol symbol) {
+			if (symbol instanceof VarSymbol) {
+				VarSymbol var = (VarSymbol) symbol;
+				// constants are inlined and do not trigger any initialization
+				if (var.isStatic() && var.getConstValue() == null && var.owner instanceof ClassSymbol) {
+					grabClass((ClassSymbol) var.owner);
+				}
+			} else if (symbol instanceof MethodSymbol) {
+				MethodSymbol method = (MethodSymbol) symbol;
+				if (method.owner instanceof ClassSymbol) {
+					if (method.isConstructor()) {
+						grabConstruction((ClassSymbol) method.owner);
+					} else if (method.isStatic()) {
+						grabClass((ClassSymbol) method.owner);
+					}
+				}
+				grabMethod(method);
+			}
+		}
+
+		void grabClass(ClassSymbol clazz) {
+			while (clazz != null && classDeclarations.containsKey(clazz) && grabbedClasses.add(clazz)) {
+				clazz = getSuperclass(clazz);
+			}
+		}
+
+		private void grabConstruction(ClassSymbol clazz) {
+			grabClass(clazz);
+			while (clazz != null && classDeclarations.containsKey(clazz) && visited.add(clazz)) {
+				// instance initializers run for each constructed object
+				for (JCTree member : classDeclarations.get(clazz).defs) {
+					if (member instanceof JCVariableDecl && !((JCVariableDecl) member).sym.isStatic()) {
+						scan(((JCVariableDecl) member).init);
+					} else if (member instanceof JCBlock && !((JCBlock) member).isStatic()) {
+						scan(member);
+					} else if (member instanceof JCMethodDecl && ((JCMethodDecl) member).sym.isConstructor()) {
+						grabMethod(((JCMethodDecl) member).sym);
+					}
+				}
+				clazz = getSuperclass(clazz);
+			}
+		}
+
+		private void grabMethod(MethodSymbol method) {
+			if (!visited.add(method)) {
+				return;
+			}
+			JCMethodDecl declaration = methodDeclarations.get(method);
+			if (declaration != null) {
+				scan(declaration.body);
+			}
+			if (!method.isStatic() && !method.isConstructor() && !method.isPrivate()) {
+				// the actual method may be any override
+				List<JCMethodDecl> candidates = methodDeclarationsByName.get(method.name);
+				if (candidates != null) {
+					for (JCMethodDecl candidate : candidates) {
+						if (candidate.sym != method
+								&& candidate.sym.overrides(method, (TypeSymbol) candidate.sym.owner, context.types,
+										false)) {
+							grabMethod(candidate.sym);
+						}
+					}
+				}
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,317 @@
+/*
+ * JSweet transpiler - http://www.jsweet.org
+ * Copyright (C) 2015 CINCHEO SAS <renaud.pawlak@cincheo.fr>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jsweet.transpiler.extension;
+
+import java.math.BigInteger;
+
+import javax.lang.model.element.Element;
+
+import javax.lang.model.type.ArrayType;
+
+import org.jsweet.transpiler.JSweetProblem;
+import org.jsweet.transpiler.model.ExtendedElement;
+import org.jsweet.transpiler.model.MethodInvocationElement;
+import org.jsweet.transpiler.model.NewClassElement;
+import org.jsweet.transpiler.model.VariableAccessElement;
+
+/**
+ * This optional adapter tunes the JavaScript generation to map the Java's
+ * BigInteger API to the native JavaScript <code>BigInt</code> values and
+ * operators.
+ *
+ * <p>
+ * Warning: this adapter is not activated by default. See JSweet specifications
+ * to know how to activate this adapter.
+ *
+ * <p>
+ * This extension requires a JavaScript runtime supporting <code>BigInt</code>
+ * (ES2020). Since the TypeScript libraries of the supported targets do not
+ * declare <code>BigInt</code>, big integers are untyped (<code>any</code>) in
+ * the generated code. Constructors that have no <code>BigInt</code>
+ * counterpart (random big integers) are reported as invalid JDK accesses.
+ */
+public class BigIntegerAdapter extends PrinterAdapter {
+
+	public BigIntegerAdapter(PrinterAdapter parent) {
+		super(parent);
+		// all BigInteger types are mapped to untyped big integers
+		addTypeMapping(BigInteger.class.getName(), "any");
+	}
+
+	@Override
+	public boolean substituteNewClass(NewClassElement newClass) {
+		String className = newClass.getTypeAsElement().toString();
+		// map the BigInteger string and byte array constructors
+		if (BigInteger.class.getName().equals(className)) {
+			if (newClass.getArgumentCount() == 1 && isString(newClass.getArgument(0))) {
+				print(getBigIntHelper() + "(").print(newClass.getArgument(0)).print(")");
+				return true;
+			} else if (newClass.getArgumentCount() == 1 && newClass.getArgument(0).getType() instanceof ArrayType) {
+				// two's-complement big-endian bytes
+				printHelperCall("bigIntegerFromBytes",
+						"a => { if (a.length === 0) throw new Error('Zero length BigInteger'); let v = "
+								+ getLongConstant(0) + "; for (let i = 0; i < a.length; i++) v = (v << "
+								+ getLongConstant(8) + ") | " + getBigIntHelper() + "(a[i] & 0xff); return a[0] < 0 ? v - ("
+								+ getLongConstant(1) + " << " + getBigIntHelper() + "(a.length * 8)) : v; }")
+										.print(newClass.getArgument(0)).print(")");
+				return true;
+			} else if (newClass.getArgumentCount() == 2 && newClass.getArgument(1).getType() instanceof ArrayType) {
+				// sign and unsigned big-endian magnitude
+				printHelperCall("bigIntegerFromSignMagnitude", "(s, a) => { let v = " + getLongConstant(0)
+						+ "; for (let i = 0; i < a.length; i++) v = (v << " + getLongConstant(8) + ") | "
+						+ getBigIntHelper() + "(a[i] & 0xff); if (s < -1 || s > 1) throw new Error('Invalid signum value'); "
+						+ "if (s === 0 && v != 0) throw new Error('signum-magnitude mismatch'); return s < 0 ? -v : v; }")
+								.printArgList(newClass.getArguments()).print(")");
+				return true;
+			} else if (newClass.getArgumentCount() == 2 && isString(newClass.getArgument(0))) {
+				printHelperCall("parseBigInteger",
+						"(s, radix) => { let negative = s.charAt(0) === '-', i = negative || s.charAt(0) === '+' ? 1 : 0, "
+								+ "r = " + getBigIntHelper() + "(radix), v = " + getLongConstant(0) + "; "
+								+ "for (; i < s.length; i++) v = v * r + " + getBigIntHelper()
+								+ "(parseInt(s.charAt(i), radix)); return negative ? -v : v; }")
+										.printArgList(newClass.getArguments()).print(")");
+				return true;
+			}
+			report(newClass, JSweetProblem.JDK_METHOD, newClass.getConstructor().toString());
+		}
+		// delegate to the adapter chain
+		return super.substituteNewClass(newClass);
+	}
+
+	@Override
+	public boolean substituteVariableAccess(VariableAccessElement variableAccess) {
+		if (variableAccess.getTargetExpression() != null) {
+			Element targetType = variableAccess.getTargetExpression().getTypeAsElement();
+			if (BigInteger.class.getName().equals(targetType.toString())) {
+				switch (variableAccess.getVariableName()) {
+				case "ZERO":
+					printMacroName(variableAccess.getVariableName());
+					print(getLongConstant(0));
+					return true;
+				case "ONE":
+					printMacroName(variableAccess.getVariableName());
+					print(getLongConstant(1));
+					return true;
+				case "TEN":
+					printMacroName(variableAccess.getVariableName());
+					print(getLongConstant(10));
+					return true;
+				}
+			}
+		}
+		return super.substituteVariableAccess(variableAccess);
+	}
+
+	@Override
+	public boolean substituteMethodInvocation(MethodInvocationElement invocation) {
+		if (invocation.getTargetExpression() != null) {
+			Element targetType = invocation.getTargetExpression().getTypeAsElement();
+			if (BigInteger.class.getName().equals(targetType.toString())) {
+				// BigInteger methods are mapped to the BigInt operators
+				switch (invocation.getMethodName()) {
+				case "valueOf":
+					printMacroName(invocation.getMethodName());
+					print(getBigIntHelper() + "(").print(invocation.getArgument(0)).print(")");
+					return true;
+				case "add":
+					return printBinaryOperator(invocation, "+");
+				case "subtract":
+					return printBinaryOperator(invocation, "-");
+				case "multiply":
+					return printBinaryOperator(invocation, "*");
+				// the BigInt division truncates towards zero like Java
+				case "divide":
+					return printBinaryOperator(invocation, "/");
+				case "remainder":
+					return printBinaryOperator(invocation, "%");
+				case "and":
+					return printBinaryOperator(invocation, "&");
+				case "or":
+					return printBinaryOperator(invocation, "|");
+				case "xor":
+					return printBinaryOperator(invocation, "^");
+				case "andNot":
+					printMacroName(invocation.getMethodName());
+					print("(").print(invocation.getTargetExpression()).print(" & ~").print(invocation.getArgument(0))
+							.print(")");
+					return true;
+				case "not":
+					printMacroName(invocation.getMethodName());
+					print("(~").print(invocation.getTargetExpression()).print(")");
+					return true;
+				case "negate":
+					printMacroName(invocation.getMethodName());
+					print("(-").print(invocation.getTargetExpression()).print(")");
+					return true;
+				// negative distances shift the other way, like in Java
+				case "shiftLeft":
+					return printShiftOperator(invocation, "<<");
+				case "shiftRight":
+					return printShiftOperator(invocation, ">>");
+				case "testBit":
+					printMacroName(invocation.getMethodName());
+					print("((").print(invocation.getTargetExpression()).print(" >> " + getBigIntHelper() + "(")
+							.print(invocation.getArgument(0))
+							.print(")) & " + getLongConstant(1) + ") !== " + getLongConstant(0));
+					return true;
+				case "setBit":
+					return printBitOperator(invocation, "|", "");
+				case "clearBit":
+					return printBitOperator(invocation, "&", "~");
+				case "flipBit":
+					return printBitOperator(invocation, "^", "");
+				case "bitLength":
+					printMacroName(invocation.getMethodName());
+					printHelperCall("bigIntegerBitLength",
+							"a => { if (a < 0) a = ~a; return a == 0 ? 0 : a.toString(2).length; }")
+									.print(invocation.getTargetExpression()).print(")");
+					return true;
+				case "abs":
+					return printHelperInvocation(invocation, "bigIntegerAbs", "a => a < 0 ? -a : a");
+				case "signum":
+					return printHelperInvocation(invocation, "bigIntegerSignum", "a => a > 0 ? 1 : a < 0 ? -1 : 0");
+				case "compareTo":
+					return printHelperInvocation(invocation, "bigIntegerCompare", "(a, b) => a < b ? -1 : a > b ? 1 : 0");
+				case "min":
+					return printHelperInvocation(invocation, "bigIntegerMin", "(a, b) => a < b ? a : b");
+				case "max":
+					return printHelperInvocation(invocation, "bigIntegerMax", "(a, b) => a > b ? a : b");
+				case "mod":
+					return printHelperInvocation(invocation, "bigIntegerMod",
+							"(a, m) => { if (m <= 0) throw new Error('BigInteger: modulus not positive'); "
+									+ "let r = a % m; return r < 0 ? r + m : r; }");
+				case "pow":
+					return printHelperInvocation(invocation, "bigIntegerPow",
+							"(b, e) => { if (e < 0) throw new Error('Negative exponent'); let r = " + getLongConstant(1)
+									+ "; for (; e > 0; e >>>= 1) { if (e & 1) r *= b; b *= b; } return r; }");
+				// a negative exponent raises the modular inverse
+				case "modPow":
+					return printHelperInvocation(invocation, "bigIntegerModPow", "(b, e, m) => { if (m <= 0) "
+							+ "throw new Error('BigInteger: modulus not positive'); if (e < 0) { b = ("
+							+ getModInverseFunction() + ")(b, m); e = -e; } let r = " + getLongConstant(1)
+							+ " % m; b = (b % m + m) % m; for (; e > 0; e >>= " + getLongConstant(1) + ") { if (e & "
+							+ getLongConstant(1) + ") r = r * b % m; b = b * b % m; } return r; }");
+				case "modInverse":
+					return printHelperInvocation(invocation, "bigIntegerModInverse", getModInverseFunction());
+				case "toByteArray":
+					printMacroName(invocation.getMethodName());
+					printHelperCall("bigIntegerToByteArray",
+							"a => { let b = a < 0 ? ~a : a, n = ((b == 0 ? 0 : b.toString(2).length) >> 3) + 1, r = new "
+									+ (context.options.isUseTypedArrays() ? "Int8Array" : "Array")
+									+ "(n); for (let i = n - 1; i >= 0; i--) { r[i] = Number(" + getBigIntHelper()
+									+ ".asIntN(8, a)); a >>= " + getLongConstant(8) + "; } return <any>r; }")
+											.print(invocation.getTargetExpression()).print(")");
+					return true;
+				case "gcd":
+					return printHelperInvocation(invocation, "bigIntegerGcd",
+							"(a, b) => { if (a < 0) a = -a; if (b < 0) b = -b; while (b != 0) { let t = a % b; a = b; b = t; } return a; }");
+				case "equals":
+					printMacroName(invocation.getMethodName());
+					print("(").print(invocation.getTargetExpression()).print(" === ").print(invocation.getArgument(0))
+							.print(")");
+					return true;
+				case "toString":
+					printMacroName(invocation.getMethodName());
+					print(invocation.getTargetExpression()).print(".toString(").printArgList(invocation.getArguments())
+							.print(")");
+					return true;
+				case "intValue":
+					printMacroName(invocation.getMethodName());
+					print("Number(" + getBigIntHelper() + ".asIntN(32, ").print(invocation.getTargetExpression())
+							.print("))");
+					return true;
+				case "longValue":
+					printMacroName(invocation.getMethodName());
+					if (context.options.isLongsAsBigInts()) {
+						print(getBigIntHelper() + ".asIntN(64, ").print(invocation.getTargetExpression()).print(")");
+					} else {
+						print("Number(" + getBigIntHelper() + ".asIntN(64, ").print(invocation.getTargetExpression())
+								.print("))");
+					}
+					return true;
+				case "doubleValue":
+				case "floatValue":
+					printMacroName(invocation.getMethodName());
+					print("Number(").print(invocation.getTargetExpression()).print(")");
+					return true;
+				}
+			}
+
+		}
+		// delegate to the adapter chain
+		return super.substituteMethodInvocation(invocation);
+	}
+
+	private String getModInverseFunction() {
+		return "(a, m) => { if (m <= 0) throw new Error('BigInteger: modulus not positive'); let t = "
+				+ getLongConstant(0) + ", nt = " + getLongConstant(1) + ", r = m, nr = (a % m + m) % m; "
+				+ "while (nr != 0) { let q = r / nr, tmp = nt; nt = t - q * nt; t = tmp; tmp = nr; nr = r - q * nr; r = tmp; } "
+				+ "if (r > 1) throw new Error('BigInteger not invertible.'); return t < 0 ? t + m : t; }";
+	}
+
+	private boolean isString(ExtendedElement expression) {
+		return String.class.getName().equals(expression.getType().toString());
+	}
+
+	/**
+	 * Prints <code>(target op argument)</code>.
+	 */
+	private boolean printBinaryOperator(MethodInvocationElement invocation, String operator) {
+		printMacroName(invocation.getMethodName());
+		print("(").print(invocation.getTargetExpression()).print(" " + operator + " ")
+				.print(invocation.getArgument(0)).print(")");
+		return true;
+	}
+
+	/**
+	 * Prints a shift of the target by an int distance.
+	 */
+	private boolean printShiftOperator(MethodInvocationElement invocation, String operator) {
+		printMacroName(invocation.getMethodName());
+		print("(").print(invocation.getTargetExpression()).print(" " + operator + " " + getBigIntHelper() + "(")
+				.print(invocation.getArgument(0)).print("))");
+		return true;
+	}
+
+	/**
+	 * Prints an operation between the target and a single bit (given by an int
+	 * index).
+	 */
+	private boolean printBitOperator(MethodInvocationElement invocation, String operator, String bitPrefix) {
+		printMacroName(invocation.getMethodName());
+		print("(").print(invocation.getTargetExpression())
+				.print(" " + operator + " " + bitPrefix + "(" + getLongConstant(1) + " << " + getBigIntHelper() + "(")
+				.print(invocation.getArgument(0)).print(")))");
+		return true;
+	}
+
+	/**
+	 * Prints a call to the given helper, with the target as first argument.
+	 */
+	private boolean printHelperInvocation(MethodInvocationElement invocation, String name, String function) {
+		printMacroName(invocation.getMethodName());
+		printHelperCall(name, function).print(invocation.getTargetExpression());
+		for (ExtendedElement argument : invocation.getArguments()) {
+			print(", ").print(argument);
+		}
+		print(")");
+		return true;
+	}
+
+}
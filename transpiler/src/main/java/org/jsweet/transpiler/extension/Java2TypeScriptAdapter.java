@@ -39,7 +39,9 @@ import static org.jsweet.JSweetConfig.UTIL_PACKAGE;
 import static org.jsweet.JSweetConfig.isJSweetPath;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.BiFunction;
@@ -72,13 +74,17 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
 import org.jsweet.JSweetConfig;
+import org.jsweet.transpiler.EcmaScriptComplianceLevel;
 import org.jsweet.transpiler.JSweetContext;
+import org.jsweet.transpiler.JSweetOptions;
 import org.jsweet.transpiler.JSweetProblem;
 import org.jsweet.transpiler.JSweetTranspiler;
 import org.jsweet.transpiler.Java2TypeScriptTranslator;
@@ -94,6 +100,7 @@ import org.jsweet.transpiler.model.LiteralElement;
 import org.jsweet.transpiler.model.MethodInvocationElement;
 import org.jsweet.transpiler.model.NewClassElement;
 import org.jsweet.transpiler.model.VariableAccessElement;
+import org.jsweet.transpiler.model.support.ExtendedElementSupport;
 import org.jsweet.transpiler.model.support.ForeachLoopElementSupport;
 import org.jsweet.transpiler.model.support.IdentifierElementSupport;
 import org.jsweet.transpiler.model.support.ImportElementSupport;
@@ -109,6 +116,9 @@ import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.TypeSymbol;
 import com.sun.tools.javac.code.Type.MethodType;
 import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCArrayAccess;
+import com.sun.tools.javac.tree.JCTree.JCAssign;
+import com.sun.tools.javac.tree.JCTree.JCAssignOp;
 import com.sun.tools.javac.tree.JCTree.JCClassDecl;
 import com.sun.tools.javac.tree.JCTree.JCEnhancedForLoop;
 import com.sun.tools.javac.tree.JCTree.JCExpression;
@@ -118,6 +128,7 @@ import com.sun.tools.javac.tree.JCTree.JCImport;
 import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
 import com.sun.tools.javac.tree.JCTree.JCNewClass;
 import com.sun.tools.javac.tree.JCTree.JCTypeApply;
+import com.sun.tools.javac.tree.JCTree.JCUnary;
 import com.sun.tools.javac.tree.JCTree.Tag;
 
 /**
@@ -130,6 +141,103 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 
 	protected final static String VAR_DECL_KEYWORD = Java2TypeScriptTranslator.VAR_DECL_KEYWORD;
 
+	/**
+	 * A runtime helper that compiles regular expressions through a bounded LRU
+	 * cache (see {@link #printRegExp(ExtendedElement, String, boolean)}).
+	 */
+	private static final String REGEXP_CACHE_HELPER = "(() => { let cache = Object.create(null), keys = []; "
+			+ "return (p, f) => { let k = f + '/' + p, r = cache[k]; if (r === undefined) { "
+			+ "r = cache[k] = new RegExp(p, f); if (keys.push(k) > 64) delete cache[keys.shift()]; } "
+			+ "else if (keys[keys.length - 1] !== k) { keys.splice(keys.indexOf(k), 1); keys.push(k); } "
+			+ "r.lastIndex = 0; return r; }; })()";
+
+	private final Map<String, String> regExpConstantNames = new HashMap<>();
+
+	/**
+	 * Splits a string around the matches of a global regular expression, with
+	 * the Java semantics: a zero-width match at the beginning gives no leading
+	 * empty string, and trailing empty strings are removed when the limit is 0.
+	 */
+	protected static final String SPLIT_FUNCTION = "(s, r, l = 0) => { " + VAR_DECL_KEYWORD
+			+ " a = [], i = 0, m; r.lastIndex = 0; "
+			+ "while ((l <= 0 || a.length < l - 1) && (m = r.exec(s)) !== null) { "
+			+ "if (m[0].length === 0) { r.lastIndex++; if (m.index === 0) continue; } "
+			+ "a.push(s.substring(i, m.index)); i = m.index + m[0].length; } "
+			+ "if (i === 0) return [s]; a.push(s.substring(i)); "
+			+ "if (l === 0) while (a.length > 0 && a[a.length - 1] === '') a.pop(); return a; }";
+
+	/**
+	 * Compares two strings the Java way (UTF-16 code units, no locale).
+	 */
+	private static final String STRING_COMPARE_FUNCTION = "(a, b) => { " + VAR_DECL_KEYWORD
+			+ " n = Math.min(a.length, b.length); for (" + VAR_DECL_KEYWORD + " i = 0; i < n; i++) { "
+			+ VAR_DECL_KEYWORD + " d = a.charCodeAt(i) - b.charCodeAt(i); if (d !== 0) return d; } "
+			+ "return a.length - b.length; }";
+
+	/**
+	 * Compares two strings the Java way, ignoring case differences. The case
+	 * folding function (<code>toLowerCase(toUpperCase(c))</code>, with an ASCII
+	 * fast path) is created once with the comparison function rather than on
+	 * each call, since this function is always declared as a runtime helper
+	 * (see {@link #addRuntimeHelper(String, String)}).
+	 */
+	private static final String STRING_COMPARE_IGNORE_CASE_FUNCTION = "(() => { " + VAR_DECL_KEYWORD
+			+ " f = c => { if (c < 128) return c >= 65 && c <= 90 ? c + 32 : c; " + VAR_DECL_KEYWORD
+			+ " s = String.fromCharCode(c).toUpperCase(); if (s.length === 1) c = s.charCodeAt(0); "
+			+ "s = String.fromCharCode(c).toLowerCase(); return s.length === 1 ? s.charCodeAt(0) : c; }; "
+			+ "return (a, b) => { " + VAR_DECL_KEYWORD + " n = Math.min(a.length, b.length); for ("
+			+ VAR_DECL_KEYWORD + " i = 0; i < n; i++) { " + VAR_DECL_KEYWORD
+			+ " c1 = a.charCodeAt(i), c2 = b.charCodeAt(i); if (c1 !== c2) { c1 = f(c1); c2 = f(c2); if (c1 !== c2) return c1 - c2; } } "
+			+ "return a.length - b.length; }; })()";
+
+	/**
+	 * Converts a range of an array of UTF-16 code units to a string. The codes
+	 * are passed to <code>String.fromCharCode</code> in chunks, so that large
+	 * arrays do not exceed the maximum number of arguments.
+	 */
+	protected static final String FROM_CHAR_CODES_FUNCTION = "(a, o = 0, n = a.length - o) => { "
+			+ VAR_DECL_KEYWORD + " s = ''; for (" + VAR_DECL_KEYWORD
+			+ " i = o; i < o + n; i += 8192) s += String.fromCharCode.apply(null, a.slice(i, Math.min(i + 8192, o + n))); "
+			+ "return s; }";
+
+	/**
+	 * Assigns a lazily allocated identity hash code to an object, stored in a
+	 * non-enumerable property (frozen objects fall back to 0).
+	 */
+	protected static final String IDENTITY_HASH_CODE_FUNCTION = "(() => { let n = 0; return o => { if (o == null) return 0; "
+			+ "if (Object.prototype.hasOwnProperty.call(o, '__jsweet_identityHash')) return o.__jsweet_identityHash; "
+			+ "if (!Object.isExtensible(o)) return 0; let h = ++n; "
+			+ "Object.defineProperty(o, '__jsweet_identityHash', { value: h }); return h; }; })()";
+
+	/**
+	 * The runtime functions computing Java-compatible hash codes, in
+	 * declaration order.
+	 * 
+	 * @see #printHashCodeHelperCall(String)
+	 */
+	private static final String[][] HASH_CODE_HELPERS = { //
+			{ "identityHashCode", IDENTITY_HASH_CODE_FUNCTION },
+			{ "stringHashCode",
+					"s => { let h = 0; for (let i = 0; i < s.length; i++) h = (((h << 5) - h) + s.charCodeAt(i)) | 0; return h; }" },
+			{ "longHashCode",
+					"l => typeof l === 'bigint' ? Number((<any>globalThis).BigInt.asIntN(32, l ^ (l >> (<any>globalThis).BigInt(32)))) "
+							+ ": ((l % 4294967296) | 0) ^ (Math.floor(l / 4294967296) | 0)" },
+			{ "doubleHashCode",
+					"(() => { let f = new Float64Array(1), i = new Int32Array(f.buffer); return d => { f[0] = d !== d ? NaN : d; return i[0] ^ i[1]; }; })()" },
+			{ "floatHashCode",
+					"(() => { let f = new Float32Array(1), i = new Int32Array(f.buffer); return d => { f[0] = d !== d ? NaN : d; return i[0]; }; })()" },
+			{ "hashCode",
+					"o => { if (o == null) return 0; switch (typeof o) { case 'string': return __jsweet_stringHashCode(o); "
+							+ "case 'number': return (o | 0) === o ? o : __jsweet_doubleHashCode(o); case 'boolean': return o ? 1231 : 1237; "
+							+ "case 'bigint': return __jsweet_longHashCode(o); } "
+							+ "return typeof o.hashCode === 'function' ? o.hashCode() : __jsweet_identityHashCode(o); }" },
+			{ "arrayHashCode",
+					"a => { if (a == null) return 0; let h = 1; for (let i = 0; i < a.length; i++) h = (31 * h + __jsweet_hashCode(a[i])) | 0; return h; }" } };
+
+	private static final String STRING_STARTS_WITH_FUNCTION = "(s, p, o = 0) => { "
+			+ "if (o < 0 || o > s.length - p.length) return false; for (" + VAR_DECL_KEYWORD
+			+ " i = 0; i < p.length; i++) if (s.charCodeAt(o + i) !== p.charCodeAt(i)) return false; return true; }";
+
 	public Java2TypeScriptTranslator getPrinter() {
 		return (Java2TypeScriptTranslator) super.getPrinter();
 	}
@@ -198,7 +306,7 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 		addTypeMapping(Byte.class.getName(), "number");
 		addTypeMapping(Double.class.getName(), "number");
 		addTypeMapping(Boolean.class.getName(), "boolean");
-		addTypeMapping(Character.class.getName(), "string");
+		addTypeMapping(Character.class.getName(), context.options.isCharsAsNumbers() ? "number" : "string");
 		addTypeMapping(CharSequence.class.getName(), "any");
 		addTypeMapping(Void.class.getName(), "void");
 
@@ -208,7 +316,7 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 		addTypeMapping("long", "number");
 		addTypeMapping("byte", "number");
 		addTypeMapping("short", "number");
-		addTypeMapping("char", "string");
+		addTypeMapping("char", context.options.isCharsAsNumbers() ? "number" : "string");
 		addTypeMapping("Class", "any");
 		addTypeMapping(LANG_PACKAGE + ".Object", "Object");
 		addTypeMapping(LANG_PACKAGE + ".Boolean", "boolean");
@@ -245,6 +353,68 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 		context.getBaseThrowables().add(Error.class.getName());
 		context.getBaseThrowables().add(Exception.class.getName());
 
+		initLangMethodInvocationSubstitutions();
+	}
+
+	/**
+	 * The substitutions of the invocations of the core <code>java.lang</code>
+	 * types. They are kept apart from the table of
+	 * {@link #addMethodInvocationSubstitution(String, String, int, MethodInvocationSubstitution)},
+	 * since they apply after the other macros of
+	 * {@link #substituteMethodInvocation(MethodInvocationElement)}, and only to
+	 * the exact declaring types of the invoked methods.
+	 */
+	private final MethodInvocationSubstitutionTable langMethodInvocationSubstitutions = new MethodInvocationSubstitutionTable(
+			Element::toString);
+
+	/**
+	 * Registers the substitutions of the invocations of the core
+	 * <code>java.lang</code> types, which are mapped to JavaScript strings,
+	 * numbers, booleans and math functions.
+	 */
+	private void initLangMethodInvocationSubstitutions() {
+		for (String className : new String[] { "java.lang.String", "java.lang.CharSequence" }) {
+			langMethodInvocationSubstitutions.add(className, null, -1,
+					invocation -> substituteMethodInvocationOnString(invocation, invocation.getMethodName()));
+		}
+		langMethodInvocationSubstitutions.add("java.lang.Character", "toChars", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			if (context.options.isCharsAsNumbers() && invocation.getArgumentCount() == 1) {
+				// char arrays are arrays of UTF-16 code units
+				printHelperCall("toChars", "c => { " + VAR_DECL_KEYWORD
+						+ " a = c < 0x10000 ? [c] : [0xD800 + ((c - 0x10000) >> 10), 0xDC00 + ((c - 0x10000) & 0x3FF)]; return <any>"
+						+ (context.options.isUseTypedArrays() ? "new Uint16Array(a)" : "a") + "; }")
+								.print(invocation.getArgument(0)).print(")");
+			} else if (context.options.isCharsAsNumbers() && invocation.getArgumentCount() == 3) {
+				printHelperCall("toCharsAt", "(c, a, i) => { if (c < 0x10000) { a[i] = c; return 1; } "
+						+ "a[i] = 0xD800 + ((c - 0x10000) >> 10); a[i + 1] = 0xDC00 + ((c - 0x10000) & 0x3FF); return 2; }")
+								.printArgList(invocation.getArguments()).print(")");
+			} else {
+				print("String.fromCharCode(").printArgList(invocation.getArguments()).print(")");
+			}
+			return true;
+		});
+		for (String className : new String[] { "java.lang.Number", "java.lang.Float", "java.lang.Double",
+				"java.lang.Integer", "java.lang.Byte", "java.lang.Long", "java.lang.Short" }) {
+			langMethodInvocationSubstitutions.add(className, null, -1, invocation -> substituteMethodInvocationOnLangNumber(
+					invocation, invocation.getMethodName(), className));
+		}
+		langMethodInvocationSubstitutions.add("java.lang.Boolean", "booleanValue", 0, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getTargetExpression());
+			return true;
+		});
+		langMethodInvocationSubstitutions.add("java.lang.Boolean", "hashCode", 1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			printHashCode(invocation.getArgument(0), "java.lang.Boolean");
+			return true;
+		});
+		for (String className : new String[] { "java.lang.StrictMath", "java.lang.Math" }) {
+			langMethodInvocationSubstitutions.add(className, null, -1, invocation -> substituteMethodInvocationOnLangMath(
+					invocation, invocation.getMethodName(), className));
+		}
+		langMethodInvocationSubstitutions.add("java.lang.Class", null, -1,
+				invocation -> substituteMethodInvocationOnLangClass(invocation, invocation.getMethodName()));
 	}
 
 	@Override
@@ -355,9 +525,10 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 					? fieldAccess.selected.type.tsym.toString() : null;
 			if (typeName != null && "isInstance".equals(methName) && Class.class.getName().equals(typeName)) {
 				printMacroName(fieldAccess.toString());
-				print("((c:any,o:any) => { if(typeof c === 'string') return (o.constructor && o.constructor")
-						.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"] && o.constructor")
-						.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"].indexOf(c) >= 0) || (o")
+				print("((c:any,o:any) => { if(typeof c === 'string') return ")
+						.print(addRuntimeHelper(Java2TypeScriptTranslator.INTERFACE_CHECK_HELPER_NAME,
+								Java2TypeScriptTranslator.INTERFACE_CHECK_HELPER))
+						.print("(o, c) || (o")
 						.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"] && o")
 						.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME
 								+ "\"].indexOf(c) >= 0); else if(typeof c === 'function') return (o instanceof c) || (o.constructor && o.constructor === c); })(");
@@ -403,14 +574,14 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 				if ("System.out".equals(invocationElement.getTargetExpression().toString())) {
 					PrinterAdapter print = print("console.info(");
 					if (invocationElement.getArgumentCount() > 0)
-						print.print(invocationElement.getArgument(0));
+						printAsString(invocationElement.getArgument(0));
 					print.print(")");
 					return true;
 				}
 				if ("System.err".equals(invocationElement.getTargetExpression().toString())) {
 					PrinterAdapter print = print("console.error(");
 					if (invocationElement.getArgumentCount() > 0)
-						print.print(invocationElement.getArgument(0));
+						printAsString(invocationElement.getArgument(0));
 					print.print(")");
 					return true;
 				}
@@ -455,14 +626,17 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 				return true;
 			case "ordinal":
 				printMacroName("Enum." + targetMethodName);
-				print(relTarget).print("[").print(relTarget).print("[").print(invocationElement.getTargetExpression())
-						.print("]").print("]");
+				if (context.hasPrecomputedEnumValues((TypeSymbol) targetType)) {
+					// the enum values are the ordinals
+					print("(<number>").print(invocationElement.getTargetExpression()).print(")");
+				} else {
+					print(relTarget).print("[").print(relTarget).print("[")
+							.print(invocationElement.getTargetExpression()).print("]").print("]");
+				}
 				return true;
 			case "values":
 				printMacroName("Enum." + targetMethodName);
-				print("function() { " + VAR_DECL_KEYWORD + " result: number[] = []; for(" + VAR_DECL_KEYWORD
-						+ " val in ").print(relTarget).print(
-								") { if(!isNaN(<any>val)) { result.push(parseInt(val,10)); } } return result; }()");
+				printEnumValues(invocationElement, (TypeSymbol) targetType, relTarget);
 				return true;
 			case "valueOf":
 				printMacroName("Enum." + targetMethodName);
@@ -518,9 +692,7 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 			switch (targetMethodName) {
 			case "values":
 				printMacroName("Enum." + targetMethodName);
-				print("function() { " + VAR_DECL_KEYWORD + " result: number[] = []; for(" + VAR_DECL_KEYWORD
-						+ " val in ").print(relTarget).print(
-								") { if(!isNaN(<any>val)) { result.push(parseInt(val,10)); } } return result; }()");
+				printEnumValues(invocationElement, (TypeSymbol) targetType, relTarget);
 				return true;
 			}
 		}
@@ -946,335 +1118,8 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 				break;
 			}
 
-			switch (targetClassName) {
-			case "java.lang.String":
-			case "java.lang.CharSequence":
-				switch (targetMethodName) {
-				case "valueOf":
-					printMacroName(targetMethodName);
-					if (invocationElement.getArgumentCount() == 3) {
-						print("((str, index, len) => str.join('').substring(index, index + len))(")
-								.printArgList(invocationElement.getArguments()).print(")");
-					} else {
-						print("new String(").printArgList(invocationElement.getArguments()).print(").toString()");
-					}
-					return true;
-				case "subSequence":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".substring(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				// this macro should use 'includes' in ES6
-				case "contains":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print(".indexOf(")
-							.printArgList(invocationElement.getArguments()).print(") != -1)");
-					return true;
-				case "length":
-					print(invocationElement.getTargetExpression()).print(".length");
-					return true;
-				// this macro is not needed in ES6
-				case "startsWith":
-					printMacroName(targetMethodName);
-					print("((str, searchString, position = 0) => str.substr(position, searchString.length) === searchString)(")
-							.print(invocationElement.getTargetExpression()).print(", ")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "endsWith":
-					printMacroName(targetMethodName);
-					print("((str, searchString) => { " + VAR_DECL_KEYWORD + " pos = str.length - searchString.length; "
-							+ VAR_DECL_KEYWORD
-							+ " lastIndex = str.indexOf(searchString, pos); return lastIndex !== -1 && lastIndex === pos; })(")
-									.print(invocationElement.getTargetExpression()).print(", ")
-									.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				// this macro is not needed in ES6
-				case "codePointAt":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".charCodeAt(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "isEmpty":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print(".length === 0)");
-					return true;
-				case "compareToIgnoreCase":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".toUpperCase().localeCompare(")
-							.printArgList(invocationElement.getArguments()).print(".toUpperCase())");
-					return true;
-				case "compareTo":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".localeCompare(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "equalsIgnoreCase":
-					printMacroName(targetMethodName);
-					print("((o1, o2) => o1.toUpperCase() === (o2===null?o2:o2.toUpperCase()))(")
-							.print(invocationElement.getTargetExpression()).print(", ")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "toChars":
-					printMacroName(targetMethodName);
-					print("String.fromCharCode(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				// In ES6, we can use the Array.from method
-				case "getBytes":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression())
-							.print(").split('').map(s => s.charCodeAt(0))");
-					return true;
-				// In ES6, we can use the Array.from method
-				case "toCharArray":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print(").split('')");
-					return true;
-				case "getChars":
-					printMacroName(targetMethodName);
-					print("((a, s, e, d, l) => { d.splice.apply(d, [l, e-s].concat(<any>a.substring(s, e).split(''))); })(")
-							.print(invocationElement.getTargetExpression()).print(", ")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "replaceAll":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".replace(new RegExp(")
-							.print(invocationElement.getArguments().get(0)).print(", 'g'),")
-							.print(invocationElement.getArguments().get(1)).print(")");
-					return true;
-				case "replace":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression()).print(".split(")
-							.print(invocationElement.getArguments().get(0)).print(").join(")
-							.print(invocationElement.getArguments().get(1)).print(")");
-					return true;
-				case "lastIndexOf":
-					print(invocationElement.getTargetExpression()).print(".lastIndexOf(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "indexOf":
-					if (invocationElement.getArgumentCount() == 1
-							&& util().isNumber(invocationElement.getArgument(0).getType())) {
-						print(invocationElement.getTargetExpression()).print(".indexOf(String.fromCharCode(")
-								.print(invocationElement.getArgument(0)).print("))");
-					} else {
-						print(invocationElement.getTargetExpression()).print(".indexOf(")
-								.printArgList(invocationElement.getArguments()).print(")");
-					}
-					return true;
-				case "toLowerCase":
-					if (invocationElement.getArgumentCount() > 0) {
-						printMacroName(targetMethodName);
-						print(invocationElement.getTargetExpression()).print(".toLowerCase()");
-						return true;
-					}
-					break;
-				case "toUpperCase":
-					if (invocationElement.getArgumentCount() > 0) {
-						printMacroName(targetMethodName);
-						print(invocationElement.getTargetExpression()).print(".toUpperCase()");
-						return true;
-					}
-					break;
-				}
-				break;
-			case "java.lang.Character":
-				switch (targetMethodName) {
-				case "toChars":
-					printMacroName(targetMethodName);
-					print("String.fromCharCode(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				}
-				break;
-			case "java.lang.Number":
-			case "java.lang.Float":
-			case "java.lang.Double":
-			case "java.lang.Integer":
-			case "java.lang.Byte":
-			case "java.lang.Long":
-			case "java.lang.Short":
-				switch (targetMethodName) {
-				case "isNaN":
-					printMacroName(targetMethodName);
-					if (invocationElement.getArgumentCount() > 0) {
-						print("isNaN(").printArgList(invocationElement.getArguments()).print(")");
-						return true;
-					} else {
-						print("isNaN(").print(invocationElement.getTargetExpression()).print(")");
-						return true;
-					}
-				case "isInfinite":
-					printMacroName(targetMethodName);
-					if (invocationElement.getArgumentCount() > 0) {
-						print("((value) => Number.NEGATIVE_INFINITY === value || Number.POSITIVE_INFINITY === value)(")
-								.printArgList(invocationElement.getArguments()).print(")");
-						return true;
-					} else {
-						print("((value) => Number.NEGATIVE_INFINITY === value || Number.POSITIVE_INFINITY === value)(")
-								.print(invocationElement.getTargetExpression()).print(")");
-						return true;
-					}
-				case "intValue":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print("|0").print(")");
-					return true;
-				case "shortValue":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print("|0").print(")");
-					return true;
-				case "byteValue":
-					printMacroName(targetMethodName);
-					print("(").print(invocationElement.getTargetExpression()).print("|0").print(")");
-					return true;
-				case "floatValue":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression());
-					return true;
-				case "doubleValue":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression());
-					return true;
-				case "longValue":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression());
-					return true;
-				case "compare":
-					if (invocationElement.getArgumentCount() == 2) {
-						printMacroName(targetMethodName);
-						print("(").print(invocationElement.getArgument(0)).print(" - ")
-								.print(invocationElement.getArgument(1)).print(")");
-						return true;
-					}
-					break;
-				case "toString":
-					if (invocationElement.getArgumentCount() > 0) {
-						printMacroName(targetMethodName);
-						print("(''+(").print(invocationElement.getArgument(0)).print("))");
-						return true;
-					}
-				}
-				break;
-			case "java.lang.Boolean":
-				switch (targetMethodName) {
-				case "booleanValue":
-					printMacroName(targetMethodName);
-					print(invocationElement.getTargetExpression());
-					return true;
-				}
-				break;
-			case "java.lang.StrictMath":
-			case "java.lang.Math":
-				switch (targetMethodName) {
-				case "cbrt":
-					printMacroName(targetMethodName);
-					print("Math.pow(").printArgList(invocationElement.getArguments()).print(", 1/3)");
-					return true;
-				case "copySign":
-					printMacroName(targetMethodName);
-					print("((magnitude, sign) => { if (sign < 0) { return (magnitude < 0) ? magnitude : -magnitude; } else { return (magnitude > 0) ? magnitude : -magnitude; } })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "cosh":
-					printMacroName(targetMethodName);
-					print("(x => (Math.exp(x) + Math.exp(-x)) / 2)(").printArgList(invocationElement.getArguments())
-							.print(")");
-					return true;
-				case "expm1":
-					printMacroName(targetMethodName);
-					print("(d => { if (d == 0.0 || d === Number.NaN) { return d; } else if (!Number.POSITIVE_INFINITY === d && !Number.NEGATIVE_INFINITY === d) { if (d < 0) { return -1; } else { return Number.POSITIVE_INFINITY; } } })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "hypot":
-					printMacroName(targetMethodName);
-					print("(x => Math.sqrt(x * x + y * y))(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "log10":
-					printMacroName(targetMethodName);
-					print("(x => Math.log(x) * Math.LOG10E)(").printArgList(invocationElement.getArguments())
-							.print(")");
-					return true;
-				case "log1p":
-					printMacroName(targetMethodName);
-					print("(x => Math.log(x + 1))(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "rint":
-					printMacroName(targetMethodName);
-					print("(d => { if (d === Number.NaN) { return d; } else if (Number.POSITIVE_INFINITY === d || Number.NEGATIVE_INFINITY === d) { return d; } else if(d == 0) { return d; } else { return Math.round(d); } })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "scalb":
-					printMacroName(targetMethodName);
-					print("((d, scaleFactor) => { if (scaleFactor >= 31 || scaleFactor <= -31) { return d * Math.pow(2, scaleFactor); } else if (scaleFactor > 0) { return d * (1 << scaleFactor); } else if (scaleFactor == 0) { return d; } else { return d * 1 / (1 << -scaleFactor); } })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "signum":
-					printMacroName(targetMethodName);
-					print("(f => { if (f > 0) { return 1; } else if (f < 0) { return -1; } else { return 0; } })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "sinh":
-					printMacroName(targetMethodName);
-					print("(x => (Math.exp(x) - Math.exp(-x)) / 2)(").printArgList(invocationElement.getArguments())
-							.print(")");
-					return true;
-				case "tanh":
-					printMacroName(targetMethodName);
-					print("(x => { if (x == Number.POSITIVE_INFINITY) { return 1; } else if (x == Number.NEGATIVE_INFINITY) { return -1; } double e2x = Math.exp(2 * x); return (e2x - 1) / (e2x + 1); })(")
-							.printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "toDegrees":
-					printMacroName(targetMethodName);
-					print("(x => x * 180 / Math.PI)(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "toRadians":
-					printMacroName(targetMethodName);
-					print("(x => x * Math.PI / 180)(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				case "nextUp":
-					delegateToEmulLayer(targetClassName, targetMethodName, invocationElement);
-					return true;
-				case "nextDown":
-					delegateToEmulLayer(targetClassName, targetMethodName, invocationElement);
-					return true;
-				case "ulp":
-					delegateToEmulLayer(targetClassName, targetMethodName, invocationElement);
-					return true;
-				case "IEEEremainder":
-					delegateToEmulLayer(targetClassName, targetMethodName, invocationElement);
-					return true;
-				default:
-					print("Math." + targetMethodName + "(").printArgList(invocationElement.getArguments()).print(")");
-					return true;
-				}
-
-			case "java.lang.Class":
-				switch (targetMethodName) {
-				case "getName":
-					printMacroName(targetMethodName);
-					getPrinter().print("(c => typeof c === 'string'?c:c[\"" + Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]?c[\""
-							+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]:c[\"name\"])(");
-					printTarget(invocationElement.getTargetExpression());
-					print(")");
-					return true;
-				case "getSimpleName":
-					printMacroName(targetMethodName);
-					print("(c => typeof c === 'string'?(<any>c).substring((<any>c).lastIndexOf('.')+1):c[\"" + Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]?c[\""
-							+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"].substring(c[\""
-							+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR
-							+ "\"].lastIndexOf('.')+1):c[\"name\"].substring(c[\"name\"].lastIndexOf('.')+1))(");
-					printTarget(invocationElement.getTargetExpression());
-					print(")");
-					return true;
-				}
-				break;
-
-			// case "java.util.Date":
-			// switch (targetMethodName) {
-			// case "setFullYear":
-			// printMacroName(targetMethodName);
-			// print(fieldAccess.getExpression()).print(".setYear(").printArgList(invocation.args).print(")");
-			//
-			// }
-			// break;
+			if (langMethodInvocationSubstitutions.substitute(invocationElement, targetType)) {
+				return true;
 			}
 
 			if (invocationElement.getTargetExpression() != null && isMappedType(targetClassName)
@@ -1339,11 +1184,21 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 			return true;
 		case "hashCode":
 			if (invocationElement.getArgumentCount() == 0) {
+				Element declaringElement = invocationElement.getMethod().getEnclosingElement();
+				if (declaringElement.getKind() == ElementKind.CLASS && util().isSourceElement(declaringElement)
+						&& !context.isAmbientDeclaration((Symbol) declaringElement)) {
+					// a class of the program overrides hashCode()
+					break;
+				}
 				printMacroName(targetMethodName);
-				print("(<any>((o: any) => { if(o.hashCode) { return o.hashCode(); } else { "
-						+ "return o.toString().split('').reduce((prevHash, currVal) => (((prevHash << 5) - prevHash) + currVal.charCodeAt(0))|0, 0); }})(");
-				printTarget(invocationElement.getTargetExpression());
-				print("))");
+				if (invocationElement.getTargetExpression() != null
+						&& "super".equals(invocationElement.getTargetExpression().toString())) {
+					printHashCodeHelperCall("identityHashCode").print("this)");
+				} else if (invocationElement.getTargetExpression() == null) {
+					printHashCodeHelperCall("hashCode").print("this)");
+				} else {
+					printHashCode(invocationElement.getTargetExpression());
+				}
 				return true;
 			}
 			break;
@@ -1394,6 +1249,400 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 
 	}
 
+	private boolean substituteMethodInvocationOnString(MethodInvocationElement invocation, String targetMethodName) {
+		switch (targetMethodName) {
+		case "valueOf":
+			printMacroName(targetMethodName);
+			if (invocation.getArgumentCount() == 3 && context.options.isCharsAsNumbers()) {
+				printHelperCall("fromCharCodes", FROM_CHAR_CODES_FUNCTION).printArgList(invocation.getArguments())
+						.print(")");
+			} else if (invocation.getArgumentCount() == 3) {
+				print("((str, index, len) => str.join('').substring(index, index + len))(")
+						.printArgList(invocation.getArguments()).print(")");
+			} else if (invocation.getArgumentCount() == 1
+					&& isCharAsNumber(invocation.getArgument(0))) {
+				printAsString(invocation.getArgument(0));
+			} else {
+				print("new String(").printArgList(invocation.getArguments()).print(").toString()");
+			}
+			return true;
+		case "subSequence":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression()).print(".substring(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "contains":
+			printMacroName(targetMethodName);
+			if (isNativeES6StringTarget()) {
+				print(invocation.getTargetExpression()).print(".includes(")
+						.printArgList(invocation.getArguments()).print(")");
+			} else {
+				print("(").print(invocation.getTargetExpression()).print(".indexOf(")
+						.printArgList(invocation.getArguments()).print(") != -1)");
+			}
+			return true;
+		case "length":
+			print(invocation.getTargetExpression()).print(".length");
+			return true;
+		case "startsWith":
+			printMacroName(targetMethodName);
+			if (isNativeES6StringTarget()) {
+				print(invocation.getTargetExpression()).print(".startsWith(")
+						.printArgList(invocation.getArguments()).print(")");
+			} else {
+				printHelperCall("startsWith", STRING_STARTS_WITH_FUNCTION)
+						.print(invocation.getTargetExpression()).print(", ")
+						.printArgList(invocation.getArguments()).print(")");
+			}
+			return true;
+		case "endsWith":
+			printMacroName(targetMethodName);
+			if (isNativeES6StringTarget()) {
+				print(invocation.getTargetExpression()).print(".endsWith(")
+						.printArgList(invocation.getArguments()).print(")");
+			} else {
+				String startsWith = addRuntimeHelper("startsWith", STRING_STARTS_WITH_FUNCTION);
+				print(addRuntimeHelper("endsWith", "(s, p) => " + startsWith + "(s, p, s.length - p.length)") + "(")
+						.print(invocation.getTargetExpression()).print(", ")
+						.printArgList(invocation.getArguments()).print(")");
+			}
+			return true;
+		// this macro is not needed in ES6
+		case "codePointAt":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression()).print(".charCodeAt(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "isEmpty":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getTargetExpression()).print(".length === 0)");
+			return true;
+		case "compareToIgnoreCase":
+			printMacroName(targetMethodName);
+			print(addRuntimeHelper("compareToIgnoreCase", STRING_COMPARE_IGNORE_CASE_FUNCTION) + "(")
+					.print(invocation.getTargetExpression()).print(", ").printArgList(invocation.getArguments())
+					.print(")");
+			return true;
+		case "compareTo":
+			printMacroName(targetMethodName);
+			printHelperCall("compareTo", STRING_COMPARE_FUNCTION).print(invocation.getTargetExpression())
+					.print(", ").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "equalsIgnoreCase":
+			printMacroName(targetMethodName);
+			print("((o1, o2) => o1.toUpperCase() === (o2===null?o2:o2.toUpperCase()))(")
+					.print(invocation.getTargetExpression()).print(", ")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "toChars":
+			printMacroName(targetMethodName);
+			print("String.fromCharCode(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "getBytes":
+			printMacroName(targetMethodName);
+			print("(s => { " + VAR_DECL_KEYWORD + " a = new "
+					+ (context.options.isUseTypedArrays() ? "Int8Array" : "Array") + "(s.length); for ("
+					+ VAR_DECL_KEYWORD + " i = 0; i < s.length; i++) a[i] = s.charCodeAt(i); return <any>a; })(")
+							.print(invocation.getTargetExpression()).print(")");
+			return true;
+		// In ES6, we can use the Array.from method
+		case "toCharArray":
+			printMacroName(targetMethodName);
+			if (context.options.isCharsAsNumbers()) {
+				print("(s => { " + VAR_DECL_KEYWORD + " a = new "
+						+ (context.options.isUseTypedArrays() ? "Uint16Array" : "Array") + "(s.length); for ("
+						+ VAR_DECL_KEYWORD + " i = 0; i < s.length; i++) a[i] = s.charCodeAt(i); return <any>a; })(")
+								.print(invocation.getTargetExpression()).print(")");
+			} else {
+				print("(").print(invocation.getTargetExpression()).print(").split('')");
+			}
+			return true;
+		case "getChars":
+			printMacroName(targetMethodName);
+			if (context.options.isCharsAsNumbers()) {
+				print("((a, s, e, d, l) => { for (" + VAR_DECL_KEYWORD
+						+ " i = s; i < e; i++) d[l + i - s] = a.charCodeAt(i); })(")
+								.print(invocation.getTargetExpression()).print(", ")
+								.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			print("((a, s, e, d, l) => { d.splice.apply(d, [l, e-s].concat(<any>a.substring(s, e).split(''))); })(")
+					.print(invocation.getTargetExpression()).print(", ")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "replaceAll":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression()).print(".replace(");
+			printRegExp(invocation.getArgument(0), "g", false).print(", ")
+					.print(invocation.getArgument(1)).print(")");
+			return true;
+		case "replaceFirst":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression()).print(".replace(");
+			printRegExp(invocation.getArgument(0), "", false).print(", ")
+					.print(invocation.getArgument(1)).print(")");
+			return true;
+		case "matches":
+			printMacroName(targetMethodName);
+			printRegExp(invocation.getArgument(0), "", true).print(".test(")
+					.print(invocation.getTargetExpression()).print(")");
+			return true;
+		case "split":
+			printMacroName(targetMethodName);
+			printHelperCall("split", SPLIT_FUNCTION).print(invocation.getTargetExpression()).print(", ");
+			printRegExp(invocation.getArgument(0), "g", false);
+			if (invocation.getArgumentCount() == 2) {
+				print(", ").print(invocation.getArgument(1));
+			}
+			print(")");
+			return true;
+		case "replace":
+			printMacroName(targetMethodName);
+			printHelperCall("replace", "(s, t, r) => { " + VAR_DECL_KEYWORD + " o = '', p = 0, i = s.indexOf(t); "
+					+ "if (i < 0) return s; if (t.length === 0) { o = r; for (; p < s.length; p++) o += s.charAt(p) + r; return o; } "
+					+ "do { o += s.substring(p, i) + r; p = i + t.length; i = s.indexOf(t, p); } while (i >= 0); "
+					+ "return o + s.substring(p); }").print(invocation.getTargetExpression()).print(", ");
+			printAsString(invocation.getArguments().get(0)).print(", ");
+			printAsString(invocation.getArguments().get(1)).print(")");
+			return true;
+		case "lastIndexOf":
+			if (isCharAsNumber(invocation.getArgument(0)) || (context.options.isCharsAsNumbers()
+					&& util().isNumber(invocation.getArgument(0).getType()))) {
+				print(invocation.getTargetExpression()).print(".lastIndexOf(String.fromCharCode(")
+						.print(invocation.getArgument(0)).print(")");
+				if (invocation.getArgumentCount() > 1) {
+					print(", ").printArgList(invocation.getArgumentTail());
+				}
+				print(")");
+			} else {
+				print(invocation.getTargetExpression()).print(".lastIndexOf(")
+						.printArgList(invocation.getArguments()).print(")");
+			}
+			return true;
+		case "indexOf":
+			if (invocation.getArgumentCount() == 1
+					&& util().isNumber(invocation.getArgument(0).getType())) {
+				print(invocation.getTargetExpression()).print(".indexOf(String.fromCharCode(")
+						.print(invocation.getArgument(0)).print("))");
+			} else if (isCharAsNumber(invocation.getArgument(0)) || (context.options.isCharsAsNumbers()
+					&& util().isNumber(invocation.getArgument(0).getType()))) {
+				print(invocation.getTargetExpression()).print(".indexOf(String.fromCharCode(")
+						.print(invocation.getArgument(0)).print(")");
+				if (invocation.getArgumentCount() > 1) {
+					print(", ").printArgList(invocation.getArgumentTail());
+				}
+				print(")");
+			} else {
+				print(invocation.getTargetExpression()).print(".indexOf(")
+						.printArgList(invocation.getArguments()).print(")");
+			}
+			return true;
+		case "charAt":
+			if (context.options.isCharsAsNumbers()) {
+				printMacroName(targetMethodName);
+				print(invocation.getTargetExpression()).print(".charCodeAt(")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			break;
+		case "toLowerCase":
+			if (invocation.getArgumentCount() > 0) {
+				printMacroName(targetMethodName);
+				print(invocation.getTargetExpression()).print(".toLowerCase()");
+				return true;
+			}
+			break;
+		case "toUpperCase":
+			if (invocation.getArgumentCount() > 0) {
+				printMacroName(targetMethodName);
+				print(invocation.getTargetExpression()).print(".toUpperCase()");
+				return true;
+			}
+			break;
+		}
+		return false;
+	}
+
+	private boolean substituteMethodInvocationOnLangNumber(MethodInvocationElement invocation, String targetMethodName,
+			String targetClassName) {
+		switch (targetMethodName) {
+		case "isNaN":
+			printMacroName(targetMethodName);
+			if (invocation.getArgumentCount() > 0) {
+				print("isNaN(").printArgList(invocation.getArguments()).print(")");
+				return true;
+			} else {
+				print("isNaN(").print(invocation.getTargetExpression()).print(")");
+				return true;
+			}
+		case "isInfinite":
+			printMacroName(targetMethodName);
+			if (invocation.getArgumentCount() > 0) {
+				print("((value) => Number.NEGATIVE_INFINITY === value || Number.POSITIVE_INFINITY === value)(")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			} else {
+				print("((value) => Number.NEGATIVE_INFINITY === value || Number.POSITIVE_INFINITY === value)(")
+						.print(invocation.getTargetExpression()).print(")");
+				return true;
+			}
+		case "intValue":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getTargetExpression()).print("|0").print(")");
+			return true;
+		case "shortValue":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getTargetExpression()).print("|0").print(")");
+			return true;
+		case "byteValue":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getTargetExpression()).print("|0").print(")");
+			return true;
+		case "floatValue":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression());
+			return true;
+		case "doubleValue":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression());
+			return true;
+		case "longValue":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression());
+			return true;
+		case "compare":
+			if (invocation.getArgumentCount() == 2) {
+				printMacroName(targetMethodName);
+				print("(").print(invocation.getArgument(0)).print(" - ")
+						.print(invocation.getArgument(1)).print(")");
+				return true;
+			}
+			break;
+		case "hashCode":
+			if (invocation.getArgumentCount() == 1) {
+				printMacroName(targetMethodName);
+				printHashCode(invocation.getArgument(0), targetClassName);
+				return true;
+			}
+			break;
+		case "toString":
+			if (invocation.getArgumentCount() > 0) {
+				printMacroName(targetMethodName);
+				print("(''+(").print(invocation.getArgument(0)).print("))");
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean substituteMethodInvocationOnLangMath(MethodInvocationElement invocation, String targetMethodName,
+			String targetClassName) {
+		switch (targetMethodName) {
+		case "cbrt":
+			printMacroName(targetMethodName);
+			print("Math.pow(").printArgList(invocation.getArguments()).print(", 1/3)");
+			return true;
+		case "copySign":
+			printMacroName(targetMethodName);
+			print("((magnitude, sign) => { if (sign < 0) { return (magnitude < 0) ? magnitude : -magnitude; } else { return (magnitude > 0) ? magnitude : -magnitude; } })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "cosh":
+			printMacroName(targetMethodName);
+			print("(x => (Math.exp(x) + Math.exp(-x)) / 2)(").printArgList(invocation.getArguments())
+					.print(")");
+			return true;
+		case "expm1":
+			printMacroName(targetMethodName);
+			print("(d => { if (d == 0.0 || d === Number.NaN) { return d; } else if (!Number.POSITIVE_INFINITY === d && !Number.NEGATIVE_INFINITY === d) { if (d < 0) { return -1; } else { return Number.POSITIVE_INFINITY; } } })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "hypot":
+			printMacroName(targetMethodName);
+			print("(x => Math.sqrt(x * x + y * y))(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "log10":
+			printMacroName(targetMethodName);
+			print("(x => Math.log(x) * Math.LOG10E)(").printArgList(invocation.getArguments())
+					.print(")");
+			return true;
+		case "log1p":
+			printMacroName(targetMethodName);
+			print("(x => Math.log(x + 1))(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "rint":
+			printMacroName(targetMethodName);
+			print("(d => { if (d === Number.NaN) { return d; } else if (Number.POSITIVE_INFINITY === d || Number.NEGATIVE_INFINITY === d) { return d; } else if(d == 0) { return d; } else { return Math.round(d); } })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "scalb":
+			printMacroName(targetMethodName);
+			print("((d, scaleFactor) => { if (scaleFactor >= 31 || scaleFactor <= -31) { return d * Math.pow(2, scaleFactor); } else if (scaleFactor > 0) { return d * (1 << scaleFactor); } else if (scaleFactor == 0) { return d; } else { return d * 1 / (1 << -scaleFactor); } })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "signum":
+			printMacroName(targetMethodName);
+			print("(f => { if (f > 0) { return 1; } else if (f < 0) { return -1; } else { return 0; } })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "sinh":
+			printMacroName(targetMethodName);
+			print("(x => (Math.exp(x) - Math.exp(-x)) / 2)(").printArgList(invocation.getArguments())
+					.print(")");
+			return true;
+		case "tanh":
+			printMacroName(targetMethodName);
+			print("(x => { if (x == Number.POSITIVE_INFINITY) { return 1; } else if (x == Number.NEGATIVE_INFINITY) { return -1; } double e2x = Math.exp(2 * x); return (e2x - 1) / (e2x + 1); })(")
+					.printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "toDegrees":
+			printMacroName(targetMethodName);
+			print("(x => x * 180 / Math.PI)(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "toRadians":
+			printMacroName(targetMethodName);
+			print("(x => x * Math.PI / 180)(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		case "nextUp":
+			delegateToEmulLayer(targetClassName, targetMethodName, invocation);
+			return true;
+		case "nextDown":
+			delegateToEmulLayer(targetClassName, targetMethodName, invocation);
+			return true;
+		case "ulp":
+			delegateToEmulLayer(targetClassName, targetMethodName, invocation);
+			return true;
+		case "IEEEremainder":
+			delegateToEmulLayer(targetClassName, targetMethodName, invocation);
+			return true;
+		default:
+			print("Math." + targetMethodName + "(").printArgList(invocation.getArguments()).print(")");
+			return true;
+		}
+	}
+
+	private boolean substituteMethodInvocationOnLangClass(MethodInvocationElement invocation, String targetMethodName) {
+		switch (targetMethodName) {
+		case "getName":
+			printMacroName(targetMethodName);
+			getPrinter().print("(c => typeof c === 'string'?c:c[\"" + Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]?c[\""
+					+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]:c[\"name\"])(");
+			printTarget(invocation.getTargetExpression());
+			print(")");
+			return true;
+		case "getSimpleName":
+			printMacroName(targetMethodName);
+			print("(c => typeof c === 'string'?(<any>c).substring((<any>c).lastIndexOf('.')+1):c[\"" + Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"]?c[\""
+					+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR + "\"].substring(c[\""
+					+ Java2TypeScriptTranslator.CLASS_NAME_IN_CONSTRUCTOR
+					+ "\"].lastIndexOf('.')+1):c[\"name\"].substring(c[\"name\"].lastIndexOf('.')+1))(");
+			printTarget(invocation.getTargetExpression());
+			print(")");
+			return true;
+		}
+		return false;
+	}
+
 	protected void printFunctionalInvocation(ExtendedElement target, String functionName,
 			List<ExtendedElement> arguments) {
 		if (target instanceof IdentifierElement) {
@@ -1422,6 +1671,187 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 		}
 	}
 
+	/**
+	 * Prints the head of a call to a function computing Java-compatible hash
+	 * codes (see {@link #printRuntimeHelperCall(String[][], String)}).
+	 * 
+	 * @param name
+	 *            the function's name (e.g. <code>stringHashCode</code>)
+	 */
+	protected PrinterAdapter printHashCodeHelperCall(String name) {
+		return printRuntimeHelperCall(HASH_CODE_HELPERS, name);
+	}
+
+	/**
+	 * Prints the Java hash code of the given expression. When the expression
+	 * is a string, a boxed primitive or a boolean, the hash code is computed
+	 * the Java way for the static type. Other objects use their
+	 * <code>hashCode()</code> method, or an identity hash code.
+	 */
+	protected PrinterAdapter printHashCode(ExtendedElement expression) {
+		TypeMirror type = expression.getType();
+		return printHashCode(expression, type == null ? "" : types().erasure(type).toString());
+	}
+
+	/**
+	 * Prints the Java hash code of the given expression, as computed by the
+	 * given type (e.g. <code>java.lang.Double</code>).
+	 */
+	protected PrinterAdapter printHashCode(ExtendedElement expression, String typeName) {
+		switch (typeName) {
+		case "java.lang.String":
+			return printHashCodeHelperCall("stringHashCode").print(expression).print(")");
+		case "boolean":
+		case "java.lang.Boolean":
+			return print("(").print(expression).print(" ? 1231 : 1237)");
+		case "int":
+		case "short":
+		case "byte":
+		case "java.lang.Integer":
+		case "java.lang.Short":
+		case "java.lang.Byte":
+			return print("(<number>").print(expression).print(")");
+		case "char":
+		case "java.lang.Character":
+			if (context.options.isCharsAsNumbers()) {
+				return print("(<number>").print(expression).print(")");
+			}
+			return print(expression).print(".charCodeAt(0)");
+		case "long":
+		case "java.lang.Long":
+			return printHashCodeHelperCall("longHashCode").print(expression).print(")");
+		case "double":
+		case "java.lang.Double":
+			return printHashCodeHelperCall("doubleHashCode").print(expression).print(")");
+		case "float":
+		case "java.lang.Float":
+			return printHashCodeHelperCall("floatHashCode").print(expression).print(")");
+		default:
+			return printHashCodeHelperCall("hashCode").print(expression).print(")");
+		}
+	}
+
+	/**
+	 * Tells if the target ECMAScript version provides the ES2015 string methods
+	 * (<code>startsWith</code>, <code>endsWith</code>, <code>includes</code>).
+	 */
+	protected boolean isNativeES6StringTarget() {
+		return context.options.getEcmaTargetVersion().higherThan(EcmaScriptComplianceLevel.ES5);
+	}
+
+	/**
+	 * Prints a regular expression built from the given pattern expression. A
+	 * constant pattern is translated to JavaScript at compile time (see
+	 * {@link Util#toJavaScriptRegExp(String, String, java.util.function.Consumer)})
+	 * and hoisted to a header variable, so that it is compiled only once.
+	 * Other patterns are compiled through a bounded LRU cache at runtime.
+	 * 
+	 * @param pattern
+	 *            the expression of the Java regular expression
+	 * @param flags
+	 *            the JavaScript flags
+	 * @param fullMatch
+	 *            true if the regular expression must match entire strings
+	 */
+	protected PrinterAdapter printRegExp(ExtendedElement pattern, String flags, boolean fullMatch) {
+		JCTree patternTree = ((ExtendedElementSupport<?>) pattern).getTree();
+		Object constantPattern = patternTree.type == null ? null : patternTree.type.constValue();
+		if (constantPattern instanceof String) {
+			String[] regExp = Util.toJavaScriptRegExp((String) constantPattern, flags, construct -> report(pattern,
+					JSweetProblem.UNSUPPORTED_REGEXP_CONSTRUCT, construct, constantPattern));
+			String declaration = "new RegExp(\"" + StringEscapeUtils.escapeJson(fullMatch ? "^(?:" + regExp[0] + ")$"
+					: regExp[0]) + "\", '" + regExp[1] + "')";
+			String name = regExpConstantNames.get(declaration);
+			if (name == null) {
+				name = "regExp" + regExpConstantNames.size();
+				regExpConstantNames.put(declaration, name);
+			}
+			return print(addRuntimeHelper(name, declaration));
+		}
+		print(addRuntimeHelper("regExp", REGEXP_CACHE_HELPER) + "(");
+		if (fullMatch) {
+			print("'^(?:' + ").print(pattern).print(" + ')$'");
+		} else {
+			print(pattern);
+		}
+		return print(", '" + flags + "')");
+	}
+
+	/**
+	 * Prints the <code>values()</code> invocation of an enum. When the enum has
+	 * precomputed values, the frozen values array is read directly if the
+	 * invocation is only iterated, indexed or measured, and it is copied
+	 * otherwise, since Java returns a fresh array.
+	 */
+	protected void printEnumValues(MethodInvocationElement invocationElement, TypeSymbol enumType,
+			String relTarget) {
+		if (context.hasPrecomputedEnumValues(enumType)) {
+			print(relTarget).print("[\"" + Java2TypeScriptTranslator.ENUM_VALUES + "\"]");
+			JCTree invocation = ((MethodInvocationElementSupport) invocationElement).getTree();
+			JCTree parent = getPrinter().getParent();
+			// the shared array is used directly only when it cannot be modified
+			boolean readOnly = (parent instanceof JCEnhancedForLoop && ((JCEnhancedForLoop) parent).expr == invocation)
+					|| (parent instanceof JCArrayAccess && ((JCArrayAccess) parent).indexed == invocation
+							&& !isWriteTarget(parent, getPrinter().getParentOfParent()))
+					|| (parent instanceof JCFieldAccess && ((JCFieldAccess) parent).selected == invocation);
+			if (!readOnly) {
+				print(".slice(0)");
+			}
+		} else {
+			print("function() { " + VAR_DECL_KEYWORD + " result: number[] = []; for(" + VAR_DECL_KEYWORD
+					+ " val in ").print(relTarget).print(
+							") { if(!isNaN(<any>val)) { result.push(parseInt(val,10)); } } return result; }()");
+		}
+	}
+
+	/**
+	 * Tells if the given expression is assigned, or incremented or decremented,
+	 * by its parent.
+	 */
+	private static boolean isWriteTarget(JCTree expression, JCTree parent) {
+		if (parent instanceof JCAssign) {
+			return ((JCAssign) parent).lhs == expression;
+		} else if (parent instanceof JCAssignOp) {
+			return ((JCAssignOp) parent).lhs == expression;
+		} else if (parent instanceof JCUnary) {
+			switch (parent.getTag()) {
+			case PREINC:
+			case PREDEC:
+			case POSTINC:
+			case POSTDEC:
+				return ((JCUnary) parent).arg == expression;
+			default:
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prints an expression that is used as a string. Chars (and char arrays)
+	 * are converted with <code>String.fromCharCode</code> when they are
+	 * represented as numbers (see {@link JSweetOptions#isCharsAsNumbers()}).
+	 */
+	protected final PrinterAdapter printAsString(ExtendedElement expression) {
+		if (isCharAsNumber(expression)) {
+			return print("String.fromCharCode(").print(expression).print(")");
+		} else if (context.options.isCharsAsNumbers() && expression.getType() instanceof ArrayType
+				&& ((ArrayType) expression.getType()).getComponentType().getKind() == TypeKind.CHAR) {
+			return print("String.fromCharCode.apply(null, ").print(expression).print(")");
+		} else {
+			return print(expression);
+		}
+	}
+
+	/**
+	 * Tells if the given expression is a char (or a boxed char) that is
+	 * represented as a number (see {@link JSweetOptions#isCharsAsNumbers()}).
+	 */
+	protected final boolean isCharAsNumber(ExtendedElement expression) {
+		return context.options.isCharsAsNumbers() && expression.getType() != null
+				&& util().toPrimitiveTypeOrType(expression.getType()).getKind() == TypeKind.CHAR;
+	}
+
 	protected final void delegateToEmulLayer(String targetClassName, String targetMethodName,
 			InvocationElement invocation) {
 		print("javaemul.internal." + targetClassName.substring(10) + "Helper.").print(targetMethodName).print("(")
@@ -1610,9 +2040,15 @@ public class Java2TypeScriptAdapter extends PrinterAdapter {
 		}
 		// macros
 		if (newClass.clazz.type.equals(context.symtab.stringType)) {
+			if (newClass.args.length() >= 3 && context.options.isCharsAsNumbers()
+					&& "char[]".equals(newClass.args.get(0).type.toString())) {
+				printHelperCall("fromCharCodes", FROM_CHAR_CODES_FUNCTION);
+				getPrinter().printArgList(null, newClass.args).print(")");
+				return true;
+			}
 			if (newClass.args.length() >= 3) {
-				getPrinter().print("((str, index, len) => ").print("str.substring(index, index + len))((")
-						.print(newClass.args.head).print(")");
+				getPrinter().print("((str, index, len) => ").print("str.substring(index, index + len))(");
+				getPrinter().print("(").print(newClass.args.head).print(")");
 				if ("byte[]".equals(newClass.args.get(0).type.toString())) {
 					print(".map(s => String.fromCharCode(s))");
 				}
@@ -19,12 +19,23 @@
 package org.jsweet.transpiler.extension;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.lang.model.element.Element;
@@ -78,6 +89,17 @@ import com.sun.tools.javac.code.Symbol.PackageSymbol;
  */
 public class PrinterAdapter {
 
+	/**
+	 * The prefix of the runtime helpers' names.
+	 * 
+	 * @see #printHelperCall(String, String)
+	 */
+	public static final String RUNTIME_HELPER_PREFIX = "__jsweet_";
+
+	private static final Pattern RUNTIME_HELPER_REFERENCE = Pattern.compile(RUNTIME_HELPER_PREFIX + "(\\w+)");
+
+	private static final Map<String[][], Map<String, List<String[]>>> runtimeHelperDependencies = new ConcurrentHashMap<>();
+
 	protected Logger logger = Logger.getLogger(getClass());
 
 	private PrinterAdapter parentAdapter;
@@ -885,6 +907,183 @@ public class PrinterAdapter {
 		return parentAdapter == null ? false : parentAdapter.substituteMethodInvocation(invocation);
 	}
 
+	/**
+	 * A substitution function for method invocations, to be registered with
+	 * {@link PrinterAdapter#addMethodInvocationSubstitution(String, String, int, MethodInvocationSubstitution)}.
+	 */
+	@FunctionalInterface
+	public interface MethodInvocationSubstitution {
+		/**
+		 * Substitutes the given invocation.
+		 * 
+		 * @return true if substituted
+		 */
+		boolean substitute(MethodInvocationElement invocation);
+	}
+
+	private static final class RegisteredSubstitution {
+		private final String methodName;
+		private final int argumentCount;
+		private final MethodInvocationSubstitution substitution;
+
+		private RegisteredSubstitution(String methodName, int argumentCount,
+				MethodInvocationSubstitution substitution) {
+			this.methodName = methodName;
+			this.argumentCount = argumentCount;
+			this.substitution = substitution;
+		}
+
+		private boolean matches(String methodName, int argumentCount) {
+			return (this.methodName == null || this.methodName.equals(methodName))
+					&& (this.argumentCount == -1 || this.argumentCount == argumentCount);
+		}
+	}
+
+	private static final MethodInvocationSubstitution[] NO_SUBSTITUTIONS = {};
+
+	/**
+	 * A table of method invocation substitutions, keyed by class name, method
+	 * name and arity. Substitutions are tried in registration order, and the
+	 * ones that apply to a given target type and method are resolved once and
+	 * cached, so that a lookup only performs map lookups in the general case.
+	 * 
+	 * <p>
+	 * Each adapter has a default table (see
+	 * {@link PrinterAdapter#addMethodInvocationSubstitution(String, String, int, MethodInvocationSubstitution)}),
+	 * but an adapter may create other tables to look up some substitutions at a
+	 * different stage of its invocation printing.
+	 */
+	protected final class MethodInvocationSubstitutionTable {
+
+		private final Map<String, List<RegisteredSubstitution>> substitutions = new HashMap<>();
+
+		private final Map<Element, Map<ExecutableElement, MethodInvocationSubstitution[]>> resolvedSubstitutions = new HashMap<>();
+
+		private final Function<Element, String> classNames;
+
+		/**
+		 * Creates a table that looks up the substitutions of a target type by
+		 * the name returned by {@link PrinterAdapter#getSubstitutionClassName(Element)}.
+		 */
+		public MethodInvocationSubstitutionTable() {
+			this(PrinterAdapter.this::getSubstitutionClassName);
+		}
+
+		/**
+		 * Creates a table that looks up the substitutions of a target type by
+		 * the name returned by the given function.
+		 */
+		public MethodInvocationSubstitutionTable(Function<Element, String> classNames) {
+			this.classNames = classNames;
+		}
+
+		/**
+		 * Registers a method invocation substitution in this table.
+		 * 
+		 * @param className
+		 *            the fully qualified name of the class the invoked method
+		 *            belongs to
+		 * @param methodName
+		 *            the name of the invoked method (null for any method)
+		 * @param argumentCount
+		 *            the number of parameters of the invoked method (-1 for any)
+		 * @param substitution
+		 *            the substitution function
+		 */
+		public void add(String className, String methodName, int argumentCount,
+				MethodInvocationSubstitution substitution) {
+			substitutions.computeIfAbsent(className, c -> new ArrayList<>())
+					.add(new RegisteredSubstitution(methodName, argumentCount, substitution));
+			resolvedSubstitutions.clear();
+		}
+
+		/**
+		 * Applies the substitutions of this table to the given invocation.
+		 * 
+		 * @param invocation
+		 *            the invocation being printed
+		 * @param targetType
+		 *            the type of the invocation target
+		 * @return true if substituted
+		 */
+		public boolean substitute(MethodInvocationElement invocation, Element targetType) {
+			ExecutableElement method = invocation.getMethod();
+			if (targetType == null || method == null || substitutions.isEmpty()) {
+				return false;
+			}
+			Map<ExecutableElement, MethodInvocationSubstitution[]> substitutionsByMethod = resolvedSubstitutions
+					.computeIfAbsent(targetType, t -> new HashMap<>());
+			MethodInvocationSubstitution[] resolved = substitutionsByMethod.get(method);
+			if (resolved == null) {
+				List<RegisteredSubstitution> candidates = substitutions.get(classNames.apply(targetType));
+				if (candidates == null) {
+					resolved = NO_SUBSTITUTIONS;
+				} else {
+					String methodName = method.getSimpleName().toString();
+					int argumentCount = method.getParameters().size();
+					resolved = candidates.stream().filter(c -> c.matches(methodName, argumentCount))
+							.map(c -> c.substitution).toArray(MethodInvocationSubstitution[]::new);
+				}
+				substitutionsByMethod.put(method, resolved);
+			}
+			for (MethodInvocationSubstitution substitution : resolved) {
+				if (substitution.substitute(invocation)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private final MethodInvocationSubstitutionTable methodInvocationSubstitutions = new MethodInvocationSubstitutionTable();
+
+	/**
+	 * Registers a method invocation substitution for this adapter. Registered
+	 * substitutions are tried in registration order by
+	 * {@link #substituteRegisteredMethodInvocation(MethodInvocationElement, Element)}.
+	 * 
+	 * @param className
+	 *            the fully qualified name of the class the invoked method
+	 *            belongs to (see {@link #getSubstitutionClassName(Element)})
+	 * @param methodName
+	 *            the name of the invoked method (null for any method)
+	 * @param argumentCount
+	 *            the number of parameters of the invoked method (-1 for any)
+	 * @param substitution
+	 *            the substitution function
+	 */
+	protected final void addMethodInvocationSubstitution(String className, String methodName, int argumentCount,
+			MethodInvocationSubstitution substitution) {
+		methodInvocationSubstitutions.add(className, methodName, argumentCount, substitution);
+	}
+
+	/**
+	 * Gets the class name used to look up the substitutions registered with
+	 * {@link #addMethodInvocationSubstitution(String, String, int, MethodInvocationSubstitution)}
+	 * for a given invocation target type. By default, it is the target type's
+	 * fully qualified name.
+	 */
+	protected String getSubstitutionClassName(Element targetType) {
+		return targetType.toString();
+	}
+
+	/**
+	 * Applies the method invocation substitutions registered with
+	 * {@link #addMethodInvocationSubstitution(String, String, int, MethodInvocationSubstitution)}
+	 * to the given invocation.
+	 * 
+	 * @param invocation
+	 *            the invocation being printed
+	 * @param targetType
+	 *            the type of the invocation target
+	 * @return true if substituted
+	 * @see MethodInvocationSubstitutionTable
+	 */
+	protected final boolean substituteRegisteredMethodInvocation(MethodInvocationElement invocation,
+			Element targetType) {
+		return methodInvocationSubstitutions.substitute(invocation, targetType);
+	}
+
 	/**
 	 * Substitutes a given type declaration.
 	 * 
@@ -1121,6 +1320,96 @@ public class PrinterAdapter {
 	 */
 	public void setParentAdapter(PrinterAdapter parentAdapter) {
 		this.parentAdapter = parentAdapter;
+		// the children of this adapter cache the hooks of their chain too
+		adapterChainModifications.incrementAndGet();
+	}
+
+	/**
+	 * The hooks that the printer skips (along with the creation of the extended
+	 * elements they take) when no adapter of the chain overrides them.
+	 * 
+	 * @see PrinterAdapter#isHookOverridden(Hook)
+	 */
+	public enum Hook {
+		ARRAY_ACCESS("substituteArrayAccess", ArrayAccessElement.class), //
+		BINARY_OPERATOR("substituteBinaryOperator", BinaryOperatorElement.class), //
+		UNARY_OPERATOR("substituteUnaryOperator", UnaryOperatorElement.class), //
+		IDENTIFIER("substituteIdentifier", IdentifierElement.class), //
+		VARIABLE_ACCESS("substituteVariableAccess", VariableAccessElement.class), //
+		NEW_CLASS("substituteNewClass", NewClassElement.class), //
+		METHOD_INVOCATION("substituteMethodInvocation", MethodInvocationElement.class), //
+		ASSIGNMENT("substituteAssignment", AssignmentElement.class), //
+		ASSIGNMENT_WITH_OPERATOR("substituteAssignmentWithOperator", AssignmentWithOperatorElement.class), //
+		ASSIGNED_EXPRESSION("substituteAssignedExpression", TypeMirror.class, ExtendedElement.class), //
+		FOREACH_LOOP("substituteForEachLoop", ForeachLoopElement.class, boolean.class, String.class), //
+		INSTANCEOF("substituteInstanceof", String.class, ExtendedElement.class, TypeMirror.class), //
+		TYPE_CAST("substituteTypeCast", TypeCastElement.class), //
+		CASE_STATEMENT_PATTERN("substituteCaseStatementPattern", CaseElement.class, ExtendedElement.class), //
+		SWITCH_STATEMENT_SELECTOR("substituteSwitchStatementSelector", ExtendedElement.class);
+
+		private final Method method;
+
+		private Hook(String methodName, Class<?>... parameterTypes) {
+			try {
+				this.method = PrinterAdapter.class.getMethod(methodName, parameterTypes);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException("unknown adapter hook: " + methodName, e);
+			}
+		}
+
+		/**
+		 * Tells if the given adapter class overrides this hook.
+		 */
+		public boolean isOverriddenBy(Class<? extends PrinterAdapter> adapterClass) {
+			try {
+				return adapterClass.getMethod(method.getName(), method.getParameterTypes())
+						.getDeclaringClass() != PrinterAdapter.class;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+	}
+
+	private static final Map<Class<? extends PrinterAdapter>, Set<Hook>> overriddenHooksByClass = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger adapterChainModifications = new AtomicInteger();
+
+	private Set<Hook> overriddenHooks;
+
+	private int overriddenHooksModifications;
+
+	/**
+	 * Tells if the given hook is overridden by at least one adapter of the
+	 * chain. When no adapter overrides a given hook, the printer does not need
+	 * to call it (nor to create the extended elements that it takes as
+	 * parameters).
+	 * 
+	 * <p>
+	 * The overridden hooks are computed by reflection the first time this
+	 * method is called, and cached until an adapter is re-parented.
+	 * 
+	 * @param hook
+	 *            the hook to be checked
+	 */
+	public final boolean isHookOverridden(Hook hook) {
+		int modifications = adapterChainModifications.get();
+		if (overriddenHooks == null || overriddenHooksModifications != modifications) {
+			Set<Hook> hooks = EnumSet.noneOf(Hook.class);
+			for (PrinterAdapter adapter = this; adapter != null; adapter = adapter.getParentAdapter()) {
+				hooks.addAll(overriddenHooksByClass.computeIfAbsent(adapter.getClass(), c -> {
+					Set<Hook> classHooks = EnumSet.noneOf(Hook.class);
+					for (Hook h : Hook.values()) {
+						if (h.isOverriddenBy(c)) {
+							classHooks.add(h);
+						}
+					}
+					return classHooks;
+				}));
+			}
+			overriddenHooks = hooks;
+			overriddenHooksModifications = modifications;
+		}
+		return overriddenHooks.contains(hook);
 	}
 
 	private Types types;
@@ -1209,6 +1498,138 @@ public class PrinterAdapter {
 		return context.getHeader(key);
 	}
 
+	/**
+	 * Prints the head of a call to a runtime helper function, up to the opening
+	 * parenthesis of the argument list (the arguments and the closing
+	 * parenthesis are left to the caller).
+	 * 
+	 * <p>
+	 * By default, the helper function is inlined as an immediately invoked
+	 * function expression. When {@link JSweetOptions#isUseRuntimeHelpers()} is
+	 * true, the function is declared once in the headers of the generated file
+	 * (or bundle) and the call refers to it by name, so that no closure gets
+	 * allocated each time the expression is evaluated.
+	 * 
+	 * @param name
+	 *            the helper's name (a given name must always be used with the
+	 *            same function)
+	 * @param function
+	 *            the helper function's code, which shall not refer to its
+	 *            enclosing scope (<code>this</code>, <code>super</code>, local
+	 *            variables)
+	 */
+	public PrinterAdapter printHelperCall(String name, String function) {
+		if (context.options.isUseRuntimeHelpers()) {
+			print(addRuntimeHelper(name, function) + "(");
+		} else {
+			print("(" + function + ")(");
+		}
+		return this;
+	}
+
+	/**
+	 * Prints the head of a call to a function of a runtime, i.e. a table of
+	 * helper functions that call each other through their prefixed names (see
+	 * {@link #RUNTIME_HELPER_PREFIX}). Only the called function and the
+	 * functions it depends on are emitted. Since runtime functions may share
+	 * state (counters, buffers), they are always declared once in the headers
+	 * (see {@link #addRuntimeHelper(String, String)}), whatever
+	 * {@link JSweetOptions#isUseRuntimeHelpers()}.
+	 * 
+	 * @param runtime
+	 *            the runtime's functions, as (name, function) pairs in
+	 *            declaration order
+	 * @param name
+	 *            the called function's name
+	 */
+	public PrinterAdapter printRuntimeHelperCall(String[][] runtime, String name) {
+		List<String[]> helpers = runtimeHelperDependencies.computeIfAbsent(runtime, r -> new ConcurrentHashMap<>())
+				.computeIfAbsent(name, n -> getRuntimeHelperDependencies(runtime, n));
+		for (String[] helper : helpers) {
+			addRuntimeHelper(helper[0], helper[1]);
+		}
+		print(RUNTIME_HELPER_PREFIX + name + "(");
+		return this;
+	}
+
+	private static List<String[]> getRuntimeHelperDependencies(String[][] runtime, String name) {
+		Map<String, String[]> helpersByName = new HashMap<>();
+		for (String[] helper : runtime) {
+			helpersByName.put(helper[0], helper);
+		}
+		if (!helpersByName.containsKey(name)) {
+			throw new IllegalArgumentException("unknown runtime helper: " + name);
+		}
+		Set<String> dependencies = new HashSet<>();
+		Deque<String> toVisit = new ArrayDeque<>();
+		toVisit.push(name);
+		while (!toVisit.isEmpty()) {
+			String current = toVisit.pop();
+			if (dependencies.add(current)) {
+				Matcher matcher = RUNTIME_HELPER_REFERENCE.matcher(helpersByName.get(current)[1]);
+				while (matcher.find()) {
+					if (helpersByName.containsKey(matcher.group(1))) {
+						toVisit.push(matcher.group(1));
+					}
+				}
+			}
+		}
+		List<String[]> helpers = new ArrayList<>();
+		for (String[] helper : runtime) {
+			if (dependencies.contains(helper[0])) {
+				helpers.add(helper);
+			}
+		}
+		return helpers;
+	}
+
+	/**
+	 * Declares a runtime helper function in the headers of the generated file
+	 * (or bundle), regardless of {@link JSweetOptions#isUseRuntimeHelpers()}.
+	 * A helper is declared only once, so that this method can be called for
+	 * each use.
+	 * 
+	 * @param name
+	 *            the helper's name (a given name must always be used with the
+	 *            same function)
+	 * @param function
+	 *            the helper function's code, which may call the helpers
+	 *            declared before it
+	 * @return the name to be used to invoke the helper
+	 * @see #printHelperCall(String, String)
+	 */
+	public final String addRuntimeHelper(String name, String function) {
+		String helperName = RUNTIME_HELPER_PREFIX + name;
+		String key = "helper." + name;
+		if (context.getHeader(key) == null) {
+			// var (rather than let) since scripts may redeclare the helper
+			context.addHeader(key, "var " + helperName + ": any = " + function + ";\n");
+		}
+		return helperName;
+	}
+
+	/**
+	 * Returns the name of the runtime helper holding the JavaScript
+	 * <code>BigInt</code> function (which is not declared by the TypeScript
+	 * libraries of the supported targets).
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	public final String getBigIntHelper() {
+		return addRuntimeHelper("BigInt", "(<any>globalThis).BigInt");
+	}
+
+	/**
+	 * Returns the name of a runtime helper holding the given long value as a
+	 * big integer, so that the constant is created only once.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	public final String getLongConstant(long value) {
+		String bigInt = getBigIntHelper();
+		return addRuntimeHelper("long" + Long.toString(value).replace('-', '_'), bigInt + "(\"" + value + "\")");
+	}
+
     /**
      * Tells if this element is an inlined expression. An inlined expression
      * typically requires parenthesis (on contrary to top-level statement for instance).
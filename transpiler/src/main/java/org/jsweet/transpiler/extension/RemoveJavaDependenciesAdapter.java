@@ -33,7 +33,9 @@ import java.nio.charset.Charset;
 import java.text.Collator;
 import java.util.AbstractList;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Comparator;
@@ -52,24 +54,40 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Properties;
 import java.util.Queue;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.Stack;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.Vector;
 import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 
 import com.sun.tools.javac.code.Type;
+import org.jsweet.transpiler.EcmaScriptComplianceLevel;
 import org.jsweet.transpiler.JSweetContext;
+import org.jsweet.transpiler.JSweetOptions;
 import org.jsweet.transpiler.Java2TypeScriptTranslator;
 import org.jsweet.transpiler.ModuleKind;
 import org.jsweet.transpiler.model.BinaryOperatorElement;
@@ -82,6 +100,7 @@ import org.jsweet.transpiler.model.MethodInvocationElement;
 import org.jsweet.transpiler.model.NewArrayElement;
 import org.jsweet.transpiler.model.NewClassElement;
 import org.jsweet.transpiler.model.VariableAccessElement;
+import org.jsweet.transpiler.model.support.ExtendedElementSupport;
 import org.jsweet.transpiler.model.support.ForeachLoopElementSupport;
 import org.jsweet.transpiler.util.Util;
 
@@ -97,6 +116,244 @@ import com.sun.tools.javac.tree.JCTree.JCTypeApply;
  */
 public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 
+	/**
+	 * The runtime functions of the emulation of maps with non-string keys
+	 * (stored as <code>{entries: [...]}</code> objects), of sets (stored as
+	 * arrays) and of deques, in declaration order.
+	 * 
+	 * <p>
+	 * By default, lookups go through a hash index, bucketed by
+	 * <code>hashCode()</code> (or by value for strings, numbers and booleans)
+	 * with an <code>equals</code> fallback. Objects that define neither
+	 * <code>hashCode()</code> nor <code>equals()</code> are bucketed by
+	 * identity. The index is attached to the
+	 * entry/element array as a non-enumerable property and records, for each
+	 * element, an upper bound of its position, so that removals locate the
+	 * element from there. The emulated operations that modify a possibly
+	 * indexed array without maintaining the index drop it
+	 * (<code>hashInvalidate</code>), and the index is also rebuilt when the
+	 * array's length or last element changed behind its back.
+	 * 
+	 * <p>
+	 * Sorted collections (<code>TreeMap</code> and <code>TreeSet</code>) are
+	 * tagged at construction time with a non-enumerable
+	 * <code>__jsweet_comparator</code> property (<code>null</code> for the
+	 * natural ordering). Their entries/elements are kept in a sorted array so
+	 * that lookups and navigation methods use a binary search and iteration
+	 * follows the key order. Unlike Java's red-black trees, insertions and
+	 * removals splice the array and are thus linear in the size of the
+	 * collection. String-keyed sorted maps keep the plain object
+	 * representation, with a sorted key array (non-enumerable
+	 * <code>__jsweet_keys</code> property) that is built on first read and then
+	 * maintained by <code>put</code>, <code>remove</code> and
+	 * <code>clear</code>. The order is only maintained by the invocations made
+	 * through a set or map type: an element added through a
+	 * <code>Collection</code> reference is pushed at the end of the array,
+	 * which breaks the subsequent binary searches.
+	 * 
+	 * <p>
+	 * <code>ArrayDeque</code> is emulated as a growable ring buffer
+	 * (<code>{elements: [...], head: ..., size: ...}</code> with a
+	 * <code>length</code> getter) so that operations at both ends are constant
+	 * time. The deque functions also accept arrays, since other
+	 * <code>Queue</code> and <code>Deque</code> implementations are arrays:
+	 * <code>LinkedList</code> in particular stays an array because it is also a
+	 * <code>List</code>, accessed by index. Since <code>Collection</code>,
+	 * <code>Queue</code> and <code>Deque</code> values may be ring buffers,
+	 * they go through <code>dequeToArray</code> when they are read as arrays
+	 * (iteration, copies, bulk operations), and through the deque functions
+	 * when they are modified. The removals of arbitrary elements
+	 * (<code>remove(Object)</code>, <code>removeAll</code>,
+	 * <code>retainAll</code>) compact the ring buffer or array in place
+	 * (<code>dequeRemoveIf</code>).
+	 * 
+	 * <p>
+	 * Because a queue or deque value is either a ring buffer or an array, the
+	 * <code>Queue</code>, <code>Deque</code> and <code>ArrayDeque</code> types
+	 * are erased to <code>any</code> in the generated TypeScript. As a
+	 * consequence, the TypeScript compiler does not type check the code that
+	 * uses them: for instance, an element of the wrong type added to a queue,
+	 * or a queue passed where an array is expected by an API, is only detected
+	 * (if at all) at runtime.
+	 * 
+	 * <p>
+	 * The <code>stream*</code> functions implement the stream operations that
+	 * are not compiled to loops, on streams emulated as arrays (see
+	 * {@link #substituteMethodInvocationOnStream(MethodInvocationElement, String)}).
+	 * 
+	 * @see #printCollectionHelperCall(String)
+	 */
+	protected static final String[][] COLLECTION_HELPERS = { //
+			{ "identityHashCode", IDENTITY_HASH_CODE_FUNCTION },
+			{ "hashKey",
+					"k => { if (k == null) return 'null'; switch (typeof k) { case 'string': return 's' + k; case 'number': case 'bigint': return 'n' + k; case 'boolean': return 'b' + k; } return typeof k.hashCode === 'function' ? 'h' + k.hashCode() : typeof k.equals === 'function' ? 'o' : 'i' + __jsweet_identityHashCode(k); }" },
+			{ "hashEquals", "(k1, k2) => k1 == null ? k2 == null : k1 === k2 || k1.equals != null && k1.equals(k2)" },
+			{ "hashIndex",
+					"(a, entries) => { entries = !!entries; let index = a.__jsweet_index; if (index == null || index.entries !== entries || index.length !== a.length || index.last !== a[a.length - 1]) { index = { buckets: Object.create(null), entries: entries, length: a.length, last: a[a.length - 1] }; for (let i = 0; i < a.length; i++) { let h = __jsweet_hashKey(entries ? a[i].key : a[i]); (index.buckets[h] || (index.buckets[h] = [])).push({ e: a[i], p: i }); } Object.defineProperty(a, '__jsweet_index', { value: index, configurable: true, writable: true }); } return index; }" },
+			{ "hashInvalidate", "a => { if (a != null && a.__jsweet_index != null) a.__jsweet_index = null; return a; }" },
+			{ "hashBucket", "(a, k, entries) => __jsweet_hashIndex(a, entries).buckets[__jsweet_hashKey(k)]" },
+			{ "hashPosition",
+					"(b, k, entries) => { if (b != null) for (let i = 0; i < b.length; i++) if (__jsweet_hashEquals(entries ? b[i].e.key : b[i].e, k)) return i; return -1; }" },
+			{ "hashAppend",
+					"(a, k, item, entries) => { let index = __jsweet_hashIndex(a, entries); let h = __jsweet_hashKey(k); (index.buckets[h] || (index.buckets[h] = [])).push({ e: item, p: a.length }); a.push(item); index.length = a.length; index.last = item; }" },
+			{ "hashRemoveAt",
+					"(a, b, i) => { let r = b.splice(i, 1)[0]; let p = Math.min(r.p, a.length - 1), d = 0; while (p > 0 && a[p] !== r.e) { p--; d++; } if (a[p] !== r.e) { a.__jsweet_index = null; p = a.indexOf(r.e); if (p >= 0) a.splice(p, 1); return r.e; } a.splice(p, 1); if (d > 32) { a.__jsweet_index = null; } else { let index = a.__jsweet_index; index.length = a.length; index.last = a[a.length - 1]; } return r.e; }" },
+			{ "compare",
+					"(c, a, b) => c == null ? (a != null && typeof a.compareTo === 'function' ? a.compareTo(b) : a < b ? -1 : a > b ? 1 : 0) : typeof c.compare === 'function' ? c.compare(a, b) : c(a, b)" },
+			{ "sortedTag",
+					"(o, c) => { Object.defineProperty(o, '__jsweet_comparator', { value: c == null ? null : c, configurable: true, writable: true }); return o; }" },
+			{ "sortedSearch",
+					"(a, k, c, entries) => { let low = 0, high = a.length - 1; while (low <= high) { let mid = (low + high) >>> 1; let r = __jsweet_compare(c, entries ? a[mid].key : a[mid], k); if (r < 0) low = mid + 1; else if (r > 0) high = mid - 1; else return mid; } return -(low + 1); }" },
+			{ "sortedNavigate",
+					"(a, k, c, entries, mode) => { let i = __jsweet_sortedSearch(a, k, c, entries); if (i < 0) i = -i - 1 - (mode === 'floor' || mode === 'lower' ? 1 : 0); else if (mode === 'higher') i++; else if (mode === 'lower') i--; return i >= 0 && i < a.length ? i : -1; }" },
+			{ "sortedRange",
+					"(a, c, entries, lo, loInclusive, hi, hiInclusive) => { let start = 0, end = a.length; if (lo !== undefined) { let i = __jsweet_sortedSearch(a, lo, c, entries); start = i < 0 ? -i - 1 : loInclusive ? i : i + 1; } if (hi !== undefined) { let i = __jsweet_sortedSearch(a, hi, c, entries); end = i < 0 ? -i - 1 : hiInclusive ? i + 1 : i; } return a.slice(start, Math.max(start, end)); }" },
+			{ "newEntry",
+					"(k, v) => ({ key: k, value: v, getKey: function() { return this.key }, getValue: function() { return this.value } })" },
+			{ "entriesMapGet",
+					"(m, k) => { if (m.entries == null) m.entries = []; if (m.__jsweet_comparator !== undefined) { let i = __jsweet_sortedSearch(m.entries, k, m.__jsweet_comparator, true); return i < 0 ? null : m.entries[i].value; } let b = __jsweet_hashBucket(m.entries, k, true); let i = __jsweet_hashPosition(b, k, true); return i < 0 ? null : b[i].e.value; }" },
+			{ "entriesMapContainsKey",
+					"(m, k) => { if (m.entries == null) m.entries = []; if (m.__jsweet_comparator !== undefined) return __jsweet_sortedSearch(m.entries, k, m.__jsweet_comparator, true) >= 0; return __jsweet_hashPosition(__jsweet_hashBucket(m.entries, k, true), k, true) >= 0; }" },
+			{ "entriesMapPut",
+					"(m, k, v) => { if (m.entries == null) m.entries = []; if (m.__jsweet_comparator !== undefined) { let i = __jsweet_sortedSearch(m.entries, k, m.__jsweet_comparator, true); if (i >= 0) { let previous = m.entries[i].value; m.entries[i].value = v; return previous; } m.entries.splice(-i - 1, 0, __jsweet_newEntry(k, v)); return null; } let b = __jsweet_hashBucket(m.entries, k, true); let i = __jsweet_hashPosition(b, k, true); if (i >= 0) { let previous = b[i].e.value; b[i].e.value = v; return previous; } __jsweet_hashAppend(m.entries, k, __jsweet_newEntry(k, v), true); return null; }" },
+			{ "entriesMapRemove",
+					"(m, k) => { if (m.entries == null) m.entries = []; if (m.__jsweet_comparator !== undefined) { let i = __jsweet_sortedSearch(m.entries, k, m.__jsweet_comparator, true); return i < 0 ? null : m.entries.splice(i, 1)[0].value; } let b = __jsweet_hashBucket(m.entries, k, true); let i = __jsweet_hashPosition(b, k, true); return i < 0 ? null : __jsweet_hashRemoveAt(m.entries, b, i).value; }" },
+			{ "entriesMapNavigate",
+					"(m, k, mode) => { if (m.entries == null) m.entries = []; let i = __jsweet_sortedNavigate(m.entries, k, m.__jsweet_comparator, true, mode); return i < 0 ? null : m.entries[i]; }" },
+			{ "entriesMapEnd",
+					"(m, last) => { if (m.entries == null) m.entries = []; return m.entries.length == 0 ? null : m.entries[last ? m.entries.length - 1 : 0]; }" },
+			{ "entriesMapPoll",
+					"(m, last) => { if (m.entries == null) m.entries = []; return m.entries.length == 0 ? null : last ? m.entries.pop() : __jsweet_hashInvalidate(m.entries).shift(); }" },
+			{ "entryKey", "e => e == null ? null : e.key" },
+			{ "sortedMap",
+					"(c, from) => { let m = __jsweet_sortedTag({ entries: [] }, c === undefined ? from.__jsweet_comparator : c); if (from != null && from.entries != null) for (let i = 0; i < from.entries.length; i++) __jsweet_entriesMapPut(m, from.entries[i].key, from.entries[i].value); return m; }" },
+			{ "sortedStringMap",
+					"(c, from) => { let m = __jsweet_sortedTag({}, c === undefined ? from.__jsweet_comparator : c); if (from != null) for (let k in from) m[k] = from[k]; return m; }" },
+			{ "sortedSubMap",
+					"(m, lo, loInclusive, hi, hiInclusive) => __jsweet_sortedTag({ entries: __jsweet_sortedRange(m.entries || [], m.__jsweet_comparator, true, lo, loInclusive, hi, hiInclusive) }, m.__jsweet_comparator)" },
+			{ "stringMapSortedKeys",
+					"m => { let keys = m.__jsweet_keys; if (keys == null) { keys = Object.keys(m).sort((k1, k2) => __jsweet_compare(m.__jsweet_comparator, k1, k2)); Object.defineProperty(m, '__jsweet_keys', { value: keys, configurable: true, writable: true }); } return keys; }" },
+			{ "stringMapKeys",
+					"m => m.__jsweet_comparator === undefined ? Object.keys(m) : __jsweet_stringMapSortedKeys(m).slice(0)" },
+			{ "stringMapPut",
+					"(m, k, v) => { let previous = null; if (Object.prototype.hasOwnProperty.call(m, k)) previous = m[k]; else if (m.__jsweet_comparator !== undefined) { let keys = __jsweet_stringMapSortedKeys(m); keys.splice(-__jsweet_sortedSearch(keys, k, m.__jsweet_comparator, false) - 1, 0, k); } m[k] = v; return previous; }" },
+			{ "stringMapRemove",
+					"(m, k) => { if (!Object.prototype.hasOwnProperty.call(m, k)) return null; let previous = m[k]; delete m[k]; let keys = m.__jsweet_keys; if (keys != null) keys.splice(__jsweet_sortedSearch(keys, k, m.__jsweet_comparator, false), 1); return previous; }" },
+			{ "stringMapClear",
+					"m => { for (let k in m) delete m[k]; if (m.__jsweet_keys != null) m.__jsweet_keys.length = 0; }" },
+			{ "stringMapValues", "m => __jsweet_stringMapKeys(m).map(k => m[k])" },
+			{ "stringMapEntrySet",
+					"m => __jsweet_stringMapKeys(m).map(k => ({ k: k, v: m[k], getKey: function() { return this.k }, getValue: function() { return this.v } }))" },
+			{ "stringMapNavigate",
+					"(m, k, mode) => { let keys = __jsweet_stringMapSortedKeys(m); let i = __jsweet_sortedNavigate(keys, k, m.__jsweet_comparator, false, mode); return i < 0 ? null : keys[i]; }" },
+			{ "stringMapEnd",
+					"(m, last) => { let keys = __jsweet_stringMapSortedKeys(m); return keys.length == 0 ? null : keys[last ? keys.length - 1 : 0]; }" },
+			{ "setAdd",
+					"(s, e) => { if (s.__jsweet_comparator !== undefined) { let i = __jsweet_sortedSearch(s, e, s.__jsweet_comparator, false); if (i >= 0) return false; s.splice(-i - 1, 0, e); return true; } if (__jsweet_hashPosition(__jsweet_hashBucket(s, e, false), e, false) >= 0) return false; __jsweet_hashAppend(s, e, e, false); return true; }" },
+			{ "setAddAll",
+					"(s, c) => { let changed = false; for (let i = 0; i < c.length; i++) if (__jsweet_setAdd(s, c[i])) changed = true; return changed; }" },
+			{ "setContains",
+					"(s, e) => s.__jsweet_comparator !== undefined ? __jsweet_sortedSearch(s, e, s.__jsweet_comparator, false) >= 0 : __jsweet_hashPosition(__jsweet_hashBucket(s, e, false), e, false) >= 0" },
+			{ "setRemove",
+					"(s, e) => { if (s.__jsweet_comparator !== undefined) { let i = __jsweet_sortedSearch(s, e, s.__jsweet_comparator, false); if (i < 0) return false; s.splice(i, 1); return true; } let b = __jsweet_hashBucket(s, e, false); let i = __jsweet_hashPosition(b, e, false); if (i < 0) return false; __jsweet_hashRemoveAt(s, b, i); return true; }" },
+			{ "setNavigate",
+					"(s, e, mode) => { let i = __jsweet_sortedNavigate(s, e, s.__jsweet_comparator, false, mode); return i < 0 ? null : s[i]; }" },
+			{ "sortedSet",
+					"(c, from) => { let s = __jsweet_sortedTag([], c === undefined ? from.__jsweet_comparator : c); if (from != null) __jsweet_setAddAll(s, from); return s; }" },
+			{ "sortedSubSet",
+					"(s, lo, loInclusive, hi, hiInclusive) => __jsweet_sortedTag(__jsweet_sortedRange(s, s.__jsweet_comparator, false, lo, loInclusive, hi, hiInclusive), s.__jsweet_comparator)" },
+			{ "dequeNew",
+					"from => { let d = { elements: new Array(16), head: 0, size: 0 }; Object.defineProperty(d, 'length', { get: function() { return this.size } }); if (from != null) __jsweet_dequeAddAll(d, from); return d; }" },
+			{ "dequeGrow",
+					"d => { let a = new Array(d.elements.length * 2); for (let i = 0; i < d.size; i++) a[i] = d.elements[(d.head + i) & (d.elements.length - 1)]; d.elements = a; d.head = 0; }" },
+			{ "dequeAddLast",
+					"(d, e) => { if (d instanceof Array) { d.push(e); return true; } if (d.size === d.elements.length) __jsweet_dequeGrow(d); d.elements[(d.head + d.size++) & (d.elements.length - 1)] = e; return true; }" },
+			{ "dequeAddFirst",
+					"(d, e) => { if (d instanceof Array) { d.unshift(e); return true; } if (d.size === d.elements.length) __jsweet_dequeGrow(d); d.head = (d.head - 1) & (d.elements.length - 1); d.elements[d.head] = e; d.size++; return true; }" },
+			{ "dequePollFirst",
+					"d => { if (d instanceof Array) return d.length == 0 ? null : d.shift(); if (d.size === 0) return null; let e = d.elements[d.head]; d.elements[d.head] = undefined; d.head = (d.head + 1) & (d.elements.length - 1); d.size--; return e; }" },
+			{ "dequePollLast",
+					"d => { if (d instanceof Array) return d.length == 0 ? null : d.pop(); if (d.size === 0) return null; let i = (d.head + --d.size) & (d.elements.length - 1); let e = d.elements[i]; d.elements[i] = undefined; return e; }" },
+			{ "dequePeekFirst",
+					"d => d instanceof Array ? (d.length == 0 ? null : d[0]) : d.size === 0 ? null : d.elements[d.head]" },
+			{ "dequePeekLast",
+					"d => d instanceof Array ? (d.length == 0 ? null : d[d.length - 1]) : d.size === 0 ? null : d.elements[(d.head + d.size - 1) & (d.elements.length - 1)]" },
+			{ "dequeToArray",
+					"d => { if (d instanceof Array) return d; if (d.elements === undefined) return Array.from(d); let a = new Array(d.size); for (let i = 0; i < d.size; i++) a[i] = d.elements[(d.head + i) & (d.elements.length - 1)]; return a; }" },
+			{ "dequeClear",
+					"d => { if (d instanceof Array) { d.length = 0; return; } d.elements = new Array(16); d.head = 0; d.size = 0; }" },
+			{ "dequeAddAll",
+					"(d, c) => { let a = __jsweet_dequeToArray(c); let n = a.length; for (let i = 0; i < n; i++) __jsweet_dequeAddLast(d, a[i]); return n > 0; }" },
+			{ "dequeContains", "(d, e) => __jsweet_dequeToArray(d).indexOf(e) >= 0" },
+			{ "dequeRemoveIf",
+					"(d, f, first) => { let array = d instanceof Array; let a = array ? d : d.elements; let h = array ? 0 : d.head; let m = array ? -1 : a.length - 1; let n = d.length; let w = 0; for (let i = 0; i < n; i++) { let x = a[(h + i) & m]; if ((!first || w === i) && f(x)) continue; a[(h + w++) & m] = x; } if (w === n) return false; if (array) { d.length = w; } else { for (let i = w; i < n; i++) a[(h + i) & m] = undefined; d.size = w; } return true; }" },
+			{ "dequeRetainAll",
+					"(d, c, retain) => { let a = __jsweet_dequeToArray(c); return __jsweet_dequeRemoveIf(d, x => (a.indexOf(x) >= 0) !== retain, false); }" },
+			{ "dequeRemove", "(d, e) => __jsweet_dequeRemoveIf(d, x => x === e, true)" },
+			{ "streamSorted", "(a, c) => a.slice(0).sort((e1, e2) => __jsweet_compare(c, e1, e2))" },
+			{ "streamDistinct", "a => { let s = []; __jsweet_setAddAll(s, a); return s; }" },
+			{ "streamGroupingBy",
+					"(a, f) => { let m = {}; for (let i = 0; i < a.length; i++) { let k = f(a[i]); let l = __jsweet_entriesMapGet(m, k); if (l == null) __jsweet_entriesMapPut(m, k, l = []); l.push(a[i]); } return m; }" },
+			{ "streamStringGroupingBy",
+					"(a, f) => { let m = {}; for (let i = 0; i < a.length; i++) { let k = f(a[i]); (Object.prototype.hasOwnProperty.call(m, k) ? m[k] : (m[k] = [])).push(a[i]); } return m; }" } };
+
+	/**
+	 * The runtime functions of the <code>StringBuilder</code> and
+	 * <code>StringBuffer</code> emulation, in declaration order.
+	 * 
+	 * <p>
+	 * A builder keeps the <code>{str: ..., toString: ...}</code> shape, but
+	 * <code>str</code> is an accessor: appends are pushed to a parts array that
+	 * is joined when the string is read, and in-place edits
+	 * (<code>insert</code>, <code>setCharAt</code>, <code>delete</code>,
+	 * <code>reverse</code>...) switch the builder to a mutable array of char
+	 * codes, which is converted back to a string when read.
+	 * 
+	 * @see #printStringBuilderHelperCall(String)
+	 */
+	private static final String[][] STRING_BUILDER_HELPERS = { //
+			{ "stringBuilder",
+					"s => { let sb = { parts: null, count: 0, chars: null, toString: function() { return this.str; } }; Object.defineProperty(sb, 'str', { get: function() { return __jsweet_stringBuilderFlush(this); }, set: function(s) { s = '' + s; this.parts = [s]; this.count = s.length; this.chars = null; }, enumerable: true, configurable: true }); sb.str = s; return sb; }" },
+			{ "stringBuilderFlush",
+					"sb => { if (sb.chars != null) { let s = ''; for (let i = 0; i < sb.chars.length; i += 8192) s += String.fromCharCode.apply(null, sb.chars.slice(i, i + 8192)); sb.str = s; } else if (sb.parts.length > 1) { sb.parts = [sb.parts.join('')]; } return sb.parts[0]; }" },
+			{ "stringBuilderChars",
+					"sb => { if (sb.chars == null) { let s = __jsweet_stringBuilderFlush(sb); let chars = new Array(s.length); for (let i = 0; i < s.length; i++) chars[i] = s.charCodeAt(i); sb.chars = chars; sb.parts = null; } return sb.chars; }" },
+			{ "stringBuilderAppend",
+					"(sb, s) => { s = '' + s; if (sb.chars != null) { for (let i = 0; i < s.length; i++) sb.chars.push(s.charCodeAt(i)); } else { sb.parts.push(s); sb.count += s.length; } return sb; }" },
+			{ "stringBuilderLength", "sb => sb.chars != null ? sb.chars.length : sb.count" },
+			{ "stringBuilderCharAt",
+					"(sb, i) => sb.chars != null ? String.fromCharCode(sb.chars[i]) : __jsweet_stringBuilderFlush(sb).charAt(i)" },
+			{ "stringBuilderCharCodeAt",
+					"(sb, i) => sb.chars != null ? sb.chars[i] : __jsweet_stringBuilderFlush(sb).charCodeAt(i)" },
+			{ "stringBuilderSetCharAt",
+					"(sb, i, c) => { __jsweet_stringBuilderChars(sb)[i] = typeof c === 'number' ? c : ('' + c).charCodeAt(0); }" },
+			{ "stringBuilderInsert",
+					"(sb, i, s) => { s = '' + s; if (s.length > 1024) { let str = sb.str; sb.str = str.substr(0, i) + s + str.substr(i); return sb; } let chars = __jsweet_stringBuilderChars(sb); let codes = new Array(s.length); for (let j = 0; j < s.length; j++) codes[j] = s.charCodeAt(j); chars.splice.apply(chars, [i, 0].concat(codes)); return sb; }" },
+			{ "stringBuilderDeleteCharAt",
+					"(sb, i) => { __jsweet_stringBuilderChars(sb).splice(i, 1); return sb; }" },
+			{ "stringBuilderDelete",
+					"(sb, i1, i2) => { let chars = __jsweet_stringBuilderChars(sb); chars.splice(i1, Math.min(i2, chars.length) - i1); return sb; }" },
+			{ "stringBuilderReverse", "sb => { __jsweet_stringBuilderChars(sb).reverse(); return sb; }" },
+			{ "stringBuilderSetLength",
+					"(sb, n) => { if (n === 0) { sb.str = ''; return; } let chars = __jsweet_stringBuilderChars(sb); if (n < chars.length) chars.length = n; else while (chars.length < n) chars.push(0); }" } };
+
+	/**
+	 * The stream types, which are emulated as arrays (see
+	 * {@link #substituteMethodInvocationOnStream(MethodInvocationElement, String)}).
+	 */
+	private static final List<String> STREAM_CLASS_NAMES = Arrays.asList(Stream.class.getName(),
+			IntStream.class.getName(), LongStream.class.getName(), DoubleStream.class.getName());
+
+	/**
+	 * The intermediate stream operations that can be compiled in the loop of a
+	 * fused pipeline (see
+	 * {@link #printFusedStreamPipeline(MethodInvocationElement)}).
+	 */
+	private static final List<String> FUSED_STREAM_OPERATIONS = Arrays.asList("filter", "map", "mapToObj",
+			"mapToInt", "mapToLong", "mapToDouble", "flatMap", "flatMapToInt", "flatMapToLong", "flatMapToDouble",
+			"peek", "limit", "skip", "boxed", "sequential", "parallel", "unordered", "asDoubleStream",
+			"asLongStream");
+
 	protected Map<String, String> extTypesMapping = new HashMap<>();
 	private final String ERASED_CLASS_HIERARCHY_FIELD = "__classes";
 	private Set<String> excludedJavaSuperTypes = new HashSet<>();
@@ -114,6 +371,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 	protected void init() {
 	    initTypesMapping();
 		addTypeMappings(extTypesMapping);
+		initMethodInvocationSubstitutions();
     }
 
 	protected void initTypesMapping() {
@@ -130,11 +388,16 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		extTypesMapping.put(Collection.class.getName(), "Array");
 		extTypesMapping.put(Set.class.getName(), "Array");
 		extTypesMapping.put(EnumSet.class.getName(), "Array");
-		extTypesMapping.put(Deque.class.getName(), "Array");
-		extTypesMapping.put(Queue.class.getName(), "Array");
+		// queues and deques may be ring buffers, and are not type checked (see
+		// COLLECTION_HELPERS)
+		extTypesMapping.put(Deque.class.getName(), "any");
+		extTypesMapping.put(Queue.class.getName(), "any");
+		extTypesMapping.put(ArrayDeque.class.getName(), "any");
 		extTypesMapping.put(Stack.class.getName(), "Array");
 		extTypesMapping.put(HashSet.class.getName(), "Array");
 		extTypesMapping.put(TreeSet.class.getName(), "Array");
+		extTypesMapping.put(SortedSet.class.getName(), "Array");
+		extTypesMapping.put(NavigableSet.class.getName(), "Array");
 		extTypesMapping.put(Vector.class.getName(), "Array");
 		extTypesMapping.put(Enumeration.class.getName(), "any");
 		extTypesMapping.put(Iterator.class.getName(), "any");
@@ -144,10 +407,17 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		extTypesMapping.put(AbstractMap.class.getName(), "any");
 		extTypesMapping.put(HashMap.class.getName(), "any");
 		extTypesMapping.put(TreeMap.class.getName(), "any");
+		extTypesMapping.put(SortedMap.class.getName(), "any");
+		extTypesMapping.put(NavigableMap.class.getName(), "any");
 		extTypesMapping.put(WeakHashMap.class.getName(), "any");
 		extTypesMapping.put(LinkedHashMap.class.getName(), "any");
 		extTypesMapping.put(Hashtable.class.getName(), "any");
 		extTypesMapping.put(Comparator.class.getName(), "any");
+		extTypesMapping.put(Stream.class.getName(), "Array");
+		extTypesMapping.put(IntStream.class.getName(), "number[]");
+		extTypesMapping.put(LongStream.class.getName(), "number[]");
+		extTypesMapping.put(DoubleStream.class.getName(), "number[]");
+		extTypesMapping.put(Collector.class.getName(), "any");
 		extTypesMapping.put(Exception.class.getName(), "Error");
 		extTypesMapping.put(RuntimeException.class.getName(), "Error");
 		extTypesMapping.put(Throwable.class.getName(), "Error");
@@ -168,6 +438,9 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 
 		extTypesMapping.put(Method.class.getName(), "{ owner: any, name: string, fn : Function }");
 
+		extTypesMapping.put(Pattern.class.getName(), "RegExp");
+		extTypesMapping.put(Matcher.class.getName(), "{ p: RegExp, r: RegExp, s: string, m: RegExpExecArray }");
+
 		addTypeMapping(
 				(typeTree,
 						name) -> name.startsWith("java.")
@@ -206,6 +479,52 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		return this;
 	}
 
+	/**
+	 * Prints the head of a call to a function of the map and set emulation
+	 * (see {@link #printRuntimeHelperCall(String[][], String)}).
+	 * 
+	 * @param name
+	 *            the function's name (e.g. <code>entriesMapGet</code>)
+	 */
+	protected RemoveJavaDependenciesAdapter printCollectionHelperCall(String name) {
+		return printRuntimeHelperCall(COLLECTION_HELPERS, name);
+	}
+
+	/**
+	 * Prints the head of a call to a function of the string builder emulation
+	 * (see {@link #printRuntimeHelperCall(String[][], String)}).
+	 * 
+	 * @param name
+	 *            the function's name (e.g. <code>stringBuilderAppend</code>)
+	 */
+	protected RemoveJavaDependenciesAdapter printStringBuilderHelperCall(String name) {
+		return printRuntimeHelperCall(STRING_BUILDER_HELPERS, name);
+	}
+
+	@Override
+	public RemoveJavaDependenciesAdapter printRuntimeHelperCall(String[][] runtime, String name) {
+		super.printRuntimeHelperCall(runtime, name);
+		return this;
+	}
+
+	/**
+	 * Tells if the given expression is an array that is created as a
+	 * JavaScript typed array (see {@link JSweetOptions#isUseTypedArrays()}).
+	 */
+	protected boolean isTypedArray(ExtendedElement expression) {
+		return context.options.isUseTypedArrays() && expression.getType() instanceof ArrayType
+				&& Util.getTypedArrayName(((ArrayType) expression.getType()).getComponentType(),
+						context.options.isCharsAsNumbers()) != null;
+	}
+
+	/**
+	 * Tells if the target ECMAScript version provides the ES2015 array methods
+	 * (<code>fill</code>, <code>copyWithin</code>).
+	 */
+	protected boolean isNativeES6ArrayTarget() {
+		return context.options.getEcmaTargetVersion().higherThan(EcmaScriptComplianceLevel.ES5);
+	}
+
 	protected RemoveJavaDependenciesAdapter printTargetForParameter(ExtendedElement expression, boolean delegate) {
 		if (expression != null && expression.toString().equals("super")) {
 			getPrinter().print("this");
@@ -215,277 +534,322 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		return print(expression, delegate);
 	}
 
-	@Override
-	public boolean substituteMethodInvocation(MethodInvocationElement invocation) {
-		String targetMethodName = invocation.getMethodName();
-		String targetClassName = invocation.getMethod().getEnclosingElement().toString();
-		ExtendedElement targetExpression = invocation.getTargetExpression();
-		if (targetExpression != null) {
-			targetClassName = targetExpression.getTypeAsElement().toString();
+	/**
+	 * Registers the method invocation substitutions of this adapter (called
+	 * once at construction time).
+	 * 
+	 * @see #addMethodInvocationSubstitution(String, String, int,
+	 *      MethodInvocationSubstitution)
+	 */
+	protected void initMethodInvocationSubstitutions() {
+		for (String className : new String[] { "java.lang.Float", "java.lang.Double", "java.lang.Integer",
+				"java.lang.Byte", "java.lang.Long", "java.lang.Short" }) {
+			addMethodInvocationSubstitution(className, null, -1,
+					invocation -> substituteMethodInvocationOnNumber(invocation, invocation.getMethodName()));
 		}
-		TypeMirror jdkSuperclass = context.getJdkSuperclass(targetClassName, excludedJavaSuperTypes);
-		boolean delegate = jdkSuperclass != null;
-		if (delegate) {
-			targetClassName = jdkSuperclass.toString();
+		addMethodInvocationSubstitution("java.lang.Character", null, -1,
+				invocation -> substituteMethodInvocationOnCharacter(invocation, invocation.getMethodName()));
+		for (String className : new String[] { "java.util.Collection", "java.util.List", "java.util.AbstractList",
+				"java.util.AbstractSet", "java.util.AbstractCollection", "java.util.LinkedList", "java.util.ArrayList",
+				"java.util.Stack", "java.util.Vector", "java.util.Set", "java.util.EnumSet", "java.util.HashSet",
+				"java.util.TreeSet", "java.util.SortedSet", "java.util.NavigableSet" }) {
+			addMethodInvocationSubstitution(className, null, -1,
+					invocation -> substituteMethodInvocationOnArray(invocation, invocation.getMethodName(), className,
+							isDelegate(invocation)));
+		}
+		for (String className : new String[] { "java.util.Queue", "java.util.Deque", "java.util.ArrayDeque" }) {
+			addMethodInvocationSubstitution(className, null, -1,
+					invocation -> substituteMethodInvocationOnDeque(invocation, invocation.getMethodName(), className,
+							isDelegate(invocation)));
+		}
+		for (String className : new String[] { "java.util.Properties", "java.util.Dictionary", "java.util.Map",
+				"java.util.AbstractMap", "java.util.HashMap", "java.util.TreeMap", "java.util.SortedMap",
+				"java.util.NavigableMap", "java.util.Hashtable", "java.util.WeakHashMap", "java.util.LinkedHashMap" }) {
+			addMethodInvocationSubstitution(className, null, -1,
+					invocation -> substituteMethodInvocationOnMap(invocation, invocation.getMethodName(),
+							invocation.getTargetExpression(), isDelegate(invocation)));
+		}
+		addMethodInvocationSubstitution("java.util.Collections", null, -1,
+				invocation -> substituteMethodInvocationOnCollections(invocation, invocation.getMethodName(),
+						invocation.getTargetExpression(), isDelegate(invocation)));
+		addMethodInvocationSubstitution("java.util.Arrays", null, -1,
+				invocation -> substituteMethodInvocationOnArrays(invocation, invocation.getMethodName(),
+						invocation.getTargetExpression(), isDelegate(invocation)));
+		for (String className : STREAM_CLASS_NAMES) {
+			addMethodInvocationSubstitution(className, null, -1,
+					invocation -> substituteMethodInvocationOnStream(invocation, invocation.getMethodName()));
 		}
 
-		if (targetClassName != null
-				&& (targetExpression != null || invocation.getMethod().getModifiers().contains(Modifier.STATIC))) {
-			switch (targetClassName) {
+		addMethodInvocationSubstitution("java.lang.System", "arraycopy", 5, invocation -> {
+			printMacroName(invocation.getMethodName());
+			if (isTypedArray(invocation.getArgument(0)) && isTypedArray(invocation.getArgument(2))
+					&& types().isSameType(invocation.getArgument(0).getType(), invocation.getArgument(2).getType())) {
+				// copyWithin() moves overlapping ranges without copying the source
+				printHelperCall("typedArrayCopy", "(src, srcOff, dst, dstOff, size) => { if (src === dst) dst.copyWithin(dstOff, srcOff, srcOff + size); "
+						+ "else dst.set(src.subarray(srcOff, srcOff + size), dstOff); }")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			if (isNativeES6ArrayTarget()) {
+				printHelperCall("arraycopy", "(src, srcOff, dst, dstOff, size) => { if (src === dst) dst.copyWithin(dstOff, srcOff, srcOff + size); "
+						+ "else for (let i = 0; i < size; i++) dst[dstOff + i] = src[srcOff + i]; }")
+								.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			// copies backwards when the target overlaps the end of the source
+			printHelperCall("arraycopy", "(src, srcOff, dst, dstOff, size) => { if (src === dst && srcOff < dstOff) for (let i = size - 1; i >= 0; i--) dst[dstOff + i] = src[srcOff + i]; "
+					+ "else for (let i = 0; i < size; i++) dst[dstOff + i] = src[srcOff + i]; }")
+							.printArgList(invocation.getArguments()).print(")");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.System", "currentTimeMillis", 0, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print("Date.now()");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.System", "nanoTime", 0, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print("(Date.now() * 1000000)");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.System", "identityHashCode", 1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			printHashCodeHelperCall("identityHashCode").print(invocation.getArgument(0)).print(")");
+			return true;
+		});
 
-			case "java.lang.Float":
-			case "java.lang.Double":
-			case "java.lang.Integer":
-			case "java.lang.Byte":
-			case "java.lang.Long":
-			case "java.lang.Short":
-				if (substituteMethodInvocationOnNumber(invocation, targetMethodName)) {
-					return true;
-				}
-				break;
-			case "java.lang.Character":
-				if (substituteMethodInvocationOnCharacter(invocation, targetMethodName)) {
-					return true;
-				}
-				break;
-			case "java.util.Collection":
-			case "java.util.List":
-			case "java.util.AbstractList":
-			case "java.util.AbstractSet":
-			case "java.util.AbstractCollection":
-			case "java.util.Queue":
-			case "java.util.Deque":
-			case "java.util.LinkedList":
-			case "java.util.ArrayList":
-			case "java.util.Stack":
-			case "java.util.Vector":
-			case "java.util.Set":
-			case "java.util.EnumSet":
-			case "java.util.HashSet":
-			case "java.util.TreeSet":
-				if (substituteMethodInvocationOnArray(invocation, targetMethodName, targetClassName, delegate)) {
-					return true;
-				}
-				break;
+		addMethodInvocationSubstitution("java.util.Objects", null, -1, invocation -> substituteMethodInvocationOnObjects(
+				invocation, invocation.getMethodName(), isDelegate(invocation)));
+		for (String className : new String[] { "java.lang.StringBuffer", "java.lang.StringBuilder" }) {
+			addMethodInvocationSubstitution(className, null, -1, invocation -> substituteMethodInvocationOnStringBuilder(
+					invocation, invocation.getMethodName(), isDelegate(invocation)));
+		}
+		addMethodInvocationSubstitution("java.lang.ref.WeakReference", "get", 0, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getTargetExpression(), isDelegate(invocation));
+			return true;
+		});
+		addMethodInvocationSubstitution("java.text.Collator", "getInstance", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print("{ compare: (o1, o2) => o1.toString().localeCompare(o2.toString()), equals: (o1, o2) => o1.toString().localeCompare(o2.toString()) === 0 }");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.util.regex.Pattern", null, -1,
+				invocation -> substituteMethodInvocationOnPattern(invocation, invocation.getMethodName()));
+		addMethodInvocationSubstitution("java.util.regex.Matcher", null, -1,
+				invocation -> substituteMethodInvocationOnMatcher(invocation, invocation.getMethodName()));
+		addMethodInvocationSubstitution("java.nio.charset.Charset", "forName", -1, invocation -> {
+			print(invocation.getArgument(0));
+			return true;
+		});
+		addMethodInvocationSubstitution("java.util.Locale", "getDefault", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			getPrinter().print("(window.navigator['userLanguage'] || window.navigator.language)");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.util.TimeZone", "getTimeZone", 1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getArgument(0));
+			return true;
+		});
+		addMethodInvocationSubstitution("java.util.TimeZone", "getDefault", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			getPrinter().print("\"UTC\"");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.util.TimeZone", "getID", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getTargetExpression(), isDelegate(invocation));
+			return true;
+		});
+		for (String className : new String[] { "java.util.Calendar", "java.util.GregorianCalendar" }) {
+			addMethodInvocationSubstitution(className, null, -1, invocation -> substituteMethodInvocationOnCalendar(
+					invocation, invocation.getMethodName(), isDelegate(invocation)));
+		}
 
-			case "java.util.Properties":
-			case "java.util.Dictionary":
-			case "java.util.Map":
-			case "java.util.AbstractMap":
-			case "java.util.HashMap":
-			case "java.util.TreeMap":
-			case "java.util.Hashtable":
-			case "java.util.WeakHashMap":
-			case "java.util.LinkedHashMap":
-				if (substituteMethodInvocationOnMap(invocation, targetMethodName, targetExpression, delegate)) {
-					return true;
-				}
-				break;
-			case "java.util.Collections":
-				if (substituteMethodInvocationOnCollections(invocation, targetMethodName, targetExpression, delegate)) {
-					return true;
-				}
-				break;
-			case "java.util.Arrays":
-				if (substituteMethodInvocationOnArrays(invocation, targetMethodName, targetExpression, delegate)) {
-					return true;
-				}
-				break;
-			case "java.lang.System":
-				switch (targetMethodName) {
-				case "arraycopy":
-					printMacroName(targetMethodName);
-					print("((srcPts, srcOff, dstPts, dstOff, size) => { if(srcPts !== dstPts || dstOff >= srcOff + size) { while (--size >= 0) dstPts[dstOff++] = srcPts[srcOff++];"
-							+ "} else { let tmp = srcPts.slice(srcOff, srcOff + size); for (let i = 0; i < size; i++) dstPts[dstOff++] = tmp[i]; }})(")
-									.printArgList(invocation.getArguments()).print(")");
-					return true;
-				case "currentTimeMillis":
-					printMacroName(targetMethodName);
-					print("Date.now()");
-					return true;
-				case "nanoTime":
-					printMacroName(targetMethodName);
-					print("(Date.now() * 1000000)");
-					return true;
-				}
-				break;
+		for (String className : new String[] { "java.io.Reader", "java.io.StringReader", "java.io.InputStream",
+				"java.io.InputStreamReader", "java.io.BufferedReader" }) {
+			addMethodInvocationSubstitution(className, "read", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				printHelperCall("readChar", "r => r.str.charCodeAt(r.cursor++)");
+				print(invocation.getTargetExpression(), isDelegate(invocation)).print(")");
+				return true;
+			});
+			addMethodInvocationSubstitution(className, "skip", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				print(invocation.getTargetExpression(), isDelegate(invocation)).print(".cursor+=")
+						.print(invocation.getArgument(0));
+				return true;
+			});
+			addMethodInvocationSubstitution(className, "reset", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				print(invocation.getTargetExpression(), isDelegate(invocation)).print(".cursor=0");
+				return true;
+			});
+			addMethodInvocationSubstitution(className, "close", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				// ignore but we could flag it and throw an error...
+				return true;
+			});
+		}
+		addMethodInvocationSubstitution("java.lang.ThreadLocal", "get", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
 
-			case "java.util.Objects":
-				if (substituteMethodInvocationOnObjects(invocation, targetMethodName, delegate)) {
-					return true;
-				}
-				break;
-			case "java.lang.StringBuffer":
-			case "java.lang.StringBuilder":
-				if (substituteMethodInvocationOnStringBuilder(invocation, targetMethodName, delegate)) {
-					return true;
-				}
-				break;
-			case "java.lang.ref.WeakReference":
-				switch (targetMethodName) {
-				case "get":
-					printMacroName(targetMethodName);
-					print(invocation.getTargetExpression(), delegate);
-					return true;
-				}
-				break;
-			case "java.text.Collator":
-				switch (targetMethodName) {
-				case "getInstance":
-					printMacroName(targetMethodName);
-					print("{ compare: (o1, o2) => o1.toString().localeCompare(o2.toString()), equals: (o1, o2) => o1.toString().localeCompare(o2.toString()) === 0 }");
-					return true;
-				}
-				break;
-			case "java.nio.charset.Charset":
-				switch (targetMethodName) {
-				case "forName":
-					print(invocation.getArgument(0));
-					return true;
-				}
-				break;
-			case "java.util.Locale":
-				switch (targetMethodName) {
-				case "getDefault":
-					printMacroName(targetMethodName);
-					getPrinter().print("(window.navigator['userLanguage'] || window.navigator.language)");
-					return true;
+			print("((tlObj: any) => {" //
+					+ "    if (tlObj.___value) { return tlObj.___value } " //
+					+ "    else { return tlObj.___value = tlObj.initialValue() } " //
+					+ "  })(");
+			print(invocation.getTargetExpression());
+			print(")");
+			return true;
+		});
+
+		addMethodInvocationSubstitution("java.lang.Class", null, -1, invocation -> substituteMethodInvocationOnClass(
+				invocation, invocation.getMethodName(), isDelegate(invocation)));
+		addMethodInvocationSubstitution("java.lang.reflect.Method", null, -1,
+				invocation -> substituteMethodInvocationOnMethod(invocation, invocation.getMethodName(),
+						isDelegate(invocation)));
+		addMethodInvocationSubstitution("java.lang.reflect.Field", null, -1,
+				invocation -> substituteMethodInvocationOnField(invocation, invocation.getMethodName(),
+						isDelegate(invocation)));
+
+		addMethodInvocationSubstitution("java.lang.reflect.Array", "newInstance", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			if (invocation.getArgumentCount() == 2) {
+				print("new Array<any>(").print(invocation.getArgument(1)).print(")");
+			} else {
+				printMacroName(invocation.getMethodName());
+				print(invocation.getArgument(0)).print(".length");
+			}
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.reflect.Array", "getLength", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getArgument(0)).print(".length");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.reflect.Array", "get", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print(invocation.getArgument(0)).print("[").print(invocation.getArgument(1)).print("]");
+			return true;
+		});
+		addMethodInvocationSubstitution("java.lang.reflect.Array", "set", -1, invocation -> {
+			printMacroName(invocation.getMethodName());
+			print("(").print(invocation.getArgument(0)).print("[").print(invocation.getArgument(1)).print("]=")
+					.print(invocation.getArgument(1)).print(")");
+			return true;
+		});
+
+		for (String className : new String[] { "java.lang.Math", "java.lang.StrictMath" }) {
+			// big integers are not accepted by the JavaScript Math functions
+			addMethodInvocationSubstitution(className, "abs", 1, invocation -> {
+				if (!isBigIntLongInvocation(invocation)) {
+					return false;
 				}
-				break;
-			case "java.util.TimeZone":
-				switch (targetMethodName) {
-				case "getTimeZone":
-					if (invocation.getArgumentCount() == 1) {
-						printMacroName(targetMethodName);
-						print(invocation.getArgument(0));
-						return true;
+				printMacroName(invocation.getMethodName());
+				printHelperCall("longAbs", "l => " + getBigIntHelper() + ".asIntN(64, l < 0 ? -l : l)");
+				printBigIntLongArguments(invocation).print(")");
+				return true;
+			});
+			for (String methodName : new String[] { "max", "min" }) {
+				addMethodInvocationSubstitution(className, methodName, 2, invocation -> {
+					if (!isBigIntLongInvocation(invocation)) {
+						return false;
 					}
-					break;
-				case "getDefault":
-					printMacroName(targetMethodName);
-					getPrinter().print("\"UTC\"");
-					return true;
-				case "getID":
-					printMacroName(targetMethodName);
-					print(invocation.getTargetExpression(), delegate);
-					return true;
-				}
-				break;
-			case "java.util.Calendar":
-			case "java.util.GregorianCalendar":
-				if (substituteMethodInvocationOnCalendar(invocation, targetMethodName, delegate)) {
+					printMacroName(invocation.getMethodName());
+					printHelperCall(methodName.equals("max") ? "longMax" : "longMin",
+							"(a, b) => a " + (methodName.equals("max") ? ">" : "<") + " b ? a : b");
+					printBigIntLongArguments(invocation).print(")");
 					return true;
-				}
-				break;
+				});
+			}
+			addMethodInvocationSubstitution(className, "ulp", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				printHelperCall("ulp", "(x) => { let buffer = new ArrayBuffer(8); let dataView = new DataView(buffer); dataView.setFloat64(0, x); let first = dataView.getUint32(0); let second = dataView.getUint32(4); let rawExponent = first & 0x7ff00000; if (rawExponent == 0x7ff00000) { dataView.setUint32(0,first & 0x7fffffff); } else if (rawExponent == 0) { dataView.setUint32(4,1); dataView.setUint32(0,0); } else if (rawExponent >= (52 << 20) + 0x00100000) { dataView.setUint32(0,rawExponent - (52 << 20)); dataView.setUint32(4,0); } else if (rawExponent >= (33 << 20)) { dataView.setUint32(0,1 << ((rawExponent - (33 << 20))  >>> 20 )); dataView.setUint32(4,0); } else { dataView.setUint32(4,1 << ((rawExponent - 0x00100000)  >>> 20)); dataView.setUint32(0,0); } return dataView.getFloat64(0); }")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			});
+			addMethodInvocationSubstitution(className, "IEEEremainder", -1, invocation -> {
+				printMacroName(invocation.getMethodName());
+				// credits: Ray Cromwell
+				printHelperCall("IEEEremainder", "(f1, f2) => { let r = Math.abs(f1 % f2); if (isNaN(r) || r == f2 || r <= Math.abs(f2) / 2.0) { return r; } else { return (f1 > 0 ? 1 : -1) * (r - f2); } }")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			});
+		}
+	}
 
-			case "java.io.Reader":
-			case "java.io.StringReader":
-			case "java.io.InputStream":
-			case "java.io.InputStreamReader":
-			case "java.io.BufferedReader":
-				switch (targetMethodName) {
-				case "read":
-					printMacroName(targetMethodName);
-					print("(r => r.str.charCodeAt(r.cursor++))(");
-					print(invocation.getTargetExpression(), delegate).print(")");
-					return true;
-				case "skip":
-					printMacroName(targetMethodName);
-					print(invocation.getTargetExpression(), delegate).print(".cursor+=")
-							.print(invocation.getArgument(0));
-					return true;
-				case "reset":
-					printMacroName(targetMethodName);
-					print(invocation.getTargetExpression(), delegate).print(".cursor=0");
-					return true;
-				case "close":
-					printMacroName(targetMethodName);
-					// ignore but we could flag it and throw an error...
-					return true;
-				}
-				break;
-			case "java.lang.ThreadLocal":
-				switch (targetMethodName) {
-				case "get":
-					printMacroName(targetMethodName);
+	/**
+	 * Tells if the given invocation returns a long represented as a big
+	 * integer.
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	private boolean isBigIntLongInvocation(MethodInvocationElement invocation) {
+		return context.options.isLongsAsBigInts()
+				&& invocation.getMethod().getReturnType().getKind() == TypeKind.LONG;
+	}
 
-					print("((tlObj: any) => {" //
-							+ "    if (tlObj.___value) { return tlObj.___value } " //
-							+ "    else { return tlObj.___value = tlObj.initialValue() } " //
-							+ "  })(");
-					print(invocation.getTargetExpression());
-					print(")");
-					return true;
-				}
-				break;
+	/**
+	 * Prints the arguments of the given invocation as big integers (widening
+	 * the ints to longs).
+	 * 
+	 * @see JSweetOptions#isLongsAsBigInts()
+	 */
+	private PrinterAdapter printBigIntLongArguments(MethodInvocationElement invocation) {
+		for (ExtendedElement argument : invocation.getArguments()) {
+			if (argument.getType().getKind() == TypeKind.LONG) {
+				print(argument);
+			} else {
+				print(getBigIntHelper() + "(").print(argument).print(")");
+			}
+			print(", ");
+		}
+		return removeLastChars(2);
+	}
 
-			case "java.lang.Class":
-				if (substituteMethodInvocationOnClass(invocation, targetMethodName, delegate)) {
-					return true;
-				}
-				break;
+	private Map<Element, Boolean> delegateTargetTypes = new HashMap<>();
 
-			case "java.lang.reflect.Method":
-				if (substituteMethodInvocationOnMethod(invocation, targetMethodName, delegate)) {
-					return true;
-				}
-				break;
+	/**
+	 * Gets the type of the target of the given invocation (the type of the
+	 * target expression, or the method's declaring type if no target).
+	 */
+	protected final Element getInvocationTargetType(MethodInvocationElement invocation) {
+		ExtendedElement targetExpression = invocation.getTargetExpression();
+		return targetExpression != null ? targetExpression.getTypeAsElement()
+				: invocation.getMethod().getEnclosingElement();
+	}
 
-			case "java.lang.reflect.Field":
-				if (substituteMethodInvocationOnField(invocation, targetMethodName, delegate)) {
-					return true;
-				}
-				break;
+	/**
+	 * Tells if the target of the given invocation is a user subclass of a JDK
+	 * type, so that the JDK behavior is implemented by a delegate.
+	 */
+	protected final boolean isDelegate(MethodInvocationElement invocation) {
+		return delegateTargetTypes.computeIfAbsent(getInvocationTargetType(invocation),
+				targetType -> context.getJdkSuperclass(targetType.toString(), excludedJavaSuperTypes) != null);
+	}
 
-			case "java.lang.reflect.Array":
-				switch (targetMethodName) {
-				case "newInstance":
-					printMacroName(targetMethodName);
-					if (invocation.getArgumentCount() == 2) {
-						print("new Array<any>(").print(invocation.getArgument(1)).print(")");
-						return true;
-					}
-				case "getLength":
-					printMacroName(targetMethodName);
-					print(invocation.getArgument(0)).print(".length");
-					return true;
-				case "get":
-					printMacroName(targetMethodName);
-					print(invocation.getArgument(0)).print("[").print(invocation.getArgument(1)).print("]");
-					return true;
-				case "set":
-					printMacroName(targetMethodName);
-					print("(").print(invocation.getArgument(0)).print("[").print(invocation.getArgument(1)).print("]=")
-							.print(invocation.getArgument(1)).print(")");
-					return true;
-				}
-				break;
+	@Override
+	protected String getSubstitutionClassName(Element targetType) {
+		String targetClassName = targetType.toString();
+		TypeMirror jdkSuperclass = context.getJdkSuperclass(targetClassName, excludedJavaSuperTypes);
+		return jdkSuperclass != null ? jdkSuperclass.toString() : targetClassName;
+	}
 
-			case "java.lang.Math":
-			case "java.lang.StrictMath":
-				switch (targetMethodName) {
-				case "ulp":
-					printMacroName(targetMethodName);
-					print("((x) => { let buffer = new ArrayBuffer(8); let dataView = new DataView(buffer); dataView.setFloat64(0, x); let first = dataView.getUint32(0); let second = dataView.getUint32(4); let rawExponent = first & 0x7ff00000; if (rawExponent == 0x7ff00000) { dataView.setUint32(0,first & 0x7fffffff); } else if (rawExponent == 0) { dataView.setUint32(4,1); dataView.setUint32(0,0); } else if (rawExponent >= (52 << 20) + 0x00100000) { dataView.setUint32(0,rawExponent - (52 << 20)); dataView.setUint32(4,0); } else if (rawExponent >= (33 << 20)) { dataView.setUint32(0,1 << ((rawExponent - (33 << 20))  >>> 20 )); dataView.setUint32(4,0); } else { dataView.setUint32(4,1 << ((rawExponent - 0x00100000)  >>> 20)); dataView.setUint32(0,0); } return dataView.getFloat64(0); })(")
-							.printArgList(invocation.getArguments()).print(")");
-					return true;
-				case "IEEEremainder":
-					printMacroName(targetMethodName);
-					// credits: Ray Cromwell
-					print("((f1, f2) => { let r = Math.abs(f1 % f2); if (isNaN(r) || r == f2 || r <= Math.abs(f2) / 2.0) { return r; } else { return (f1 > 0 ? 1 : -1) * (r - f2); } })(")
-							.printArgList(invocation.getArguments()).print(")");
-					return true;
-				}
+	@Override
+	public boolean substituteMethodInvocation(MethodInvocationElement invocation) {
+		ExtendedElement targetExpression = invocation.getTargetExpression();
+		if (targetExpression != null || invocation.getMethod().getModifiers().contains(Modifier.STATIC)) {
+			if (substituteRegisteredMethodInvocation(invocation, getInvocationTargetType(invocation))) {
+				return true;
 			}
 
-			switch (targetMethodName) {
-			case "clone":
-				printMacroName(targetMethodName);
+			if ("clone".equals(invocation.getMethodName())) {
+				printMacroName(invocation.getMethodName());
 				if (targetExpression != null && invocation.getTargetExpression().getType() instanceof ArrayType) {
-					print(invocation.getTargetExpression(), delegate).print(".slice(0)");
+					print(invocation.getTargetExpression(), isDelegate(invocation)).print(".slice(0)");
 					return true;
 				}
-				break;
 			}
 
 		}
@@ -493,12 +857,140 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		return super.substituteMethodInvocation(invocation);
 	}
 
+	/**
+	 * Substitutes the invocations on patterns, which are global JavaScript
+	 * regular expressions. Constant patterns are hoisted (see
+	 * {@link #printRegExp(ExtendedElement, String, boolean)}).
+	 */
+	protected boolean substituteMethodInvocationOnPattern(MethodInvocationElement invocation,
+			String targetMethodName) {
+		switch (targetMethodName) {
+		case "compile":
+			printMacroName(targetMethodName);
+			if (invocation.getArgumentCount() == 1) {
+				printRegExp(invocation.getArgument(0), "g", false);
+				return true;
+			}
+			Object flags = ((ExtendedElementSupport<?>) invocation.getArgument(1)).getTree().type.constValue();
+			if (flags instanceof Integer) {
+				int f = (Integer) flags;
+				printRegExp(invocation.getArgument(0), "g" + ((f & Pattern.CASE_INSENSITIVE) != 0 ? "i" : "")
+						+ ((f & Pattern.MULTILINE) != 0 ? "m" : "") + ((f & Pattern.DOTALL) != 0 ? "s" : ""), false);
+			} else {
+				printHelperCall("compilePattern", "(r, f) => { let s = r.flags; "
+						+ "if ((f & " + Pattern.CASE_INSENSITIVE + ") && s.indexOf('i') < 0) s += 'i'; "
+						+ "if ((f & " + Pattern.MULTILINE + ") && s.indexOf('m') < 0) s += 'm'; "
+						+ "if ((f & " + Pattern.DOTALL + ") && s.indexOf('s') < 0) s += 's'; "
+						+ "return s === r.flags ? r : new RegExp(r.source, s); }");
+				printRegExp(invocation.getArgument(0), "g", false).print(", ").print(invocation.getArgument(1))
+						.print(")");
+			}
+			return true;
+		case "matches":
+			printMacroName(targetMethodName);
+			printRegExp(invocation.getArgument(0), "", true).print(".test(").print(invocation.getArgument(1))
+					.print(")");
+			return true;
+		case "quote":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getArgument(0)).print(").replace(/[.*+?^${}()|[\\]\\\\]/g, '\\\\$&')");
+			return true;
+		case "matcher":
+			printMacroName(targetMethodName);
+			printHelperCall("matcher", "(p, s) => ({ p: p, r: new RegExp(p.source, p.flags), s: s, m: null })")
+					.print(invocation.getTargetExpression()).print(", ").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "split":
+			printMacroName(targetMethodName);
+			printHelperCall("split", SPLIT_FUNCTION).print(invocation.getArgument(0)).print(", ")
+					.print(invocation.getTargetExpression());
+			if (invocation.getArgumentCount() == 2) {
+				print(", ").print(invocation.getArgument(1));
+			}
+			print(")");
+			return true;
+		case "pattern":
+		case "toString":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression()).print(".source");
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Substitutes the invocations on matchers, which hold their pattern, a copy
+	 * of it that keeps the search position, the input and the last match.
+	 */
+	protected boolean substituteMethodInvocationOnMatcher(MethodInvocationElement invocation,
+			String targetMethodName) {
+		switch (targetMethodName) {
+		case "find":
+			if (invocation.getArgumentCount() == 0) {
+				printMacroName(targetMethodName);
+				printHelperCall("matcherFind", "m => { let x = m.r.exec(m.s); "
+						+ "if (x !== null && x[0].length === 0) m.r.lastIndex++; return (m.m = x) !== null; }")
+								.print(invocation.getTargetExpression()).print(")");
+				return true;
+			}
+			break;
+		case "matches":
+			printMacroName(targetMethodName);
+			printHelperCall("matcherMatches", "m => { let p = m.p, f = p.__jsweet_full || (p.__jsweet_full = "
+					+ "new RegExp('^(?:' + p.source + ')$', p.flags.replace('g', ''))); return (m.m = f.exec(m.s)) !== null; }")
+							.print(invocation.getTargetExpression()).print(")");
+			return true;
+		case "group":
+			printMacroName(targetMethodName);
+			printHelperCall("matcherGroup", "(m, g = 0) => { let x = m.m[g]; return x === undefined ? null : x; }")
+					.print(invocation.getTargetExpression());
+			if (invocation.getArgumentCount() == 1) {
+				print(", ").print(invocation.getArgument(0));
+			}
+			print(")");
+			return true;
+		case "start":
+			if (invocation.getArgumentCount() == 0) {
+				printMacroName(targetMethodName);
+				print(invocation.getTargetExpression()).print(".m.index");
+				return true;
+			}
+			break;
+		case "end":
+			if (invocation.getArgumentCount() == 0) {
+				printMacroName(targetMethodName);
+				print("(m => m.m.index + m.m[0].length)(").print(invocation.getTargetExpression()).print(")");
+				return true;
+			}
+			break;
+		case "reset":
+			if (invocation.getArgumentCount() == 0) {
+				printMacroName(targetMethodName);
+				print("(m => { m.r.lastIndex = 0; m.m = null; return m; })(").print(invocation.getTargetExpression())
+						.print(")");
+				return true;
+			}
+			break;
+		}
+		return false;
+	}
+
 	protected boolean substituteMethodInvocationOnObjects(MethodInvocationElement invocation, String targetMethodName,
 			boolean delegate) {
 		switch (targetMethodName) {
 		case "hash":
 			printMacroName(targetMethodName);
-			print("0");
+			printHashCodeHelperCall("arrayHashCode");
+			if (invocation.getArgumentCount() == 1 && invocation.getArgument(0).getType() instanceof ArrayType) {
+				print(invocation.getArgument(0));
+			} else {
+				print("[").printArgList(invocation.getArguments()).print("]");
+			}
+			print(")");
+			return true;
+		case "hashCode":
+			printMacroName(targetMethodName);
+			printHashCodeHelperCall("hashCode").print(invocation.getArgument(0)).print(")");
 			return true;
 		case "requireNonNull":
 			printMacroName(targetMethodName);
@@ -582,9 +1074,10 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "isInstance":
 			printMacroName(targetMethodName);
-			print("((c:any,o:any) => { if(typeof c === 'string') return (o.constructor && o.constructor")
-					.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"] && o.constructor")
-					.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"].indexOf(c) >= 0) || (o")
+			print("((c:any,o:any) => { if(typeof c === 'string') return ")
+					.print(addRuntimeHelper(Java2TypeScriptTranslator.INTERFACE_CHECK_HELPER_NAME,
+							Java2TypeScriptTranslator.INTERFACE_CHECK_HELPER))
+					.print("(o, c) || (o")
 					.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME + "\"] && o")
 					.print("[\"" + Java2TypeScriptTranslator.INTERFACES_FIELD_NAME
 							+ "\"].indexOf(c) >= 0); else if(typeof c === 'function') return (o instanceof c) || (o.constructor && o.constructor === c); })(");
@@ -600,19 +1093,19 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "getMethods":
 		case "getDeclaredMethods":
 			printMacroName(targetMethodName);
-			print("(c => Object.getOwnPropertyNames(c.prototype).filter(n => typeof c.prototype[n] == 'function').map(n => ({owner:c,name:n,fn:c.prototype[n]}) ) )(")
+			printHelperCall("getMethods", "c => Object.getOwnPropertyNames(c.prototype).filter(n => typeof c.prototype[n] == 'function').map(n => ({owner:c,name:n,fn:c.prototype[n]}) ) ")
 					.print(invocation.getTargetExpression()).print(")");
 			return true;
 		case "getMethod":
 		case "getDeclaredMethod":
 			printMacroName(targetMethodName);
-			print("((c,p) => { if(c.prototype.hasOwnProperty(p) && typeof c.prototype[p] == 'function') return {owner:c,name:p,fn:c.prototype[p]}; else return null; })(")
+			printHelperCall("getMethod", "(c,p) => { if(c.prototype.hasOwnProperty(p) && typeof c.prototype[p] == 'function') return {owner:c,name:p,fn:c.prototype[p]}; else return null; }")
 					.print(invocation.getTargetExpression()).print(",").print(invocation.getArgument(0)).print(")");
 			return true;
 		case "getField":
 		case "getDeclaredField":
 			printMacroName(targetMethodName);
-			print("((c,p) => { return {owner:c,name:p}; })(").print(invocation.getTargetExpression()).print(",")
+			printHelperCall("getField", "(c,p) => { return {owner:c,name:p}; }").print(invocation.getTargetExpression()).print(",")
 					.print(invocation.getArgument(0)).print(")");
 			return true;
 		}
@@ -622,6 +1115,18 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 	protected boolean substituteMethodInvocationOnArrays(MethodInvocationElement invocation, String targetMethodName,
 			ExtendedElement targetExpression, boolean delegate) {
 		switch (targetMethodName) {
+		case "stream":
+			printMacroName(targetMethodName);
+			if (isTypedArray(invocation.getArgument(0))) {
+				// typed arrays cannot hold the results of map operations
+				print("Array.prototype.slice.call(").printArgList(invocation.getArguments()).print(")");
+			} else if (invocation.getArgumentCount() == 3) {
+				print(invocation.getArgument(0)).print(".slice(").print(invocation.getArgument(1)).print(", ")
+						.print(invocation.getArgument(2)).print(")");
+			} else {
+				print(invocation.getArgument(0));
+			}
+			return true;
 		case "asList":
 			printMacroName(targetMethodName);
 			if (invocation.getArgumentCount() == 1 && invocation.getArgument(0).getType() instanceof ArrayType) {
@@ -632,24 +1137,47 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "copyOf":
 			printMacroName(targetMethodName);
-			print(invocation.getArgument(0)).print(".slice(0,").print(invocation.getArgument(1)).print(")");
+			if (isTypedArray(invocation.getArgument(0))) {
+				printHelperCall("typedArrayCopyOf", "(a, n) => { let r = new a.constructor(n); r.set(n < a.length ? a.subarray(0, n) : a); return r; }")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			// the copy is padded with default values when it is longer
+			printHelperCall("copyOf", "(a, n, v) => { let r = a.slice(0, n); while (r.length < n) r.push(v); return r; }")
+					.printArgList(invocation.getArguments())
+					.print(", " + util().getTypeInitialValue(((ArrayType) invocation.getArgument(0).getType()).getComponentType()) + ")");
+			return true;
+		case "copyOfRange":
+			printMacroName(targetMethodName);
+			if (isTypedArray(invocation.getArgument(0))) {
+				printHelperCall("typedArrayCopyOfRange", "(a, from, to) => { let r = new a.constructor(to - from); r.set(a.subarray(from, to)); return r; }")
+						.printArgList(invocation.getArguments()).print(")");
+				return true;
+			}
+			printHelperCall("copyOfRange", "(a, from, to, v) => { let r = a.slice(from, to); while (r.length < to - from) r.push(v); return r; }")
+					.printArgList(invocation.getArguments())
+					.print(", " + util().getTypeInitialValue(((ArrayType) invocation.getArgument(0).getType()).getComponentType()) + ")");
 			return true;
 		case "fill":
 			printMacroName(targetMethodName);
-			if (invocation.getArgumentCount() == 4) {
-				print("((a, start, end, v) => { for(let i=start;i<end;i++) a[i]=v; })(")
+			if (isTypedArray(invocation.getArgument(0)) || isNativeES6ArrayTarget()) {
+				print("(<any>").print(invocation.getArgument(0)).print(").fill(")
+						.print(invocation.getArgument(invocation.getArgumentCount() - 1));
+				if (invocation.getArgumentCount() == 4) {
+					print(", ").print(invocation.getArgument(1)).print(", ").print(invocation.getArgument(2));
+				}
+				print(")");
+			} else if (invocation.getArgumentCount() == 4) {
+				printHelperCall("fillRange", "(a, start, end, v) => { for(let i=start;i<end;i++) a[i]=v; }")
 						.printArgList(invocation.getArguments()).print(")");
 			} else {
-				print("((a, v) => { for(let i=0;i<a.length;i++) a[i]=v; })(").printArgList(invocation.getArguments())
+				printHelperCall("fill", "(a, v) => { for(let i=0;i<a.length;i++) a[i]=v; }").printArgList(invocation.getArguments())
 						.print(")");
 			}
-			// ES6 implementation
-			// print(invocation.getArgument(0)).print(".fill(").printArgList(invocation.getArgumentTail())
-			// .print(")");
 			return true;
 		case "equals":
 			printMacroName(targetMethodName);
-			print("((a1, a2) => { if(a1==null && a2==null) return true; if(a1==null || a2==null) return false; if(a1.length != a2.length) return false; for(let i = 0; i < a1.length; i++) { if(<any>a1[i] != <any>a2[i]) return false; } return true; })(")
+			printHelperCall("arrayEquals", "(a1, a2) => { if(a1==null && a2==null) return true; if(a1==null || a2==null) return false; if(a1.length != a2.length) return false; for(let i = 0; i < a1.length; i++) { if(<any>a1[i] != <any>a2[i]) return false; } return true; }")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "deepEquals":
@@ -659,15 +1187,19 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "sort":
 			printMacroName(targetMethodName);
-			if (invocation.getArgumentCount() > 2) {
+			if (invocation.getArgumentCount() == 3 && isTypedArray(invocation.getArgument(0))) {
+				// sorts a view on the typed array in place
+				print("(<any>").print(invocation.getArgument(0)).print(").subarray(").print(invocation.getArgument(1))
+						.print(", ").print(invocation.getArgument(2)).print(").sort()");
+			} else if (invocation.getArgumentCount() > 2) {
 				print("((arr, start, end, f?) => ((arr1, arr2) => arr1.splice.apply(arr1, (<any[]>[start, arr2.length]).concat(arr2)))(")
 						.print(invocation.getArgument(0)).print(", ").print(invocation.getArgument(0))
 						.print(".slice(start, end).sort(f)))(").printArgList(invocation.getArguments()).print(")");
 			} else if (invocation.getArgumentCount() == 2) {
-				print("((l,c) => { if((<any>c).compare) l.sort((e1,e2)=>(<any>c).compare(e1,e2)); else l.sort(<any>c); })(")
+				printHelperCall("sort", "(l,c) => { if((<any>c).compare) l.sort((e1,e2)=>(<any>c).compare(e1,e2)); else l.sort(<any>c); }")
 						.print(invocation.getArgument(0)).print(",").print(invocation.getArgument(1)).print(")");
 			} else {
-				print("((l) => {l.sort(); })(").print(invocation.getArgument(0)).print(")");
+				printHelperCall("sortNatural", "(l) => {l.sort(); }").print(invocation.getArgument(0)).print(")");
 			}
 			return true;
 		}
@@ -707,7 +1239,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "nCopies":
 			printMacroName(targetMethodName);
-			print("((n,v)=>{let c=[];for(let i=0;i<n;i++)c.push(v);return c;})(");
+			printHelperCall("nCopies", "(n,v)=>{let c=[];for(let i=0;i<n;i++)c.push(v);return c;}");
 			print(invocation.getArgument(0));
 			print(",");
 			print(invocation.getArgument(1));
@@ -744,7 +1276,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 							+ "return -(low + 1); })(").printArgList(invocation.getArguments()).print(")");
 					return true;
 				} else {
-					print("((l, key) => { let comp = (a,b)=> {if(a.compareTo) return (<number>a.compareTo(b)); else return a.localeCompare(b);}; let low = 0; let high = l.length-1; while (low <= high) { let mid = (low + high) >>> 1; let midVal = l[mid]; "
+					print("((l, key) => { let comp = (a,b)=> {if(a.compareTo) return (<number>a.compareTo(b)); else return a < b ? -1 : a > b ? 1 : 0;}; let low = 0; let high = l.length-1; while (low <= high) { let mid = (low + high) >>> 1; let midVal = l[mid]; "
 							+ "let cmp = comp(midVal, key); if (cmp < 0) low = mid + 1; else if (cmp > 0) high = mid - 1; else return mid; } "
 							+ "return -(low + 1); })(").printArgList(invocation.getArguments()).print(")");
 					return true;
@@ -753,7 +1285,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "sort":
 			printMacroName(targetMethodName);
 			if (invocation.getArgumentCount() == 2) {
-				print("((l,c) => { if((<any>c).compare) l.sort((e1,e2)=>(<any>c).compare(e1,e2)); else l.sort(<any>c); })(")
+				printHelperCall("sort", "(l,c) => { if((<any>c).compare) l.sort((e1,e2)=>(<any>c).compare(e1,e2)); else l.sort(<any>c); }")
 						.print(invocation.getArgument(0)).print(",").print(invocation.getArgument(1)).print(")");
 			} else {
 				print(invocation.getArgument(0)).print(".sort(").printArgList(invocation.getArgumentTail()).print(")");
@@ -765,7 +1297,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "disjoint":
 			printMacroName(targetMethodName);
-			print("((c1, c2) => { for(let i=0;i<c1.length;i++) { if(c2.indexOf(<any>c1[i])>=0) return false; } return true; } )(")
+			printHelperCall("disjoint", "(c1, c2) => { for(let i=0;i<c1.length;i++) { if(c2.indexOf(<any>c1[i])>=0) return false; } return true; } ")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
 		}
@@ -775,74 +1307,77 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 
 	private boolean substituteMethodInvocationOnStringBuilder(MethodInvocationElement invocation,
 			String targetMethodName, boolean delegate) {
+		String function = null;
 		switch (targetMethodName) {
 		case "append":
 			printMacroName(targetMethodName);
+			printStringBuilderHelperCall("stringBuilderAppend");
+			print(invocation.getTargetExpression(), delegate).print(", ");
 			if (invocation.getArgumentCount() == 1) {
-				print("(sb => { sb.str = sb.str.concat(<any>").printArgList(invocation.getArguments())
-						.print("); return sb; })(");
-				print(invocation.getTargetExpression(), delegate).print(")");
+				printAsString(invocation.getArgument(0));
 			} else {
-				print("(sb => { sb.str = sb.str.concat((<any>").print(invocation.getArgument(0)).print(").substr(")
-						.printArgList(invocation.getArgumentTail()).print(")); return sb; })(");
-				print(invocation.getTargetExpression(), delegate).print(")");
+				print("(<any>").print(invocation.getArgument(0)).print(").substr(")
+						.printArgList(invocation.getArgumentTail()).print(")");
 			}
+			print(")");
 			return true;
 		case "insert":
-			printMacroName(targetMethodName);
-			print("((sb, index, c) => { sb.str = sb.str.substr(0, index) + c + sb.str.substr(index); return sb; })(");
-			print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-					.print(")");
-			return true;
+			if (invocation.getArgumentCount() == 2) {
+				printMacroName(targetMethodName);
+				printStringBuilderHelperCall("stringBuilderInsert");
+				print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(0))
+						.print(", ");
+				printAsString(invocation.getArgument(1)).print(")");
+				return true;
+			}
+			function = "stringBuilderInsert";
+			break;
 		case "setCharAt":
-			printMacroName(targetMethodName);
-			print("((sb, index, c) => sb.str = sb.str.substr(0, index) + c + sb.str.substr(index + 1))(");
-			print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-					.print(")");
-			return true;
+			function = "stringBuilderSetCharAt";
+			break;
 		case "deleteCharAt":
-			printMacroName(targetMethodName);
-			print("((sb, index) => { sb.str = sb.str.substr(0, index) + sb.str.substr(index + 1); return sb; })(");
-			print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-					.print(")");
-			return true;
+			function = "stringBuilderDeleteCharAt";
+			break;
 		case "delete":
-			printMacroName(targetMethodName);
-			print("((sb, i1, i2) => { sb.str = sb.str.substr(0, i1) + sb.str.substr(i2); return sb; })(");
-			print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-					.print(")");
-			return true;
+			function = "stringBuilderDelete";
+			break;
+		case "reverse":
+			function = "stringBuilderReverse";
+			break;
 		case "length":
-			printMacroName(targetMethodName);
-			print(invocation.getTargetExpression(), delegate).print(".str.length");
-			return true;
+			function = "stringBuilderLength";
+			break;
 		case "charAt":
-			printMacroName(targetMethodName);
-			print(invocation.getTargetExpression(), delegate).print(".str.charAt(").print(invocation.getArgument(0))
-					.print(")");
-			return true;
+			function = context.options.isCharsAsNumbers() ? "stringBuilderCharCodeAt" : "stringBuilderCharAt";
+			break;
 		case "setLength":
-			printMacroName(targetMethodName);
-			print("((sb, length) => sb.str = sb.str.substring(0, length))(");
-			print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-					.print(")");
-			return true;
+			function = "stringBuilderSetLength";
+			break;
 		case "toString":
 			printMacroName(targetMethodName);
 			print(invocation.getTargetExpression(), delegate).print(".str");
 			return true;
 		case "lastIndexOf":
 			printMacroName(targetMethodName);
-			print(invocation.getTargetExpression(), delegate).print(".str.lastIndexOf(")
-					.print(invocation.getArgument(0)).print(")");
+			print(invocation.getTargetExpression(), delegate).print(".str.lastIndexOf(");
+			printAsString(invocation.getArgument(0)).print(")");
 			return true;
 		case "substring":
 			printMacroName(targetMethodName);
 			print(invocation.getTargetExpression(), delegate).print(".str.substring(")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
+		default:
+			return false;
 		}
-		return false;
+		printMacroName(targetMethodName);
+		printStringBuilderHelperCall(function);
+		print(invocation.getTargetExpression(), delegate);
+		if (invocation.getArgumentCount() > 0) {
+			print(", ").printArgList(invocation.getArguments());
+		}
+		print(")");
+		return true;
 	}
 
 	protected boolean substituteMethodInvocationOnCalendar(MethodInvocationElement invocation, String targetMethodName,
@@ -853,49 +1388,49 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 				String first = invocation.getArgument(0).toString();
 				if (first.endsWith("YEAR")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCFullYear(p):d.setFullYear(p))(");
+					printHelperCall("dateSetFullYear", "(d, p) => d[\"UTC\"]?d.setUTCFullYear(p):d.setFullYear(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("DAY_OF_MONTH")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCDate(p):d.setDate(p))(");
+					printHelperCall("dateSetDate", "(d, p) => d[\"UTC\"]?d.setUTCDate(p):d.setDate(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("DAY_OF_WEEK")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCDay(p):d.setDay(p))(");
+					printHelperCall("dateSetDay", "(d, p) => d[\"UTC\"]?d.setUTCDay(p):d.setDay(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("MONTH")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCMonth(p):d.setMonth(p))(");
+					printHelperCall("dateSetMonth", "(d, p) => d[\"UTC\"]?d.setUTCMonth(p):d.setMonth(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("HOUR_OF_DAY")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCHours(p):d.setHours(p))(");
+					printHelperCall("dateSetHours", "(d, p) => d[\"UTC\"]?d.setUTCHours(p):d.setHours(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("MINUTE")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCMinutes(p):d.setMinutes(p))(");
+					printHelperCall("dateSetMinutes", "(d, p) => d[\"UTC\"]?d.setUTCMinutes(p):d.setMinutes(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("MILLISECOND")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCMilliseconds(p):d.setMilliseconds(p))(");
+					printHelperCall("dateSetMilliseconds", "(d, p) => d[\"UTC\"]?d.setUTCMilliseconds(p):d.setMilliseconds(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
 				} else if (first.endsWith("SECOND")) {
 					printMacroName(targetMethodName);
-					print("((d, p) => d[\"UTC\"]?d.setUTCSeconds(p):d.setSeconds(p))(");
+					printHelperCall("dateSetSeconds", "(d, p) => d[\"UTC\"]?d.setUTCSeconds(p):d.setSeconds(p)");
 					print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(1))
 							.print(")");
 					return true;
@@ -907,42 +1442,42 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 				String first = invocation.getArgument(0).toString();
 				if (first.endsWith("YEAR")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCFullYear():d.getFullYear())(");
+					printHelperCall("dateGetFullYear", "d => d[\"UTC\"]?d.getUTCFullYear():d.getFullYear()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("DAY_OF_MONTH")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCDate():d.getDate())(");
+					printHelperCall("dateGetDate", "d => d[\"UTC\"]?d.getUTCDate():d.getDate()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("DAY_OF_WEEK")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCDay():d.getDay())(");
+					printHelperCall("dateGetDay", "d => d[\"UTC\"]?d.getUTCDay():d.getDay()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("MONTH")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCMonth():d.getMonth())(");
+					printHelperCall("dateGetMonth", "d => d[\"UTC\"]?d.getUTCMonth():d.getMonth()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("HOUR_OF_DAY")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCHours():d.getHours())(");
+					printHelperCall("dateGetHours", "d => d[\"UTC\"]?d.getUTCHours():d.getHours()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("MINUTE")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCMinutes():d.getMinutes())(");
+					printHelperCall("dateGetMinutes", "d => d[\"UTC\"]?d.getUTCMinutes():d.getMinutes()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("MILLISECOND")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCMilliseconds():d.getMilliseconds())(");
+					printHelperCall("dateGetMilliseconds", "d => d[\"UTC\"]?d.getUTCMilliseconds():d.getMilliseconds()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				} else if (first.endsWith("SECOND")) {
 					printMacroName(targetMethodName);
-					print("(d => d[\"UTC\"]?d.getUTCSeconds():d.getSeconds())(");
+					printHelperCall("dateGetSeconds", "d => d[\"UTC\"]?d.getUTCSeconds():d.getSeconds()");
 					print(invocation.getTargetExpression(), delegate).print(")");
 					return true;
 				}
@@ -982,13 +1517,13 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			switch (targetMethodName) {
 			case "put":
 				printMacroName(targetMethodName);
-				print("(");
-				print(invocation.getTargetExpression(), delegate).print("[").print(invocation.getArgument(0))
-						.print("] = ").print(invocation.getArgument(1)).print(")");
+				printCollectionHelperCall("stringMapPut");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.printArgList(invocation.getArguments()).print(")");
 				return true;
 			case "get":
 				printMacroName(targetMethodName);
-				print("((m,k) => m[k]===undefined?null:m[k])(");
+				printHelperCall("mapGet", "(m,k) => m[k]===undefined?null:m[k]");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 						.print(invocation.getArgument(0)).print(")");
 				return true;
@@ -998,15 +1533,37 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 						.print(invocation.getArgument(0)).print(")");
 				return true;
 			case "keySet":
+			case "navigableKeySet":
 				printMacroName(targetMethodName);
-				print("Object.keys(");
+				printCollectionHelperCall("stringMapKeys");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "values":
 				printMacroName(targetMethodName);
-				print("(obj => Object.keys(obj).map(key => obj[key]))(");
+				printCollectionHelperCall("stringMapValues");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
+			case "firstKey":
+			case "lastKey":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("stringMapEnd");
+				printTargetForParameter(invocation.getTargetExpression(), delegate)
+						.print(", " + "lastKey".equals(targetMethodName) + ")");
+				return true;
+			case "ceilingKey":
+			case "floorKey":
+			case "higherKey":
+			case "lowerKey":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("stringMapNavigate");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(", '" + targetMethodName.replace("Key", "") + "')");
+				return true;
+			case "comparator":
+				printMacroName(targetMethodName);
+				print("(<any>");
+				print(invocation.getTargetExpression(), delegate).print(").__jsweet_comparator");
+				return true;
 			case "size":
 				printMacroName(targetMethodName);
 				print("Object.keys(");
@@ -1019,28 +1576,23 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 				return true;
 			case "remove":
 				printMacroName(targetMethodName);
-				print("(map => { let deleted = ");
-				print(invocation.getTargetExpression(), delegate).print("[").print(invocation.getArgument(0))
-						.print("];");
-				print("delete ");
-				print(invocation.getTargetExpression(), delegate).print("[").print(invocation.getArgument(0))
-						.print("];");
-				print("return deleted;})").print("(");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				printCollectionHelperCall("stringMapRemove");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(")");
 				return true;
 			case "clear":
 				printMacroName(targetMethodName);
-				print("(obj => { for (let member in obj) delete obj[member]; })(");
+				printCollectionHelperCall("stringMapClear");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "entrySet":
 				printMacroName(targetMethodName);
-				print("(o => { let s = []; for (let e in o) s.push({ k: e, v: o[e], getKey: function() { return this.k }, getValue: function() { return this.v } }); return s; })(");
+				printCollectionHelperCall("stringMapEntrySet");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "clone":
 				printMacroName(targetMethodName);
-				print("(o => { let c = {}; for (let k in Object.keys(o)){ c[k] = o[k] } return c; })(");
+				printHelperCall("mapClone", "o => { let c = {}; for (let k in Object.keys(o)){ c[k] = o[k] } return c; }");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			}
@@ -1050,77 +1602,698 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			case "put":
 			case "setProperty":
 				printMacroName(targetMethodName);
-				print("((m,k,v) => { if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) if(m.entries[i].key==null && k==null || m.entries[i].key.equals!=null && m.entries[i].key.equals(k) || m.entries[i].key===k) { m.entries[i].value=v; return; } m.entries.push("
-						+ newEntry + "); })(").print("<any>");
+				printCollectionHelperCall("entriesMapPut").print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 						.printArgList(invocation.getArguments()).print(")");
 				return true;
 			case "get":
 			case "getProperty":
 				printMacroName(targetMethodName);
-				print("((m,k) => { if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) if(m.entries[i].key==null && k==null || m.entries[i].key.equals!=null && m.entries[i].key.equals(k) || m.entries[i].key===k) { return m.entries[i].value; } return null; })(")
-						.print("<any>");
+				printCollectionHelperCall("entriesMapGet").print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 						.printArgList(invocation.getArguments()).print(")");
 				return true;
 			case "containsKey":
 				printMacroName(targetMethodName);
-				print("((m,k) => { if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) if(m.entries[i].key==null && k==null || m.entries[i].key.equals!=null && m.entries[i].key.equals(k) || m.entries[i].key===k) { return true; } return false; })(")
-						.print("<any>");
+				printCollectionHelperCall("entriesMapContainsKey").print("<any>");
 				print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
 						.print(")");
 				return true;
 			case "keySet":
+			case "navigableKeySet":
 			case "stringPropertyNames":
 				printMacroName(targetMethodName);
-				print("((m) => { let r=[]; if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) r.push(m.entries[i].key); return r; })(")
+				printHelperCall("entriesMapKeySet", "(m) => { let r=[]; if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) r.push(m.entries[i].key); return r; }")
 						.print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "values":
 				printMacroName(targetMethodName);
-				print("((m) => { let r=[]; if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) r.push(m.entries[i].value); return r; })(")
+				printHelperCall("entriesMapValues", "(m) => { let r=[]; if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) r.push(m.entries[i].value); return r; }")
 						.print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "size":
 				printMacroName(targetMethodName);
-				print("((m) => { if(m.entries==null) m.entries=[]; return m.entries.length; })(").print("<any>");
+				printHelperCall("entriesMapSize", "(m) => { if(m.entries==null) m.entries=[]; return m.entries.length; }").print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "isEmpty":
 				printMacroName(targetMethodName);
-				print("((m) => { if(m.entries==null) m.entries=[]; return m.entries.length == 0; })(").print("<any>");
+				printHelperCall("entriesMapIsEmpty", "(m) => { if(m.entries==null) m.entries=[]; return m.entries.length == 0; }").print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 				return true;
 			case "remove":
 				printMacroName(targetMethodName);
-				print("((m,k) => { if(m.entries==null) m.entries=[]; for(let i=0;i<m.entries.length;i++) if(m.entries[i].key==null && k==null || m.entries[i].key.equals!=null && m.entries[i].key.equals(k) || m.entries[i].key===k) { return m.entries.splice(i,1)[0]; } })(")
-						.print("<any>");
+				printCollectionHelperCall("entriesMapRemove").print("<any>");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 						.printArgList(invocation.getArguments()).print(")");
 				return true;
 			case "clear":
 				printMacroName(targetMethodName);
-				print("(<any>");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(").entries=[]");
+				print("(<any>");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(").entries=[]");
+				return true;
+			case "firstKey":
+			case "lastKey":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("entryKey");
+				printCollectionHelperCall("entriesMapEnd");
+				printTargetForParameter(invocation.getTargetExpression(), delegate)
+						.print(", " + "lastKey".equals(targetMethodName) + "))");
+				return true;
+			case "firstEntry":
+			case "lastEntry":
+			case "pollFirstEntry":
+			case "pollLastEntry":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall(targetMethodName.startsWith("poll") ? "entriesMapPoll" : "entriesMapEnd");
+				printTargetForParameter(invocation.getTargetExpression(), delegate)
+						.print(", " + targetMethodName.endsWith("LastEntry") + ")");
+				return true;
+			case "ceilingKey":
+			case "floorKey":
+			case "higherKey":
+			case "lowerKey":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("entryKey");
+				printCollectionHelperCall("entriesMapNavigate");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(", '" + targetMethodName.replace("Key", "") + "'))");
+				return true;
+			case "ceilingEntry":
+			case "floorEntry":
+			case "higherEntry":
+			case "lowerEntry":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("entriesMapNavigate");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(", '" + targetMethodName.replace("Entry", "") + "')");
+				return true;
+			case "headMap":
+			case "tailMap":
+			case "subMap":
+				printMacroName(targetMethodName);
+				printCollectionHelperCall("sortedSubMap");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ");
+				printSortedRangeArguments(invocation).print(")");
+				return true;
+			case "comparator":
+				printMacroName(targetMethodName);
+				print("(<any>");
+				print(invocation.getTargetExpression(), delegate).print(").__jsweet_comparator");
+				return true;
+			case "entrySet":
+				printMacroName(targetMethodName);
+				printHelperCall("entriesMapEntrySet", "(m) => { if(m.entries==null) m.entries=[]; return m.entries; }").print("<any>");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				return true;
+			case "clone":
+				printMacroName(targetMethodName);
+				print("(m => { if(m.entries==null) m.entries=[]; let c = {entries: []}; for(let i=0;i<m.entries.length;i++) { let k = m.entries[i].key, v = m.entries[i].value; c.entries[i] = "
+						+ newEntry + "; } return c; })(");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				return true;
+
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Prints the bounds of a sorted set or map view (<code>headSet</code>,
+	 * <code>tailMap</code>, <code>subSet</code>...) as the
+	 * <code>lo, loInclusive, hi, hiInclusive</code> arguments of the
+	 * <code>sortedSubSet</code> and <code>sortedSubMap</code> runtime functions
+	 * (<code>undefined</code> stands for an open bound).
+	 */
+	protected RemoveJavaDependenciesAdapter printSortedRangeArguments(MethodInvocationElement invocation) {
+		String methodName = invocation.getMethodName();
+		int argumentCount = invocation.getArgumentCount();
+		if (methodName.startsWith("head")) {
+			print("undefined, false, ").print(invocation.getArgument(0)).print(", ");
+			if (argumentCount == 2) {
+				print(invocation.getArgument(1));
+			} else {
+				print("false");
+			}
+		} else if (methodName.startsWith("tail")) {
+			print(invocation.getArgument(0)).print(", ");
+			if (argumentCount == 2) {
+				print(invocation.getArgument(1));
+			} else {
+				print("true");
+			}
+			print(", undefined, false");
+		} else if (argumentCount == 4) {
+			printArgList(invocation.getArguments());
+		} else {
+			print(invocation.getArgument(0)).print(", true, ").print(invocation.getArgument(1)).print(", false");
+		}
+		return this;
+	}
+
+	/**
+	 * Tells if the given collection class is emulated as an array with a hash
+	 * index or as a sorted array (see
+	 * {@link #printCollectionHelperCall(String)}).
+	 */
+	protected boolean isHashedSet(String className) {
+		switch (className) {
+		case "java.util.Set":
+		case "java.util.HashSet":
+		case "java.util.TreeSet":
+		case "java.util.SortedSet":
+		case "java.util.NavigableSet":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Tells if a value of the given type may be an <code>ArrayDeque</code>,
+	 * which is emulated as a ring buffer rather than an array (see
+	 * {@link #printCollectionHelperCall(String)}).
+	 */
+	protected boolean mayBeDeque(TypeMirror type) {
+		switch (types().erasure(type).toString()) {
+		case "java.util.Collection":
+		case "java.util.AbstractCollection":
+		case "java.util.Queue":
+		case "java.util.Deque":
+		case "java.util.ArrayDeque":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Prints a collection expression that is read as an array, converting it
+	 * first when it may be a deque (see {@link #mayBeDeque(TypeMirror)}).
+	 */
+	protected RemoveJavaDependenciesAdapter printCollectionAsArray(ExtendedElement expression, boolean delegate,
+			boolean parameter) {
+		if (!mayBeDeque(expression.getType())) {
+			return parameter ? printTargetForParameter(expression, delegate) : print(expression, delegate);
+		}
+		printCollectionHelperCall("dequeToArray");
+		printTargetForParameter(expression, delegate).print(")");
+		return this;
+	}
+
+	/**
+	 * Prints the target of an operation that modifies the array directly. When
+	 * the target may be a set with a hash index (see
+	 * {@link #isHashedSet(String)}), the index is dropped first so that it gets
+	 * rebuilt by the next lookup.
+	 */
+	private RemoveJavaDependenciesAdapter printModifiedArrayTarget(MethodInvocationElement invocation,
+			String targetClassName, boolean delegate, boolean parameter) {
+		switch (targetClassName) {
+		case "java.util.Collection":
+		case "java.util.AbstractCollection":
+		case "java.util.AbstractSet":
+			break;
+		default:
+			if (!isHashedSet(targetClassName)) {
+				return parameter ? printTargetForParameter(invocation.getTargetExpression(), delegate)
+						: print(invocation.getTargetExpression(), delegate);
+			}
+		}
+		printCollectionHelperCall("hashInvalidate");
+		printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+		return this;
+	}
+
+	/**
+	 * Substitutes the head and tail operations of <code>Queue</code> and
+	 * <code>Deque</code> targets with the deque runtime functions (see
+	 * {@link #printCollectionHelperCall(String)}), which work on both ring
+	 * buffers and arrays. Other operations fall back to the array emulation.
+	 */
+	protected boolean substituteMethodInvocationOnDeque(MethodInvocationElement invocation, String targetMethodName,
+			String targetClassName, boolean delegate) {
+		String function = null;
+		switch (targetMethodName) {
+		case "add":
+		case "addLast":
+		case "offer":
+		case "offerLast":
+			function = "dequeAddLast";
+			break;
+		case "addFirst":
+		case "offerFirst":
+		case "push":
+			function = "dequeAddFirst";
+			break;
+		case "remove":
+			function = invocation.getArgumentCount() == 0 ? "dequePollFirst" : "dequeRemove";
+			break;
+		case "poll":
+		case "pollFirst":
+		case "removeFirst":
+		case "pop":
+			function = "dequePollFirst";
+			break;
+		case "pollLast":
+		case "removeLast":
+			function = "dequePollLast";
+			break;
+		case "peek":
+		case "peekFirst":
+		case "element":
+		case "getFirst":
+			function = "dequePeekFirst";
+			break;
+		case "peekLast":
+		case "getLast":
+			function = "dequePeekLast";
+			break;
+		case "removeFirstOccurrence":
+			function = "dequeRemove";
+			break;
+		case "contains":
+			function = "dequeContains";
+			break;
+		case "addAll":
+			function = "dequeAddAll";
+			break;
+		case "clear":
+			function = "dequeClear";
+			break;
+		case "iterator":
+		case "descendingIterator":
+			printMacroName(targetMethodName);
+			printHelperCall("iterator", "(a) => { var i = 0; return { next: function() { return i<a.length?a[i++]:null; }, hasNext: function() { return i<a.length; }}}");
+			printCollectionHelperCall("dequeToArray");
+			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+			print("descendingIterator".equals(targetMethodName) ? ".slice(0).reverse())" : ")");
+			return true;
+		case "toArray":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("dequeToArray");
+			printTargetForParameter(invocation.getTargetExpression(), delegate).print(").slice(0)");
+			return true;
+		case "stream":
+		case "parallelStream":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("dequeToArray");
+			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+			return true;
+		default:
+			return substituteMethodInvocationOnArray(invocation, targetMethodName, targetClassName, delegate);
+		}
+		printMacroName(targetMethodName);
+		printCollectionHelperCall(function);
+		printTargetForParameter(invocation.getTargetExpression(), delegate);
+		if (invocation.getArgumentCount() > 0) {
+			print(", ").printArgList(invocation.getArguments());
+		}
+		print(")");
+		return true;
+	}
+
+	/**
+	 * Substitutes the <code>java.util.stream</code> operations.
+	 * 
+	 * <p>
+	 * Linear pipelines ending with <code>forEach</code>, <code>sum</code>,
+	 * <code>count</code>, <code>anyMatch</code>, <code>allMatch</code>,
+	 * <code>noneMatch</code>, <code>reduce</code>, <code>toArray</code>,
+	 * <code>collect(toList())</code> or <code>collect(joining())</code> are
+	 * compiled to a single loop (see
+	 * {@link #printFusedStreamPipeline(MethodInvocationElement)}). Otherwise,
+	 * streams are emulated as arrays, on which the other operations
+	 * (<code>sorted</code>, <code>distinct</code>, <code>flatMap</code>,
+	 * <code>groupingBy</code>...) are applied eagerly.
+	 */
+	protected boolean substituteMethodInvocationOnStream(MethodInvocationElement invocation, String targetMethodName) {
+		if (printFusedStreamPipeline(invocation)) {
+			return true;
+		}
+		ExtendedElement target = invocation.getTargetExpression();
+		if (invocation.getMethod().getModifiers().contains(Modifier.STATIC)) {
+			switch (targetMethodName) {
+			case "range":
+			case "rangeClosed":
+				printMacroName(targetMethodName);
+				printHelperCall("streamRange",
+						"(from, to, closed) => { let a = []; for (let i = from; closed ? i <= to : i < to; i++) a.push(i); return a; }")
+								.printArgList(invocation.getArguments())
+								.print(", " + "rangeClosed".equals(targetMethodName) + ")");
+				return true;
+			case "of":
+				printMacroName(targetMethodName);
+				if (invocation.getMethod().isVarArgs() && invocation.getArgumentCount() == 1
+						&& invocation.getArgument(0).getType() instanceof ArrayType) {
+					print(invocation.getArgument(0));
+				} else {
+					print("[").printArgList(invocation.getArguments()).print("]");
+				}
 				return true;
-			case "entrySet":
+			case "empty":
 				printMacroName(targetMethodName);
-				print("((m) => { if(m.entries==null) m.entries=[]; return m.entries; })(").print("<any>");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				print("[]");
 				return true;
-			case "clone":
+			}
+			return false;
+		}
+		switch (targetMethodName) {
+		case "filter":
+			printMacroName(targetMethodName);
+			print(target).print(".filter(").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "map":
+		case "mapToObj":
+		case "mapToInt":
+		case "mapToLong":
+		case "mapToDouble":
+			printMacroName(targetMethodName);
+			print(target).print(".map(").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "flatMap":
+		case "flatMapToInt":
+		case "flatMapToLong":
+		case "flatMapToDouble":
+			printMacroName(targetMethodName);
+			printHelperCall("streamFlatMap",
+					"(a, f) => { let r = []; for (let i = 0; i < a.length; i++) { let s = f(a[i]); for (let j = 0; j < s.length; j++) r.push(s[j]); } return r; }")
+							.print(target).print(", ").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "peek":
+			printMacroName(targetMethodName);
+			printHelperCall("streamPeek", "(a, f) => { for (let i = 0; i < a.length; i++) f(a[i]); return a; }")
+					.print(target).print(", ").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "limit":
+			printMacroName(targetMethodName);
+			print(target).print(".slice(0, ");
+			printStreamSize(invocation.getArgument(0)).print(")");
+			return true;
+		case "skip":
+			printMacroName(targetMethodName);
+			print(target).print(".slice(");
+			printStreamSize(invocation.getArgument(0)).print(")");
+			return true;
+		case "sorted":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("streamSorted").print(target);
+			if (invocation.getArgumentCount() == 1) {
+				print(", ").print(invocation.getArgument(0));
+			}
+			print(")");
+			return true;
+		case "distinct":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("streamDistinct").print(target).print(")");
+			return true;
+		case "boxed":
+		case "sequential":
+		case "parallel":
+		case "unordered":
+		case "asDoubleStream":
+			printMacroName(targetMethodName);
+			print(target);
+			return true;
+		case "asLongStream":
+			printMacroName(targetMethodName);
+			print(target);
+			if (context.options.isLongsAsBigInts()) {
+				print(".map(" + getBigIntHelper() + ")");
+			}
+			return true;
+		case "collect":
+			MethodInvocationElement collector = invocation.getArgumentCount() == 1
+					? getCollector(invocation.getArgument(0))
+					: null;
+			if (collector == null) {
+				return false;
+			}
+			switch (collector.getMethodName()) {
+			case "toSet":
 				printMacroName(targetMethodName);
-				print("(m => { if(m.entries==null) m.entries=[]; let c = {entries: []}; for(let i=0;i<m.entries.length;i++) { let k = m.entries[i].key, v = m.entries[i].value; c.entries[i] = "
-						+ newEntry + "; } return c; })(");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				printCollectionHelperCall("streamDistinct").print(target).print(")");
 				return true;
+			case "groupingBy":
+				if (collector.getArgumentCount() == 1 && invocation.getType() instanceof DeclaredType
+						&& ((DeclaredType) invocation.getType()).getTypeArguments().size() == 2) {
+					printMacroName(targetMethodName);
+					// string-keyed maps are plain objects
+					printCollectionHelperCall(types().isSameType(
+							((DeclaredType) invocation.getType()).getTypeArguments().get(0),
+							util().getType(String.class)) ? "streamStringGroupingBy" : "streamGroupingBy");
+					print(target).print(", ").print(collector.getArgument(0)).print(")");
+					return true;
+				}
+			}
+		}
+		return false;
+	}
 
+	/**
+	 * Prints a stream pipeline that ends with the given terminal operation as a
+	 * single loop, within a function applied to the pipeline's source (an array
+	 * or a range) and to the arguments of the pipeline's operations, so that no
+	 * intermediate array is created.
+	 * 
+	 * @return false if the terminal operation is not supported (the pipeline is
+	 *         then emulated with arrays)
+	 */
+	protected boolean printFusedStreamPipeline(MethodInvocationElement terminal) {
+		MethodInvocationElement collector = null;
+		switch (terminal.getMethodName()) {
+		case "forEach":
+		case "forEachOrdered":
+		case "sum":
+		case "count":
+		case "anyMatch":
+		case "allMatch":
+		case "noneMatch":
+		case "toArray":
+			break;
+		case "reduce":
+			if (terminal.getArgumentCount() != 2) {
+				return false;
+			}
+			break;
+		case "collect":
+			collector = terminal.getArgumentCount() == 1 ? getCollector(terminal.getArgument(0)) : null;
+			if (collector == null || !("toList".equals(collector.getMethodName())
+					|| "joining".equals(collector.getMethodName()))) {
+				return false;
 			}
+			break;
+		default:
+			return false;
+		}
+		if (terminal.getTargetExpression() == null || terminal.getMethod().getModifiers().contains(Modifier.STATIC)) {
+			return false;
 		}
 
-		return false;
+		List<MethodInvocationElement> stages = new ArrayList<>();
+		ExtendedElement source = terminal.getTargetExpression();
+		while (isStreamInvocation(source, FUSED_STREAM_OPERATIONS)
+				&& ((MethodInvocationElement) source).getTargetExpression() != null) {
+			stages.add(0, (MethodInvocationElement) source);
+			source = ((MethodInvocationElement) source).getTargetExpression();
+		}
+
+		List<ExtendedElement> arguments = new ArrayList<>();
+		StringBuilder loop = new StringBuilder();
+		if (stages.stream().anyMatch(stage -> "limit".equals(stage.getMethodName()))) {
+			loop.append("loop: ");
+		}
+		if (isStreamInvocation(source, Arrays.asList("range", "rangeClosed"))) {
+			MethodInvocationElement range = (MethodInvocationElement) source;
+			String from = addFusedArgument(arguments, range.getArgument(0));
+			String to = addFusedArgument(arguments, range.getArgument(1));
+			loop.append("for (let i0 = " + from + "; i0 " + ("range".equals(range.getMethodName()) ? "<" : "<=")
+					+ " " + to + "; i0++) { let v = i0; ");
+		} else {
+			// Arrays.stream(array) is iterated directly, even for typed arrays
+			if (source instanceof MethodInvocationElement) {
+				MethodInvocationElement arraysStream = (MethodInvocationElement) source;
+				if (arraysStream.getMethod() != null && "stream".equals(arraysStream.getMethodName())
+						&& arraysStream.getArgumentCount() == 1
+						&& "java.util.Arrays".equals(getInvocationTargetType(arraysStream).toString())) {
+					source = arraysStream.getArgument(0);
+				}
+			}
+			String array = addFusedArgument(arguments, source);
+			loop.append("for (let i0 = 0; i0 < " + array + ".length; i0++) { let v = " + array + "[i0]; ");
+		}
+		// limits are checked before an element enters the innermost loop's body
+		int bodyStart = loop.length();
+		int loopCount = 1;
+		for (MethodInvocationElement stage : stages) {
+			switch (stage.getMethodName()) {
+			case "filter":
+				loop.append("if (!" + addFusedArgument(arguments, stage.getArgument(0)) + "(v)) continue; ");
+				break;
+			case "map":
+			case "mapToObj":
+			case "mapToInt":
+			case "mapToLong":
+			case "mapToDouble":
+				loop.append("v = " + addFusedArgument(arguments, stage.getArgument(0)) + "(v); ");
+				break;
+			case "flatMap":
+			case "flatMapToInt":
+			case "flatMapToLong":
+			case "flatMapToDouble":
+				String elements = "a" + loopCount;
+				String index = "i" + loopCount;
+				loop.append("let " + elements + " = " + addFusedArgument(arguments, stage.getArgument(0)) + "(v); for (let "
+						+ index + " = 0; " + index + " < " + elements + ".length; " + index + "++) { let v = "
+						+ elements + "[" + index + "]; ");
+				bodyStart = loop.length();
+				loopCount++;
+				break;
+			case "peek":
+				loop.append(addFusedArgument(arguments, stage.getArgument(0)) + "(v); ");
+				break;
+			case "limit":
+				String limit = addFusedArgument(arguments, stage.getArgument(0));
+				loop.insert(bodyStart, "if (" + limit + " <= 0) break loop; ");
+				loop.append(limit + "--; ");
+				break;
+			case "skip":
+				String skip = addFusedArgument(arguments, stage.getArgument(0));
+				loop.append("if (" + skip + " > 0) { " + skip + "--; continue; } ");
+				break;
+			case "asLongStream":
+				if (context.options.isLongsAsBigInts()) {
+					loop.append("v = " + getBigIntHelper() + "(v); ");
+				}
+				break;
+			}
+		}
+
+		String init = null;
+		String result = null;
+		switch (terminal.getMethodName()) {
+		case "forEach":
+		case "forEachOrdered":
+			loop.append(addFusedArgument(arguments, terminal.getArgument(0)) + "(v); ");
+			break;
+		case "sum":
+			init = util().getTypeInitialValue(terminal.getType());
+			// int sums overflow like in Java
+			loop.append(context.options.isIntArithmetic() && terminal.getType().getKind() == TypeKind.INT
+					? "r = (r + v) | 0; "
+					: "r += v; ");
+			result = "r";
+			break;
+		case "count":
+			// counts are longs
+			init = util().getTypeInitialValue(terminal.getType());
+			loop.append(context.options.isLongsAsBigInts() ? "r += " + getLongConstant(1) + "; " : "r++; ");
+			result = "r";
+			break;
+		case "anyMatch":
+			loop.append("if (" + addFusedArgument(arguments, terminal.getArgument(0)) + "(v)) return true; ");
+			result = "false";
+			break;
+		case "allMatch":
+			loop.append("if (!" + addFusedArgument(arguments, terminal.getArgument(0)) + "(v)) return false; ");
+			result = "true";
+			break;
+		case "noneMatch":
+			loop.append("if (" + addFusedArgument(arguments, terminal.getArgument(0)) + "(v)) return false; ");
+			result = "true";
+			break;
+		case "reduce":
+			init = addFusedArgument(arguments, terminal.getArgument(0));
+			loop.append("r = " + addFusedArgument(arguments, terminal.getArgument(1)) + "(r, v); ");
+			result = "r";
+			break;
+		case "toArray":
+			init = "[]";
+			loop.append("r.push(v); ");
+			result = isTypedArray(terminal) ? "new " + Util.getTypedArrayName(
+					((ArrayType) terminal.getType()).getComponentType(), context.options.isCharsAsNumbers()) + "(r)"
+					: "r";
+			break;
+		case "collect":
+			init = "[]";
+			loop.append("r.push(v); ");
+			if ("toList".equals(collector.getMethodName())) {
+				result = "r";
+			} else if (collector.getArgumentCount() == 0) {
+				result = "r.join('')";
+			} else {
+				result = "r.join(" + addFusedArgument(arguments, collector.getArgument(0)) + ")";
+				if (collector.getArgumentCount() == 3) {
+					result = addFusedArgument(arguments, collector.getArgument(1)) + " + " + result + " + "
+							+ addFusedArgument(arguments, collector.getArgument(2));
+				}
+			}
+			break;
+		}
+		for (int i = 0; i < loopCount; i++) {
+			loop.append("} ");
+		}
+
+		printMacroName(terminal.getMethodName());
+		List<String> parameters = new ArrayList<>();
+		for (int i = 0; i < arguments.size(); i++) {
+			parameters.add("p" + i);
+		}
+		print("((" + String.join(", ", parameters) + ") => { " + (init == null ? "" : "let r = " + init + "; ") + loop
+				+ (result == null ? "" : "return " + result + "; ") + "})(").printArgList(arguments).print(")");
+		return true;
+	}
+
+	/**
+	 * Adds an argument to the function of a fused stream pipeline and returns
+	 * the name of the corresponding parameter.
+	 */
+	private String addFusedArgument(List<ExtendedElement> arguments, ExtendedElement argument) {
+		arguments.add(argument);
+		return "p" + (arguments.size() - 1);
+	}
+
+	/**
+	 * Tells if the given expression invokes one of the given methods on a
+	 * stream.
+	 */
+	private boolean isStreamInvocation(ExtendedElement expression, List<String> methodNames) {
+		if (!(expression instanceof MethodInvocationElement)) {
+			return false;
+		}
+		MethodInvocationElement invocation = (MethodInvocationElement) expression;
+		return invocation.getMethod() != null && methodNames.contains(invocation.getMethodName())
+				&& STREAM_CLASS_NAMES.contains(getInvocationTargetType(invocation).toString());
+	}
+
+	/**
+	 * Returns the given expression if it creates a collector with a
+	 * <code>Collectors</code> factory method, null otherwise.
+	 */
+	private MethodInvocationElement getCollector(ExtendedElement expression) {
+		if (expression instanceof MethodInvocationElement) {
+			MethodInvocationElement invocation = (MethodInvocationElement) expression;
+			if (invocation.getMethod() != null && Collectors.class.getName()
+					.equals(invocation.getMethod().getEnclosingElement().toString())) {
+				return invocation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Prints a stream size (a long), as a number.
+	 */
+	private RemoveJavaDependenciesAdapter printStreamSize(ExtendedElement size) {
+		if (context.options.isLongsAsBigInts()) {
+			print("Number(").print(size).print(")");
+		} else {
+			print(size);
+		}
+		return this;
 	}
 
 	protected boolean substituteMethodInvocationOnArray(MethodInvocationElement invocation, String targetMethodName,
@@ -1131,35 +2304,42 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "push":
 		case "addElement":
 			printMacroName(targetMethodName);
-			switch (targetClassName) {
-			case "java.util.Set":
-			case "java.util.HashSet":
-			case "java.util.TreeSet":
-				print("((s, e) => { if(s.indexOf(e)==-1) { s.push(e); return true; } else { return false; } })(");
+			if (isHashedSet(targetClassName)) {
+				printCollectionHelperCall("setAdd");
 				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 						.print(invocation.getArgument(0)).print(")");
-				break;
-			default:
-				if (invocation.getArgumentCount() == 2) {
-					print(invocation.getTargetExpression(), delegate).print(".splice(").print(invocation.getArgument(0))
-							.print(", 0, ").print(invocation.getArgument(1)).print(")");
-				} else {
-					print("(");
-					print(invocation.getTargetExpression(), delegate).print(".push(")
-							.printArgList(invocation.getArguments()).print(")>0)");
-				}
+			} else if (invocation.getArgumentCount() == 2) {
+				print(invocation.getTargetExpression(), delegate).print(".splice(").print(invocation.getArgument(0))
+						.print(", 0, ").print(invocation.getArgument(1)).print(")");
+			} else if (mayBeDeque(invocation.getTargetExpression().getType())) {
+				printCollectionHelperCall("dequeAddLast");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(", ")
+						.print(invocation.getArgument(0)).print(")");
+			} else {
+				print("(");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, false).print(".push(")
+						.printArgList(invocation.getArguments()).print(")>0)");
 			}
 			return true;
 		case "addAll":
 			printMacroName(targetMethodName);
-			if (invocation.getArgumentCount() == 2) {
-				print("((l1, ndx, l2) => { for(let i=l2.length-1;i>=0;i--) l1.splice(ndx,0,l2[i]); })(");
-				print(invocation.getTargetExpression(), delegate).print(", ").printArgList(invocation.getArguments())
-						.print(")");
+			if (isHashedSet(targetClassName)) {
+				printCollectionHelperCall("setAddAll");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ");
+				printCollectionAsArray(invocation.getArgument(0), false, true).print(")");
+			} else if (invocation.getArgumentCount() == 2) {
+				printHelperCall("listAddAllAt", "(l1, ndx, l2) => { for(let i=l2.length-1;i>=0;i--) l1.splice(ndx,0,l2[i]); }");
+				print(invocation.getTargetExpression(), delegate).print(", ").print(invocation.getArgument(0))
+						.print(", ");
+				printCollectionAsArray(invocation.getArgument(1), false, true).print(")");
+			} else if (mayBeDeque(invocation.getTargetExpression().getType())) {
+				printCollectionHelperCall("dequeAddAll");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(", ")
+						.print(invocation.getArgument(0)).print(")");
 			} else {
-				print("((l1, l2) => l1.push.apply(l1, l2))(");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
-						.printArgList(invocation.getArguments()).print(")");
+				printHelperCall("listAddAll", "(l1, l2) => l1.push.apply(l1, l2)");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(", ");
+				printCollectionAsArray(invocation.getArgument(0), false, true).print(")");
 			}
 			return true;
 		case "pop":
@@ -1169,8 +2349,9 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "peek":
 		case "lastElement":
+		case "last":
 			printMacroName(targetMethodName);
-			print("((s) => { return s[s.length-1]; })(");
+			printHelperCall("peekLast", "(s) => { return s[s.length-1]; }");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 			return true;
 		case "remove":
@@ -1183,36 +2364,49 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			 */
 			if (invocation.getArgumentCount() == 0) {
 				print(invocation.getTargetExpression(), delegate).print(".splice(0, 1)[0]");
+			} else if (invocation.getArgumentCount() == 1 && isHashedSet(targetClassName)) {
+				printCollectionHelperCall("setRemove");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(")");
 			} else if (Util.isNumber(invocation.getArgument(0).getType())
 					&& types().isSubtype(types().erasure(invocation.getTargetExpression().getType()),
 							types().erasure(util().getType(List.class)))) {
 				print(invocation.getTargetExpression(), delegate).print(".splice(")
 						.printArgList(invocation.getArguments()).print(", 1)[0]");
+			} else if (invocation.getArgumentCount() == 1 && mayBeDeque(invocation.getTargetExpression().getType())) {
+				printCollectionHelperCall("dequeRemove");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(", ")
+						.print(invocation.getArgument(0)).print(")");
 			} else {
 				print("(a => { let index = a.indexOf(").print(invocation.getArgument(0))
 						.print("); if(index>=0) { a.splice(index").print(invocation.getArgumentCount() == 1 ? "" : ", ")
 						.printArgList(invocation.getArgumentTail())
 						.print(", 1); return true; } else { return false; }})(");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(")");
 			}
 			return true;
 		case "removeAll":
+		case "retainAll":
 			printMacroName(targetMethodName);
-			print("((a, r) => { let b=false; for(let i=0;i<r.length;i++) { let ndx=a.indexOf(r[i]); if(ndx>=0) { a.splice(ndx, 1); b=true; } } return b; })(");
-			printTargetForParameter(invocation.getTargetExpression(), delegate).print(",")
-					.print(invocation.getArgument(0)).print(")");
+			if (mayBeDeque(invocation.getTargetExpression().getType())) {
+				printCollectionHelperCall("dequeRetainAll");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(", ")
+						.print(invocation.getArgument(0)).print(", " + "retainAll".equals(targetMethodName) + ")");
+			} else if ("removeAll".equals(targetMethodName)) {
+				printHelperCall("removeAll", "(a, r) => { let b=false; for(let i=0;i<r.length;i++) { let ndx=a.indexOf(r[i]); if(ndx>=0) { a.splice(ndx, 1); b=true; } } return b; }");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(",");
+				printCollectionAsArray(invocation.getArgument(0), false, true).print(")");
+			} else {
+				printHelperCall("retainAll", "(a, r) => { let b=false; for(let i=0;i<a.length;i++) { let ndx=r.indexOf(a[i]); if(ndx<0) { a.splice(i, 1); i--; b=true; } } return b; }");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(",");
+				printCollectionAsArray(invocation.getArgument(0), false, true).print(")");
+			}
 			return true;
 		case "containsAll":
 			printMacroName(targetMethodName);
-			print("((a, r) => { for(let i=0;i<r.length;i++) { if(a.indexOf(<any>r[i])<0) return false; } return true; } )(");
-			printTargetForParameter(invocation.getTargetExpression(), delegate).print(",")
-					.print(invocation.getArgument(0)).print(")");
-			return true;
-		case "retainAll":
-			printMacroName(targetMethodName);
-			print("((a, r) => { let b=false; for(let i=0;i<a.length;i++) { let ndx=r.indexOf(a[i]); if(ndx<0) { a.splice(i, 1); i--; b=true; } } return b; })(");
-			printTargetForParameter(invocation.getTargetExpression(), delegate).print(",")
-					.print(invocation.getArgument(0)).print(")");
+			printHelperCall("containsAll", "(a, r) => { for(let i=0;i<r.length;i++) { if(a.indexOf(<any>r[i])<0) return false; } return true; } ");
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, true).print(",");
+			printCollectionAsArray(invocation.getArgument(0), false, true).print(")");
 			return true;
 		case "addFirst":
 			printMacroName(targetMethodName);
@@ -1222,14 +2416,40 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "poll":
 		case "pollFirst":
 			printMacroName(targetMethodName);
-			print("(a => a.length==0?null:a.shift())(");
+			printHelperCall("pollFirst", "a => a.length==0?null:a.shift()");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 			return true;
 		case "pollLast":
 			printMacroName(targetMethodName);
-			print("(a => a.length==0?null:a.pop())(");
+			printHelperCall("pollLast", "a => a.length==0?null:a.pop()");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 			return true;
+		case "first":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression(), delegate).print("[0]");
+			return true;
+		case "ceiling":
+		case "floor":
+		case "higher":
+		case "lower":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("setNavigate");
+			printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+					.print(invocation.getArgument(0)).print(", '" + targetMethodName + "')");
+			return true;
+		case "headSet":
+		case "tailSet":
+		case "subSet":
+			printMacroName(targetMethodName);
+			printCollectionHelperCall("sortedSubSet");
+			printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ");
+			printSortedRangeArguments(invocation).print(")");
+			return true;
+		case "comparator":
+			printMacroName(targetMethodName);
+			print("(<any>");
+			print(invocation.getTargetExpression(), delegate).print(").__jsweet_comparator");
+			return true;
 		case "removeElementAt":
 			printMacroName(targetMethodName);
 			print(invocation.getTargetExpression(), delegate).print(".splice(").printArgList(invocation.getArguments())
@@ -1259,8 +2479,13 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "clear":
 			printMacroName(targetMethodName);
+			if (mayBeDeque(invocation.getTargetExpression().getType())) {
+				printCollectionHelperCall("dequeClear");
+				printModifiedArrayTarget(invocation, targetClassName, delegate, true).print(")");
+				return true;
+			}
 			print("(");
-			print(invocation.getTargetExpression(), delegate).print(".length = 0)");
+			printModifiedArrayTarget(invocation, targetClassName, delegate, false).print(".length = 0)");
 			return true;
 		case "isEmpty":
 			printMacroName(targetMethodName);
@@ -1269,9 +2494,15 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "contains":
 			printMacroName(targetMethodName);
+			if (isHashedSet(targetClassName)) {
+				printCollectionHelperCall("setContains");
+				printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
+						.print(invocation.getArgument(0)).print(")");
+				return true;
+			}
 			print("(");
-			print(invocation.getTargetExpression(), delegate).print(".indexOf(<any>(").print(invocation.getArgument(0))
-					.print(")) >= 0)");
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, false).print(".indexOf(<any>(")
+					.print(invocation.getArgument(0)).print(")) >= 0)");
 			return true;
 		case "toArray":
 			printMacroName(targetMethodName);
@@ -1293,31 +2524,39 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 						}
 					}
 					if (simplified) {
-						print(invocation.getTargetExpression(), delegate).print(".slice(0)");
+						printCollectionAsArray(invocation.getTargetExpression(), delegate, false).print(".slice(0)");
 						return true;
 					}
 				}
-				print("((a1, a2) => { if(a1.length >= a2.length) { a1.length=0; a1.push.apply(a1, a2); return a1; } else { return a2.slice(0); } })(")
+				printHelperCall("toArray", "(a1, a2) => { if(a1.length >= a2.length) { a1.length=0; a1.push.apply(a1, a2); return a1; } else { return a2.slice(0); } }")
 						.print(invocation.getArgument(0)).print(", ");
-				printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+				printCollectionAsArray(invocation.getTargetExpression(), delegate, true).print(")");
 				return true;
 			} else {
-				print(invocation.getTargetExpression(), delegate).print(".slice(0)");
+				printCollectionAsArray(invocation.getTargetExpression(), delegate, false).print(".slice(0)");
 				return true;
 			}
 		case "elements":
 			printMacroName(targetMethodName);
-			print("((a) => { var i = 0; return { nextElement: function() { return i<a.length?a[i++]:null; }, hasMoreElements: function() { return i<a.length; }}})(");
+			printHelperCall("enumeration", "(a) => { var i = 0; return { nextElement: function() { return i<a.length?a[i++]:null; }, hasMoreElements: function() { return i<a.length; }}}");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 			return true;
 		case "iterator":
 			printMacroName(targetMethodName);
-			print("((a) => { var i = 0; return { next: function() { return i<a.length?a[i++]:null; }, hasNext: function() { return i<a.length; }}})(");
-			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
+			printHelperCall("iterator", "(a) => { var i = 0; return { next: function() { return i<a.length?a[i++]:null; }, hasNext: function() { return i<a.length; }}}");
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, true).print(")");
+			return true;
+		case "forEach":
+			if (!mayBeDeque(invocation.getTargetExpression().getType())) {
+				return false;
+			}
+			printMacroName(targetMethodName);
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, false).print(".forEach(")
+					.printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "listIterator":
 			printMacroName(targetMethodName);
-			print("((a) => { var i = 0; return { next: function() { return i<a.length?a[i++]:null; }, hasNext: function() { return i<a.length; }}})(");
+			printHelperCall("iterator", "(a) => { var i = 0; return { next: function() { return i<a.length?a[i++]:null; }, hasNext: function() { return i<a.length; }}}");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(")");
 			return true;
 		case "ensureCapacity":
@@ -1326,7 +2565,13 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "toString":
 			printMacroName(targetMethodName);
 			print("('['+");
-			print(invocation.getTargetExpression(), delegate).print(".join(', ')+']')");
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, false).print(".join(', ')+']')");
+			return true;
+		case "stream":
+		case "parallelStream":
+			// streams are emulated as arrays
+			printMacroName(targetMethodName);
+			printCollectionAsArray(invocation.getTargetExpression(), delegate, false);
 			return true;
 		case "allOf":
 			print("function() { " + Java2TypeScriptTranslator.VAR_DECL_KEYWORD + " result: number[] = []; for("
@@ -1335,7 +2580,7 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "equals":
 			printMacroName(targetMethodName);
-			print("((a1, a2) => { if(a1==null && a2==null) return true; if(a1==null || a2==null) return false; if(a1.length != a2.length) return false; for(let i = 0; i < a1.length; i++) { if(<any>a1[i] != <any>a2[i]) return false; } return true; })(");
+			printHelperCall("arrayEquals", "(a1, a2) => { if(a1==null && a2==null) return true; if(a1==null || a2==null) return false; if(a1.length != a2.length) return false; for(let i = 0; i < a1.length; i++) { if(<any>a1[i] != <any>a2[i]) return false; } return true; }");
 			printTargetForParameter(invocation.getTargetExpression(), delegate).print(", ")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
@@ -1346,8 +2591,15 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 
 	protected boolean substituteMethodInvocationOnNumber(MethodInvocationElement invocation, String targetMethodName) {
 		switch (targetMethodName) {
-		case "parseInt":
 		case "parseLong":
+			if (context.options.isLongsAsBigInts() && invocation.getArgumentCount() == 1) {
+				// the returned long is converted with BigInt(), which parses the
+				// string without losing precision
+				printMacroName(targetMethodName);
+				print(invocation.getArgument(0));
+				return true;
+			}
+		case "parseInt":
 		case "parseShort":
 		case "parseByte":
 			printMacroName(targetMethodName);
@@ -1361,22 +2613,41 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "floatToIntBits":
 		case "floatToRawIntBits":
 			printMacroName(targetMethodName);
-			print("((f) => { let buf = new ArrayBuffer(4); (new Float32Array(buf))[0]=f; return (new Uint32Array(buf))[0]; })(")
+			printHelperCall("floatToIntBits", "(f) => { let buf = new ArrayBuffer(4); (new Float32Array(buf))[0]=f; return (new Uint32Array(buf))[0]; }")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "intBitsToFloat":
-			print("((v) => { let buf = new ArrayBuffer(4); (new Uint32Array(buf))[0]=v; return (new Float32Array(buf))[0]; })(")
+			printHelperCall("intBitsToFloat", "(v) => { let buf = new ArrayBuffer(4); (new Uint32Array(buf))[0]=v; return (new Float32Array(buf))[0]; }")
 					.printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "doubleToLongBits":
 		case "doubleToRawLongBits":
 			printMacroName(targetMethodName);
-			print("((f) => { let buf = new ArrayBuffer(4); (new Float32Array(buf))[0]=f; return (new Uint32Array(buf))[0]; })((<any>Math).fround(")
-					.printArgList(invocation.getArguments()).print("))");
+			// the 64 bits are read as low and high 32-bit words
+			if (context.options.isLongsAsBigInts()) {
+				String bigInt = getBigIntHelper();
+				printHelperCall("doubleToLongBigIntBits",
+						"(d) => { let buf = new ArrayBuffer(8); (new Float64Array(buf))[0]=d; let words = new Uint32Array(buf); return "
+								+ bigInt + ".asIntN(64, (" + bigInt + "(words[1]) << " + bigInt + "(32)) | " + bigInt
+								+ "(words[0])); }");
+			} else {
+				printHelperCall("doubleToLongBits",
+						"(d) => { let buf = new ArrayBuffer(8); (new Float64Array(buf))[0]=d; let words = new Int32Array(buf); return words[1] * 4294967296 + (words[0] >>> 0); }");
+			}
+			printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "longBitsToDouble":
-			print("((v) => { let buf = new ArrayBuffer(4); (new Uint32Array(buf))[0]=v; return (new Float32Array(buf))[0]; })(")
-					.printArgList(invocation.getArguments()).print(")");
+			if (context.options.isLongsAsBigInts()) {
+				String bigInt = getBigIntHelper();
+				printHelperCall("longBigIntBitsToDouble",
+						"(v) => { let buf = new ArrayBuffer(8); let words = new Uint32Array(buf); words[0] = Number(" + bigInt
+								+ ".asUintN(32, v)); words[1] = Number(" + bigInt + ".asUintN(32, v >> " + bigInt
+								+ "(32))); return (new Float64Array(buf))[0]; }");
+			} else {
+				printHelperCall("longBitsToDouble",
+						"(v) => { let buf = new ArrayBuffer(8); let words = new Uint32Array(buf); words[0] = v % 4294967296; words[1] = Math.floor(v / 4294967296); return (new Float64Array(buf))[0]; }");
+			}
+			printArgList(invocation.getArguments()).print(")");
 			return true;
 		case "valueOf":
 			if (util().isNumber(invocation.getArgument(0).getType())) {
@@ -1393,6 +2664,9 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 
 	protected boolean substituteMethodInvocationOnCharacter(MethodInvocationElement invocation,
 			String targetMethodName) {
+		if (context.options.isCharsAsNumbers()) {
+			return substituteMethodInvocationOnCharacterCode(invocation, targetMethodName);
+		}
 		switch (targetMethodName) {
 		case "isDigit":
 			printMacroName(targetMethodName);
@@ -1420,11 +2694,11 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			return true;
 		case "isLowerCase":
 			printMacroName(targetMethodName);
-			print("(s => s.toLowerCase() === s)(").print(invocation.getArgument(0)).print(")");
+			printHelperCall("isLowerCase", "s => s.toLowerCase() === s").print(invocation.getArgument(0)).print(")");
 			return true;
 		case "isUpperCase":
 			printMacroName(targetMethodName);
-			print("(s => s.toUpperCase() === s)(").print(invocation.getArgument(0)).print(")");
+			printHelperCall("isUpperCase", "s => s.toUpperCase() === s").print(invocation.getArgument(0)).print(")");
 			return true;
 		case "charValue":
 			printMacroName(targetMethodName);
@@ -1443,6 +2717,73 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		return false;
 	}
 
+	/**
+	 * Substitutes the invocations on <code>Character</code> when chars are
+	 * represented as UTF-16 code units (see
+	 * {@link JSweetOptions#isCharsAsNumbers()}).
+	 */
+	protected boolean substituteMethodInvocationOnCharacterCode(MethodInvocationElement invocation,
+			String targetMethodName) {
+		switch (targetMethodName) {
+		case "isDigit":
+			printMacroName(targetMethodName);
+			printHelperCall("isDigitCode", "c => c >= 48 && c <= 57").print(invocation.getArgument(0)).print(")");
+			return true;
+		case "isLetter":
+		case "isAlphabetic":
+			printMacroName(targetMethodName);
+			printHelperCall("isLetterCode", "c => (c >= 65 && c <= 90) || (c >= 97 && c <= 122)")
+					.print(invocation.getArgument(0)).print(")");
+			return true;
+		case "isLetterOrDigit":
+			printMacroName(targetMethodName);
+			printHelperCall("isLetterOrDigitCode",
+					"c => (c >= 48 && c <= 57) || (c >= 65 && c <= 90) || (c >= 97 && c <= 122)")
+							.print(invocation.getArgument(0)).print(")");
+			return true;
+		case "toLowerCase":
+			printMacroName(targetMethodName);
+			print("String.fromCharCode(").print(invocation.getArgument(0)).print(").toLowerCase().charCodeAt(0)");
+			return true;
+		case "toUpperCase":
+			printMacroName(targetMethodName);
+			print("String.fromCharCode(").print(invocation.getArgument(0)).print(").toUpperCase().charCodeAt(0)");
+			return true;
+		case "isLowerCase":
+			printMacroName(targetMethodName);
+			printHelperCall("isLowerCaseCode", "c => { let s = String.fromCharCode(c); return s.toLowerCase() === s; }")
+					.print(invocation.getArgument(0)).print(")");
+			return true;
+		case "isUpperCase":
+			printMacroName(targetMethodName);
+			printHelperCall("isUpperCaseCode", "c => { let s = String.fromCharCode(c); return s.toUpperCase() === s; }")
+					.print(invocation.getArgument(0)).print(")");
+			return true;
+		case "compare":
+			printMacroName(targetMethodName);
+			print("(").print(invocation.getArgument(0)).print(" - ").print(invocation.getArgument(1)).print(")");
+			return true;
+		case "charValue":
+			printMacroName(targetMethodName);
+			print(invocation.getTargetExpression());
+			return true;
+		case "valueOf":
+			print(invocation.getArgument(0));
+			return true;
+		case "hashCode":
+			printMacroName(targetMethodName);
+			print(invocation.getArgumentCount() == 0 ? invocation.getTargetExpression() : invocation.getArgument(0));
+			return true;
+		case "toString":
+			printMacroName(targetMethodName);
+			print("String.fromCharCode(").print(invocation.getArgumentCount() == 0 ? invocation.getTargetExpression()
+					: invocation.getArgument(0)).print(")");
+			return true;
+		}
+
+		return false;
+	}
+
 	@Override
 	public boolean substituteVariableAccess(VariableAccessElement variableAccess) {
 		String targetClassName = variableAccess.getTargetElement().toString();
@@ -1462,7 +2803,10 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 				case "MAX_VALUE":
 				case "POSITIVE_INFINITY":
 				case "NEGATIVE_INFINITY":
-
+					if ("java.lang.Long".equals(targetClassName) && context.options.isLongsAsBigInts()) {
+						print(getLongConstant("MIN_VALUE".equals(variableName) ? Long.MIN_VALUE : Long.MAX_VALUE));
+						return true;
+					}
 					try {
 						Field constantField = Class.forName(targetClassName).getDeclaredField(variableName);
 						print("" + constantField.get(null));
@@ -1491,6 +2835,31 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		return super.substituteVariableAccess(variableAccess);
 	}
 
+	/**
+	 * Prints the <code>comparator, from</code> arguments of the
+	 * <code>sortedSet</code>, <code>sortedMap</code> and
+	 * <code>sortedStringMap</code> runtime functions for a
+	 * <code>TreeSet</code> or <code>TreeMap</code> constructor. An
+	 * <code>undefined</code> comparator means that the ordering of the copied
+	 * sorted collection is kept.
+	 */
+	protected RemoveJavaDependenciesAdapter printSortedConstructorArguments(NewClassElement newClass,
+			Class<?> sortedClass) {
+		if (newClass.getArgumentCount() == 0) {
+			print("null");
+			return this;
+		}
+		TypeMirror argumentType = types().erasure(newClass.getArgument(0).getType());
+		if (types().isAssignable(argumentType, types().erasure(util().getType(Comparator.class)))) {
+			print(newClass.getArgument(0));
+		} else {
+			print(types().isAssignable(argumentType, types().erasure(util().getType(sortedClass))) ? "undefined"
+					: "null").print(", ");
+			printCollectionAsArray(newClass.getArgument(0), false, true);
+		}
+		return this;
+	}
+
 	@Override
 	public boolean substituteNewClass(NewClassElement newClass) {
 		String className = newClass.getTypeAsElement().toString();
@@ -1512,7 +2881,8 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "java.long.Short":
 		case "java.util.Byte":
 		    String argType = newClass.getArgument(0).getType().toString();
-			boolean isCharArgument = Character.class.getName().equals(argType) || "char".equals(argType);
+			boolean isCharArgument = !context.options.isCharsAsNumbers()
+					&& (Character.class.getName().equals(argType) || "char".equals(argType));
 			if (isCharArgument) {
 				print("new Number(").print(newClass.getArgument(0)).print(".charCodeAt(0)" + ").valueOf()");
 			} else {
@@ -1524,12 +2894,12 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 		case "java.util.LinkedList":
 		case "java.util.Vector":
 		case "java.util.Stack":
-		case "java.util.TreeSet":
 		case "java.util.HashSet":
 		case "java.util.AbstractSet":
 		case "java.util.AbstractCollection":
 		case "java.util.AbstractList":
 		case "java.util.AbstractQueue":
+			// LinkedList is also a deque, but stays an array since it is a list
 			if (newClass.getArgumentCount() == 0) {
 				print("[]");
 			} else {
@@ -1537,13 +2907,37 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 						|| (newClass.getArgument(0) instanceof LiteralElement)) {
 					print("[]");
 				} else {
-					print(newClass.getArgument(0)).print(".slice(0)");
+					printCollectionAsArray(newClass.getArgument(0), false, false).print(".slice(0)");
 				}
 			}
 			substitute = true;
 			break;
-		case "java.util.HashMap":
+		case "java.util.ArrayDeque":
+			printCollectionHelperCall("dequeNew");
+			if (newClass.getArgumentCount() == 0 || Util.isNumber(newClass.getArgument(0).getType())) {
+				print("null");
+			} else {
+				print(newClass.getArgument(0));
+			}
+			print(")");
+			substitute = true;
+			break;
+		case "java.util.TreeSet":
+			printCollectionHelperCall("sortedSet");
+			printSortedConstructorArguments(newClass, SortedSet.class).print(")");
+			substitute = true;
+			break;
 		case "java.util.TreeMap":
+			if (((DeclaredType) newClass.getType()).getTypeArguments().size() == 2 && types().isSameType(
+					((DeclaredType) newClass.getType()).getTypeArguments().get(0), util().getType(String.class))) {
+				printCollectionHelperCall("sortedStringMap");
+			} else {
+				printCollectionHelperCall("sortedMap");
+			}
+			printSortedConstructorArguments(newClass, SortedMap.class).print(")");
+			substitute = true;
+			break;
+		case "java.util.HashMap":
 		case "java.util.Hashtable":
 		case "java.util.WeakHashMap":
 		case "java.util.LinkedHashMap":
@@ -1556,10 +2950,10 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			} else {
 				if (((DeclaredType) newClass.getType()).getTypeArguments().size() == 2 && types().isSameType(
 						((DeclaredType) newClass.getType()).getTypeArguments().get(0), util().getType(String.class))) {
-					print("((o) => { let r = {}; for(let p in o) r[p]=o[p]; return r; })(")
+					printHelperCall("cloneObject", "(o) => { let r = {}; for(let p in o) r[p]=o[p]; return r; }")
 							.print(newClass.getArgument(0)).print(")");
 				} else {
-					print("((o) => { let r = {}; r['entries'] = o.entries!=null?o.entries.slice():null; return r; })(")
+					printHelperCall("cloneEntriesMap", "(o) => { let r = {}; r['entries'] = o.entries!=null?o.entries.slice():null; return r; }")
 							.print(newClass.getArgument(0)).print(")");
 				}
 			}
@@ -1572,13 +2966,15 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			} else {
 				ExtendedElement firstArgument = newClass.getArgument(0);
 				if (firstArgument.getType() instanceof ArrayType) {
-					if (util().isIntegral(((ArrayType) firstArgument.getType()).getComponentType())) {
-						print("String.fromCharCode.apply(null, ").print(firstArgument).print(")");
+					TypeMirror componentType = ((ArrayType) firstArgument.getType()).getComponentType();
+					if (util().isIntegral(componentType)
+							|| (context.options.isCharsAsNumbers() && componentType.getKind() == TypeKind.CHAR)) {
+						printHelperCall("fromCharCodes", FROM_CHAR_CODES_FUNCTION).print(firstArgument);
 						if (newClass.getArgumentCount() >= 3 && util().isIntegral(newClass.getArgument(1).getType())
 								&& util().isIntegral(newClass.getArgument(2).getType())) {
-							print(".substr(").print(newClass.getArgument(1)).print(", ").print(newClass.getArgument(2))
-									.print(")");
+							print(", ").print(newClass.getArgument(1)).print(", ").print(newClass.getArgument(2));
 						}
+						print(")");
 						return true;
 					} else {
 						print(firstArgument).print(".join('')");
@@ -1598,11 +2994,13 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 			break;
 		case "java.lang.StringBuffer":
 		case "java.lang.StringBuilder":
+			printStringBuilderHelperCall("stringBuilder");
 			if (newClass.getArgumentCount() == 0 || Util.isNumber(newClass.getArgument(0).getType())) {
-				print("{ str: \"\", toString: function() { return this.str; } }");
+				print("\"\"");
 			} else {
-				print("{ str: ").print(newClass.getArgument(0)).print(", toString: function() { return this.str; } }");
+				print(newClass.getArgument(0));
 			}
+			print(")");
 			substitute = true;
 			break;
 		case "java.lang.ref.WeakReference":
@@ -1679,6 +3077,15 @@ public class RemoveJavaDependenciesAdapter extends Java2TypeScriptAdapter {
 	@Override
 	public boolean substituteForEachLoop(ForeachLoopElement foreachLoop, boolean targetHasLength, String indexVarName) {
 		JCEnhancedForLoop loop = ((ForeachLoopElementSupport) foreachLoop).getTree();
+		if (mayBeDeque(loop.expr.type)) {
+			// deques may be ring buffers, which cannot be indexed
+			getPrinter().print("for(" + VAR_DECL_KEYWORD + " " + loop.var.name.toString() + " of ");
+			printCollectionHelperCall("dequeToArray");
+			getPrinter().print(loop.expr).print(")) {").println().startIndent().printIndent();
+			getPrinter().print(loop.body);
+			endIndent().println().printIndent().print("}");
+			return true;
+		}
 		if (!targetHasLength && !isJDKPath(loop.expr.type.toString())
 				&& types().isSubtype(loop.expr.type, types().erasure(util().getType(Iterable.class)))) {
 			printForEachLoop(loop, indexVarName);
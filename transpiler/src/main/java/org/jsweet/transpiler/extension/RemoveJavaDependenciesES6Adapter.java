@@ -25,7 +25,11 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
@@ -46,15 +50,77 @@ import com.sun.tools.javac.tree.JCTree.JCEnhancedForLoop;
 /**
  * An adapter that removes many uses of Java APIs and replace them with
  * JavaScript ES6 equivalent when possible.
+ * 
+ * <p>
+ * <code>TreeSet</code> and <code>TreeMap</code> are native sets and maps too,
+ * so that they can be used through <code>Set</code> and <code>Map</code>
+ * references, but they keep their elements/keys in a sorted array
+ * (non-enumerable <code>__jsweet_sorted</code> property) that drives
+ * iteration, lookups and the navigation methods. To that end, the
+ * <code>Set</code> and <code>Map</code> methods are redefined on each sorted
+ * instance (the prototypes are left untouched), so that the native methods
+ * called on a sorted instance, including by third-party code, go through the
+ * sorted array. As in {@link RemoveJavaDependenciesAdapter}, lookups are
+ * logarithmic but insertions and removals splice the sorted array and are
+ * linear in the size of the collection.
  */
 
 public class RemoveJavaDependenciesES6Adapter extends RemoveJavaDependenciesAdapter {
+	/**
+	 * The runtime functions of the sorted native sets and maps, which come in
+	 * addition to the map and set emulation functions they rely on (see
+	 * {@link RemoveJavaDependenciesAdapter#COLLECTION_HELPERS}).
+	 */
+	private static final String[][] SORTED_COLLECTION_HELPERS = Stream.concat(Stream.of(COLLECTION_HELPERS),
+			Stream.of(new String[][] { //
+					{ "sortedNativeSet",
+							"(c, from) => { let s = __jsweet_sortedTag(new Set(), c === undefined ? from.__jsweet_comparator : c); let sorted = []; let proto = Set.prototype; "
+									+ "Object.defineProperties(s, { __jsweet_sorted: { value: sorted }, "
+									+ "has: { value: function(e) { return __jsweet_sortedSearch(sorted, e, this.__jsweet_comparator, false) >= 0; } }, "
+									+ "add: { value: function(e) { let i = __jsweet_sortedSearch(sorted, e, this.__jsweet_comparator, false); if (i < 0) { sorted.splice(-i - 1, 0, e); proto.add.call(this, e); } return this; } }, "
+									+ "delete: { value: function(e) { let i = __jsweet_sortedSearch(sorted, e, this.__jsweet_comparator, false); if (i < 0) return false; proto.delete.call(this, sorted[i]); sorted.splice(i, 1); return true; } }, "
+									+ "clear: { value: function() { proto.clear.call(this); sorted.length = 0; } }, "
+									+ "forEach: { value: function(f, t) { sorted.slice(0).forEach(e => f.call(t, e, e, this)); } }, "
+									+ "values: { value: function() { return sorted.values(); } }, "
+									+ "keys: { value: function() { return sorted.values(); } }, "
+									+ "entries: { value: function*() { for (const e of sorted) yield [e, e]; } } }); "
+									+ "Object.defineProperty(s, Symbol.iterator, { value: function() { return sorted.values(); } }); "
+									+ "if (from != null) for (const e of from) s.add(e); return s; }" },
+					{ "sortedNativeMap",
+							"(c, from) => { let m = __jsweet_sortedTag(new Map(), c === undefined ? from.__jsweet_comparator : c); let sorted = []; let proto = Map.prototype; "
+									+ "let find = (m, k) => __jsweet_sortedSearch(sorted, k, m.__jsweet_comparator, false); "
+									+ "Object.defineProperties(m, { __jsweet_sorted: { value: sorted }, "
+									+ "has: { value: function(k) { return find(this, k) >= 0; } }, "
+									+ "get: { value: function(k) { let i = find(this, k); return i < 0 ? undefined : proto.get.call(this, sorted[i]); } }, "
+									+ "set: { value: function(k, v) { let i = find(this, k); if (i < 0) sorted.splice(i = -i - 1, 0, k); proto.set.call(this, sorted[i], v); return this; } }, "
+									+ "delete: { value: function(k) { let i = find(this, k); if (i < 0) return false; proto.delete.call(this, sorted[i]); sorted.splice(i, 1); return true; } }, "
+									+ "clear: { value: function() { proto.clear.call(this); sorted.length = 0; } }, "
+									+ "forEach: { value: function(f, t) { sorted.slice(0).forEach(k => f.call(t, proto.get.call(this, k), k, this)); } }, "
+									+ "keys: { value: function() { return sorted.values(); } }, "
+									+ "values: { value: function*() { for (const k of sorted) yield proto.get.call(this, k); } }, "
+									+ "entries: { value: function*() { for (const k of sorted) yield [k, proto.get.call(this, k)]; } } }); "
+									+ "Object.defineProperty(m, Symbol.iterator, { value: function() { return this.entries(); } }); "
+									+ "if (from != null) for (const [k, v] of from) m.set(k, v); return m; }" },
+					{ "sortedNativeNavigate",
+							"(s, k, mode, entry) => { let a = s.__jsweet_sorted; let i = __jsweet_sortedNavigate(a, k, s.__jsweet_comparator, false, mode); return i < 0 ? null : entry ? __jsweet_newEntry(a[i], s.get(a[i])) : a[i]; }" },
+					{ "sortedNativeEnd",
+							"(s, last, poll, entry) => { let a = s.__jsweet_sorted; if (a.length == 0) return null; let k = a[last ? a.length - 1 : 0]; let r = entry ? __jsweet_newEntry(k, s.get(k)) : k; if (poll) s.delete(k); return r; }" },
+					{ "sortedNativeRange",
+							"(s, lo, loInclusive, hi, hiInclusive) => { let keys = __jsweet_sortedRange(s.__jsweet_sorted, s.__jsweet_comparator, false, lo, loInclusive, hi, hiInclusive); "
+									+ "if (!(s instanceof Map)) return __jsweet_sortedNativeSet(s.__jsweet_comparator, keys); "
+									+ "let m = __jsweet_sortedNativeMap(s.__jsweet_comparator, null); for (const k of keys) m.set(k, s.get(k)); return m; }" } }))
+			.toArray(String[][]::new);
+
 	protected final static Set<String> SET_CLASS_NAMES = Stream
-			.of(Set.class, HashSet.class, LinkedHashSet.class, TreeSet.class, AbstractSet.class).map(Class::getName)
+			.of(Set.class, HashSet.class, LinkedHashSet.class, TreeSet.class, SortedSet.class, NavigableSet.class,
+					AbstractSet.class)
+			.map(Class::getName)
 			.collect(Collectors.toSet());
 
 	protected final static Set<String> MAP_CLASS_NAMES = Stream
-			.of(Map.class, HashMap.class, LinkedHashMap.class, TreeMap.class, AbstractMap.class).map(Class::getName)
+			.of(Map.class, HashMap.class, LinkedHashMap.class, TreeMap.class, SortedMap.class, NavigableMap.class,
+					AbstractMap.class)
+			.map(Class::getName)
 			.collect(Collectors.toSet());
 
 	public RemoveJavaDependenciesES6Adapter(PrinterAdapter parentAdapter) {
@@ -81,10 +147,32 @@ public class RemoveJavaDependenciesES6Adapter extends RemoveJavaDependenciesAdap
 		return super.substituteForEachLoop(foreachLoop, targetHasLength, indexVarName);
 	}
 
+	/**
+	 * Prints the head of a call to a function of the sorted native sets and
+	 * maps (see {@link #printRuntimeHelperCall(String[][], String)}).
+	 * 
+	 * @param name
+	 *            the function's name (e.g. <code>sortedNativeNavigate</code>)
+	 */
+	protected RemoveJavaDependenciesES6Adapter printSortedCollectionHelperCall(String name) {
+		printRuntimeHelperCall(SORTED_COLLECTION_HELPERS, name);
+		return this;
+	}
+
 	@Override
 	public boolean substituteNewClass(NewClassElement newClass) {
 		String className = newClass.getTypeAsElement().toString();
 
+		if (TreeSet.class.getName().equals(className)) {
+			printSortedCollectionHelperCall("sortedNativeSet");
+			printSortedConstructorArguments(newClass, SortedSet.class).print(")");
+			return true;
+		}
+		if (TreeMap.class.getName().equals(className)) {
+			printSortedCollectionHelperCall("sortedNativeMap");
+			printSortedConstructorArguments(newClass, SortedMap.class).print(")");
+			return true;
+		}
 		if (SET_CLASS_NAMES.contains(className)) {
 			this.substituteNewSet(newClass);
 			return true;
@@ -212,6 +300,34 @@ public class RemoveJavaDependenciesES6Adapter extends RemoveJavaDependenciesAdap
 			printMacroName(targetMethodName);
 			print("(").print("Array.from(").print(targetExpression).print(")").print(")");
 			break;
+		case "first":
+		case "last":
+		case "pollFirst":
+		case "pollLast":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeEnd").print(targetExpression)
+					.print(", " + targetMethodName.toLowerCase().endsWith("last") + ", " + targetMethodName.startsWith("poll")
+							+ ", false)");
+			break;
+		case "ceiling":
+		case "floor":
+		case "higher":
+		case "lower":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeNavigate").print(targetExpression).print(", ")
+					.print(invocation.getArgument(0)).print(", '" + targetMethodName + "', false)");
+			break;
+		case "headSet":
+		case "tailSet":
+		case "subSet":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeRange").print(targetExpression).print(", ");
+			printSortedRangeArguments(invocation).print(")");
+			break;
+		case "comparator":
+			printMacroName(targetMethodName);
+			print("(<any>").print(targetExpression).print(").__jsweet_comparator");
+			break;
 		default:
 			printCallToEponymMethod(invocation);
 		}
@@ -296,6 +412,43 @@ public class RemoveJavaDependenciesES6Adapter extends RemoveJavaDependenciesAdap
 			print(")");
 			break;
 
+		case "firstKey":
+		case "lastKey":
+		case "firstEntry":
+		case "lastEntry":
+		case "pollFirstEntry":
+		case "pollLastEntry":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeEnd").print(targetExpression)
+					.print(", " + targetMethodName.toLowerCase().contains("last") + ", " + targetMethodName.startsWith("poll")
+							+ ", " + targetMethodName.endsWith("Entry") + ")");
+			break;
+		case "ceilingKey":
+		case "floorKey":
+		case "higherKey":
+		case "lowerKey":
+		case "ceilingEntry":
+		case "floorEntry":
+		case "higherEntry":
+		case "lowerEntry":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeNavigate").print(targetExpression).print(", ")
+					.print(invocation.getArgument(0))
+					.print(", '" + targetMethodName.replaceAll("Key|Entry", "") + "', "
+							+ targetMethodName.endsWith("Entry") + ")");
+			break;
+		case "headMap":
+		case "tailMap":
+		case "subMap":
+			printMacroName(targetMethodName);
+			printSortedCollectionHelperCall("sortedNativeRange").print(targetExpression).print(", ");
+			printSortedRangeArguments(invocation).print(")");
+			break;
+		case "comparator":
+			printMacroName(targetMethodName);
+			print("(<any>").print(targetExpression).print(").__jsweet_comparator");
+			break;
+
 		default:
 			printCallToEponymMethod(invocation);
 		}
@@ -22,6 +22,7 @@ import javax.lang.model.element.VariableElement;
 
 import org.jsweet.transpiler.model.support.ArrayAccessElementSupport;
 import org.jsweet.transpiler.model.support.AssignmentElementSupport;
+import org.jsweet.transpiler.model.support.AssignmentWithOperatorElementSupport;
 import org.jsweet.transpiler.model.support.BinaryOperatorElementSupport;
 import org.jsweet.transpiler.model.support.CaseElementSupport;
 import org.jsweet.transpiler.model.support.CompilationUnitElementSupport;
@@ -42,6 +43,7 @@ import org.jsweet.transpiler.model.support.VariableElementSupport;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCArrayAccess;
 import com.sun.tools.javac.tree.JCTree.JCAssign;
+import com.sun.tools.javac.tree.JCTree.JCAssignOp;
 import com.sun.tools.javac.tree.JCTree.JCBinary;
 import com.sun.tools.javac.tree.JCTree.JCCase;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
@@ -129,6 +131,18 @@ public class ExtendedElementFactory {
 			return new ForeachLoopElementSupport((JCEnhancedForLoop) tree);
 		case ASSIGN:
 			return new AssignmentElementSupport((JCAssign) tree);
+		case BITOR_ASG:
+		case BITXOR_ASG:
+		case BITAND_ASG:
+		case SL_ASG:
+		case SR_ASG:
+		case USR_ASG:
+		case PLUS_ASG:
+		case MINUS_ASG:
+		case MUL_ASG:
+		case DIV_ASG:
+		case MOD_ASG:
+			return new AssignmentWithOperatorElementSupport((JCAssignOp) tree);
 		case IMPORT:
 			return new ImportElementSupport((JCImport) tree);
 		case TOPLEVEL:
@@ -136,6 +150,7 @@ public class ExtendedElementFactory {
 		case AND:
 		case OR:
 		case BITAND:
+		case BITOR:
 		case BITXOR:
 		case DIV:
 		case EQ:
@@ -148,7 +163,11 @@ public class ExtendedElementFactory {
 		case MUL:
 		case NE:
 		case PLUS:
+		case SL:
+		case SR:
+		case USR:
 			return new BinaryOperatorElementSupport((JCBinary) tree);
+		case COMPL:
 		case NEG:
 		case NOT:
 		case POS:
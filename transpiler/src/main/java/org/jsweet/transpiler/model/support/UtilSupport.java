@@ -197,7 +197,9 @@ public class UtilSupport implements Util {
 		if (type == null) {
 			return "null";
 		}
-		if (isNumber(type)) {
+		if (type.getKind() == TypeKind.LONG && context.options.isLongsAsBigInts()) {
+			return "(<any>globalThis).BigInt(0)";
+		} else if (isNumber(type) || (type.getKind() == TypeKind.CHAR && context.options.isCharsAsNumbers())) {
 			return "0";
 		} else if (type.getKind() == TypeKind.BOOLEAN) {
 			return "false";
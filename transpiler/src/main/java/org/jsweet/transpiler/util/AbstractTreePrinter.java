@@ -18,6 +18,9 @@
  */
 package org.jsweet.transpiler.util;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -51,8 +54,47 @@ import com.sun.tools.javac.tree.JCTree.JCVariableDecl;
  */
 public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 
+	/**
+	 * A printing checkpoint, which records the printer's state so that the
+	 * printer can be restored to that state later on.
+	 * 
+	 * @see AbstractTreePrinter#checkpoint()
+	 * @see AbstractTreePrinter#restore(Checkpoint)
+	 */
+	public static final class Checkpoint {
+		private final int outputLength;
+		private final int positionStackSize;
+		private final int sourceMapEntryCount;
+		private final int indent;
+
+		private Checkpoint(int outputLength, int positionStackSize, int sourceMapEntryCount, int indent) {
+			this.outputLength = outputLength;
+			this.positionStackSize = positionStackSize;
+			this.sourceMapEntryCount = sourceMapEntryCount;
+			this.indent = indent;
+		}
+
+		/**
+		 * The length of the output when this checkpoint was created.
+		 */
+		public int getOutputLength() {
+			return outputLength;
+		}
+
+		@Override
+		public String toString() {
+			return "[" + outputLength + "]";
+		}
+	}
+
 	private Stack<Position> positionStack = new Stack<>();
 
+	/**
+	 * Source map entry counts and indentations, in parallel with the position
+	 * stack (two ints per entered tree).
+	 */
+	private int[] enterStates = new int[64];
+
     private Set<JCTree> inlinedExpressions = new HashSet<JCTree>();
 
     /**
@@ -94,7 +136,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 */
 	protected static final String INDENT = "    ";
 
-	private StringBuilder out = new StringBuilder();
+	private OutputBuffer out = new OutputBuffer(INDENT);
 
 	private int indent = 0;
 
@@ -103,10 +145,6 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	/** A type checker instance. */
 	public TypeChecker typeChecker;
 
-	private int currentLine = 1;
-
-	private int currentColumn = 0;
-
 	private boolean fillSourceMap = true;
 
 	/**
@@ -173,7 +211,13 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 */
 	protected void enter(JCTree tree) {
 		super.enter(tree);
-		positionStack.push(new Position(getCurrentPosition(), currentLine, currentColumn));
+		int depth = positionStack.size() * 2;
+		if (depth + 1 >= enterStates.length) {
+			enterStates = Arrays.copyOf(enterStates, enterStates.length * 2);
+		}
+		enterStates[depth] = sourceMap.getEntryCount();
+		enterStates[depth + 1] = indent;
+		positionStack.push(new Position(out.length(), out.getLine(), out.getColumn()));
 		if (compilationUnit != null && tree.pos >= 0 && inSourceMap(tree)) {
 			sourceMap.addEntry(new Position(tree.pos, //
 					compilationUnit.lineMap.getLineNumber(tree.pos), //
@@ -189,9 +233,46 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	protected void onRollbacked(JCTree target) {
 		super.onRollbacked(target);
 		Position position = positionStack.peek();
-		out.delete(position.getPosition(), out.length());
-		currentColumn = position.getColumn();
-		currentLine = position.getLine();
+		int depth = (positionStack.size() - 1) * 2;
+		restore(new Checkpoint(position.getPosition(), positionStack.size(), enterStates[depth],
+				enterStates[depth + 1]));
+	}
+
+	/**
+	 * Creates a checkpoint that records the current state of this printer
+	 * (output length, current line and column, position stack, source map and
+	 * indentation). It is meant to be used for speculative printing: try to
+	 * print something and {@link #restore(Checkpoint)} the printer if the
+	 * result is not the expected one.
+	 */
+	public Checkpoint checkpoint() {
+		return new Checkpoint(out.length(), positionStack.size(), sourceMap.getEntryCount(), indent);
+	}
+
+	/**
+	 * Restores this printer to the state recorded by the given checkpoint,
+	 * discarding everything that was printed since then.
+	 * 
+	 * @param checkpoint
+	 *            a checkpoint created by {@link #checkpoint()} on this printer
+	 */
+	public AbstractTreePrinter restore(Checkpoint checkpoint) {
+		if (checkpoint.outputLength < out.length()) {
+			out.truncate(checkpoint.outputLength);
+		}
+		while (positionStack.size() > checkpoint.positionStackSize) {
+			positionStack.pop();
+		}
+		sourceMap.truncate(checkpoint.sourceMapEntryCount);
+		indent = checkpoint.indent;
+		return this;
+	}
+
+	/**
+	 * Gets the output printed since the given checkpoint was created.
+	 */
+	public String getOutputSince(Checkpoint checkpoint) {
+		return out.substring(checkpoint.outputLength);
 	}
 
 	/**
@@ -206,7 +287,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 					new Position(endPos, //
 							compilationUnit.lineMap.getLineNumber(endPos), //
 							compilationUnit.lineMap.getColumnNumber(endPos)),
-					new Position(getCurrentPosition(), currentLine, currentColumn));
+					new Position(out.length(), out.getLine(), out.getColumn()));
 		}
 		super.exit();
 		positionStack.pop();
@@ -237,8 +318,8 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 * Prints an indentation for the current indentation value.
 	 */
 	public AbstractTreePrinter printIndent() {
-		for (int i = 0; i < indent; i++) {
-			print(INDENT);
+		if (indent > 0) {
+			out.append(out.getIndentString(indent));
 		}
 		return this;
 	}
@@ -247,11 +328,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 * Returns the current indentation as a string.
 	 */
 	public String getIndentString() {
-		String indentString = "";
-		for (int i = 0; i < indent; i++) {
-			indentString += INDENT;
-		}
-		return indentString;
+		return out.getIndentString(indent);
 	}
 
 	/**
@@ -275,7 +352,6 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 */
 	public AbstractTreePrinter print(String string) {
 		out.append(string);
-		currentColumn += string.length();
 		return this;
 	}
 	
@@ -327,13 +403,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 		if (out.length() == 0) {
 			return this;
 		}
-		if (out.charAt(out.length() - 1) == '\n') {
-			currentLine--;
-			currentColumn = 0;
-		} else {
-			currentColumn--;
-		}
-		out.deleteCharAt(out.length() - 1);
+		out.truncate(out.length() - 1);
 		return this;
 	}
 
@@ -341,9 +411,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 * Removes the last output characters.
 	 */
 	public AbstractTreePrinter removeLastChars(int count) {
-		for (int i = 0; i < count; i++) {
-			removeLastChar();
-		}
+		out.truncate(Math.max(0, out.length() - count));
 		return this;
 	}
 
@@ -359,9 +427,7 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 * Outputs a new line.
 	 */
 	public AbstractTreePrinter println() {
-		out.append("\n");
-		currentLine++;
-		currentColumn = 0;
+		out.append('\n');
 		return this;
 	}
 
@@ -372,6 +438,21 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 		return out.toString();
 	}
 
+	/**
+	 * Tells if the printed result is empty or contains only whitespaces.
+	 */
+	public boolean isResultWhitespace() {
+		return out.isWhitespace();
+	}
+
+	/**
+	 * Writes the printed result to the given writer, without building the
+	 * result string.
+	 */
+	public void writeResult(Writer writer) throws IOException {
+		out.writeTo(writer);
+	}
+
 	/**
 	 * Gets the adapter attached to this printer.
 	 */
@@ -504,14 +585,14 @@ public abstract class AbstractTreePrinter extends AbstractTreeScanner {
 	 * Gets the current line of the printed output.
 	 */
 	public int getCurrentLine() {
-		return currentLine;
+		return out.getLine();
 	}
 
 	/**
 	 * Gets the current column of the printed output.
 	 */
 	public int getCurrentColumn() {
-		return currentColumn;
+		return out.getColumn();
 	}
 
 	/**
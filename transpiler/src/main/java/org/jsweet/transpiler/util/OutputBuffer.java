@@ -0,0 +1,227 @@
+/* 
+ * JSweet transpiler - http://www.jsweet.org
+ * Copyright (C) 2015 CINCHEO SAS <renaud.pawlak@cincheo.fr>
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jsweet.transpiler.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * An output buffer for printers, which stores the printed characters in
+ * fixed-size chunks instead of a single growing array.
+ * 
+ * <p>
+ * This buffer keeps track of line starts so that the current line and column
+ * are available in constant time, and so that it can be truncated (for
+ * rollbacks) without re-scanning the output. Its content can be written
+ * directly to a {@link Writer} without building an intermediate string.
+ */
+public class OutputBuffer implements CharSequence {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private char[][] chunks = new char[4][];
+
+	private int length = 0;
+
+	private int[] lineStarts = new int[256];
+
+	private int lineCount = 1;
+
+	private final String indent;
+
+	private String[] indentStrings = { "" };
+
+	/**
+	 * Creates a new output buffer.
+	 * 
+	 * @param indent
+	 *            the string used for one level of indentation
+	 */
+	public OutputBuffer(String indent) {
+		this.indent = indent;
+		chunks[0] = new char[CHUNK_SIZE];
+	}
+
+	/**
+	 * Gets the indentation string for the given depth (indentation strings are
+	 * cached).
+	 */
+	public String getIndentString(int depth) {
+		if (depth >= indentStrings.length) {
+			indentStrings = Arrays.copyOf(indentStrings, Math.max(depth + 1, indentStrings.length * 2));
+		}
+		if (indentStrings[depth] == null) {
+			StringBuilder sb = new StringBuilder(depth * indent.length());
+			for (int i = 0; i < depth; i++) {
+				sb.append(indent);
+			}
+			indentStrings[depth] = sb.toString();
+		}
+		return indentStrings[depth];
+	}
+
+	/**
+	 * Appends a string to this buffer.
+	 */
+	public OutputBuffer append(String string) {
+		int stringLength = string.length();
+		int offset = 0;
+		while (offset < stringLength) {
+			char[] chunk = ensureChunk();
+			int chunkOffset = length % CHUNK_SIZE;
+			int count = Math.min(CHUNK_SIZE - chunkOffset, stringLength - offset);
+			string.getChars(offset, offset + count, chunk, chunkOffset);
+			for (int i = 0; i < count; i++) {
+				if (chunk[chunkOffset + i] == '\n') {
+					addLineStart(length + i + 1);
+				}
+			}
+			length += count;
+			offset += count;
+		}
+		return this;
+	}
+
+	/**
+	 * Appends a character to this buffer.
+	 */
+	public OutputBuffer append(char c) {
+		ensureChunk()[length % CHUNK_SIZE] = c;
+		length++;
+		if (c == '\n') {
+			addLineStart(length);
+		}
+		return this;
+	}
+
+	private char[] ensureChunk() {
+		int chunkIndex = length / CHUNK_SIZE;
+		if (chunkIndex >= chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunks.length * 2);
+		}
+		if (chunks[chunkIndex] == null) {
+			chunks[chunkIndex] = new char[CHUNK_SIZE];
+		}
+		return chunks[chunkIndex];
+	}
+
+	private void addLineStart(int position) {
+		if (lineCount == lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+		}
+		lineStarts[lineCount++] = position;
+	}
+
+	/**
+	 * Truncates this buffer to the given length (chunks are kept for reuse).
+	 */
+	public void truncate(int newLength) {
+		if (newLength < 0 || newLength > length) {
+			throw new IndexOutOfBoundsException("invalid length: " + newLength);
+		}
+		length = newLength;
+		while (lineCount > 1 && lineStarts[lineCount - 1] > newLength) {
+			lineCount--;
+		}
+	}
+
+	/**
+	 * Gets the number of characters in this buffer.
+	 */
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("invalid index: " + index);
+		}
+		return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+	}
+
+	/**
+	 * Gets the current line (starting at 1).
+	 */
+	public int getLine() {
+		return lineCount;
+	}
+
+	/**
+	 * Gets the current column (starting at 0).
+	 */
+	public int getColumn() {
+		return length - lineStarts[lineCount - 1];
+	}
+
+	/**
+	 * Tells if this buffer contains only whitespace characters.
+	 */
+	public boolean isWhitespace() {
+		for (int i = 0; i < length; i++) {
+			if (!Character.isWhitespace(chunks[i / CHUNK_SIZE][i % CHUNK_SIZE])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("invalid range: " + start + "-" + end);
+		}
+		StringBuilder sb = new StringBuilder(end - start);
+		int position = start;
+		while (position < end) {
+			int chunkOffset = position % CHUNK_SIZE;
+			int count = Math.min(CHUNK_SIZE - chunkOffset, end - position);
+			sb.append(chunks[position / CHUNK_SIZE], chunkOffset, count);
+			position += count;
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the content of this buffer, starting at the given position.
+	 */
+	public String substring(int start) {
+		return subSequence(start, length);
+	}
+
+	/**
+	 * Writes the content of this buffer to the given writer.
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		int position = 0;
+		while (position < length) {
+			int count = Math.min(CHUNK_SIZE, length - position);
+			writer.write(chunks[position / CHUNK_SIZE], 0, count);
+			position += count;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return subSequence(0, length);
+	}
+
+}
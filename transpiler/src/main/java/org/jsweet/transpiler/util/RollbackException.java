@@ -25,6 +25,11 @@ import com.sun.tools.javac.tree.JCTree;
 /**
  * This exception can be thrown to rollback the scanning of an AST.
  * 
+ * <p>
+ * Since it is only used for control flow, this exception does not capture any
+ * stack trace, so that throwing it is cheap even when rollbacks happen in
+ * deeply nested expressions.
+ * 
  * @author Renaud Pawlak
  */
 public class RollbackException extends RuntimeException {
@@ -43,7 +48,7 @@ public class RollbackException extends RuntimeException {
 	 *            the handler to be executed once rollbacked.
 	 */
 	public RollbackException(JCTree target, Consumer<JCTree> onRollbacked) {
-		super();
+		super(null, null, false, false);
 		this.target = target;
 		this.onRollbacked = onRollbacked;
 	}
@@ -180,6 +180,33 @@ public class SourceMap {
 		return list;
 	}
 
+	/**
+	 * Gets the number of entries inserted in this source map.
+	 */
+	public final int getEntryCount() {
+		return insertionOrderEntries.size();
+	}
+
+	/**
+	 * Removes the lastly inserted entries so that this source map only keeps
+	 * the given count of entries.
+	 * 
+	 * @param count
+	 *            the number of entries to be kept (in insertion order)
+	 */
+	public void truncate(int count) {
+		if (count >= insertionOrderEntries.size()) {
+			return;
+		}
+		while (insertionOrderEntries.size() > count) {
+			entries.remove(insertionOrderEntries.remove(insertionOrderEntries.size() - 1));
+		}
+		maxOutputLine = 0;
+		for (Entry entry : entries) {
+			maxOutputLine = Math.max(maxOutputLine, entry.getOutputPosition().getLine());
+		}
+	}
+
 	/**
 	 * Removes the last inserted entry from this source map.
 	 */
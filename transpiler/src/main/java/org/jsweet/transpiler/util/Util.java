@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -32,6 +33,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -851,6 +853,138 @@ public class Util {
 		return match.replaceAll("\\\\$1");
 	}
 
+	private final static Pattern REGEX_INLINE_FLAGS = Pattern.compile("\\(\\?([a-zA-Z-]+)([:)])");
+
+	private final static Map<String, String> REGEX_POSIX_CLASSES = new HashMap<>();
+	static {
+		REGEX_POSIX_CLASSES.put("Lower", "a-z");
+		REGEX_POSIX_CLASSES.put("Upper", "A-Z");
+		REGEX_POSIX_CLASSES.put("ASCII", "\\x00-\\x7F");
+		REGEX_POSIX_CLASSES.put("Alpha", "a-zA-Z");
+		REGEX_POSIX_CLASSES.put("Digit", "0-9");
+		REGEX_POSIX_CLASSES.put("Alnum", "a-zA-Z0-9");
+		REGEX_POSIX_CLASSES.put("Punct", "!-\\/:-@\\[-`{-~");
+		REGEX_POSIX_CLASSES.put("Graph", "!-~");
+		REGEX_POSIX_CLASSES.put("Print", " -~");
+		REGEX_POSIX_CLASSES.put("Blank", " \\t");
+		REGEX_POSIX_CLASSES.put("Cntrl", "\\x00-\\x1F\\x7F");
+		REGEX_POSIX_CLASSES.put("XDigit", "0-9a-fA-F");
+		REGEX_POSIX_CLASSES.put("Space", " \\t\\n\\x0B\\f\\r");
+	}
+
+	/**
+	 * Translates a Java regular expression to a JavaScript one.
+	 * 
+	 * <p>
+	 * Leading inline flags (<code>(?i)</code>, <code>(?m)</code>,
+	 * <code>(?s)</code>) become JavaScript flags, and quotations
+	 * (<code>\Q...\E</code>), input anchors (<code>\A</code>,
+	 * <code>\Z</code>, <code>\z</code>) and POSIX classes
+	 * (<code>\p{Alpha}</code>...) are rewritten. Possessive quantifiers,
+	 * atomic groups, class intersections and other inline flags have no
+	 * JavaScript equivalent: they are reported to the given handler and
+	 * approximated (or kept as is).
+	 * 
+	 * @param javaRegExp
+	 *            the Java regular expression
+	 * @param flags
+	 *            the JavaScript flags to start with
+	 * @param unsupportedConstructHandler
+	 *            called with each construct that cannot be translated exactly
+	 * @return the JavaScript pattern and flags (in this order)
+	 */
+	public static String[] toJavaScriptRegExp(String javaRegExp, String flags,
+			Consumer<String> unsupportedConstructHandler) {
+		StringBuilder pattern = new StringBuilder();
+		StringBuilder jsFlags = new StringBuilder(flags);
+		int length = javaRegExp.length();
+		int i = 0;
+		boolean leading = true;
+		boolean inClass = false;
+		boolean afterQuantifier = false;
+		while (i < length) {
+			char c = javaRegExp.charAt(i);
+			boolean quantifier = false;
+			if (c == '\\' && i + 1 < length) {
+				char next = javaRegExp.charAt(i + 1);
+				if (next == 'Q') {
+					int end = javaRegExp.indexOf("\\E", i + 2);
+					pattern.append(escapeRegex(end < 0 ? javaRegExp.substring(i + 2) : javaRegExp.substring(i + 2, end)));
+					i = end < 0 ? length : end + 2;
+				} else if (!inClass && next == 'A') {
+					pattern.append('^');
+					i += 2;
+				} else if (!inClass && (next == 'Z' || next == 'z')) {
+					pattern.append('$');
+					i += 2;
+				} else if ((next == 'p' || next == 'P') && i + 2 < length && javaRegExp.charAt(i + 2) == '{'
+						&& javaRegExp.indexOf('}', i) > 0) {
+					int end = javaRegExp.indexOf('}', i);
+					String name = javaRegExp.substring(i + 3, end);
+					String range = REGEX_POSIX_CLASSES.get(name.startsWith("Is") ? name.substring(2) : name);
+					if (range != null && !inClass) {
+						pattern.append(next == 'P' ? "[^" : "[").append(range).append("]");
+					} else if (range != null && next == 'p') {
+						pattern.append(range);
+					} else {
+						unsupportedConstructHandler.accept(javaRegExp.substring(i, end + 1));
+						pattern.append(javaRegExp, i, end + 1);
+					}
+					i = end + 1;
+				} else {
+					pattern.append(c).append(next);
+					i += 2;
+				}
+			} else if (inClass) {
+				if (c == ']') {
+					inClass = false;
+				} else if (c == '&' && javaRegExp.startsWith("&&", i)) {
+					unsupportedConstructHandler.accept("&&");
+				}
+				pattern.append(c);
+				i++;
+			} else if (c == '[') {
+				inClass = true;
+				pattern.append(c);
+				i++;
+			} else if (javaRegExp.startsWith("(?>", i)) {
+				unsupportedConstructHandler.accept("(?>");
+				pattern.append("(?:");
+				i += 3;
+			} else if (c == '(' && REGEX_INLINE_FLAGS.matcher(javaRegExp).region(i, length).lookingAt()) {
+				Matcher matcher = REGEX_INLINE_FLAGS.matcher(javaRegExp).region(i, length);
+				matcher.lookingAt();
+				String inlineFlags = matcher.group(1);
+				if (leading && ")".equals(matcher.group(2)) && inlineFlags.matches("[ims]+")) {
+					for (char flag : inlineFlags.toCharArray()) {
+						if (jsFlags.indexOf("" + flag) < 0) {
+							jsFlags.append(flag);
+						}
+					}
+				} else {
+					unsupportedConstructHandler.accept(matcher.group());
+					if (":".equals(matcher.group(2))) {
+						pattern.append("(?:");
+					}
+				}
+				i = matcher.end();
+				leading = pattern.length() == 0;
+				continue;
+			} else if (c == '+' && afterQuantifier) {
+				unsupportedConstructHandler.accept("possessive quantifier");
+				i++;
+			} else {
+				quantifier = (c == '*' || c == '+' || c == '}' || c == '?') && !afterQuantifier
+						&& !(c == '?' && pattern.length() > 0 && pattern.charAt(pattern.length() - 1) == '(');
+				pattern.append(c);
+				i++;
+			}
+			afterQuantifier = quantifier;
+			leading = false;
+		}
+		return new String[] { pattern.toString(), jsFlags.toString() };
+	}
+
 	/**
 	 * Varargs to mutable list.
 	 */
@@ -1368,6 +1502,44 @@ public class Util {
 		}
 	}
 
+	/**
+	 * Returns the name of the JavaScript typed array matching the given array
+	 * component type (e.g. <code>Int32Array</code> for <code>int</code>), or
+	 * null if the type has no typed array counterpart.
+	 */
+	public static String getTypedArrayName(TypeMirror componentType) {
+		return getTypedArrayName(componentType, false);
+	}
+
+	/**
+	 * Returns the name of the JavaScript typed array matching the given array
+	 * component type. Chars are backed by <code>Uint16Array</code> only when
+	 * they are represented as numbers.
+	 * 
+	 * @see org.jsweet.transpiler.JSweetOptions#isCharsAsNumbers()
+	 */
+	public static String getTypedArrayName(TypeMirror componentType, boolean charsAsNumbers) {
+		if (componentType == null) {
+			return null;
+		}
+		switch (componentType.getKind()) {
+		case CHAR:
+			return charsAsNumbers ? "Uint16Array" : null;
+		case BYTE:
+			return "Int8Array";
+		case SHORT:
+			return "Int16Array";
+		case INT:
+			return "Int32Array";
+		case FLOAT:
+			return "Float32Array";
+		case DOUBLE:
+			return "Float64Array";
+		default:
+			return null;
+		}
+	}
+
 	/**
 	 * Gets the symbol on JCFieldAccess or JCIdent if possible, or return null.
 	 * Could return either a MethodSymbol, or VariableSymbol
@@ -1403,6 +1575,15 @@ public class Util {
 		return false;
 	}
 
+	/**
+	 * Tells if the given method is the <code>await</code> macro of the JSweet
+	 * utility class.
+	 */
+	public static boolean isAwait(MethodSymbol method) {
+		return method.owner.getQualifiedName().toString().equals(JSweetConfig.UTIL_CLASSNAME)
+				&& method.name.toString().equals("await");
+	}
+
 	/**
 	 * Gets the inheritance-based sorted class declarations.
 	 * 
@@ -32,6 +32,7 @@ import source.api.Booleans;
 import source.api.CastMethods;
 import source.api.Characters;
 import source.api.Dates;
+import source.api.DoubleBits;
 import source.api.Equals;
 import source.api.ErasingJava;
 import source.api.ExpressionBuilderTest;
@@ -208,7 +209,7 @@ public class ApiTests extends AbstractTest {
 		eval(ModuleKind.none, (logHandler, r) -> {
 			logHandler.assertNoProblems();
 			Assert.assertEquals(
-					"b,bc,c,bc,3,true,ab,32,b,0,false,true,source.api.Strings,Strings,abc,cdcdcd,true,false,true,false,true,true,false,a,aa",
+					"b,bc,c,bc,3,true,ab,32,b,32,0,false,true,source.api.Strings,Strings,abc,cdcdcd,true,false,true,false,true,true,false,a,aa,-1,|a|-|b|,true",
 					r.get("trace"));
 		}, getSourceFile(Strings.class));
 	}
@@ -233,6 +234,25 @@ public class ApiTests extends AbstractTest {
 		eval(ModuleKind.none, (logHandler, r) -> {
 			logHandler.assertNoProblems();
 		}, getSourceFile(Numbers.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(Numbers.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(false);
+	}
+
+	@Test
+	public void testDoubleBits() {
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals("true,-2,true,true,-2.25,false", r.get("trace"));
+		}, getSourceFile(DoubleBits.class));
+		transpilerTest().getTranspiler().setLongsAsBigInts(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals("true,-2,true,true,-2.25,true", r.get("trace"));
+		}, getSourceFile(DoubleBits.class));
+		transpilerTest().getTranspiler().setLongsAsBigInts(false);
 	}
 
 	@Test
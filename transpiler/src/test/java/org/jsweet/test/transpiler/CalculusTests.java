@@ -20,13 +20,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.apache.commons.io.FileUtils;
 import org.jsweet.transpiler.ModuleKind;
+import org.jsweet.transpiler.SourceFile;
 import org.jsweet.transpiler.util.EvaluationResult;
 import org.junit.Assert;
 import org.junit.Test;
 
+import source.calculus.BigIntLongOverloads;
+import source.calculus.BigIntLongs;
 import source.calculus.Boxing;
 import source.calculus.Chars;
+import source.calculus.IntArithmetic;
 import source.calculus.Integers;
 import source.calculus.Longs;
 import source.calculus.MathApi;
@@ -71,6 +76,48 @@ public class CalculusTests extends AbstractTest {
 		}, getSourceFile(Integers.class));
 	}
 
+	@Test
+	public void testIntArithmetic() {
+		transpilerTest().getTranspiler().setIntArithmetic(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals(
+					"-609428141,-2147483648,2147483647,-2147483648,-67153019,1410065408,-294967296,-1,7,11,8",
+					r.get("trace"));
+		}, getSourceFile(IntArithmetic.class));
+		transpilerTest().getTranspiler().setIntArithmetic(false);
+	}
+
+	@Test
+	public void testBigIntLongs() throws Exception {
+		transpilerTest().getTranspiler().setLongsAsBigInts(true);
+		SourceFile f = getSourceFile(BigIntLongs.class);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals("-3306310585322454962,-9223372036854775808,9007199254740995,-9223372036854775808,15,"
+					+ "1000000000000000000,-1486618624,true,-9223372036854775808,-2,true,-9223372036854775808,1000000,"
+					+ "2097153,1", r.get("trace"));
+		}, f);
+		// the JDK substitutions of the long math functions apply before the
+		// java.lang macros, which would pass the big integers to Math
+		String generatedCode = FileUtils.readFileToString(f.getTsFile());
+		Assert.assertTrue(generatedCode.contains(".asIntN(64, l < 0 ? -l : l)"));
+		Assert.assertTrue(generatedCode.contains("(a, b) => a > b ? a : b"));
+		Assert.assertFalse(generatedCode.contains("Math.abs("));
+		Assert.assertFalse(generatedCode.contains("Math.max("));
+		transpilerTest().getTranspiler().setLongsAsBigInts(false);
+	}
+
+	@Test
+	public void testBigIntLongOverloads() {
+		transpilerTest().getTranspiler().setLongsAsBigInts(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals("int1,long2,String3,Number4,Number5,String6,truefalsetrue", r.get("trace"));
+		}, getSourceFile(BigIntLongOverloads.class));
+		transpilerTest().getTranspiler().setLongsAsBigInts(false);
+	}
+
 	@Test
 	public void testLongs() {
 		eval(ModuleKind.none, (logHandler, r) -> {
@@ -79,6 +126,14 @@ public class CalculusTests extends AbstractTest {
 			Assert.assertEquals(0, (int) r.get("l"));
 			Assert.assertTrue((int) r.get("c") < 0);
 		}, getSourceFile(Longs.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals(r.get("t1").toString(), r.get("t2").toString());
+			Assert.assertEquals(0, (int) r.get("l"));
+			Assert.assertTrue((int) r.get("c") < 0);
+		}, getSourceFile(Longs.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(false);
 	}
 
 	@Test
@@ -33,6 +33,7 @@ import source.enums.ComplexEnums;
 import source.enums.ComplexEnumsWithInterface;
 import source.enums.ComplexInnerEnums;
 import source.enums.EnumInSamePackage;
+import source.enums.EnumValues;
 import source.enums.EnumWithPropOfSameType;
 import source.enums.EnumWithStatics;
 import source.enums.Enums;
@@ -87,6 +88,14 @@ public class EnumTests extends AbstractTest {
 		}, getSourceFile(EnumInSamePackage.class), getSourceFile(EnumInOtherPackage.class), getSourceFile(Enums.class));
 	}
 
+	@Test
+	public void testEnumValues() {
+		eval((logHandler, r) -> {
+			logHandler.assertNoProblems();
+			assertEquals("INIT0,RUN1,STOP2,INIT,RUN,3,RUN,true", r.get("trace"));
+		}, getSourceFile(EnumValues.class));
+	}
+
 	@Test
 	public void testComplexEnums() {
 		eval((logHandler, r) -> {
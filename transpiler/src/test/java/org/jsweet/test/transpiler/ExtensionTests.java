@@ -2,8 +2,14 @@ package org.jsweet.test.transpiler;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EventObject;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -11,6 +17,7 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -26,13 +33,19 @@ import org.jsweet.transpiler.JSweetProblem;
 import org.jsweet.transpiler.ModuleKind;
 import org.jsweet.transpiler.SourceFile;
 import org.jsweet.transpiler.extension.AnnotationManager;
+import org.jsweet.transpiler.extension.BigIntegerAdapter;
 import org.jsweet.transpiler.extension.DisallowGlobalVariablesAdapter;
 import org.jsweet.transpiler.extension.Java2TypeScriptAdapter;
 import org.jsweet.transpiler.extension.MapAdapter;
 import org.jsweet.transpiler.extension.PrinterAdapter;
+import org.jsweet.transpiler.extension.PrinterAdapter.Hook;
 import org.jsweet.transpiler.extension.RemoveJavaDependenciesAdapter;
+import org.jsweet.transpiler.model.BinaryOperatorElement;
 import org.jsweet.transpiler.model.ExtendedElement;
 import org.jsweet.transpiler.model.ImportElement;
+import org.jsweet.transpiler.model.UnaryOperatorElement;
+import org.jsweet.transpiler.util.AbstractTreePrinter;
+import org.jsweet.transpiler.util.AbstractTreePrinter.Checkpoint;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -40,6 +53,8 @@ import source.extension.A1;
 import source.extension.A2;
 import source.extension.AbstractClassWithBigDec;
 import source.extension.AnnotationTest;
+import source.extension.BigIntegers;
+import source.extension.BinaryOperators;
 import source.extension.HelloWorldDto;
 import source.extension.HelloWorldService;
 import source.extension.IAddNumber;
@@ -246,6 +261,28 @@ public class ExtensionTests extends AbstractTest {
 
 	}
 
+	@Test
+	public void testBigIntegers() {
+		TranspilerTestRunner transpilerExtensionTest = new TranspilerTestRunner(getCurrentTestOutDir(),
+				new JSweetFactory() {
+					@Override
+					public PrinterAdapter createAdapter(JSweetContext context) {
+						return new BigIntegerAdapter(super.createAdapter(context));
+					}
+				});
+		transpilerExtensionTest.eval((logHandler, r) -> {
+			logHandler.assertNoProblems();
+			// expected values computed with java.math.BigInteger
+			Assert.assertEquals("123456789012345678900246913569,-121932631124828532112482853211126352691,"
+					+ "-124999998873437499901/574845669/9,e266fc47a1f629ba,8922594216836996632,"
+					+ "-1166016415537944393760955695104/-123456791/-123456791,"
+					+ "123456789012345678901064827458/-817913889/-123456789012345678901882741347/987654320/169740432,"
+					+ "1/-1/987654321/true,10000000000000000000000000/21,"
+					+ "97/30/true/36893488147419103232/-987654322/-987654323,1312754386/-gc0uy9/true,"
+					+ "-65021/-256/2-1127/2/1/true/4", r.get("trace"));
+		}, getSourceFile(BigIntegers.class));
+	}
+
 	@Test
 	public void testJaxRSStubs() {
 
@@ -280,6 +317,43 @@ public class ExtensionTests extends AbstractTest {
 		Assert.assertFalse(generatedCode.contains("date : Date"));
 	}
 
+	@Test
+	public void testCheckpointRestore() throws IOException {
+		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
+			@Override
+			public PrinterAdapter createAdapter(JSweetContext context) {
+				return new PrinterAdapter(super.createAdapter(context)) {
+					@Override
+					public void afterType(TypeElement type) {
+						super.afterType(type);
+						AbstractTreePrinter printer = getPrinter();
+						int line = printer.getCurrentLine();
+						int column = printer.getCurrentColumn();
+						int indent = printer.getIndent();
+						String indentString = printer.getIndentString();
+						Checkpoint checkpoint = printer.checkpoint();
+						println().printIndent().print("/* speculative */").startIndent().println();
+						Assert.assertEquals("\n" + indentString + "/* speculative */\n",
+								printer.getOutputSince(checkpoint));
+						printer.restore(checkpoint);
+						Assert.assertEquals("", printer.getOutputSince(checkpoint));
+						Assert.assertEquals(line, printer.getCurrentLine());
+						Assert.assertEquals(column, printer.getCurrentColumn());
+						Assert.assertEquals(indent, printer.getIndent());
+						println().printIndent().print("/* restored */");
+					}
+				};
+			}
+		});
+		SourceFile f = getSourceFile(HelloWorldDto.class);
+		transpilerTest.transpile(logHandler -> {
+			logHandler.assertNoProblems();
+		}, f);
+		String generatedCode = FileUtils.readFileToString(f.getTsFile());
+		Assert.assertFalse(generatedCode.contains("speculative"));
+		Assert.assertTrue(generatedCode.contains("/* restored */"));
+	}
+
     @Test
     public void testSortAdapter() throws IOException {
         TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory());
@@ -439,4 +513,74 @@ public class ExtensionTests extends AbstractTest {
 		}, getSourceFile(IAddNumber.class), getSourceFile(AbstractClassWithBigDec.class));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testHookOverriddenDetection() {
+		PrinterAdapter root = new PrinterAdapter((JSweetContext) null);
+		PrinterAdapter binaryAdapter = new PrinterAdapter(root) {
+			@Override
+			public boolean substituteBinaryOperator(BinaryOperatorElement binaryOperator) {
+				return false;
+			}
+		};
+		PrinterAdapter unaryAdapter = new PrinterAdapter(root) {
+			@Override
+			public boolean substituteUnaryOperator(UnaryOperatorElement unaryOperator) {
+				return false;
+			}
+		};
+		Assert.assertFalse(root.isHookOverridden(Hook.BINARY_OPERATOR));
+		Assert.assertTrue(binaryAdapter.isHookOverridden(Hook.BINARY_OPERATOR));
+		Assert.assertFalse(binaryAdapter.isHookOverridden(Hook.UNARY_OPERATOR));
+
+		PrinterAdapter middle = new PrinterAdapter(binaryAdapter);
+		PrinterAdapter leaf = new PrinterAdapter(middle);
+		Assert.assertTrue(leaf.isHookOverridden(Hook.BINARY_OPERATOR));
+		Assert.assertFalse(leaf.isHookOverridden(Hook.UNARY_OPERATOR));
+		// re-parenting an ancestor invalidates the hooks cached by the leaf
+		middle.setParentAdapter(unaryAdapter);
+		Assert.assertFalse(leaf.isHookOverridden(Hook.BINARY_OPERATOR));
+		Assert.assertTrue(leaf.isHookOverridden(Hook.UNARY_OPERATOR));
+	}
+
+	@Test
+	public void testHookElementsReuse() {
+		Set<ExtendedElement> assignedExpressions = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<String> operators = new ArrayList<>();
+		List<BinaryOperatorElement> reusedElements = new ArrayList<>();
+		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
+			@Override
+			public PrinterAdapter createAdapter(JSweetContext context) {
+				return new PrinterAdapter(super.createAdapter(context)) {
+					@Override
+					public boolean substituteAssignedExpression(TypeMirror type, ExtendedElement assignedExpression) {
+						assignedExpressions.add(assignedExpression);
+						return super.substituteAssignedExpression(type, assignedExpression);
+					}
+
+					@Override
+					public boolean substituteBinaryOperator(BinaryOperatorElement binaryOperator) {
+						operators.add(binaryOperator.getOperator());
+						if (assignedExpressions.contains(binaryOperator)) {
+							reusedElements.add(binaryOperator);
+						}
+						if ("|".equals(binaryOperator.getOperator())) {
+							print(binaryOperator.getLeftHandSide()).print(" ^ ")
+									.print(binaryOperator.getRightHandSide());
+							return true;
+						}
+						return super.substituteBinaryOperator(binaryOperator);
+					}
+				};
+			}
+		});
+		transpilerTest.eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			Assert.assertEquals("8,40,6", result.get("trace"));
+		}, getSourceFile(BinaryOperators.class));
+		Assert.assertTrue(operators.containsAll(Arrays.asList("+", "<<", "|")));
+		// the assigned expressions are passed to the operator hook as the same
+		// elements
+		Assert.assertFalse(reusedElements.isEmpty());
+	}
+
+}
@@ -1,8 +1,11 @@
 package org.jsweet.test.transpiler;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Test;
 
 import source.functions.BasicFunctions;
+import source.functions.HoistedLambdas;
 
 public class FunctionsTests extends AbstractTest {
 
@@ -12,6 +15,20 @@ public class FunctionsTests extends AbstractTest {
 			h.assertNoProblems();
 		}, getSourceFile(BasicFunctions.class));
 	}
+
+	@Test
+	public void testHoistedLambdas() {
+		eval((h, r) -> {
+			h.assertNoProblems();
+			assertEquals("falsefalsefalse,false,42,7,5,11,2/3,false2", r.get("trace"));
+		}, getSourceFile(HoistedLambdas.class));
+		transpilerTest().getTranspiler().setHoistLambdas(true);
+		eval((h, r) -> {
+			h.assertNoProblems();
+			assertEquals("truetruefalse,false,42,7,5,11,2/3,true2", r.get("trace"));
+		}, getSourceFile(HoistedLambdas.class));
+		transpilerTest().getTranspiler().setHoistLambdas(false);
+	}
 	
 	
 }
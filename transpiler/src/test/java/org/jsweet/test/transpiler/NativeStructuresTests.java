@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import org.jsweet.test.transpiler.util.TranspilerTestRunner;
 import org.jsweet.transpiler.JSweetContext;
 import org.jsweet.transpiler.JSweetFactory;
+import org.jsweet.transpiler.JSweetProblem;
 import org.jsweet.transpiler.ModuleKind;
 import org.jsweet.transpiler.extension.PrinterAdapter;
 import org.jsweet.transpiler.extension.RemoveJavaDependenciesAdapter;
@@ -15,8 +16,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import source.nativestructures.ArraysSort;
+import source.nativestructures.CharsAsNumbers;
 import source.nativestructures.Collections;
 import source.nativestructures.Dates;
+import source.nativestructures.Deques;
 import source.nativestructures.ES6Maps;
 import source.nativestructures.ES6Sets;
 import source.nativestructures.Exceptions;
@@ -24,6 +27,8 @@ import source.nativestructures.ExtendsJDK;
 import source.nativestructures.ExtendsJDKAnonymous;
 import source.nativestructures.ExtendsJDKInterface;
 import source.nativestructures.ExtendsJDKRegular;
+import source.nativestructures.HashCodes;
+import source.nativestructures.HashCollections;
 import source.nativestructures.Input;
 import source.nativestructures.Iterators;
 import source.nativestructures.MapExtended;
@@ -34,9 +39,16 @@ import source.nativestructures.NativeSystem;
 import source.nativestructures.Numbers;
 import source.nativestructures.ObjectMaps;
 import source.nativestructures.OverloadWithNative;
+import source.nativestructures.PrimitiveArrayOverloads;
+import source.nativestructures.PrimitiveArrays;
 import source.nativestructures.Properties;
 import source.nativestructures.Reflect;
+import source.nativestructures.RegExpPatterns;
+import source.nativestructures.RegExps;
 import source.nativestructures.Sets;
+import source.nativestructures.SortedCollections;
+import source.nativestructures.StreamNumerics;
+import source.nativestructures.Streams;
 import source.nativestructures.Strings;
 import source.nativestructures.WeakReferences;
 
@@ -79,6 +91,32 @@ public class NativeStructuresTests extends AbstractTest {
 			logHandler.assertNoProblems();
 		}, getSourceFile(Sets.class));
 	}
+
+	@Test
+	public void testHashCollections() {
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(HashCollections.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(HashCollections.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(false);
+	}
+
+	@Test
+	public void testSortedCollections() {
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(SortedCollections.class));
+	}
+
+	@Test
+	public void testDeques() {
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(Deques.class));
+	}
 	
 	@Test
 	public void testES6Sets() {
@@ -93,6 +131,19 @@ public class NativeStructuresTests extends AbstractTest {
 		}, getSourceFile(ES6Sets.class));
 	}
 
+	@Test
+	public void testES6SortedCollections() {
+		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
+			@Override
+			public PrinterAdapter createAdapter(JSweetContext context) {
+				return new RemoveJavaDependenciesES6Adapter(super.createAdapter(context));
+			}
+		});
+		transpilerTest.eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+		}, getSourceFile(SortedCollections.class));
+	}
+
 	@Test
 	public void testES6Maps() {
 		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
@@ -110,7 +161,7 @@ public class NativeStructuresTests extends AbstractTest {
 	public void testStringBuilder() {
 		eval((logHandler, result) -> {
 			Assert.assertEquals("There should be no errors", 0, logHandler.reportedProblems.size());
-			assertEquals("a,abc,2,a,abc,ab,X,tEst,E,4,tst,tt,:qqqq,:aaaaqqqq,aaqqqq,aaqq", result.get("trace"));
+			assertEquals("a,abc,2,a,abc,ab,X,tEst,E,4,tst,tt,:qqqq,:aaaaqqqq,aaqqqq,aaqq,qqqqaaaa:,Qqqqaaaa:!10", result.get("trace"));
 		}, getSourceFile(NativeStringBuilder.class));
 	}
 
@@ -182,6 +233,130 @@ public class NativeStructuresTests extends AbstractTest {
 		}, getSourceFile(NativeArrays.class));
 	}
 
+	@Test
+	public void testPrimitiveArrays() {
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("403,0.5/2.5,237,298,2552,2255,13,255045,70350null", result.get("trace"));
+		}, getSourceFile(PrimitiveArrays.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("403,0.5/2.5,237,298,2552,2255,13,255045,70350null", result.get("trace"));
+		}, getSourceFile(PrimitiveArrays.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(false);
+	}
+
+	@Test
+	public void testPrimitiveArrayOverloads() {
+		// int[], double[] and byte[] overloads can only be told apart when
+		// the arrays are typed
+		transpilerTest().getTranspiler().setUseTypedArrays(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("int[]2,double[]1,String[]1,int[][]2,byte[]1,int1", result.get("trace"));
+		}, getSourceFile(PrimitiveArrayOverloads.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(false);
+	}
+
+	@Test
+	public void testCharsAsNumbers() {
+		transpilerTest().getTranspiler().setCharsAsNumbers(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("ABX3,d100,Hello5,ellll266,0,plus,zy6,1", result.get("trace"));
+		}, getSourceFile(CharsAsNumbers.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("ABX3,d100,Hello5,ellll266,0,plus,zy6,1", result.get("trace"));
+		}, getSourceFile(CharsAsNumbers.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(false);
+		transpilerTest().getTranspiler().setCharsAsNumbers(false);
+		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
+			@Override
+			public PrinterAdapter createAdapter(JSweetContext context) {
+				return new RemoveJavaDependenciesAdapter(super.createAdapter(context));
+			}
+		});
+		transpilerTest.getTranspiler().setCharsAsNumbers(true);
+		transpilerTest.eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("ABX3,d100,Hello5,ellll266,0,plus,zy6,1", result.get("trace"));
+		}, getSourceFile(CharsAsNumbers.class));
+	}
+
+	@Test
+	public void testStreams() {
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals(
+					"120,5,truefalsetrue,7:6,<LOOP-FUSION-MAP>,1.2.3.,filter,fusion,loop,map,stream,sum,sum,stream,13,loopstreamloop,2/fusion,2false,32true,49,1235",
+					result.get("trace"));
+		}, getSourceFile(Streams.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals(
+					"120,5,truefalsetrue,7:6,<LOOP-FUSION-MAP>,1.2.3.,filter,fusion,loop,map,stream,sum,sum,stream,13,loopstreamloop,2/fusion,2false,32true,49,1235",
+					result.get("trace"));
+		}, getSourceFile(Streams.class));
+		transpilerTest().getTranspiler().setUseTypedArrays(false);
+	}
+
+	@Test
+	public void testStreamNumerics() {
+		transpilerTest().getTranspiler().setIntArithmetic(true);
+		transpilerTest().getTranspiler().setLongsAsBigInts(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("-2147483648,4true", result.get("trace"));
+		}, getSourceFile(StreamNumerics.class));
+		transpilerTest().getTranspiler().setLongsAsBigInts(false);
+		transpilerTest().getTranspiler().setIntArithmetic(false);
+	}
+
+	@Test
+	public void testRegExps() {
+		eval((logHandler, result) -> {
+			logHandler.assertReportedProblems(JSweetProblem.UNSUPPORTED_REGEXP_CONSTRUCT);
+			assertEquals("a-b-c,a/b.c,true,false,X,3ac240,_123,true,2,__23,true,3,___3,true,4", result.get("trace"));
+		}, getSourceFile(RegExps.class));
+	}
+
+	@Test
+	public void testRegExpPatterns() {
+		TranspilerTestRunner transpilerTest = new TranspilerTestRunner(getCurrentTestOutDir(), new JSweetFactory() {
+			@Override
+			public PrinterAdapter createAdapter(JSweetContext context) {
+				return new RemoveJavaDependenciesAdapter(super.createAdapter(context));
+			}
+		});
+		transpilerTest.eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals("12:null:1-3,345:x:4-8,truefalse,truetrue,3c,a/b", result.get("trace"));
+		}, getSourceFile(RegExpPatterns.class));
+	}
+
+	@Test
+	public void testHashCodes() {
+		// runtime helpers are off by default
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals(
+					"99162322,3105,42/0/705032705/1073217536/1069547520/1231/97/1073741824,truetruetrue,truetrue,3969/0,2truefalse",
+					result.get("trace"));
+		}, getSourceFile(HashCodes.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(true);
+		eval((logHandler, result) -> {
+			logHandler.assertNoProblems();
+			assertEquals(
+					"99162322,3105,42/0/705032705/1073217536/1069547520/1231/97/1073741824,truetruetrue,truetrue,3969/0,2truefalse",
+					result.get("trace"));
+		}, getSourceFile(HashCodes.class));
+		transpilerTest().getTranspiler().setUseRuntimeHelpers(false);
+	}
+
 	@Test
 	public void testSystem() {
 		eval((logHandler, result) -> {
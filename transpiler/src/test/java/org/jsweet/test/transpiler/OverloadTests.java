@@ -72,6 +72,7 @@ import source.overload.OverloadWithEnums;
 import source.overload.OverloadWithInterfaces;
 import source.overload.OverloadWithStaticAndInstanceMethods;
 import source.overload.OverloadWithSuperclass;
+import source.overload.StaticConstructorDispatch;
 import source.overload.WithAmbients;
 import source.overload.WrongOverload;
 import source.overload.WrongOverloadConstructor;
@@ -373,6 +374,22 @@ public class OverloadTests extends AbstractTest {
 		}, getSourceFile(WrongOverloadConstructor.class));
 	}
 
+	@Test
+	public void testStaticConstructorDispatch() {
+		transpilerTest().getTranspiler().setStaticConstructorDispatch(true);
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			assertEquals("1.1(24,7):1.2(6):1.3(true):2.1(24,7):2.2(6):2.3(true):3.1(24,7):3.2(6):3.3(true)",
+					r.get("trace"));
+		}, getSourceFile(WrongOverloadConstructor.class));
+		eval(ModuleKind.none, (logHandler, r) -> {
+			logHandler.assertNoProblems();
+			// the null argument is dispatched as Java does, which type tests cannot do
+			assertEquals("s:a,i:1,i:null,s:default,is:2b,inner-s:c,inner-i:3", r.get("trace"));
+		}, getSourceFile(StaticConstructorDispatch.class));
+		transpilerTest().getTranspiler().setStaticConstructorDispatch(false);
+	}
+
 	@Test
 	public void testWrongOverloadConstructor2() {
 		eval(ModuleKind.none, (logHandler, r) -> {
@@ -16,6 +16,8 @@
  */
 package org.jsweet.test.transpiler;
 
+import org.jsweet.transpiler.JSweetProblem;
+import org.jsweet.transpiler.ModuleKind;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -23,11 +25,13 @@ import org.junit.Test;
 import source.statics.AnonymousClasses;
 import source.statics.Classes;
 import source.statics.DefaultValues;
+import source.statics.EagerStaticInitialization;
 import source.statics.InnerClasses;
 import source.statics.StaticInitializer;
 import source.statics.StaticInitializerAsync;
 import source.statics.StaticInitializerWithNoFields;
 import source.statics.StaticsInInterfaces;
+import source.statics.eager.EagerGlobals;
 import source.statics.static_accesses.definitions.AClass;
 import source.statics.static_accesses.definitions.AnInterface;
 import source.statics.static_accesses.definitions.TestClassStaticAccess;
@@ -71,6 +75,34 @@ public class StaticsTests extends AbstractTest {
 		}, getSourceFile(StaticInitializer.class));
 	}
 
+	@Test
+	public void testEagerStaticInitialization() {
+		transpilerTest().getTranspiler().setBundle(true);
+		eval(ModuleKind.none, (h, r) -> {
+			h.assertNoProblems();
+			Assert.assertEquals("4,3,abc,3,2", r.get("trace"));
+		}, getSourceFile(EagerStaticInitialization.class));
+		transpilerTest().getTranspiler().setEagerStaticInitialization(true);
+		eval(ModuleKind.none, (h, r) -> {
+			h.assertReportedProblems(JSweetProblem.LAZY_STATIC_INITIALIZATION_CYCLE);
+			Assert.assertEquals("4,3,abc,3,2", r.get("trace"));
+		}, getSourceFile(EagerStaticInitialization.class));
+		transpilerTest().getTranspiler().setEagerStaticInitialization(false);
+		transpilerTest().getTranspiler().setBundle(false);
+	}
+
+	@Test
+	public void testEagerStaticInitializationWithGlobals() {
+		transpilerTest().getTranspiler().setBundle(true);
+		transpilerTest().getTranspiler().setEagerStaticInitialization(true);
+		eval(ModuleKind.none, (h, r) -> {
+			h.assertNoProblems();
+			Assert.assertEquals("50,5,8", r.get("trace"));
+		}, getSourceFile(source.statics.eager.Globals.class), getSourceFile(EagerGlobals.class));
+		transpilerTest().getTranspiler().setEagerStaticInitialization(false);
+		transpilerTest().getTranspiler().setBundle(false);
+	}
+
 	@Test
 	public void testStaticInitializerAsync() {
 		eval((handler, r) -> {
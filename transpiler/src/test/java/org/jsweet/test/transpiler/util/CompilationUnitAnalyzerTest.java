@@ -0,0 +1,113 @@
+package org.jsweet.test.transpiler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jsweet.test.transpiler.AbstractTest;
+import org.jsweet.transpiler.CompilationUnitAnalyzer;
+import org.jsweet.transpiler.ConstAnalyzer;
+import org.jsweet.transpiler.util.ConsoleTranspilationHandler;
+import org.jsweet.transpiler.util.ErrorCountTranspilationHandler;
+import org.jsweet.transpiler.util.Util;
+import org.junit.Test;
+
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.tree.JCTree.JCBlock;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCMethodInvocation;
+import com.sun.tools.javac.tree.TreeScanner;
+
+import source.calculus.IntArithmetic;
+import source.statics.StaticInitializerAsync;
+import source.structural.AnonymousClass;
+import source.structural.ExtendsClassInSameFile;
+import source.structural.LocalClasses;
+
+public class CompilationUnitAnalyzerTest extends AbstractTest {
+
+	@Test
+	public void testParallelAnalysisMatchesSequentialScanners() throws Exception {
+		List<JCCompilationUnit> compilationUnits = transpilerTest().getTranspiler().setupCompiler(
+				Stream.of(IntArithmetic.class, StaticInitializerAsync.class, AnonymousClass.class,
+						ExtendsClassInSameFile.class, LocalClasses.class)
+						.map(c -> getSourceFile(c).getJavaFile()).collect(Collectors.toList()),
+				new ErrorCountTranspilationHandler(new ConsoleTranspilationHandler()));
+
+		List<CompilationUnitAnalyzer> analyzers = CompilationUnitAnalyzer.analyze(compilationUnits);
+		assertEquals(compilationUnits.size(), analyzers.size());
+
+		ConstAnalyzer constAnalyzer = new ConstAnalyzer();
+		Set<VarSymbol> modifiedVariables = new HashSet<>();
+		Set<JCBlock> asyncStaticInitializers = new HashSet<>();
+		for (int i = 0; i < compilationUnits.size(); i++) {
+			JCCompilationUnit compilationUnit = compilationUnits.get(i);
+			CompilationUnitAnalyzer analyzer = analyzers.get(i);
+			assertEquals(compilationUnit, analyzer.getCompilationUnit());
+
+			constAnalyzer.scan(compilationUnit);
+			modifiedVariables.addAll(analyzer.getModifiedVariables());
+			asyncStaticInitializers.addAll(analyzer.getAsyncStaticInitializers());
+
+			List<JCClassDecl> classDeclarations = new ArrayList<>();
+			compilationUnit.accept(new TreeScanner() {
+				@Override
+				public void visitClassDef(JCClassDecl classDeclaration) {
+					classDeclarations.add(classDeclaration);
+					super.visitClassDef(classDeclaration);
+				}
+			});
+			assertEquals(classDeclarations, analyzer.getClassDeclarations());
+		}
+		assertFalse(constAnalyzer.getModifiedVariables().isEmpty());
+		assertEquals(constAnalyzer.getModifiedVariables(), modifiedVariables);
+
+		Set<JCBlock> staticInitializersWithAwait = new HashSet<>();
+		for (JCCompilationUnit compilationUnit : compilationUnits) {
+			compilationUnit.accept(new TreeScanner() {
+				@Override
+				public void visitBlock(JCBlock block) {
+					if (block.isStatic()) {
+						block.accept(new TreeScanner() {
+							@Override
+							public void visitApply(JCMethodInvocation invocation) {
+								Symbol method = Util.getAccessedSymbol(invocation.meth);
+								if (method instanceof MethodSymbol && Util.isAwait((MethodSymbol) method)) {
+									staticInitializersWithAwait.add(block);
+								}
+								super.visitApply(invocation);
+							}
+						});
+					}
+					super.visitBlock(block);
+				}
+			});
+		}
+		assertEquals(1, staticInitializersWithAwait.size());
+		assertEquals(staticInitializersWithAwait, asyncStaticInitializers);
+
+		// the parallel analysis is deterministic
+		List<CompilationUnitAnalyzer> sequentialAnalyzers = new ArrayList<>();
+		for (JCCompilationUnit compilationUnit : compilationUnits) {
+			CompilationUnitAnalyzer analyzer = new CompilationUnitAnalyzer(compilationUnit);
+			analyzer.scan(compilationUnit);
+			sequentialAnalyzers.add(analyzer);
+		}
+		for (int i = 0; i < compilationUnits.size(); i++) {
+			assertEquals(sequentialAnalyzers.get(i).getClassDeclarations(), analyzers.get(i).getClassDeclarations());
+			assertEquals(sequentialAnalyzers.get(i).getModifiedVariables(), analyzers.get(i).getModifiedVariables());
+			assertEquals(sequentialAnalyzers.get(i).getAsyncStaticInitializers(),
+					analyzers.get(i).getAsyncStaticInitializers());
+		}
+	}
+
+}
@@ -4,8 +4,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.StringWriter;
+
 import org.jsweet.test.transpiler.AbstractTest;
 import org.jsweet.transpiler.SourceFile;
+import org.jsweet.transpiler.util.OutputBuffer;
 import org.jsweet.transpiler.util.Util;
 import org.junit.Test;
 
@@ -81,4 +84,36 @@ public class UtilTest extends AbstractTest {
 				searchedClassName);
 		assertFalse(isDeclaration);
 	}
+
+	@Test
+	public void testOutputBuffer() throws Exception {
+		OutputBuffer buffer = new OutputBuffer("  ");
+		buffer.append("class A {").append('\n').append(buffer.getIndentString(2)).append("f();\n}");
+		assertEquals("class A {\n    f();\n}", buffer.toString());
+		assertEquals(3, buffer.getLine());
+		assertEquals(1, buffer.getColumn());
+
+		buffer.truncate(10);
+		assertEquals(2, buffer.getLine());
+		assertEquals(0, buffer.getColumn());
+		buffer.truncate(9);
+		assertEquals(1, buffer.getLine());
+		assertEquals(9, buffer.getColumn());
+		assertEquals("A {", buffer.substring(6));
+
+		StringBuilder expected = new StringBuilder(buffer);
+		for (int i = 0; i < 20000; i++) {
+			buffer.append("line" + i).append('\n');
+			expected.append("line" + i).append('\n');
+		}
+		assertEquals(20001, buffer.getLine());
+		assertEquals(expected.length(), buffer.length());
+		StringWriter writer = new StringWriter();
+		buffer.writeTo(writer);
+		assertEquals(expected.toString(), writer.toString());
+		assertFalse(buffer.isWhitespace());
+		buffer.truncate(0);
+		assertTrue(buffer.isWhitespace());
+		assertEquals(1, buffer.getLine());
+	}
 }
@@ -0,0 +1,19 @@
+package source.api;
+
+import static jsweet.util.Lang.$export;
+
+public class DoubleBits {
+
+	public static void main(String[] args) {
+		long oneAndAHalf = Double.doubleToLongBits(1.5);
+		double minusTwo = Double.longBitsToDouble(-4611686018427387904L);
+		double infinity = Double.longBitsToDouble(9218868437227405312L);
+		double smallest = Double.longBitsToDouble(1L);
+		double roundTrip = Double.longBitsToDouble(Double.doubleToLongBits(-2.25));
+		// not exact when longs are numbers (more than 53 significant bits)
+		boolean pi = Double.longBitsToDouble(4614256656552045848L) == Math.PI;
+		$export("trace", (oneAndAHalf == 4609434218613702656L) + "," + minusTwo + "," + (infinity > Double.MAX_VALUE)
+				+ "," + (smallest == Double.MIN_VALUE) + "," + roundTrip + "," + pi);
+	}
+
+}
@@ -22,6 +22,11 @@ public class Numbers {
 		double d = Double.longBitsToDouble(Double.doubleToLongBits(3.14));
 		assert d!=3.14;
 		assert ((double)Math.round(d*100))/100 == 3.14;
+
+		// float and double conversions used together in the same file
+		assert Float.floatToIntBits(1.5f) == 1069547520;
+		assert Float.intBitsToFloat(Float.floatToIntBits(-2.25f)) == -2.25f;
+		assert Double.longBitsToDouble(Double.doubleToLongBits(-2.25)) == -2.25;
 		
 		$export("trace", trace.join(","));
 	}
@@ -27,8 +27,7 @@ public class Strings {
 		String str1 = "abc";
 		String str2 = "ABC";
 
-		// TODO: fix it on Travis
-		// trace.push(String.valueOf(str1.compareTo(str2)));
+		trace.push(String.valueOf(str1.compareTo(str2)));
 		trace.push(String.valueOf(str1.compareToIgnoreCase(str2)));
 		trace.push(String.valueOf(str1.equals(str2)));
 		trace.push(String.valueOf(str1.equalsIgnoreCase(str2)));
@@ -49,6 +48,9 @@ public class Strings {
 		trace.push(String.valueOf("abc".contains("d")));
 		trace.push(String.valueOf(c));
 		trace.push("a"+c);
+		trace.push(String.valueOf("ab".compareTo("abc")));
+		trace.push("a-b".replace("", "|"));
+		trace.push(String.valueOf("abc".startsWith("bc", 1)));
 		
 		$export("trace", trace.join(","));
 	}
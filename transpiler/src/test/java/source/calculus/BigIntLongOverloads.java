@@ -0,0 +1,38 @@
+package source.calculus;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class BigIntLongOverloads {
+
+	static Array<String> trace = new Array<>();
+
+	static String m(int value) {
+		return "int" + value;
+	}
+
+	static String m(long value) {
+		return "long" + value;
+	}
+
+	static String m(String value) {
+		return "String" + value;
+	}
+
+	static String n(Number value) {
+		return "Number" + value;
+	}
+
+	static String n(String value) {
+		return "String" + value;
+	}
+
+	public static void main(String[] args) {
+		trace.push(m(1), m(2L), m("3"), n(4L), n(5), n("6"));
+		Object boxed = 7L;
+		trace.push("" + (boxed instanceof Long) + (boxed instanceof Integer) + (boxed instanceof Number));
+		$export("trace", trace.join(","));
+	}
+
+}
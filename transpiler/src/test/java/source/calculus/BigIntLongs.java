@@ -0,0 +1,37 @@
+package source.calculus;
+
+import static jsweet.util.Lang.$export;
+
+public class BigIntLongs {
+
+	static long multiply(long a, long b) {
+		return a * b;
+	}
+
+	public static void main(String[] args) {
+		String s = "The quick brown fox jumps over the lazy dog";
+		long h = 1125899906842597L;
+		for (int i = 0; i < s.length(); i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		long max = Long.MAX_VALUE;
+		long big = 9007199254740993L;
+		long shifted = 1L << 62;
+		shifted <<= 1;
+		long unsigned = -1L >>> 60;
+		int i = 1000000;
+		long product = multiply(i, i) * i;
+		int narrowed = (int) product;
+		double d = big;
+		long fromDouble = (long) -2.9e19;
+		long quotient = -7L / 2;
+		quotient += 0.9;
+		boolean equal = big == 9007199254740993L && product > i;
+		long parsed = Long.parseLong("-9223372036854775807");
+		$export("trace", h + "," + (max + 1) + "," + (big + 2) + "," + shifted + "," + unsigned + "," + product + ","
+				+ narrowed + "," + (d == 9.007199254740992E15) + "," + fromDouble + "," + quotient + "," + equal + ","
+				+ Math.abs(parsed - 1) + "," + Math.max(i, -big) + "," + Long.hashCode(big) + ","
+				+ (equal ? product % 7 : i));
+	}
+
+}
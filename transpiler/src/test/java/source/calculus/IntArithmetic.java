@@ -0,0 +1,35 @@
+package source.calculus;
+
+import static jsweet.util.Lang.$export;
+
+public class IntArithmetic {
+
+	public static void main(String[] args) {
+		String s = "The quick brown fox jumps over the lazy dog";
+		int h = 0;
+		for (int i = 0; i < s.length(); i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		int max = Integer.MAX_VALUE;
+		int min = Integer.MIN_VALUE;
+		int a = 123456789;
+		int b = 987654321;
+		int k = 100000;
+		k *= k;
+		int[] values = { 2000000000 };
+		values[0] += values[0];
+		int minusOne = -1;
+		int u = minusOne >>> 0;
+		int x = 5;
+		x += 2.7;
+		boolean flag = x > 0;
+		int y = 10;
+		y += flag ? 1 : 2;
+		int d1 = 5, d2 = 3;
+		int z = 10;
+		z -= d1 - d2;
+		$export("trace", h + "," + (max + 1) + "," + (min - 1) + "," + (-min) + "," + a * b + "," + k + ","
+				+ values[0] + "," + u + "," + x + "," + y + "," + z);
+	}
+
+}
@@ -0,0 +1,47 @@
+/* 
+ * JSweet - http://www.jsweet.org
+ * Copyright (C) 2015 CINCHEO SAS <renaud.pawlak@cincheo.fr>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package source.enums;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class EnumValues {
+
+	enum Phase {
+		INIT, RUN, STOP
+	}
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		for (Phase p : Phase.values()) {
+			trace.push(p.name() + p.ordinal());
+		}
+		Phase[] values = Phase.values();
+		values[0] = Phase.STOP;
+		trace.push(Phase.values()[0].name());
+		// writes to the returned array must not reach the shared values
+		Phase.values()[1] = Phase.INIT;
+		trace.push(Phase.values()[1].name());
+		trace.push("" + Phase.values().length);
+		trace.push(Phase.valueOf("RUN").name());
+		trace.push("" + (values != Phase.values()));
+		$export("trace", trace.join(","));
+	}
+
+}
@@ -0,0 +1,42 @@
+package source.extension;
+
+import static jsweet.util.Lang.$export;
+
+import java.math.BigInteger;
+
+import def.js.Array;
+
+/**
+ * This test is executed without any Java runtime.
+ */
+public class BigIntegers {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		BigInteger a = new BigInteger("123456789012345678901234567890");
+		BigInteger b = BigInteger.valueOf(-987654321);
+		BigInteger m = new BigInteger("ffffffffffffffc5", 16);
+
+		trace.push(a.add(b).toString());
+		trace.push(a.multiply(b).subtract(BigInteger.ONE).toString());
+		trace.push(a.divide(b) + "/" + a.remainder(b) + "/" + b.mod(BigInteger.TEN));
+		trace.push(BigInteger.valueOf(3).modPow(a, m).toString(16));
+		trace.push(a.modInverse(m).toString());
+		trace.push(b.shiftLeft(70) + "/" + b.shiftRight(3) + "/" + b.shiftLeft(-3));
+		trace.push(a.and(b) + "/" + a.or(b) + "/" + a.xor(b) + "/" + b.not() + "/" + a.andNot(b));
+		trace.push(a.compareTo(b) + "/" + b.signum() + "/" + b.abs() + "/" + a.max(b).equals(a));
+		trace.push(BigInteger.TEN.pow(25) + "/" + a.gcd(BigInteger.valueOf(3 * 7 * 11)));
+		trace.push(a.bitLength() + "/" + b.bitLength() + "/" + a.testBit(1) + "/" + BigInteger.ZERO.setBit(65)
+				+ "/" + b.clearBit(0) + "/" + b.flipBit(1));
+		trace.push(a.intValue() + "/" + b.toString(36) + "/" + (a.doubleValue() > 1.2e29));
+		byte[] minus = BigInteger.valueOf(-129).toByteArray();
+		trace.push(new BigInteger(new byte[] { -1, 2, 3 }) + "/" + new BigInteger(-1, new byte[] { 1, 0 }) + "/"
+				+ minus.length + minus[0] + minus[1] + "/" + BigInteger.valueOf(128).toByteArray().length + "/"
+				+ BigInteger.ZERO.toByteArray().length + "/" + new BigInteger(a.negate().toByteArray()).equals(a.negate())
+				+ "/" + BigInteger.valueOf(3).modPow(BigInteger.valueOf(-2), BigInteger.valueOf(7)));
+
+		$export("trace", trace.join(","));
+	}
+
+}
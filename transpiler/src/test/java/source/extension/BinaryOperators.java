@@ -0,0 +1,15 @@
+package source.extension;
+
+import static jsweet.util.Lang.$export;
+
+public class BinaryOperators {
+
+	public static void main(String[] args) {
+		int a = 5, b = 3;
+		int sum = a + b;
+		int shift = a << b;
+		int mask = a | b;
+		$export("trace", sum + "," + shift + "," + mask);
+	}
+
+}
@@ -0,0 +1,64 @@
+package source.functions;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import def.js.Array;
+
+public class HoistedLambdas {
+
+	static Array<String> trace = new Array<>();
+
+	static class Base {
+		Function<Integer, Integer> increment() {
+			return i -> i + 1;
+		}
+	}
+
+	static class Derived extends Base {
+		Function<Integer, Integer> triple() {
+			return i -> i * 3;
+		}
+	}
+
+	int offset = 10;
+
+	static int twice(int i) {
+		return i * 2;
+	}
+
+	static Function<Integer, Integer> doubler() {
+		return HoistedLambdas::twice;
+	}
+
+	static BinaryOperator<Integer> max() {
+		return (a, b) -> a > b ? a : b;
+	}
+
+	static Supplier<Integer> constant(int value) {
+		return () -> value;
+	}
+
+	Function<Integer, Integer> adder() {
+		return i -> i + offset;
+	}
+
+	public static void main(String[] args) {
+		trace.push("" + (doubler() == doubler()) + (max() == max()) + (constant(1) == constant(1)));
+		HoistedLambdas h = new HoistedLambdas();
+		trace.push("" + (h.adder() == h.adder()));
+		trace.push(doubler().apply(21) + "," + max().apply(3, 7) + "," + constant(5).get() + "," + h.adder().apply(1));
+		Derived d = new Derived();
+		trace.push(d.increment().apply(1) + "/" + d.triple().apply(1));
+		Array<Function<Integer, Integer>> functions = new Array<>();
+		for (int i = 0; i < 3; i++) {
+			functions.push(x -> x + 1);
+		}
+		trace.push("" + (functions.$get(0) == functions.$get(2)) + functions.$get(1).apply(1));
+		$export("trace", trace.join(","));
+	}
+
+}
@@ -0,0 +1,55 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class CharsAsNumbers {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		String source = "ab1 + x2";
+		StringBuilder identifiers = new StringBuilder();
+		int digits = 0;
+		for (int i = 0; i < source.length(); i++) {
+			char c = source.charAt(i);
+			if (Character.isDigit(c)) {
+				digits += c - '0';
+			} else if (Character.isLetter(c)) {
+				identifiers.append(Character.toUpperCase(c));
+			}
+		}
+		trace.push(identifiers.toString() + digits);
+
+		char c = 'a';
+		c += 2;
+		c++;
+		trace.push("" + c + (int) c);
+
+		char[] chars = "hello".toCharArray();
+		chars[0] = (char) (chars[0] - 32);
+		trace.push(new String(chars) + chars.length);
+		trace.push(new String(chars, 1, 3) + String.valueOf(chars, 2, 2) + Character.toChars(0x1F600).length
+				+ (int) Character.toChars(66)[0]);
+
+		char[] empty = new char[2];
+		trace.push("" + (int) empty[0]);
+
+		switch (source.charAt(4)) {
+		case '+':
+			trace.push("plus");
+			break;
+		default:
+			trace.push("other");
+		}
+
+		trace.push(String.valueOf('z') + Character.toString('y') + source.indexOf('x'));
+
+		char wrapped = (char) 65537;
+		trace.push("" + (int) wrapped);
+
+		$export("trace", trace.join(","));
+	}
+
+}
@@ -0,0 +1,123 @@
+package source.nativestructures;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+public class Deques {
+
+	public static void main(String[] args) {
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int i = 0; i < 100; i++) {
+			queue.offer(i);
+		}
+		assert queue.size() == 100;
+		assert queue.peek() == 0;
+		int sum = 0;
+		while (!queue.isEmpty()) {
+			int i = queue.poll();
+			sum += i;
+			if (i < 50) {
+				queue.add(i + 100);
+			}
+		}
+		assert sum == 4950 + 50 * 100 + 1225;
+		assert queue.poll() == null;
+
+		Deque<String> deque = new ArrayDeque<>();
+		deque.addFirst("b");
+		deque.addFirst("a");
+		deque.addLast("c");
+		deque.push("0");
+		assert "0".equals(deque.peekFirst());
+		assert "c".equals(deque.peekLast());
+		assert deque.contains("b");
+		assert deque.remove("b");
+		String s = "";
+		for (String e : deque) {
+			s += e;
+		}
+		assert "0ac".equals(s);
+		assert "0".equals(deque.pop());
+		assert "c".equals(deque.pollLast());
+		assert deque.size() == 1;
+
+		Deque<String> list = new LinkedList<>();
+		list.offer("a");
+		list.offerFirst("b");
+		assert "b".equals(list.peek());
+		assert "a".equals(list.removeLast());
+
+		ArrayDeque<String> copy = new ArrayDeque<>(deque);
+		copy.clear();
+		assert copy.isEmpty();
+		assert deque.size() == 1;
+
+		// deques used as collections
+		Deque<String> ring = new ArrayDeque<>();
+		ring.add("x");
+		ring.add("y");
+		ring.addFirst("w");
+		List<String> copiedList = new ArrayList<>(ring);
+		assert copiedList.size() == 3;
+		assert "w".equals(copiedList.get(0));
+		List<String> all = new ArrayList<>();
+		all.add("v");
+		all.addAll(ring);
+		assert all.size() == 4;
+		assert "y".equals(all.get(3));
+		Set<String> copiedSet = new HashSet<>(ring);
+		assert copiedSet.contains("x");
+		Collection<String> collection = ring;
+		String joined = "";
+		for (String e : collection) {
+			joined += e;
+		}
+		assert "wxy".equals(joined);
+		String[] forEachJoined = { "" };
+		collection.forEach(e -> forEachJoined[0] += e);
+		assert "wxy".equals(forEachJoined[0]);
+		assert collection.stream().filter(e -> !e.equals("x")).count() == 2;
+		assert collection.contains("y");
+		collection.add("z");
+		assert "z".equals(ring.peekLast());
+		assert collection.remove("w");
+		assert "x".equals(ring.peekFirst());
+		assert collection.size() == 3;
+
+		// removals in a wrapped ring buffer
+		Deque<Integer> wrapped = new ArrayDeque<>();
+		for (int i = 0; i < 14; i++) {
+			wrapped.addLast(i);
+		}
+		for (int i = 0; i < 10; i++) {
+			wrapped.pollFirst();
+		}
+		for (int i = 14; i < 22; i++) {
+			wrapped.addLast(i);
+		}
+		assert wrapped.removeFirstOccurrence(16);
+		assert !wrapped.remove(99);
+		List<Integer> removed = new ArrayList<>();
+		removed.add(11);
+		removed.add(20);
+		assert wrapped.removeAll(removed);
+		assert wrapped.size() == 9;
+		String remaining = "";
+		for (int e : wrapped) {
+			remaining += e + ",";
+		}
+		assert "10,12,13,14,15,17,18,19,21,".equals(remaining);
+		wrapped.addFirst(9);
+		wrapped.addLast(22);
+		assert wrapped.pollFirst() == 9;
+		assert wrapped.pollLast() == 22;
+	}
+
+}
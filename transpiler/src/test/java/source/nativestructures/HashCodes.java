@@ -0,0 +1,47 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import def.js.Array;
+
+public class HashCodes {
+
+	static Array<String> trace = new Array<>();
+
+	static class Key {
+	}
+
+	public static void main(String[] args) {
+		trace.push("" + "hello".hashCode());
+		Object text = "ab";
+		trace.push("" + text.hashCode());
+		Integer i = 42;
+		Long l = -1L;
+		Long big = 5000000000L;
+		Double d = 1.5;
+		Float f = 1.5f;
+		Boolean b = true;
+		Character c = 'a';
+		trace.push(i.hashCode() + "/" + l.hashCode() + "/" + big.hashCode() + "/" + d.hashCode() + "/" + f.hashCode()
+				+ "/" + b.hashCode() + "/" + c.hashCode() + "/" + Double.hashCode(2));
+		Key k1 = new Key();
+		Key k2 = new Key();
+		trace.push("" + (k1.hashCode() == k1.hashCode()) + (k1.hashCode() != k2.hashCode())
+				+ (System.identityHashCode(k1) == k1.hashCode()));
+		// identity hashes are allocated by a single shared counter
+		trace.push("" + (System.identityHashCode(k1) != System.identityHashCode(k2))
+				+ (System.identityHashCode(new Object()) != System.identityHashCode(new Object())));
+		trace.push(Objects.hash("a", 1) + "/" + Objects.hashCode(null));
+		Set<Key> keys = new HashSet<>();
+		keys.add(k1);
+		keys.add(k2);
+		keys.add(k1);
+		trace.push(keys.size() + "" + keys.contains(k2) + keys.contains(new Key()));
+		$export("trace", trace.join(","));
+	}
+
+}
@@ -0,0 +1,108 @@
+package source.nativestructures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+class CollidingKey {
+	int id;
+
+	public CollidingKey(int id) {
+		this.id = id;
+	}
+
+	@Override
+	public int hashCode() {
+		return id % 2;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+	}
+}
+
+/**
+ * This test is executed without any Java runtime.
+ */
+public class HashCollections {
+
+	public static void main(String[] args) {
+		// put and remove return the previous values
+		Map<CollidingKey, String> m = new HashMap<>();
+		assert m.put(new CollidingKey(1), "a") == null;
+		assert m.put(new CollidingKey(2), "b") == null;
+		assert m.put(new CollidingKey(3), "c") == null;
+		assert "a".equals(m.put(new CollidingKey(1), "A"));
+		assert m.size() == 3;
+		assert "b".equals(m.remove(new CollidingKey(2)));
+		assert m.remove(new CollidingKey(2)) == null;
+		assert m.size() == 2;
+		assert "A".equals(m.get(new CollidingKey(1)));
+		assert "c".equals(m.get(new CollidingKey(3)));
+		m.clear();
+		assert m.get(new CollidingKey(1)) == null;
+		assert m.put(new CollidingKey(1), "x") == null;
+		assert "x".equals(m.get(new CollidingKey(1)));
+
+		// the entry set is a view of the entries
+		for (Entry<CollidingKey, String> e : m.entrySet()) {
+			assert m.entrySet().contains(e);
+		}
+		assert "x".equals(m.get(new CollidingKey(1)));
+
+		// mutations that do not go through the index, keeping the length and
+		// the last element unchanged
+		Set<String> s = new HashSet<>();
+		s.add("a");
+		s.add("b");
+		s.add("c");
+		assert s.contains("b");
+		Collection<String> c = s;
+		List<String> removed = new ArrayList<>();
+		removed.add("b");
+		removed.add("c");
+		c.removeAll(removed);
+		c.add("x");
+		c.add("c");
+		assert s.size() == 3;
+		assert !s.contains("b");
+		assert s.contains("x");
+		assert s.remove("x");
+		assert !s.contains("x");
+		assert s.size() == 2;
+		s.clear();
+		assert !s.contains("a");
+		assert s.add("a");
+		assert !s.add("a");
+		assert s.size() == 1;
+
+		// removals in insertion order
+		Set<Integer> numbers = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			numbers.add(i);
+		}
+		for (int i = 0; i < 50; i++) {
+			assert numbers.remove(i);
+		}
+		assert numbers.size() == 50;
+		for (int i = 0; i < 100; i++) {
+			assert numbers.contains(i) == (i >= 50);
+		}
+		for (int i = 99; i >= 50; i -= 2) {
+			assert numbers.remove(i);
+		}
+		assert numbers.size() == 25;
+		int expected = 50;
+		for (int n : numbers) {
+			assert n == expected;
+			expected += 2;
+		}
+	}
+
+}
@@ -71,6 +71,13 @@ public class NativeStringBuilder {
 		trace.push(result.substring(3));
 		trace.push(result.substring(3, 7));
 
+		result.reverse();
+		trace.push(result.toString());
+
+		result.setCharAt(0, 'Q');
+		result.append("!");
+		trace.push(result.toString() + result.length());
+
 		$export("trace", trace.join(","));
 
 	}
@@ -0,0 +1,45 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class PrimitiveArrayOverloads {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		trace.push(m(new int[] { 1, 2 }));
+		trace.push(m(new double[] { 0.5 }));
+		trace.push(m(new String[] { "a" }));
+		trace.push(m(new int[2][2]));
+		trace.push(m(new byte[1]));
+		trace.push(m(1));
+		$export("trace", trace.join(","));
+	}
+
+	static String m(int[] values) {
+		return "int[]" + values.length;
+	}
+
+	static String m(double[] values) {
+		return "double[]" + values.length;
+	}
+
+	static String m(String[] values) {
+		return "String[]" + values.length;
+	}
+
+	static String m(int[][] values) {
+		return "int[][]" + values[1].length;
+	}
+
+	static String m(byte[] values) {
+		return "byte[]" + values.length;
+	}
+
+	static String m(int value) {
+		return "int" + value;
+	}
+
+}
@@ -0,0 +1,58 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.Arrays;
+
+import def.js.Array;
+
+public class PrimitiveArrays {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		int[] ints = new int[4];
+		ints[1] = 3;
+		trace.push("" + ints.length + ints[0] + ints[1]);
+
+		double[] doubles = { 1.5, 2.5, 0.5 };
+		Arrays.sort(doubles);
+		trace.push("" + doubles[0] + "/" + doubles[2]);
+
+		int[][] matrix = new int[2][3];
+		matrix[1][2] = 7;
+		trace.push("" + matrix.length + matrix[1].length + matrix[1][2]);
+
+		int[] copy = Arrays.copyOf(new int[] { 9, 8, 7 }, 2);
+		trace.push("" + copy.length + copy[0] + copy[1]);
+
+		Arrays.fill(ints, 2);
+		Arrays.fill(ints, 1, 3, 5);
+		trace.push("" + ints[0] + ints[1] + ints[2] + ints[3]);
+
+		System.arraycopy(ints, 0, ints, 1, 3);
+		trace.push("" + ints[0] + ints[1] + ints[2] + ints[3]);
+
+		byte[] bytes = bytes(3);
+		bytes[0] = 1;
+		trace.push("" + bytes.clone()[0] + bytes.length);
+
+		int[] moved = { 1, 2, 3, 4, 5 };
+		System.arraycopy(moved, 1, moved, 0, 4);
+		int[] target = new int[3];
+		System.arraycopy(moved, 2, target, 1, 2);
+		trace.push("" + moved[0] + moved[3] + moved[4] + target[0] + target[1] + target[2]);
+
+		int[] padded = Arrays.copyOf(moved, 7);
+		int[] range = Arrays.copyOfRange(moved, 3, 6);
+		String[] names = Arrays.copyOf(new String[] { "a" }, 2);
+		trace.push("" + padded.length + padded[6] + range.length + range[0] + range[2] + names[1]);
+
+		$export("trace", trace.join(","));
+	}
+
+	static byte[] bytes(int n) {
+		return new byte[n];
+	}
+
+}
@@ -0,0 +1,33 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import def.js.Array;
+
+public class RegExpPatterns {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		Pattern number = Pattern.compile("(\\d+)(x)?");
+		Matcher matcher = number.matcher("a12b345x");
+		while (matcher.find()) {
+			trace.push(matcher.group(1) + ":" + matcher.group(2) + ":" + matcher.start() + "-" + matcher.end());
+		}
+		trace.push("" + number.matcher("12").matches() + number.matcher("12a").matches());
+
+		Pattern greeting = Pattern.compile("hello", Pattern.CASE_INSENSITIVE);
+		trace.push("" + greeting.matcher("HeLLo").matches() + Pattern.matches("\\p{Alpha}+", "abc"));
+
+		String[] parts = Pattern.compile("[,;]\\s*").split("a, b;c");
+		trace.push(parts.length + parts[2]);
+
+		trace.push("a.b".replaceAll(Pattern.quote("."), "/"));
+
+		$export("trace", trace.join(","));
+	}
+
+}
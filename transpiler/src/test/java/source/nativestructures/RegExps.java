@@ -0,0 +1,31 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class RegExps {
+
+	static Array<String> trace = new Array<>();
+
+	static final String SEPARATORS = "[,;]\\s*";
+
+	public static void main(String[] args) {
+		trace.push("a, b;c".replaceAll(SEPARATORS, "-"));
+		trace.push("a.b.c".replaceFirst("\\Q.\\E", "/"));
+		trace.push(String.valueOf("Hello".matches("(?i)h\\p{Alpha}+")));
+		trace.push(String.valueOf("Hello!".matches("\\p{Alpha}+")));
+		trace.push("aaab".replaceAll("a++b", "X"));
+		String[] parts = "a1b22c".split("\\d+");
+		trace.push("" + parts.length + parts[0] + parts[2] + "a,b,,".split(",").length + "a,b,,".split(",", -1).length
+				+ "x.y".split(".").length);
+		for (int i = 0; i < 3; i++) {
+			String pattern = "[0-" + i + "]";
+			trace.push("0123".replaceAll(pattern, "_"));
+			trace.push(String.valueOf(("" + i).matches(pattern)));
+			trace.push("" + "0123".split(pattern).length);
+		}
+		$export("trace", trace.join(","));
+	}
+
+}
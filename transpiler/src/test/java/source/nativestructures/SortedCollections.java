@@ -0,0 +1,100 @@
+package source.nativestructures;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class SortedCollections {
+
+	public static void main(String[] args) {
+		TreeSet<Integer> set = new TreeSet<>();
+		set.add(5);
+		set.add(1);
+		set.add(9);
+		set.add(3);
+		assert !set.add(3);
+		assert set.size() == 4;
+		assert set.first() == 1;
+		assert set.last() == 9;
+		assert set.ceiling(4) == 5;
+		assert set.floor(4) == 3;
+		assert set.higher(5) == 9;
+		assert set.lower(1) == null;
+		assert set.headSet(5).size() == 2;
+		assert set.tailSet(5).size() == 2;
+		assert set.subSet(1, 9).size() == 3;
+		assert set.contains(9);
+		assert set.remove(9);
+		assert !set.contains(9);
+		String s = "";
+		for (int i : set) {
+			s += i;
+		}
+		assert "135".equals(s);
+
+		NavigableSet<String> reversed = new TreeSet<>((a, b) -> b.compareTo(a));
+		reversed.add("a");
+		reversed.add("c");
+		reversed.add("b");
+		assert "c".equals(reversed.first());
+		assert "a".equals(reversed.pollLast());
+
+		Set<Integer> copy = new TreeSet<>(set);
+		copy.add(2);
+		assert copy.size() == 4;
+
+		TreeMap<Integer, String> map = new TreeMap<>();
+		map.put(3, "c");
+		map.put(1, "a");
+		map.put(2, "b");
+		assert "b".equals(map.put(2, "B"));
+		assert map.firstKey() == 1;
+		assert map.lastKey() == 3;
+		assert map.ceilingKey(2) == 2;
+		assert map.higherKey(2) == 3;
+		assert map.floorEntry(0) == null;
+		assert map.headMap(3).size() == 2;
+		assert "B".equals(map.get(2));
+		String keys = "";
+		for (Map.Entry<Integer, String> e : map.entrySet()) {
+			keys += e.getKey() + e.getValue();
+		}
+		assert "1a2B3c".equals(keys);
+		assert "a".equals(map.pollFirstEntry().getValue());
+		assert map.size() == 2;
+		String values = "";
+		for (String value : map.values()) {
+			values += value;
+		}
+		assert "Bc".equals(values);
+
+		Map<String, Integer> sorted = new TreeMap<>();
+		sorted.put("z", 1);
+		sorted.put("b", 2);
+		sorted.put("m", 3);
+		String names = "";
+		for (String name : sorted.keySet()) {
+			names += name;
+		}
+		assert "bmz".equals(names);
+		assert sorted.put("b", 4) == 2;
+		assert sorted.remove("m") == 3;
+		assert sorted.remove("m") == null;
+		sorted.put("c", 5);
+		TreeMap<String, Integer> sortedView = (TreeMap<String, Integer>) sorted;
+		assert "b".equals(sortedView.firstKey());
+		assert "z".equals(sortedView.lastKey());
+		assert "c".equals(sortedView.ceilingKey("bb"));
+		names = "";
+		for (String name : sorted.keySet()) {
+			names += name;
+		}
+		assert "bcz".equals(names);
+		sorted.clear();
+		sorted.put("y", 1);
+		assert "y".equals(sortedView.firstKey());
+	}
+
+}
@@ -0,0 +1,20 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.stream.IntStream;
+
+import def.js.Array;
+
+public class StreamNumerics {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		trace.push("" + IntStream.of(Integer.MAX_VALUE, 1).sum());
+		long count = IntStream.range(0, 5).filter(i -> i > 1).count();
+		trace.push("" + (count + 1L) + (count == 3L));
+		$export("trace", trace.join(","));
+	}
+
+}
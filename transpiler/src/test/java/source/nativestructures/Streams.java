@@ -0,0 +1,57 @@
+package source.nativestructures;
+
+import static jsweet.util.Lang.$export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import def.js.Array;
+
+public class Streams {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		List<String> words = new ArrayList<>(Arrays.asList("stream", "loop", "fusion", "map", "filter", "sum", "loop"));
+
+		trace.push("" + IntStream.range(0, 10).filter(i -> i % 2 == 0).map(i -> i * i).sum());
+		trace.push("" + words.stream().filter(w -> w.length() > 3).count());
+		trace.push("" + words.stream().anyMatch(w -> w.startsWith("f")) + words.stream().allMatch(w -> w.length() > 3)
+				+ words.stream().noneMatch(w -> w.isEmpty()));
+
+		List<Integer> lengths = words.stream().map(w -> w.length()).collect(Collectors.toList());
+		trace.push(lengths.size() + ":" + lengths.get(2));
+		trace.push(words.stream().skip(1).limit(3).map(w -> w.toUpperCase())
+				.collect(Collectors.joining("-", "<", ">")));
+
+		StringBuilder peeked = new StringBuilder();
+		IntStream.rangeClosed(1, 5).peek(i -> peeked.append(i)).limit(3).forEach(i -> peeked.append('.'));
+		trace.push(peeked.toString());
+
+		trace.push(words.stream().sorted().distinct().collect(Collectors.joining(",")));
+		trace.push(words.stream().sorted((w1, w2) -> w2.compareTo(w1)).limit(2).collect(Collectors.joining(",")));
+		trace.push("" + words.stream().flatMap(w -> Arrays.stream(w.split(""))).distinct().count());
+		trace.push(words.stream().filter(w -> w.contains("o"))
+				.flatMap(w -> words.stream().filter(x -> x.length() == w.length()).limit(1)).limit(3)
+				.collect(Collectors.joining()));
+
+		Map<Integer, List<String>> byLength = words.stream().collect(Collectors.groupingBy(w -> w.length()));
+		trace.push(byLength.get(4).size() + "/" + byLength.get(6).get(1));
+		Map<String, List<String>> byInitial = words.stream().collect(Collectors.groupingBy(w -> w.substring(0, 1)));
+		trace.push(byInitial.get("f").size() + "" + byInitial.containsKey("x"));
+
+		trace.push("" + words.stream().mapToInt(w -> w.length()).reduce(0, (l1, l2) -> l1 + l2)
+				+ (words.stream().mapToDouble(w -> w.length() / 2.0).sum() == 16));
+		int[] squares = IntStream.range(0, 4).map(i -> i * i).toArray();
+		trace.push("" + squares.length + squares[3]);
+		trace.push(Arrays.stream(new int[] { 3, 1, 2 }).sorted().mapToObj(i -> "" + i).collect(Collectors.joining())
+				+ IntStream.of(4, 5).boxed().collect(Collectors.toList()).get(1));
+
+		$export("trace", trace.join(","));
+	}
+
+}
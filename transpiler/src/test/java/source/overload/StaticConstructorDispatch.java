@@ -0,0 +1,48 @@
+package source.overload;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class StaticConstructorDispatch {
+
+	public static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		new StaticConstructorDispatch("a");
+		new StaticConstructorDispatch(1);
+		new StaticConstructorDispatch((Integer) null);
+		new StaticConstructorDispatch();
+		StaticConstructorDispatch d = new StaticConstructorDispatch(2, "b");
+		d.new Inner("c");
+		d.new Inner(3);
+		$export("trace", trace.join(","));
+	}
+
+	StaticConstructorDispatch(String s) {
+		trace.push("s:" + s);
+	}
+
+	StaticConstructorDispatch(Integer i) {
+		trace.push("i:" + i);
+	}
+
+	StaticConstructorDispatch(int i, String s) {
+		trace.push("is:" + i + s);
+	}
+
+	StaticConstructorDispatch() {
+		this("default");
+	}
+
+	class Inner {
+		Inner(String s) {
+			trace.push("inner-s:" + s);
+		}
+
+		Inner(int i) {
+			trace.push("inner-i:" + i);
+		}
+	}
+
+}
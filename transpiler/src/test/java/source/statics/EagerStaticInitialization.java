@@ -0,0 +1,50 @@
+package source.statics;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class EagerStaticInitialization {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		trace.push("" + First.value, "" + Second.value, Third.name, "" + CycleA.a, "" + CycleB.b);
+		$export("trace", trace.join(","));
+	}
+
+}
+
+class First {
+	static int value = Second.value + 1;
+}
+
+class Second {
+	static int value = length();
+
+	static int length() {
+		return Third.name.length();
+	}
+}
+
+class Third {
+	static String name;
+
+	static {
+		name = "abc";
+	}
+}
+
+class CycleA {
+	static int base = compute(1);
+	static int a = CycleB.base + 1;
+
+	static int compute(int i) {
+		return i;
+	}
+}
+
+class CycleB {
+	static int base = CycleA.compute(2);
+	static int b = CycleA.base + 1;
+}
@@ -0,0 +1,32 @@
+package source.statics.eager;
+
+import static jsweet.util.Lang.$export;
+
+import def.js.Array;
+
+public class EagerGlobals {
+
+	static Array<String> trace = new Array<>();
+
+	public static void main(String[] args) {
+		trace.push("" + Globals.fromLoaded, "" + Loaded.value, "" + Unrelated.value);
+		$export("trace", trace.join(","));
+	}
+
+}
+
+class Loaded {
+	static int value = LoadedDependency.value + 1;
+}
+
+class LoadedDependency {
+	static int value = compute();
+
+	static int compute() {
+		return 4;
+	}
+}
+
+class Unrelated {
+	static int value = LoadedDependency.compute() * 2;
+}
@@ -0,0 +1,7 @@
+package source.statics.eager;
+
+public class Globals {
+
+	static int fromLoaded = Loaded.value * 10;
+
+}